@@ -0,0 +1,21 @@
+package com.grad.social.common.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Concurrent calls of the annotated method with equal arguments share one execution: the first caller runs it,
+ * the callers arriving while it is in flight wait for its result (or its exception). Nothing is kept once it completes.
+ * Meant for read methods whose arguments have value equality and whose result is not mutated by callers,
+ * it must not be used inside a transaction that has to see its own writes.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Singleflight {
+
+    // the method tag of the metrics, "Class.method" by default
+    String name() default "";
+
+}
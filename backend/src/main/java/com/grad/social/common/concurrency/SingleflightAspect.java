@@ -0,0 +1,70 @@
+package com.grad.social.common.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Runs the {@link Singleflight} methods, calls are keyed by method and arguments.
+ * Metrics: singleflight.calls{method, role=leader|follower}, followers are the calls collapsed into a leader's execution,
+ * singleflight.inflight is the number of executions currently shared.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class SingleflightAspect {
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<CallKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerGauge() {
+        meterRegistry.gaugeMapSize("singleflight.inflight", List.of(), inFlight);
+    }
+
+    @Around("@annotation(singleflight)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, Singleflight singleflight) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        CallKey key = new CallKey(method, Arrays.asList(joinPoint.getArgs()));
+        String name = singleflight.name().isEmpty() ? method.getDeclaringClass().getSimpleName() + "." + method.getName() : singleflight.name();
+
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> leader = this.inFlight.putIfAbsent(key, call);
+        if (leader != null) {
+            meterRegistry.counter("singleflight.calls", "method", name, "role", "follower").increment();
+            try {
+                return leader.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+
+        meterRegistry.counter("singleflight.calls", "method", name, "role", "leader").increment();
+        try {
+            Object result = joinPoint.proceed();
+            call.complete(result);
+            return result;
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            // late callers start a new execution, they must not get a result read before their own write
+            this.inFlight.remove(key, call);
+        }
+    }
+
+    private record CallKey(Method method, List<Object> args) {}
+
+}
@@ -4,4 +4,7 @@ public class RedisConstants {
     public static final String USERS_SESSION_KEY_PREFIX = "user:sessions:";
     public static final String USERS_SESSION_META_PREFIX = "user:meta:";
     public static final String LAST_ONLINE_HASH_KEY = "last_online_at";
+    public static final String STATUS_SKELETON_PREFIX = "status:skeleton:v2:";
+    public static final String MODERATION_RESULT_PREFIX = "moderation:result:";
+    public static final String RANKED_FEED_PREFIX = "feed:ranked:";
 }
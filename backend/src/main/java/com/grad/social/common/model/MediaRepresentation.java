@@ -11,6 +11,8 @@ public class MediaRepresentation {
     private String contentHashed;
     private String mimeType;
     private long sizeInBytes;
+    private Integer width;
+    private Integer height;
     private int refCount;
 
     public MediaRepresentation(String fileNameHashed, String contentHashed, String mimeType, long sizeInBytes) {
@@ -0,0 +1,124 @@
+package com.grad.social.common.utils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Multi-pattern matcher (Aho-Corasick automaton compiled to a dense transition table), finds every occurrence of every pattern
+ * in one pass over the text whatever the number of patterns. Patterns only match whole words: they must not be preceded
+ * or followed by a letter or a digit. Matching is case-sensitive, callers normalize both patterns and text.
+ * Immutable, safe to share once built.
+ */
+public final class AhoCorasickMatcher {
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final int[] charClasses = new int[Character.MAX_VALUE + 1]; // 0 for the chars of no pattern
+    private final int alphabetSize;
+    private final int[] transitions; // state * alphabetSize + charClass -> state
+    private final int[][] outputs;   // state -> ids of the patterns ending there (including those of its suffixes)
+    private final int[] lengths;     // pattern id -> length
+
+    public AhoCorasickMatcher(List<String> patterns) {
+        int classes = 1;
+        int maxStates = 1;
+        for (String pattern : patterns) {
+            for (char c : pattern.toCharArray()) {
+                if (charClasses[c] == 0) {
+                    charClasses[c] = classes++;
+                }
+            }
+            maxStates += pattern.length();
+        }
+        this.alphabetSize = classes;
+        this.lengths = patterns.stream().mapToInt(String::length).toArray();
+
+        // trie
+        int[] trie = new int[maxStates * alphabetSize];
+        Arrays.fill(trie, -1);
+        int[][] ends = new int[maxStates][];
+        int states = 1;
+        for (int id = 0; id < patterns.size(); id++) {
+            int state = 0;
+            for (char c : patterns.get(id).toCharArray()) {
+                int slot = state * alphabetSize + charClasses[c];
+                if (trie[slot] == -1) {
+                    trie[slot] = states++;
+                }
+                state = trie[slot];
+            }
+            ends[state] = append(ends[state], id);
+        }
+
+        // failure links (breadth first), missing transitions are resolved through them so that matching never backtracks
+        int[] failure = new int[states];
+        this.outputs = new int[states][];
+        this.outputs[0] = ends[0] == null ? NO_OUTPUT : ends[0];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < alphabetSize; c++) {
+            int next = trie[c];
+            if (next == -1) {
+                trie[c] = 0;
+            } else {
+                failure[next] = 0;
+                outputs[next] = ends[next] == null ? NO_OUTPUT : ends[next];
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int c = 0; c < alphabetSize; c++) {
+                int slot = state * alphabetSize + c;
+                int next = trie[slot];
+                int fallback = trie[failure[state] * alphabetSize + c];
+                if (next == -1) {
+                    trie[slot] = fallback;
+                } else {
+                    failure[next] = fallback;
+                    outputs[next] = merge(ends[next], outputs[fallback]);
+                    queue.add(next);
+                }
+            }
+        }
+        this.transitions = Arrays.copyOf(trie, states * alphabetSize);
+    }
+
+    // calls onMatch with the id (index in the patterns list) of every whole-word occurrence in text[0, length)
+    public void match(char[] text, int length, IntConsumer onMatch) {
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            state = transitions[state * alphabetSize + charClasses[text[i]]];
+            for (int id : outputs[state]) {
+                int start = i - lengths[id] + 1;
+                if ((start == 0 || !Character.isLetterOrDigit(text[start - 1])) && (i + 1 == length || !Character.isLetterOrDigit(text[i + 1]))) {
+                    onMatch.accept(id);
+                }
+            }
+        }
+    }
+
+
+    // Helpers
+    private static int[] append(int[] ids, int id) {
+        if (ids == null) {
+            return new int[]{id};
+        }
+        int[] appended = Arrays.copyOf(ids, ids.length + 1);
+        appended[ids.length] = id;
+        return appended;
+    }
+
+    private static int[] merge(int[] own, int[] inherited) {
+        if (own == null) {
+            return inherited;
+        }
+        if (inherited.length == 0) {
+            return own;
+        }
+        int[] merged = Arrays.copyOf(own, own.length + inherited.length);
+        System.arraycopy(inherited, 0, merged, own.length, inherited.length);
+        return merged;
+    }
+
+}
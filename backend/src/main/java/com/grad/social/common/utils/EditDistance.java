@@ -0,0 +1,90 @@
+package com.grad.social.common.utils;
+
+/**
+ * Levenshtein distance for callers that only need to know whether two texts are within some distance of each other.
+ * The common prefix and suffix are skipped, then only the diagonal band of width 2 * maxDistance + 1 of the matrix is computed,
+ * two rows at a time, stopping as soon as a whole row exceeds maxDistance: O(min(n, m) * maxDistance) time.
+ * Rows are reused per thread (up to MAX_CACHED_ROW_LENGTH chars) so that the check does not allocate.
+ */
+public final class EditDistance {
+    private static final int MAX_CACHED_ROW_LENGTH = 4096;
+    private static final ThreadLocal<int[][]> ROWS = ThreadLocal.withInitial(() -> new int[2][256]);
+
+    private EditDistance() {
+    }
+
+    public static int distance(CharSequence a, CharSequence b) {
+        return boundedDistance(a, b, Integer.MAX_VALUE);
+    }
+
+    // the exact distance when it does not exceed maxDistance, maxDistance + 1 otherwise
+    public static int boundedDistance(CharSequence a, CharSequence b, int maxDistance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must not be negative");
+        }
+        int start = 0, endA = a.length(), endB = b.length();
+        while (start < endA && start < endB && a.charAt(start) == b.charAt(start)) {
+            start++;
+        }
+        while (endA > start && endB > start && a.charAt(endA - 1) == b.charAt(endB - 1)) {
+            endA--;
+            endB--;
+        }
+        int n = endA - start, m = endB - start;
+        int max = Math.min(maxDistance, Math.max(n, m));
+        int exceeded = max + 1;
+        if (Math.abs(n - m) > max) {
+            return exceeded;
+        }
+        if (n == 0 || m == 0) {
+            return Math.max(n, m);
+        }
+
+        int[][] rows = rows(m + 1);
+        int[] previous = rows[0], current = rows[1];
+        for (int j = 0; j <= Math.min(m, max); j++) {
+            previous[j] = j;
+        }
+        if (max < m) {
+            previous[max + 1] = exceeded;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max), to = Math.min(m, i + max);
+            current[from - 1] = from == 1 && i <= max ? i : exceeded;
+            int rowMin = current[from - 1];
+            char c = a.charAt(start + i - 1);
+            for (int j = from; j <= to; j++) {
+                int cell = previous[j - 1] + (c == b.charAt(start + j - 1) ? 0 : 1);
+                cell = Math.min(cell, previous[j] + 1);
+                cell = Math.min(cell, current[j - 1] + 1);
+                current[j] = Math.min(cell, exceeded);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < m) {
+                current[to + 1] = exceeded; // read as the cell above by the next row
+            }
+            if (rowMin > max) {
+                return exceeded;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m];
+    }
+
+
+    // Helpers
+    private static int[][] rows(int length) {
+        if (length > MAX_CACHED_ROW_LENGTH) {
+            return new int[2][length];
+        }
+        int[][] rows = ROWS.get();
+        if (rows[0].length < length) {
+            rows = new int[2][Math.max(length, Math.min(MAX_CACHED_ROW_LENGTH, rows[0].length * 2))];
+            ROWS.set(rows);
+        }
+        return rows;
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.grad.social.common.utils;
+
+import java.util.Collection;
+
+/**
+ * Read-mostly set of primitive longs (open addressing with linear probing), without the boxing and the per-entry objects of a HashSet<Long>.
+ * Not thread safe while being built, safe to share once fully built.
+ */
+public final class LongHashSet {
+    private static final long EMPTY = 0L; // 0 is stored aside
+
+    private long[] table;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet(int expectedSize) {
+        // load factor <= 0.5
+        this.table = new long[tableSizeFor(expectedSize)];
+    }
+
+    public static LongHashSet of(Collection<Long> values) {
+        LongHashSet set = new LongHashSet(values.size());
+        values.forEach(set::add);
+        return set;
+    }
+
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            boolean added = !containsZero;
+            containsZero = true;
+            size += added ? 1 : 0;
+            return added;
+        }
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        int mask = table.length - 1;
+        for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+            if (table[i] == EMPTY) {
+                table[i] = value;
+                size++;
+                return true;
+            }
+            if (table[i] == value) {
+                return false;
+            }
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+            if (table[i] == EMPTY) {
+                return false;
+            }
+            if (table[i] == value) {
+                return true;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    // Helpers
+    private void rehash(int newCapacity) {
+        long[] old = table;
+        table = new long[newCapacity];
+        size = containsZero ? 1 : 0;
+        for (long value : old) {
+            if (value != EMPTY) {
+                add(value);
+            }
+        }
+    }
+
+    // ids are often sequential or time based, spread them before masking
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 2;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+}
@@ -7,16 +7,26 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 @Service
 @Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class FileSystemUtils {
+    private static final int INGEST_BUFFER_SIZE = 64 * 1024;
 
     public static Path resolvePath(String hashedFileName) {
         String storagePath = AppConstants.UPLOAD_DIR;
@@ -32,6 +42,46 @@ public class FileSystemUtils {
         }
     }
 
+    /**
+     * Streams an upload to a temp file of the upload directory while hashing it (SHA-256), the content is read once.
+     * The caller then either commits it under its content-addressed name or discards it (e.g. when the content is already stored).
+     */
+    public static IngestedFile ingest(InputStream fileStream) throws IOException {
+        return ingest(fileStream, Paths.get(AppConstants.UPLOAD_DIR));
+    }
+
+    public static IngestedFile ingest(InputStream fileStream, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, "upload-", ".part");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+             DigestOutputStream out = new DigestOutputStream(Channels.newOutputStream(channel), sha256())) {
+            byte[] buffer = new byte[INGEST_BUFFER_SIZE];
+            long size = 0;
+            int n;
+            while ((n = fileStream.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+                size += n;
+            }
+            out.flush();
+            return new IngestedFile(tempFile, HexFormat.of().formatHex(out.getMessageDigest().digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    // atomic rename within the upload directory, readers never see a partially written file
+    public static void commit(IngestedFile ingestedFile, String hashedFileName) throws IOException {
+        Path target = resolvePath(hashedFileName);
+        Files.createDirectories(target.getParent());
+        Files.move(ingestedFile.tempFile(), target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Saved file = %s".formatted(hashedFileName));
+    }
+
+    public static void discard(IngestedFile ingestedFile) throws IOException {
+        Files.deleteIfExists(ingestedFile.tempFile());
+    }
+
     public static FileSystemResource loadFile(String hashedFileName) {
         Path path = resolvePath(hashedFileName);
         return new FileSystemResource(path);
@@ -45,4 +95,15 @@ public class FileSystemUtils {
         }
     }
 
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record IngestedFile(Path tempFile, String contentHash, long sizeInBytes) {
+    }
+
 }
@@ -4,10 +4,15 @@ import com.grad.social.model.enums.MediaType;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.util.HexFormat;
+import java.util.Iterator;
 
 import static com.grad.social.model.enums.MediaType.*;
 
@@ -24,23 +29,6 @@ public class MediaUtils {
         return HexFormat.of().formatHex(digest.digest());
     }
 
-    public static String hashFileName(String originalFileName) throws Exception {
-        if(originalFileName == null) {
-            throw new IllegalArgumentException("Original name cannot be null");
-        }
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hashedBytes = digest.digest(originalFileName.getBytes(StandardCharsets.UTF_8));
-        return bytesToHex(hashedBytes);
-    }
-
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
-    }
-
     public static String getExtension(String filename) {
         if(filename == null) return "";
         int idx = filename.lastIndexOf('.');
@@ -54,4 +42,27 @@ public class MediaUtils {
             case null, default -> MediaType.OTHER;
         };
     }
-}
\ No newline at end of file
+
+    // read from the image header, the pixels are not decoded; null when the file is not an image the JDK can read (e.g. webp)
+    // or when its header is malformed (decoders throw runtime exceptions on some corrupt headers, the upload must not fail for it)
+    public static ImageDimensions readImageDimensions(Path file) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return new ImageDimensions(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public record ImageDimensions(int width, int height) {
+    }
+}
@@ -0,0 +1,263 @@
+package com.grad.social.controller.media;
+
+import com.grad.social.common.model.MediaRepresentation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a stored media file to the response, whole or the byte ranges of the Range header: single ranges, open ranges (bytes=500-),
+ * suffix ranges (bytes=-500) and multiple ranges (as multipart/byteranges), honoring If-Range, 416 when no range is satisfiable.
+ * A whole file or a single range is handed to Tomcat's sendfile when the connector supports it (NIO without TLS): the kernel copies
+ * the file to the socket and the bytes never reach the heap. Otherwise, and for multipart responses, the ranges are transferred
+ * from the FileChannel to the response at their position, without reading what precedes them.
+ * A media id always serves the same bytes (assets are content-addressed): responses carry a strong ETag (the content hash),
+ * Last-Modified and an immutable Cache-Control, and conditional requests (If-None-Match, If-Modified-Since) get a 304
+ * without the file being opened. The Cache-Control is public only for media that anyone may fetch (shared by PUBLIC statuses alone),
+ * other media are private to the browser that fetched them. An original served in place of an image variant not generated yet
+ * is sent as no-cache instead.
+ */
+@Component
+public class MediaStreamer {
+    // request attributes of Tomcat's sendfile support (org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private static final String BYTES_UNIT = "bytes=";
+    // more ranges than that (or ranges adding up to more than the file) are rejected rather than served
+    private static final int MAX_RANGES = 16;
+    private static final String CRLF = "\r\n";
+    private static final long ABSENT = -1;
+    private static final long INVALID = -2;
+
+    private final String sharedCacheControl;
+    private final String privateCacheControl;
+
+    public MediaStreamer(@Value("${media.cache-control.max-age-seconds:31536000}") long maxAgeSeconds) {
+        this.sharedCacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic().immutable().getHeaderValue();
+        this.privateCacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePrivate().immutable().getHeaderValue();
+    }
+
+    // immutable: whether the file is what its url will always serve (an original standing in for a variant being generated is not)
+    // shared: whether shared caches (proxies, CDNs) may keep it, see MediaService#authorize
+    public void stream(MediaRepresentation media, Path file, boolean immutable, boolean shared,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = etagOf(media);
+        // HTTP dates have a one second precision
+        long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+        String cacheControl = shared ? sharedCacheControl : privateCacheControl;
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? cacheControl : CacheControl.noCache().getHeaderValue());
+        // also sets the ETag and Last-Modified headers
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+            String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+            List<ByteRange> ranges = rangeHeader == null || !isIfRangeSatisfied(request, etag, lastModified) ? null : parseRanges(rangeHeader, length);
+            if (ranges == null) {
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType(media.getMimeType());
+                response.setContentLengthLong(length);
+                this.send(file, channel, new ByteRange(0, length - 1), request, response);
+            } else if (ranges.isEmpty()) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            } else if (ranges.size() == 1) {
+                ByteRange range = ranges.getFirst();
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setContentType(media.getMimeType());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, range.contentRange(length));
+                response.setContentLengthLong(range.length());
+                this.send(file, channel, range, request, response);
+            } else {
+                this.sendMultipart(media, channel, length, ranges, request, response);
+            }
+        }
+    }
+
+    /**
+     * The satisfiable ranges of a Range header, in the order they were asked, clamped to the file.
+     * Null when the header must be ignored (not in bytes or malformed, the whole file is then sent),
+     * empty when none is satisfiable or they are too many to be served (416).
+     */
+    static List<ByteRange> parseRanges(String header, long length) {
+        if (!header.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+            return null;
+        }
+        String[] specs = header.substring(BYTES_UNIT.length()).split(",", -1);
+        if (specs.length > MAX_RANGES) {
+            return List.of();
+        }
+        List<ByteRange> ranges = new ArrayList<>(specs.length);
+        long total = 0;
+        for (String spec : specs) {
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            long first = parsePosition(spec.substring(0, dash).strip());
+            long last = parsePosition(spec.substring(dash + 1).strip());
+            if (first == INVALID || last == INVALID) {
+                return null;
+            }
+            ByteRange range;
+            if (first == ABSENT) {
+                // suffix range: the last bytes of the file
+                if (last == ABSENT) {
+                    return null;
+                }
+                range = new ByteRange(Math.max(0, length - last), length - 1);
+            } else {
+                if (last != ABSENT && last < first) {
+                    return null;
+                }
+                range = new ByteRange(first, last == ABSENT ? length - 1 : Math.min(last, length - 1));
+            }
+            if (range.start() < length && range.start() <= range.end()) {
+                ranges.add(range);
+                total += range.length();
+            }
+        }
+        return total > length ? List.of() : ranges;
+    }
+
+    public record ByteRange(long start, long end) {
+
+        public long length() {
+            return end - start + 1;
+        }
+
+        String contentRange(long fileLength) {
+            return "bytes " + start + "-" + end + "/" + fileLength;
+        }
+    }
+
+
+    // Helpers
+    // Tomcat's sendfile when available, the channel otherwise
+    private void send(Path file, FileChannel channel, ByteRange range, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (HttpMethod.HEAD.matches(request.getMethod()) || range.length() <= 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, range.start());
+            request.setAttribute(SENDFILE_END_ATTR, range.end() + 1); // exclusive
+            return;
+        }
+        transfer(channel, range, Channels.newChannel(response.getOutputStream()));
+    }
+
+    // the Content-Length of a multipart response is known upfront: the part headers are built before anything is written
+    private void sendMultipart(MediaRepresentation media, FileChannel channel, long length, List<ByteRange> ranges,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (ByteRange range : ranges) {
+            byte[] partHeader = (CRLF + "--" + boundary + CRLF
+                    + HttpHeaders.CONTENT_TYPE + ": " + media.getMimeType() + CRLF
+                    + HttpHeaders.CONTENT_RANGE + ": " + range.contentRange(length) + CRLF + CRLF).getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + range.length();
+        }
+        byte[] closingDelimiter = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+        contentLength += closingDelimiter.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        for (int i = 0; i < ranges.size(); i++) {
+            write(out, partHeaders.get(i));
+            transfer(channel, ranges.get(i), out);
+        }
+        write(out, closingDelimiter);
+    }
+
+    private static void transfer(FileChannel channel, ByteRange range, WritableByteChannel out) throws IOException {
+        long position = range.start();
+        long remaining = range.length();
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, out);
+            if (transferred <= 0) {
+                throw new EOFException("Media file truncated while being sent");
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    private static void write(WritableByteChannel out, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    // an entity tag must match the strong ETag of the media, a date the last modification of its file, otherwise the whole file is sent
+    private static boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag); // weak tags never match
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    static String etagOf(MediaRepresentation media) {
+        return "\"" + media.getContentHashed() + "\"";
+    }
+
+    // the non-negative number of a range position, ABSENT or INVALID (not a number, or beyond any file)
+    private static long parsePosition(String position) {
+        if (position.isEmpty()) {
+            return ABSENT;
+        }
+        if (position.length() > 18) {
+            return INVALID;
+        }
+        for (int i = 0; i < position.length(); i++) {
+            if (position.charAt(i) < '0' || position.charAt(i) > '9') {
+                return INVALID;
+            }
+        }
+        return Long.parseLong(position);
+    }
+
+}
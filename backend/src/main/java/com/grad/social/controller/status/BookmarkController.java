@@ -1,5 +1,6 @@
 package com.grad.social.controller.status;
 
+import com.grad.social.model.shared.CursorPage;
 import com.grad.social.model.status.response.StatusResponse;
 import com.grad.social.service.status.BookmarkService;
 import lombok.RequiredArgsConstructor;
@@ -9,8 +10,6 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/bookmarks")
 @RequiredArgsConstructor
@@ -33,8 +32,8 @@ public class BookmarkController {
     }
 
     @GetMapping
-    public ResponseEntity<List<StatusResponse>> listBookmarks(@AuthenticationPrincipal Jwt jwt, @RequestParam(defaultValue = "0") int page) {
+    public ResponseEntity<CursorPage<StatusResponse>> listBookmarks(@AuthenticationPrincipal Jwt jwt, @RequestParam(required = false) String cursor) {
         Long currentUserId = Long.valueOf(jwt.getClaimAsString("uid"));
-        return ResponseEntity.ok(this.bookmarkService.getUserBookmarks(currentUserId, page));
+        return ResponseEntity.ok(this.bookmarkService.getUserBookmarks(currentUserId, cursor));
     }
 }
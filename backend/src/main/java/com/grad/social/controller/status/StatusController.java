@@ -1,11 +1,13 @@
 package com.grad.social.controller.status;
 
 import com.grad.social.model.shared.TimestampSeekRequest;
+import com.grad.social.model.status.StatusConstants;
 import com.grad.social.model.status.request.CreateStatusRequest;
 import com.grad.social.model.status.request.ReactToStatusRequest;
 import com.grad.social.model.status.request.UpdateStatusContent;
 import com.grad.social.model.status.request.UpdateStatusSettings;
 import com.grad.social.model.status.response.ReplySnippet;
+import com.grad.social.model.status.response.StatusThreadResponse;
 import com.grad.social.model.status.response.StatusWithRepliesResponse;
 import com.grad.social.service.status.StatusService;
 import com.grad.social.service.user.UserStatusInteractionService;
@@ -49,6 +51,16 @@ public class StatusController {
         return ResponseEntity.ok(this.userStatusInteractionService.getStatusById(currentUserId, Long.parseLong(statusId)));
     }
 
+    // expand the conversation below a status (open endpoint)
+    @GetMapping("/status/public/{statusId}/thread")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<StatusThreadResponse> fetchThread(@AuthenticationPrincipal Jwt jwt, @PathVariable String statusId,
+                                                            @RequestParam(defaultValue = "" + StatusConstants.THREAD_DEFAULT_DEPTH) int depth,
+                                                            @RequestParam(defaultValue = "" + StatusConstants.THREAD_DEFAULT_BRANCHES) int branches) {
+        Long currentUserId = jwt == null? -1 : Long.parseLong(jwt.getClaimAsString("uid"));
+        return ResponseEntity.ok(this.userStatusInteractionService.fetchThread(currentUserId, Long.parseLong(statusId), depth, branches));
+    }
+
     @PostMapping ("/status/{statusId}/replies")
     public ResponseEntity<List<ReplySnippet>> fetchMoreReplies(@AuthenticationPrincipal Jwt jwt, @PathVariable String statusId,
                                                                @RequestBody(required = false) TimestampSeekRequest seekRequest) {
@@ -1,6 +1,8 @@
 package com.grad.social.controller.user;
 
 import com.grad.social.model.enums.Gender;
+import com.grad.social.model.feed.FeedMode;
+import com.grad.social.model.shared.CursorPage;
 import com.grad.social.model.shared.TimestampSeekRequest;
 import com.grad.social.model.status.response.FeedResponse;
 import com.grad.social.model.status.response.StatusMediaResponse;
@@ -25,7 +27,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDate;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api")
@@ -73,36 +74,37 @@ public class UserController {
     }
 
     @GetMapping("/users/feed")
-    public ResponseEntity<FeedResponse> fetchUserFeed(@AuthenticationPrincipal Jwt jwt, @RequestParam(defaultValue = "0") int page) {
+    public ResponseEntity<FeedResponse> fetchUserFeed(@AuthenticationPrincipal Jwt jwt, @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "CHRONOLOGICAL") FeedMode mode) {
         Long currentUserId = Long.parseLong(jwt.getClaimAsString("uid"));
-        return ResponseEntity.ok(this.userStatusInteractionService.fetchUserFeed(currentUserId, page));
+        return ResponseEntity.ok(this.userStatusInteractionService.fetchUserFeed(currentUserId, cursor, mode));
     }
 
     @GetMapping("/users/{profileOwnerId}/posts")
-    public ResponseEntity<List<StatusResponse>> fetchUserPosts(@AuthenticationPrincipal Jwt jwt, @PathVariable("profileOwnerId") Long profileOwnerId,
-                                                               @RequestParam(defaultValue = "0") int page) {
+    public ResponseEntity<CursorPage<StatusResponse>> fetchUserPosts(@AuthenticationPrincipal Jwt jwt, @PathVariable("profileOwnerId") Long profileOwnerId,
+                                                                     @RequestParam(required = false) String cursor) {
         Long currentUserId = Long.parseLong(jwt.getClaimAsString("uid"));
-        return ResponseEntity.ok(this.userStatusInteractionService.fetchUserPosts(currentUserId, profileOwnerId, page));
+        return ResponseEntity.ok(this.userStatusInteractionService.fetchUserPosts(currentUserId, profileOwnerId, cursor));
     }
 
     @GetMapping("/users/{profileOwnerId}/replies")
-    public ResponseEntity<List<StatusResponse>> fetchUserReplies(@AuthenticationPrincipal Jwt jwt, @PathVariable("profileOwnerId") Long profileOwnerId,
-                                                                 @RequestParam(defaultValue = "0") int page) {
+    public ResponseEntity<CursorPage<StatusResponse>> fetchUserReplies(@AuthenticationPrincipal Jwt jwt, @PathVariable("profileOwnerId") Long profileOwnerId,
+                                                                       @RequestParam(required = false) String cursor) {
         Long currentUserId = Long.parseLong(jwt.getClaimAsString("uid"));
-        return ResponseEntity.ok(this.userStatusInteractionService.fetchUserReplies(currentUserId, profileOwnerId, page));
+        return ResponseEntity.ok(this.userStatusInteractionService.fetchUserReplies(currentUserId, profileOwnerId, cursor));
     }
 
     @GetMapping("/users/{profileOwnerId}/media")
-    public ResponseEntity<List<StatusMediaResponse>> fetchUserMedia(@AuthenticationPrincipal Jwt jwt, @PathVariable("profileOwnerId") Long profileOwnerId,
-                                                                    @RequestParam(defaultValue = "0") int page) {
+    public ResponseEntity<CursorPage<StatusMediaResponse>> fetchUserMedia(@AuthenticationPrincipal Jwt jwt, @PathVariable("profileOwnerId") Long profileOwnerId,
+                                                                          @RequestParam(required = false) String cursor) {
         Long currentUserId = Long.parseLong(jwt.getClaimAsString("uid"));
-        return ResponseEntity.ok(this.userStatusInteractionService.fetchUserMedia(currentUserId, profileOwnerId, page));
+        return ResponseEntity.ok(this.userStatusInteractionService.fetchUserMedia(currentUserId, profileOwnerId, cursor));
     }
 
     @GetMapping("/users/likes")
-    public ResponseEntity<List<StatusResponse>> fetchStatusesLiked(@AuthenticationPrincipal Jwt jwt, @RequestParam(defaultValue = "0") int page) {
+    public ResponseEntity<CursorPage<StatusResponse>> fetchStatusesLiked(@AuthenticationPrincipal Jwt jwt, @RequestParam(required = false) String cursor) {
         Long currentUserId = Long.parseLong(jwt.getClaimAsString("uid"));
-        return ResponseEntity.ok(this.userStatusInteractionService.fetchStatusesLiked(currentUserId, page));
+        return ResponseEntity.ok(this.userStatusInteractionService.fetchStatusesLiked(currentUserId, cursor));
     }
 
 
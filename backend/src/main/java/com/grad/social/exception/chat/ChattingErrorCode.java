@@ -8,7 +8,8 @@ public enum ChattingErrorCode implements ErrorCode {
     // chats
 
     // messages
-    MESSAGE_BODY_REQUIRED("Message must contain at least text content or media file");
+    MESSAGE_BODY_REQUIRED("Message must contain at least text content or media file"),
+    NOT_ALLOWED_TO_VIEW_MEDIA;
 
 
     private final String errorMessage;
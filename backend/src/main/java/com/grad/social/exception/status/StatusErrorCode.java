@@ -15,7 +15,8 @@ public enum StatusErrorCode implements ErrorCode {
     NOT_ALLOWED_TO_SHARE_STATUS,
     NOT_ALLOWED_TO_UPDATE_REPLY_SETTINGS("Replies cannot update audiences (they inherit from parent)"),
 
-    INVALID_STATUS_PRIVACY_OR_AUDIENCE;
+    INVALID_STATUS_PRIVACY_OR_AUDIENCE,
+    INVALID_PAGE_CURSOR;
 
     private final String errorMessage;
 
@@ -0,0 +1,19 @@
+package com.grad.social.model.chat.response;
+
+/**
+ * An attachment of a chat message, its bytes are served by /media/{mediaId}.
+ * width and height are only known for images, thumbnailUrl (a downscaled copy) is only set for images.
+ */
+public record ChatMediaResponse(Long mediaId, String mimeType, long sizeInBytes, Integer width, Integer height, String thumbnailUrl) {
+    public static final int THUMBNAIL_WIDTH = 320;
+
+    // null when the message has no attachment (left joined media asset)
+    public static ChatMediaResponse of(Long mediaId, String mimeType, Long sizeInBytes, Integer width, Integer height) {
+        if (mediaId == null) {
+            return null;
+        }
+        String thumbnailUrl = mimeType.startsWith("image/") ? "/media/" + mediaId + "?w=" + THUMBNAIL_WIDTH : null;
+        return new ChatMediaResponse(mediaId, mimeType, sizeInBytes, width, height, thumbnailUrl);
+    }
+
+}
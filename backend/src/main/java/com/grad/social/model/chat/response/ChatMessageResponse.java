@@ -6,8 +6,7 @@ import com.grad.social.model.enums.MediaType;
 import java.time.Instant;
 
 public record ChatMessageResponse(Long messageId, ParentMessageSnippet parentMessageSnippet, UserAvatar senderAvatar, String content,
-                               byte[] media,MediaType messageType, Instant sentAt, MessageStatus messageStatus) {
-
-    public record ParentMessageSnippet(Long parentMessageId, String content, Long parentSenderId, String parentSenderDisplayName, MediaType messageType, byte[] media) {}
-}
+                               ChatMediaResponse media, MediaType messageType, Instant sentAt, MessageStatus messageStatus) {
 
+    public record ParentMessageSnippet(Long parentMessageId, String content, Long parentSenderId, String parentSenderDisplayName, MediaType messageType, ChatMediaResponse media) {}
+}
\ No newline at end of file
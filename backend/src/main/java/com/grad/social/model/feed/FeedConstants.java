@@ -0,0 +1,20 @@
+package com.grad.social.model.feed;
+
+public final class FeedConstants {
+
+	// Maximum number of entries kept in a precomputed home timeline
+	public static final int TIMELINE_MAX_SIZE = 800;
+
+	// Number of recent statuses pushed into a timeline when its owner (re)starts following an author
+	public static final int TIMELINE_AUTHOR_BACKFILL_SIZE = 50;
+
+	// Number of users whose timelines are rebuilt per backfill batch
+	public static final int TIMELINE_BACKFILL_BATCH_SIZE = 500;
+
+	// Number of newest timeline entries ranked together in the ranked feed mode (bounds the memory of a ranked read)
+	public static final int RANKED_CANDIDATES_LIMIT = 300;
+
+	// Score multiplier applied to every further status of an author already picked (diversification)
+	public static final double RANKED_AUTHOR_REPEAT_DECAY = 0.7;
+
+}
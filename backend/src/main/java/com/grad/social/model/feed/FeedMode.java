@@ -0,0 +1,5 @@
+package com.grad.social.model.feed;
+
+public enum FeedMode {
+    CHRONOLOGICAL, RANKED
+}
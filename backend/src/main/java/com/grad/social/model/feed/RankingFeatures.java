@@ -0,0 +1,7 @@
+package com.grad.social.model.feed;
+
+import com.grad.social.model.enums.FollowingPriority;
+
+// followingPriority is null for the viewer's own statuses, moderationSeverity is 0 for statuses not moderated yet
+public record RankingFeatures(FollowingPriority followingPriority, int numLikes, int numReplies, int numShares, int moderationSeverity) {
+}
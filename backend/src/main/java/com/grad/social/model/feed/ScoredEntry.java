@@ -0,0 +1,4 @@
+package com.grad.social.model.feed;
+
+public record ScoredEntry(TimelineEntry entry, double score) {
+}
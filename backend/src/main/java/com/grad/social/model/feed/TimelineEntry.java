@@ -0,0 +1,6 @@
+package com.grad.social.model.feed;
+
+import java.time.Instant;
+
+public record TimelineEntry(Long statusId, Long authorId, Instant createdAt) {
+}
@@ -0,0 +1,7 @@
+package com.grad.social.model.outbox;
+
+import java.time.Instant;
+
+// attempts includes the current delivery
+public record OutboxEvent(Long id, String eventType, String payload, Instant createdAt, int attempts) {
+}
@@ -0,0 +1,7 @@
+package com.grad.social.model.shared;
+
+import java.util.List;
+
+// nextCursor is null when there are no more pages
+public record CursorPage<T>(List<T> content, String nextCursor) {
+}
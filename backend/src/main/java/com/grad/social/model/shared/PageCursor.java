@@ -0,0 +1,46 @@
+package com.grad.social.model.shared;
+
+import com.grad.social.common.exceptionhandling.BusinessRuleViolationException;
+import com.grad.social.exception.status.StatusErrorCode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Seek position of the last row of a page, sent to clients as an opaque token.
+ * pinned and position are only meaningful for lists ordered by them (profile posts/replies and profile media respectively).
+ */
+public record PageCursor(boolean pinned, Instant lastHappenedAt, Long lastEntityId, int position) {
+
+    private static final String SEPARATOR = ":";
+
+    public static PageCursor of(Instant lastHappenedAt, Long lastEntityId) {
+        return new PageCursor(false, lastHappenedAt, lastEntityId, 0);
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, pinned ? "1" : "0", String.valueOf(lastHappenedAt.getEpochSecond()),
+                String.valueOf(lastHappenedAt.getNano()), String.valueOf(lastEntityId), String.valueOf(position));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // a null (or blank) token means the first page
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(SEPARATOR);
+            if (parts.length != 5) {
+                throw new BusinessRuleViolationException(StatusErrorCode.INVALID_PAGE_CURSOR);
+            }
+            Instant lastHappenedAt = Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            return new PageCursor("1".equals(parts[0]), lastHappenedAt, Long.parseLong(parts[3]), Integer.parseInt(parts[4]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new BusinessRuleViolationException(StatusErrorCode.INVALID_PAGE_CURSOR);
+        }
+    }
+
+}
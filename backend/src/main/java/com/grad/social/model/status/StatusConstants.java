@@ -5,7 +5,51 @@ public final class StatusConstants {
 	// Threshold number of statuses
 	public static final int UNSAFE_STATUES_THRESHOLD = 3;
 
+	// Min moderation severity of an unsafe status (counted towards the restriction of its owner)
+	public static final int UNSAFE_SEVERITY = 3;
+
+	// Max moderation severity the model may answer (severities range from 0 to it)
+	public static final int MAX_SEVERITY = 4;
+
 	// Number of days to look back
 	public static final int DAYS_TO_CHECK = 7;
 
+	// Number of statuses whose counters are recomputed per reconciliation batch
+	public static final int COUNTERS_RECONCILIATION_BATCH_SIZE = 1000;
+
+	// Postgres advisory lock held by the instance running the counters reconciliation
+	public static final long COUNTERS_RECONCILIATION_LOCK_KEY = 4_242_001L;
+
+	// Min interval between two saves of the likes flush watermark of an instance
+	public static final long LIKES_FLUSH_WATERMARK_INTERVAL_MS = 1000;
+
+	// Margin for the likes committed but not yet in a buffer (after commit callbacks) when the flush watermarks are compared to a count
+	public static final int LIKES_FLUSH_GRACE_SECONDS = 2;
+
+	// Max wait of the reconciliation for every instance to flush the likes it buffered before the likes were counted
+	public static final int LIKES_FLUSH_AWAIT_SECONDS = 30;
+
+	// An instance without a flush watermark saved for that long is gone, its unflushed deltas are repaired as drifts
+	public static final int LIKES_FLUSH_INSTANCE_TIMEOUT_SECONDS = 300;
+
+	// Max number of candidate pages read to fill a page of replies whose authors are partly hidden from the viewer
+	public static final int REPLIES_MAX_FETCH_ROUNDS = 3;
+
+	// Length of a path segment of the reply index (a 64 bits id in hex)
+	public static final int THREAD_PATH_SEGMENT_LENGTH = 16;
+
+	// Default and max number of reply levels expanded below a status
+	public static final int THREAD_DEFAULT_DEPTH = 3;
+	public static final int THREAD_MAX_DEPTH = 10;
+
+	// Default and max number of direct replies (branches) expanded, the most engaging ones first
+	public static final int THREAD_DEFAULT_BRANCHES = 10;
+	public static final int THREAD_MAX_BRANCHES = 50;
+
+	// Max number of replies returned by a thread expansion
+	public static final int THREAD_MAX_REPLIES = 200;
+
+	// Number of newest replies ids cached per status (about three pages)
+	public static final int THREAD_CACHED_REPLIES = 30;
+
 }
\ No newline at end of file
@@ -0,0 +1,5 @@
+package com.grad.social.model.status.helper;
+
+// drift = likes counter - status_likes count, likesVersion = the version of the counter when the drift was found
+public record LikesDrift(Long statusId, int drift, long likesVersion) {
+}
@@ -0,0 +1,7 @@
+package com.grad.social.model.status.helper;
+
+import java.time.Instant;
+
+// attempts includes the current one
+public record ModerationJob(Long id, Long statusId, String content, boolean detectLanguage, Instant enqueuedAt, int attempts) {
+}
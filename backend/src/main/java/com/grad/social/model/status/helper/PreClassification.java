@@ -0,0 +1,10 @@
+package com.grad.social.model.status.helper;
+
+// category is the one of the strongest lexicon matches, null when nothing matched
+public record PreClassification(Verdict verdict, double score, String category) {
+
+    public enum Verdict {
+        SAFE, // moderated locally
+        AMBIGUOUS, FLAGGED // escalated to the model
+    }
+}
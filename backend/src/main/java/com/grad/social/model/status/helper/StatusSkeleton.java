@@ -0,0 +1,16 @@
+package com.grad.social.model.status.helper;
+
+import com.grad.social.model.enums.ParentAssociation;
+import com.grad.social.model.enums.StatusAudience;
+import com.grad.social.model.enums.StatusPrivacy;
+import com.grad.social.model.status.response.MediaResponse;
+
+import java.time.Instant;
+import java.util.List;
+
+// the viewer-independent part of a StatusResponse, the parent snippet is built from the parent's own skeleton.
+// The owner is referenced by id, its avatar (profile picture bytes) is cached per user instead of in every skeleton
+public record StatusSkeleton(Long statusId, Long ownerId, String content, boolean isPinned, StatusPrivacy privacy,
+                             StatusAudience replyAudience, StatusAudience shareAudience, List<String> mentionedUsers,
+                             Instant postedAt, List<MediaResponse> medias, ParentAssociation parentAssociation, Long parentStatusId) {
+}
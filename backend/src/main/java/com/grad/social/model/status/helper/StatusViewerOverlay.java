@@ -0,0 +1,6 @@
+package com.grad.social.model.status.helper;
+
+// the per-viewer part of a StatusResponse, counters are overlaid too since they change far more often than the skeleton
+public record StatusViewerOverlay(Long statusId, int numLikes, int numReplies, int numShares, boolean isLikedByViewer,
+                                  boolean isSavedToBookmarks, boolean isOwnerFollowedByViewer, boolean isParentOwnerFollowedByViewer) {
+}
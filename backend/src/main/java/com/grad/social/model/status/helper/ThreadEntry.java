@@ -0,0 +1,5 @@
+package com.grad.social.model.status.helper;
+
+// a reply of an expanded thread, depth is relative to the expanded status
+public record ThreadEntry(Long statusId, Long parentStatusId, int depth) {
+}
@@ -2,5 +2,5 @@ package com.grad.social.model.status.response;
 
 import java.util.List;
 
-public record FeedResponse(List<StatusResponse> statuses, int unreadMessagesCount, int unreadNotificationsCount) {
+public record FeedResponse(List<StatusResponse> statuses, int unreadMessagesCount, int unreadNotificationsCount, String nextCursor) {
 }
@@ -0,0 +1,8 @@
+package com.grad.social.model.status.response;
+
+import java.util.List;
+
+// replies are in thread order: depth first, branches by engagement, then siblings in posting order
+public record StatusThreadResponse(StatusResponse statusResponse, List<ThreadReply> replies) {
+
+}
@@ -0,0 +1,7 @@
+package com.grad.social.model.status.response;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+public record ThreadReply(StatusResponse reply, @JsonSerialize(using = ToStringSerializer.class) Long parentStatusId, int depth) {
+}
@@ -0,0 +1,12 @@
+package com.grad.social.model.user.helper;
+
+import com.grad.social.model.enums.PrivacySettings;
+import com.grad.social.model.shared.UserAvatar;
+import com.grad.social.model.user.response.UserAbout;
+
+import java.time.LocalDate;
+
+// the viewer-independent part of a ProfileResponse, shared by the concurrent loads of a profile: must not be mutated
+public record ProfileSkeleton(UserAvatar userAvatar, byte[] profileCoverPhoto, String profileBio, LocalDate joinedAt, UserAbout aboutUser,
+                              PrivacySettings whoCanMessage, int followerNo, int followingNo) {
+}
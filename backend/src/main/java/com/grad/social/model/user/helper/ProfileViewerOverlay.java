@@ -0,0 +1,10 @@
+package com.grad.social.model.user.helper;
+
+import com.grad.social.model.enums.FollowingPriority;
+
+// the relation of the viewer with a profile owner, all false when viewers look at their own profile
+public record ProfileViewerOverlay(boolean isBeingFollowed, boolean isFollowingViewer, FollowingPriority followingPriority,
+                                   boolean isBlocked, boolean isMuted) {
+
+    public static final ProfileViewerOverlay SELF = new ProfileViewerOverlay(false, false, null, false, false);
+}
@@ -0,0 +1,43 @@
+package com.grad.social.model.user.helper;
+
+import com.grad.social.common.utils.LongHashSet;
+import com.grad.social.model.enums.StatusPrivacy;
+
+import java.time.Instant;
+
+/**
+ * The relationships of a viewer with other users at a point in time.
+ * blockedUserIds holds the users blocked by the viewer and the users who blocked the viewer,
+ * validUntil is bounded by the earliest expiry of the viewer's active mutes.
+ */
+public record ViewerGraphSnapshot(Long viewerId, LongHashSet followeeIds, LongHashSet blockedUserIds, LongHashSet mutedUserIds, Instant validUntil) {
+
+    public boolean follows(Long userId) {
+        return followeeIds.contains(userId);
+    }
+
+    public boolean isBlocked(Long userId) {
+        return blockedUserIds.contains(userId);
+    }
+
+    public boolean isMuted(Long userId) {
+        return mutedUserIds.contains(userId);
+    }
+
+    // own status, PUBLIC, FOLLOWERS and the viewer follows the owner
+    public boolean canView(Long ownerId, StatusPrivacy privacy) {
+        if (ownerId.equals(viewerId)) {
+            return true;
+        }
+        return !isBlocked(ownerId) && (privacy == StatusPrivacy.PUBLIC || (privacy == StatusPrivacy.FOLLOWERS && follows(ownerId)));
+    }
+
+    // the home timeline only shows the viewer's own statuses and those of the (not muted) users they follow
+    public boolean canViewInFeed(Long ownerId, StatusPrivacy privacy) {
+        if (ownerId.equals(viewerId)) {
+            return true;
+        }
+        return follows(ownerId) && !isBlocked(ownerId) && !isMuted(ownerId)
+                && (privacy == StatusPrivacy.PUBLIC || privacy == StatusPrivacy.FOLLOWERS);
+    }
+}
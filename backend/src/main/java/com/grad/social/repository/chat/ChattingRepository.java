@@ -5,8 +5,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.grad.social.common.AppConstants;
 import com.grad.social.common.database.utils.TsidUtils;
 import com.grad.social.common.messaging.redis.RedisConstants;
-import com.grad.social.common.utils.media.FileSystemUtils;
 import com.grad.social.model.chat.request.CreateMessageRequest;
+import com.grad.social.model.chat.response.ChatMediaResponse;
 import com.grad.social.model.chat.response.ChatMessageResponse;
 import com.grad.social.model.chat.response.ChatResponse;
 import com.grad.social.model.chat.response.MessageDetailResponse;
@@ -245,11 +245,10 @@ public class ChattingRepository {
                 .asField("undelivered_count");
 
         return dsl.selectDistinct(m.MESSAGE_ID, u.ID, u.USERNAME, u.DISPLAY_NAME, u.PROFILE_PICTURE, m.CONTENT, m.SENT_AT,
-                        m.MESSAGE_TYPE, ma.MEDIA_ID, ma.FILENAME_HASH, unreadCountField, undeliveredCountField,
+                        m.MESSAGE_TYPE, this.mediaDescriptor(ma, "media"), unreadCountField, undeliveredCountField,
                         m2.MESSAGE_ID.as("parent_message_id"), m2.CONTENT.as("parent_content"),
                         u2.ID.as("parent_owner_id"), u2.DISPLAY_NAME.as("parent_display_name"),
-                        ma2.MEDIA_ID.as("parent_media_id"), m2.MESSAGE_TYPE.as("parent_message_type"),
-                        ma2.FILENAME_HASH.as("parent_filename_hash"))
+                        m2.MESSAGE_TYPE.as("parent_message_type"), this.mediaDescriptor(ma2, "parent_media"))
                 .from(m)
                 .leftJoin(ma).on(m.MEDIA_ID.eq(ma.MEDIA_ID))
                 .leftJoin(m2).on(m.PARENT_MESSAGE_ID.eq(m2.MESSAGE_ID))
@@ -266,17 +265,15 @@ public class ChattingRepository {
                 .seek(lastMessageSentAt, lastMessageId)
                 .limit(Math.min(missingMessagesCount, AppConstants.DEFAULT_PAGE_SIZE))
                 .fetch(mapping((messageId, senderId, senderUsername, senderDisplayName, senderProfilePicture, content, sentAt,
-                                messageType, mediaId, fileNameHashed, unreadCount, undeliveredCount,
+                                messageType, media, unreadCount, undeliveredCount,
                                 parentMessageId, parentContent, parentOwnerId, parentSenderDisplayName,
-                                parentMediaId, parentMessageType, parentFileNameHashed) -> {
+                                parentMessageType, parentMedia) -> {
                     com.grad.social.model.chat.response.MessageStatus messageStatus = SENT;
                     if (unreadCount == 0) {
                         messageStatus = READ;
                     } else if (undeliveredCount == 0) {
                         messageStatus = DELIVERED;
                     }
-                    byte[] media = this.loadMedia(mediaId, fileNameHashed);
-                    byte[] parentMedia = this.loadMedia(parentMediaId, parentFileNameHashed);
                     var parentMessageSnippet = parentMessageId == null ? null : new ChatMessageResponse.ParentMessageSnippet(parentMessageId, parentContent,
                             parentOwnerId, parentSenderDisplayName, parentMessageType, parentMedia);
                     return new ChatMessageResponse(messageId, parentMessageSnippet, new UserAvatar(senderId, senderUsername, senderDisplayName, senderProfilePicture),
@@ -289,11 +286,10 @@ public class ChattingRepository {
 
         // 1. Fetch the parent message
         ChatMessageResponse parent = dsl.select(m.MESSAGE_ID, u.ID, u.USERNAME, u.DISPLAY_NAME, u.PROFILE_PICTURE,
-                        m.CONTENT, m.SENT_AT, m.MESSAGE_TYPE, ma.MEDIA_ID, ma.FILENAME_HASH,
+                        m.CONTENT, m.SENT_AT, m.MESSAGE_TYPE, this.mediaDescriptor(ma, "media"),
                         m2.MESSAGE_ID.as("parent_message_id"), m2.CONTENT.as("parent_content"),
                         u2.ID.as("parent_id"), u2.DISPLAY_NAME.as("parent_display_name"),
-                        ma2.MEDIA_ID.as("parent_media_id"), m2.MESSAGE_TYPE.as("parent_message_type"),
-                        ma2.FILENAME_HASH.as("parent_filename_hash"))
+                        m2.MESSAGE_TYPE.as("parent_message_type"), this.mediaDescriptor(ma2, "parent_media"))
                 .from(m)
                 .leftJoin(m2).on(m.PARENT_MESSAGE_ID.eq(m2.MESSAGE_ID))
                 .leftJoin(ma).on(m.MEDIA_ID.eq(ma.MEDIA_ID))
@@ -313,11 +309,10 @@ public class ChattingRepository {
 
         // 2. Fetch 5 previous neighbours
         List<ChatMessageResponse> previousMessages = dsl.selectDistinct(m.MESSAGE_ID, u.ID, u.USERNAME, u.DISPLAY_NAME, u.PROFILE_PICTURE,
-                        m.CONTENT, m.SENT_AT, m.MESSAGE_TYPE, ma.MEDIA_ID, ma.FILENAME_HASH,
+                        m.CONTENT, m.SENT_AT, m.MESSAGE_TYPE, this.mediaDescriptor(ma, "media"),
                         m2.MESSAGE_ID.as("parent_message_id"), m2.CONTENT.as("parent_content"),
                         u2.ID.as("parent_id"), u2.DISPLAY_NAME.as("parent_display_name"),
-                        ma2.MEDIA_ID.as("parent_media_id"), m2.MESSAGE_TYPE.as("parent_message_type"),
-                        ma2.FILENAME_HASH.as("parent_filename_hash"))
+                        m2.MESSAGE_TYPE.as("parent_message_type"), this.mediaDescriptor(ma2, "parent_media"))
                 .from(m)
                 .leftJoin(m2).on(m.PARENT_MESSAGE_ID.eq(m2.MESSAGE_ID))
                 .leftJoin(ma).on(m.MEDIA_ID.eq(ma.MEDIA_ID))
@@ -332,11 +327,10 @@ public class ChattingRepository {
 
         // 3. Fetch 5 next neighbours
         List<ChatMessageResponse> nextMessages = dsl.selectDistinct(m.MESSAGE_ID, u.ID, u.USERNAME, u.DISPLAY_NAME, u.PROFILE_PICTURE,
-                        m.CONTENT, m.SENT_AT, m.MESSAGE_TYPE, ma.MEDIA_ID, ma.FILENAME_HASH,
+                        m.CONTENT, m.SENT_AT, m.MESSAGE_TYPE, this.mediaDescriptor(ma, "media"),
                         m2.MESSAGE_ID.as("parent_message_id"), m2.CONTENT.as("parent_content"),
                         u2.ID.as("parent_id"), u2.DISPLAY_NAME.as("parent_display_name"),
-                        ma2.MEDIA_ID.as("parent_media_id"), m2.MESSAGE_TYPE.as("parent_message_type"),
-                        ma2.FILENAME_HASH.as("parent_filename_hash"))
+                        m2.MESSAGE_TYPE.as("parent_message_type"), this.mediaDescriptor(ma2, "parent_media"))
                 .from(m)
                 .leftJoin(m2).on(m.PARENT_MESSAGE_ID.eq(m2.MESSAGE_ID))
                 .leftJoin(ma).on(m.MEDIA_ID.eq(ma.MEDIA_ID))
@@ -550,14 +544,11 @@ public class ChattingRepository {
         );
     }
 
-    private RecordMapper<Record17<Long, Long, String, String, byte[], String, Instant, MediaType, Long, String, Long, String, Long, String, Long, MediaType, String>, ChatMessageResponse> mapRowToChatMessage() {
-        return mapping((messageId2, senderId, senderUsername, senderDisplayName, senderProfilePicture, content, sentAt,
-                        messageType, mediaId, fileNameHashed,
-                        parentMessageId, parentContent, parentSenderId, parentSenderDisplayName, parentMediaId, parentMessageType, parentFileNameHashed) -> {
-            byte[] media = this.loadMedia(mediaId, fileNameHashed);
+    private RecordMapper<Record15<Long, Long, String, String, byte[], String, Instant, MediaType, ChatMediaResponse, Long, String, Long, String, MediaType, ChatMediaResponse>, ChatMessageResponse> mapRowToChatMessage() {
+        return mapping((messageId2, senderId, senderUsername, senderDisplayName, senderProfilePicture, content, sentAt, messageType, media,
+                        parentMessageId, parentContent, parentSenderId, parentSenderDisplayName, parentMessageType, parentMedia) -> {
             ChatMessageResponse.ParentMessageSnippet parentMessageSnippet = null;
             if (parentMessageId != null) {
-                byte[] parentMedia = this.loadMedia(parentMediaId, parentFileNameHashed);
                 parentMessageSnippet = new ChatMessageResponse.ParentMessageSnippet(parentMessageId, parentContent, parentSenderId, parentSenderDisplayName, parentMessageType, parentMedia);
             }
             return new ChatMessageResponse(messageId2, parentMessageSnippet, new UserAvatar(senderId, senderUsername, senderDisplayName, senderProfilePicture),
@@ -565,15 +556,11 @@ public class ChattingRepository {
         });
     }
 
-    private byte[] loadMedia(Long mediaId, String fileNameHashed) {
-        if (mediaId == null) {
-            return null;
-        }
-        try {
-            return FileSystemUtils.loadFile(fileNameHashed).getContentAsByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    // what clients need to lay out and fetch an attachment from /media/{id}, the file itself is not read
+    private SelectField<ChatMediaResponse> mediaDescriptor(MediaAsset maTable, String alias) {
+        return row(maTable.MEDIA_ID, maTable.MIME_TYPE, maTable.SIZE_BYTES, maTable.WIDTH, maTable.HEIGHT)
+                .convertFrom(r -> r == null ? null : mapping(ChatMediaResponse::of).map(r))
+                .as(alias);
     }
 
 }
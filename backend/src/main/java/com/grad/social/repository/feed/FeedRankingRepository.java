@@ -0,0 +1,50 @@
+package com.grad.social.repository.feed;
+
+import com.grad.social.model.enums.FollowingPriority;
+import com.grad.social.model.tables.ContentModeration;
+import com.grad.social.model.tables.StatusCounters;
+import com.grad.social.model.tables.UserFollowers;
+import lombok.RequiredArgsConstructor;
+import org.jooq.DSLContext;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+// feature queries of the ranked feed, each one is a single index lookup over the candidates so they can run in parallel
+@Repository
+@RequiredArgsConstructor
+public class FeedRankingRepository {
+    private final DSLContext dsl;
+
+    // Aliases
+    private final UserFollowers uf = UserFollowers.USER_FOLLOWERS.as("uf");
+    private final StatusCounters stc = StatusCounters.STATUS_COUNTERS.as("stc");
+    private final ContentModeration cm = ContentModeration.CONTENT_MODERATION.as("cm");
+
+    public Map<Long, FollowingPriority> fetchFollowingPriorities(Long viewerId, Collection<Long> authorIds) {
+        return dsl.select(uf.FOLLOWED_USER_ID, uf.FOLLOWING_PRIORITY)
+                .from(uf)
+                .where(uf.FOLLOWER_ID.eq(viewerId))
+                .and(uf.FOLLOWED_USER_ID.in(authorIds))
+                .fetchMap(uf.FOLLOWED_USER_ID, uf.FOLLOWING_PRIORITY);
+    }
+
+    // flushed counters only, pending likes are merged by the caller
+    public Map<Long, Engagement> fetchEngagement(Collection<Long> statusIds) {
+        return dsl.select(stc.STATUS_ID, stc.NUM_LIKES, stc.NUM_REPLIES, stc.NUM_SHARES)
+                .from(stc)
+                .where(stc.STATUS_ID.in(statusIds))
+                .fetchMap(stc.STATUS_ID, r -> new Engagement(r.get(stc.NUM_LIKES), r.get(stc.NUM_REPLIES), r.get(stc.NUM_SHARES)));
+    }
+
+    public Map<Long, Integer> fetchModerationSeverities(Collection<Long> statusIds) {
+        return dsl.select(cm.STATUS_ID, cm.SEVERITY)
+                .from(cm)
+                .where(cm.STATUS_ID.in(statusIds))
+                .fetchMap(cm.STATUS_ID, cm.SEVERITY);
+    }
+
+    public record Engagement(int numLikes, int numReplies, int numShares) {}
+
+}
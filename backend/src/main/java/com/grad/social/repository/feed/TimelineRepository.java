@@ -0,0 +1,283 @@
+package com.grad.social.repository.feed;
+
+import com.grad.social.common.database.utils.JooqUtils;
+import com.grad.social.model.enums.ParentAssociation;
+import com.grad.social.model.enums.StatusPrivacy;
+import com.grad.social.model.feed.TimelineEntry;
+import com.grad.social.model.shared.PageCursor;
+import com.grad.social.model.tables.*;
+import lombok.RequiredArgsConstructor;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Row1;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import static org.jooq.Records.mapping;
+
+@Repository
+@RequiredArgsConstructor
+public class TimelineRepository {
+    private final DSLContext dsl;
+
+    private final HomeTimeline HT = HomeTimeline.HOME_TIMELINE;
+
+    // Aliases
+    private final HomeTimeline ht = HomeTimeline.HOME_TIMELINE.as("ht");
+    private final Statuses s = Statuses.STATUSES.as("s");
+    private final Users u = Users.USERS.as("u");
+    private final UserFollowers uf = UserFollowers.USER_FOLLOWERS.as("uf");
+    private final UserBlocks ub = UserBlocks.USER_BLOCKS.as("ub");
+    private final UserMutes um = UserMutes.USER_MUTES.as("um");
+
+    public Long findAuthorId(Long statusId) {
+        return dsl.select(s.USER_ID)
+                .from(s)
+                .where(s.ID.eq(statusId))
+                .fetchOne(s.USER_ID);
+    }
+
+    // pushes the status into the timeline of every follower of its author allowed to see it
+    public int fanOutStatus(Long statusId) {
+        var followersTimelines = DSL.select(uf.FOLLOWER_ID, s.ID, s.USER_ID, s.CREATED_AT)
+                .from(s)
+                .join(uf).on(uf.FOLLOWED_USER_ID.eq(s.USER_ID))
+                .where(s.ID.eq(statusId))
+                .and(s.PRIVACY.in(StatusPrivacy.PUBLIC, StatusPrivacy.FOLLOWERS))
+                .and(notReplyPredicate())
+                .and(notBlockedPredicate(uf.FOLLOWER_ID, s.USER_ID))
+                .and(notMutedPredicate(uf.FOLLOWER_ID, s.USER_ID));
+
+        return dsl.insertInto(HT, HT.USER_ID, HT.STATUS_ID, HT.AUTHOR_ID, HT.CREATED_AT)
+                .select(followersTimelines)
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    // pushes the most recent statuses of authorId into the timelines of its followers allowed to see them
+    // (an author dropping below the high-fanout threshold, whose statuses were pulled at read time until then)
+    public int fanOutRecentStatusesOfAuthor(Long authorId, int limit) {
+        var recent = DSL.select(s.ID, s.USER_ID, s.CREATED_AT)
+                .from(s)
+                .where(s.USER_ID.eq(authorId))
+                .and(s.PRIVACY.in(StatusPrivacy.PUBLIC, StatusPrivacy.FOLLOWERS))
+                .and(notReplyPredicate())
+                .orderBy(s.CREATED_AT.desc(), s.ID.desc())
+                .limit(limit)
+                .asTable("recent");
+        Field<Long> rAuthorId = recent.field(s.USER_ID);
+
+        var followersTimelines = DSL.select(uf.FOLLOWER_ID, recent.field(s.ID), rAuthorId, recent.field(s.CREATED_AT))
+                .from(recent)
+                .join(uf).on(uf.FOLLOWED_USER_ID.eq(rAuthorId))
+                .where(notBlockedPredicate(uf.FOLLOWER_ID, rAuthorId))
+                .and(notMutedPredicate(uf.FOLLOWER_ID, rAuthorId));
+
+        return dsl.insertInto(HT, HT.USER_ID, HT.STATUS_ID, HT.AUTHOR_ID, HT.CREATED_AT)
+                .select(followersTimelines)
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    // pushes the status into its author own timeline (done for every author, including high-fanout ones)
+    public int pushToAuthorTimeline(Long statusId) {
+        var authorTimeline = DSL.select(s.USER_ID, s.ID, s.USER_ID, s.CREATED_AT)
+                .from(s)
+                .where(s.ID.eq(statusId))
+                .and(notReplyPredicate());
+
+        return dsl.insertInto(HT, HT.USER_ID, HT.STATUS_ID, HT.AUTHOR_ID, HT.CREATED_AT)
+                .select(authorTimeline)
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    // the newest entries of the timeline of userId older than the cursor (the pushed input of the read-time merge)
+    public List<TimelineEntry> fetchTimelinePage(Long userId, PageCursor cursor, int limit) {
+        return dsl.select(ht.STATUS_ID, ht.AUTHOR_ID, ht.CREATED_AT)
+                .from(ht)
+                .where(ht.USER_ID.eq(userId))
+                .and(cursor == null ? DSL.trueCondition() : DSL.row(ht.CREATED_AT, ht.STATUS_ID).lt(cursor.lastHappenedAt(), cursor.lastEntityId()))
+                .orderBy(ht.CREATED_AT.desc(), ht.STATUS_ID.desc())
+                .limit(limit)
+                .fetch(mapping(TimelineEntry::new));
+    }
+
+    public List<Long> findAuthorsWithFollowersAtLeast(int threshold) {
+        return dsl.select(uf.FOLLOWED_USER_ID)
+                .from(uf)
+                .groupBy(uf.FOLLOWED_USER_ID)
+                .having(DSL.count().ge(threshold))
+                .fetch(uf.FOLLOWED_USER_ID);
+    }
+
+    // the authors among authorIds that userId follows and still wants to see (not blocked nor muted)
+    public List<Long> findFollowedAuthorsIn(Long userId, Collection<Long> authorIds) {
+        return dsl.select(uf.FOLLOWED_USER_ID)
+                .from(uf)
+                .where(uf.FOLLOWER_ID.eq(userId))
+                .and(uf.FOLLOWED_USER_ID.in(authorIds))
+                .and(notBlockedPredicate(DSL.val(userId), uf.FOLLOWED_USER_ID))
+                .and(notMutedPredicate(DSL.val(userId), uf.FOLLOWED_USER_ID))
+                .fetch(uf.FOLLOWED_USER_ID);
+    }
+
+    // the most recent statuses of every author in authorIds older than the cursor (at most perAuthorLimit each), ordered by (author, created_at desc, id desc)
+    // one LATERAL index range scan (idx_statuses_user_created) per author, stopping after perAuthorLimit rows
+    @SuppressWarnings("unchecked")
+    public List<TimelineEntry> fetchRecentStatusesOfAuthors(Collection<Long> authorIds, PageCursor cursor, int perAuthorLimit) {
+        Table<?> a = DSL.values(authorIds.stream().map(authorId -> DSL.row(authorId)).toArray(Row1[]::new)).as("a", "author_id");
+        Field<Long> aAuthorId = a.field("author_id", Long.class);
+
+        var recent = DSL.select(s.ID, s.USER_ID, s.CREATED_AT)
+                .from(s)
+                .where(s.USER_ID.eq(aAuthorId))
+                .and(s.PRIVACY.in(StatusPrivacy.PUBLIC, StatusPrivacy.FOLLOWERS))
+                .and(notReplyPredicate())
+                .and(cursor == null ? DSL.trueCondition() : DSL.row(s.CREATED_AT, s.ID).lt(cursor.lastHappenedAt(), cursor.lastEntityId()))
+                .orderBy(s.CREATED_AT.desc(), s.ID.desc())
+                .limit(perAuthorLimit)
+                .asTable("recent");
+
+        Field<Long> rStatusId = recent.field(s.ID);
+        Field<Long> rAuthorId = recent.field(s.USER_ID);
+        Field<Instant> rCreatedAt = recent.field(s.CREATED_AT);
+
+        return dsl.select(rStatusId, rAuthorId, rCreatedAt)
+                .from(a)
+                .crossJoin(DSL.lateral(recent))
+                .orderBy(rAuthorId, rCreatedAt.desc(), rStatusId.desc())
+                .fetch(mapping(TimelineEntry::new));
+    }
+
+    // pushes the most recent statuses of authorId into the timeline of userId (only if userId still follows authorId)
+    public int appendRecentStatusesOfAuthor(Long userId, Long authorId, int limit) {
+        var recentStatuses = DSL.select(DSL.val(userId), s.ID, s.USER_ID, s.CREATED_AT)
+                .from(s)
+                .where(s.USER_ID.eq(authorId))
+                .and(s.PRIVACY.in(StatusPrivacy.PUBLIC, StatusPrivacy.FOLLOWERS))
+                .and(notReplyPredicate())
+                .andExists(DSL.selectOne()
+                        .from(uf)
+                        .where(uf.FOLLOWED_USER_ID.eq(authorId).and(uf.FOLLOWER_ID.eq(userId))))
+                .and(notBlockedPredicate(DSL.val(userId), s.USER_ID))
+                .and(notMutedPredicate(DSL.val(userId), s.USER_ID))
+                .orderBy(s.CREATED_AT.desc(), s.ID.desc())
+                .limit(limit);
+
+        return dsl.insertInto(HT, HT.USER_ID, HT.STATUS_ID, HT.AUTHOR_ID, HT.CREATED_AT)
+                .select(recentStatuses)
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    public int removeAuthorFromTimeline(Long userId, Long authorId) {
+        return JooqUtils.delete(dsl, HT, HT.USER_ID.eq(userId).and(HT.AUTHOR_ID.eq(authorId)));
+    }
+
+    // rebuilds the timelines of the given users from scratch, keeping at most maxSize entries per user
+    // statuses of excludedAuthorIds (high-fanout authors) are only pushed into their authors own timelines
+    public int backfillTimelines(List<Long> userIds, Collection<Long> excludedAuthorIds, int maxSize) {
+        var candidates = DSL.select(uf.FOLLOWER_ID.as("user_id"), s.ID.as("status_id"), s.USER_ID.as("author_id"), s.CREATED_AT.as("created_at"))
+                .from(s)
+                .join(uf).on(uf.FOLLOWED_USER_ID.eq(s.USER_ID))
+                .where(uf.FOLLOWER_ID.in(userIds))
+                .and(s.USER_ID.notIn(excludedAuthorIds))
+                .and(s.PRIVACY.in(StatusPrivacy.PUBLIC, StatusPrivacy.FOLLOWERS))
+                .and(notReplyPredicate())
+                .and(notBlockedPredicate(uf.FOLLOWER_ID, s.USER_ID))
+                .and(notMutedPredicate(uf.FOLLOWER_ID, s.USER_ID))
+                .unionAll(
+                        DSL.select(s.USER_ID, s.ID, s.USER_ID, s.CREATED_AT)
+                                .from(s)
+                                .where(s.USER_ID.in(userIds))
+                                .and(notReplyPredicate())
+                )
+                .asTable("candidates");
+
+        Field<Long> cUserId = candidates.field("user_id", Long.class);
+        Field<Long> cStatusId = candidates.field("status_id", Long.class);
+        Field<Long> cAuthorId = candidates.field("author_id", Long.class);
+        Field<Instant> cCreatedAt = candidates.field("created_at", Instant.class);
+
+        var ranked = DSL.select(cUserId, cStatusId, cAuthorId, cCreatedAt,
+                        DSL.rowNumber().over().partitionBy(cUserId).orderBy(cCreatedAt.desc(), cStatusId.desc()).as("rn"))
+                .from(candidates)
+                .asTable("ranked");
+
+        return dsl.insertInto(HT, HT.USER_ID, HT.STATUS_ID, HT.AUTHOR_ID, HT.CREATED_AT)
+                .select(DSL.select(ranked.field(cUserId), ranked.field(cStatusId), ranked.field(cAuthorId), ranked.field(cCreatedAt))
+                        .from(ranked)
+                        .where(ranked.field("rn", Integer.class).le(maxSize)))
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    // keeps only the newest maxSize entries of every timeline
+    public int trimTimelines(int maxSize) {
+        var ranked = DSL.select(ht.USER_ID, ht.STATUS_ID,
+                        DSL.rowNumber().over().partitionBy(ht.USER_ID).orderBy(ht.CREATED_AT.desc(), ht.STATUS_ID.desc()).as("rn"))
+                .from(ht)
+                .asTable("ranked");
+
+        return dsl.deleteFrom(HT)
+                .where(DSL.row(HT.USER_ID, HT.STATUS_ID).in(
+                        DSL.select(ranked.field(ht.USER_ID), ranked.field(ht.STATUS_ID))
+                                .from(ranked)
+                                .where(ranked.field("rn", Integer.class).gt(maxSize))
+                ))
+                .execute();
+    }
+
+    public List<Long> findUserIdsAfter(Long lastSeenUserId, int limit) {
+        return dsl.select(u.ID)
+                .from(u)
+                .where(u.ID.gt(lastSeenUserId))
+                .orderBy(u.ID)
+                .limit(limit)
+                .fetch(u.ID);
+    }
+
+    public List<ExpiredMute> findMutesExpiredBetween(Instant from, Instant to) {
+        return dsl.select(um.USER_ID, um.MUTED_USER_ID)
+                .from(um)
+                .where(um.MUTED_UNTIL.gt(from).and(um.MUTED_UNTIL.le(to)))
+                .fetch(mapping(ExpiredMute::new));
+    }
+
+    public record ExpiredMute(Long userId, Long mutedUserId) {}
+
+
+    // Helpers
+    private Condition notReplyPredicate() {
+        return s.PARENT_STATUS_ID.isNull().or(s.PARENT_ASSOCIATION.ne(ParentAssociation.REPLY));
+    }
+
+    // blocks: neither direction (viewer blocked author or author blocked viewer)
+    private Condition notBlockedPredicate(Field<Long> viewerId, Field<Long> authorId) {
+        return DSL.notExists(
+                DSL.selectOne()
+                        .from(ub)
+                        .where(ub.USER_ID.eq(viewerId).and(ub.BLOCKED_USER_ID.eq(authorId))
+                                .or(ub.USER_ID.eq(authorId).and(ub.BLOCKED_USER_ID.eq(viewerId))))
+        );
+    }
+
+    // mute: viewer muted author and mute still active (muted_until is null => indefinite OR muted_until > now())
+    private Condition notMutedPredicate(Field<Long> viewerId, Field<Long> authorId) {
+        return DSL.notExists(
+                DSL.selectOne()
+                        .from(um)
+                        .where(um.USER_ID.eq(viewerId)
+                                .and(um.MUTED_USER_ID.eq(authorId))
+                                .and(um.MUTED_UNTIL.isNull().or(um.MUTED_UNTIL.greaterThan(Instant.now()))))
+        );
+    }
+
+}
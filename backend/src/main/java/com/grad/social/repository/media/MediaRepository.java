@@ -1,10 +1,14 @@
 package com.grad.social.repository.media;
 
 import com.grad.social.common.model.MediaRepresentation;
+import com.grad.social.model.enums.StatusPrivacy;
+import com.grad.social.model.tables.ChatParticipants;
 import com.grad.social.model.tables.MediaAsset;
+import com.grad.social.model.tables.Messages;
 import com.grad.social.model.tables.StatusMedia;
 import com.grad.social.model.tables.Statuses;
 import lombok.RequiredArgsConstructor;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.impl.DSL;
 import org.springframework.stereotype.Repository;
@@ -24,6 +28,8 @@ public class MediaRepository {
     Statuses s = Statuses.STATUSES;
     MediaAsset ma = MediaAsset.MEDIA_ASSET;
     StatusMedia sm = StatusMedia.STATUS_MEDIA;
+    Messages m = Messages.MESSAGES;
+    ChatParticipants cp = ChatParticipants.CHAT_PARTICIPANTS;
 
     public Map<String, Long> findMediaAssetIdsByHashes(Set<String> hashes) {
         return dsl.select(ma.CONTENT_HASH, ma.MEDIA_ID)
@@ -38,6 +44,8 @@ public class MediaRepository {
                 .set(ma.FILENAME_HASH, newAsset.getFileNameHashed())
                 .set(ma.SIZE_BYTES, newAsset.getSizeInBytes())
                 .set(ma.MIME_TYPE, newAsset.getMimeType())
+                .set(ma.WIDTH, newAsset.getWidth())
+                .set(ma.HEIGHT, newAsset.getHeight())
                 .returning(ma.MEDIA_ID)
                 .fetchOne()
                 .getMediaId();
@@ -51,6 +59,8 @@ public class MediaRepository {
                     asset.setFilenameHash(media.getFileNameHashed());
                     asset.setSizeBytes(media.getSizeInBytes());
                     asset.setMimeType(media.getMimeType());
+                    asset.setWidth(media.getWidth());
+                    asset.setHeight(media.getHeight());
                     return asset;
                 }).toList();
 
@@ -63,17 +73,37 @@ public class MediaRepository {
 
 
 
+    // concurrent loads of a media are coalesced by the loader of MediaService's cache
     public MediaRepresentation getMediaById(Long mediaId) {
-        return dsl.select(ma.FILENAME_HASH, ma.CONTENT_HASH, ma.MIME_TYPE, ma.SIZE_BYTES)
+        return dsl.select(ma.FILENAME_HASH, ma.CONTENT_HASH, ma.MIME_TYPE, ma.SIZE_BYTES, ma.WIDTH, ma.HEIGHT)
                 .from(ma)
                 .where(ma.MEDIA_ID.eq(mediaId))
-                .fetchOne(mapping((fileNameHashed, contentHashed, mediaType, sizeInBytes) -> {
+                .fetchOne(mapping((fileNameHashed, contentHashed, mediaType, sizeInBytes, width, height) -> {
                     var res = new MediaRepresentation(fileNameHashed, contentHashed, mediaType, sizeInBytes);
                     res.setMediaId(mediaId);
+                    res.setWidth(width);
+                    res.setHeight(height);
                     return res;
                 }));
     }
 
+    // whether statuses share the media (and non PUBLIC ones among them), whether chats do and whether one of them has the viewer
+    // (null when anonymous) as participant
+    public MediaReferences getMediaReferences(Long mediaId, Long viewerId) {
+        Condition inStatuses = DSL.exists(DSL.selectOne().from(sm).where(sm.MEDIA_ID.eq(mediaId)));
+        Condition inNonPublicStatuses = DSL.exists(DSL.selectOne()
+                .from(sm)
+                .join(s).on(s.ID.eq(sm.STATUS_ID))
+                .where(sm.MEDIA_ID.eq(mediaId).and(s.PRIVACY.ne(StatusPrivacy.PUBLIC))));
+        Condition inChats = DSL.exists(DSL.selectOne().from(m).where(m.MEDIA_ID.eq(mediaId)));
+        Condition inViewerChats = viewerId == null ? DSL.falseCondition() : DSL.exists(DSL.selectOne()
+                .from(m)
+                .join(cp).on(cp.CHAT_ID.eq(m.CHAT_ID))
+                .where(m.MEDIA_ID.eq(mediaId).and(cp.USER_ID.eq(viewerId))));
+        return dsl.select(DSL.field(inStatuses), DSL.field(inNonPublicStatuses), DSL.field(inChats), DSL.field(inViewerChats))
+                .fetchOne(mapping(MediaReferences::new));
+    }
+
     public Map<String, Long> findMediaIdsByHashes(Set<String> hashes) {
         return dsl.select(ma.CONTENT_HASH, ma.MEDIA_ID)
                 .from(ma)
@@ -128,4 +158,6 @@ public class MediaRepository {
 
         dsl.batchInsert(records).execute();
     }
+
+    public record MediaReferences(boolean inStatuses, boolean inNonPublicStatuses, boolean inChats, boolean inViewerChats) {}
 }
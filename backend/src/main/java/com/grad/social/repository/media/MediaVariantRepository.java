@@ -0,0 +1,63 @@
+package com.grad.social.repository.media;
+
+import com.grad.social.common.model.MediaRepresentation;
+import com.grad.social.model.tables.MediaVariant;
+import lombok.RequiredArgsConstructor;
+import org.jooq.DSLContext;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.jooq.Records.mapping;
+
+@Repository
+@RequiredArgsConstructor
+public class MediaVariantRepository {
+    private final DSLContext dsl;
+
+    MediaVariant mv = MediaVariant.MEDIA_VARIANT;
+
+    // the variant of the original contentHash at that width, its contentHashed is the hash of the variant file (null when there is none)
+    public MediaRepresentation findVariant(String contentHash, int width) {
+        return dsl.select(mv.FILENAME, mv.VARIANT_HASH, mv.MIME_TYPE, mv.SIZE_BYTES, mv.WIDTH, mv.HEIGHT)
+                .from(mv)
+                .where(mv.CONTENT_HASH.eq(contentHash).and(mv.WIDTH.eq(width)))
+                .fetchOne(mapping((fileName, variantHash, mimeType, sizeInBytes, variantWidth, variantHeight) -> {
+                    var variant = new MediaRepresentation(fileName, variantHash, mimeType, sizeInBytes);
+                    variant.setWidth(variantWidth);
+                    variant.setHeight(variantHeight);
+                    return variant;
+                }));
+    }
+
+    // concurrent generations of the same variant (other instances) produce the same file, the first row wins
+    public void saveVariant(String contentHash, MediaRepresentation variant) {
+        dsl.insertInto(mv)
+                .set(mv.CONTENT_HASH, contentHash)
+                .set(mv.WIDTH, variant.getWidth())
+                .set(mv.HEIGHT, variant.getHeight())
+                .set(mv.MIME_TYPE, variant.getMimeType())
+                .set(mv.VARIANT_HASH, variant.getContentHashed())
+                .set(mv.FILENAME, variant.getFileNameHashed())
+                .set(mv.SIZE_BYTES, variant.getSizeInBytes())
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    // the original has no smaller variant at that width, recorded so that it is not decoded again
+    public void saveNoVariant(String contentHash, int width) {
+        dsl.insertInto(mv)
+                .set(mv.CONTENT_HASH, contentHash)
+                .set(mv.WIDTH, width)
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    public List<String> findVariantFileNames(Collection<String> contentHashes) {
+        return dsl.select(mv.FILENAME)
+                .from(mv)
+                .where(mv.CONTENT_HASH.in(contentHashes).and(mv.FILENAME.isNotNull()))
+                .fetch(mv.FILENAME);
+    }
+}
@@ -0,0 +1,100 @@
+package com.grad.social.repository.outbox;
+
+import com.grad.social.model.outbox.OutboxEvent;
+import com.grad.social.model.tables.OutboxConsumptions;
+import com.grad.social.model.tables.OutboxEvents;
+import lombok.RequiredArgsConstructor;
+import org.jooq.DSLContext;
+import org.jooq.JSONB;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.jooq.Records.mapping;
+
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepository {
+    private final DSLContext dsl;
+
+    private final OutboxEvents OE = OutboxEvents.OUTBOX_EVENTS;
+    private final OutboxConsumptions OC = OutboxConsumptions.OUTBOX_CONSUMPTIONS;
+
+    // Aliases
+    private final OutboxEvents oe = OutboxEvents.OUTBOX_EVENTS.as("oe");
+
+    // nothing is inserted if the same change was already recorded
+    public void save(String eventType, String payload, String idempotencyKey) {
+        dsl.insertInto(OE, OE.EVENT_TYPE, OE.PAYLOAD, OE.IDEMPOTENCY_KEY)
+                .values(eventType, JSONB.valueOf(payload), idempotencyKey)
+                .onConflict(OE.IDEMPOTENCY_KEY)
+                .doNothing()
+                .execute();
+    }
+
+    /**
+     * Claims up to batchSize due events: rows locked by another relay are skipped, claimed rows are leased
+     * (hidden from the other relays) until the lease expires, so that the events of a crashed relay are redelivered.
+     */
+    public List<OutboxEvent> claimBatch(int batchSize, int maxAttempts, Duration lease) {
+        var due = DSL.select(oe.ID)
+                .from(oe)
+                .where(oe.PROCESSED_AT.isNull())
+                .and(oe.AVAILABLE_AT.le(DSL.currentInstant()))
+                .and(oe.ATTEMPTS.lt(maxAttempts))
+                .orderBy(oe.ID)
+                .limit(batchSize)
+                .forUpdate()
+                .skipLocked();
+        return dsl.update(OE)
+                .set(OE.ATTEMPTS, OE.ATTEMPTS.plus(1))
+                .set(OE.AVAILABLE_AT, Instant.now().plus(lease))
+                .where(OE.ID.in(due))
+                .returningResult(OE.ID, OE.EVENT_TYPE, OE.PAYLOAD, OE.CREATED_AT, OE.ATTEMPTS)
+                .fetch(mapping((id, eventType, payload, createdAt, attempts) -> new OutboxEvent(id, eventType, payload.data(), createdAt, attempts)))
+                .stream()
+                .sorted(Comparator.comparing(OutboxEvent::id))
+                .toList();
+    }
+
+    public void markProcessed(Collection<Long> eventIds) {
+        dsl.update(OE)
+                .set(OE.PROCESSED_AT, DSL.currentInstant())
+                .set(OE.LAST_ERROR, (String) null)
+                .where(OE.ID.in(eventIds))
+                .execute();
+    }
+
+    public void markFailed(Long eventId, String error, Instant retryAt) {
+        dsl.update(OE)
+                .set(OE.LAST_ERROR, error)
+                .set(OE.AVAILABLE_AT, retryAt)
+                .where(OE.ID.eq(eventId))
+                .execute();
+    }
+
+    // false if the handler already consumed the event, to be called in the transaction of the handler
+    public boolean tryConsume(String handler, Long eventId) {
+        return dsl.insertInto(OC, OC.HANDLER, OC.EVENT_ID)
+                .values(handler, eventId)
+                .onConflictDoNothing()
+                .execute() == 1;
+    }
+
+    public int countPending() {
+        return dsl.fetchCount(OE, OE.PROCESSED_AT.isNull());
+    }
+
+    // consumptions are deleted with their event
+    public int deleteProcessedBefore(Instant threshold) {
+        return dsl.deleteFrom(OE)
+                .where(OE.PROCESSED_AT.lt(threshold))
+                .execute();
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.grad.social.repository.status;
+
+import com.grad.social.model.status.ModerationResult;
+import com.grad.social.model.tables.ModerationCache;
+import lombok.RequiredArgsConstructor;
+import org.jooq.DSLContext;
+import org.jooq.Records;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class ModerationCacheRepository {
+    private final DSLContext dsl;
+
+    private final ModerationCache MC = ModerationCache.MODERATION_CACHE;
+
+    // contentHash -> result, for the results produced by the given prompt after notBefore
+    public Map<String, ModerationResult> findResults(String promptHash, Collection<String> contentHashes, Instant notBefore) {
+        return dsl.select(MC.CONTENT_HASH, DSL.row(MC.SEVERITY, MC.CATEGORY, MC.DESCRIPTION).mapping(ModerationResult::new))
+                .from(MC)
+                .where(MC.PROMPT_HASH.eq(promptHash))
+                .and(MC.CONTENT_HASH.in(contentHashes))
+                .and(MC.CREATED_AT.ge(notBefore))
+                .collect(Records.intoMap());
+    }
+
+    public void saveResult(String promptHash, String contentHash, ModerationResult result) {
+        dsl.insertInto(MC, MC.PROMPT_HASH, MC.CONTENT_HASH, MC.SEVERITY, MC.CATEGORY, MC.DESCRIPTION)
+                .values(promptHash, contentHash, result.severity(), result.category(), result.description())
+                .onConflict(MC.PROMPT_HASH, MC.CONTENT_HASH)
+                .doUpdate()
+                .set(MC.SEVERITY, result.severity())
+                .set(MC.CATEGORY, result.category())
+                .set(MC.DESCRIPTION, result.description())
+                .set(MC.CREATED_AT, DSL.currentInstant())
+                .execute();
+    }
+
+    // expired results and the results of previous prompts
+    public int deleteStale(String currentPromptHash, Instant notBefore) {
+        return dsl.deleteFrom(MC)
+                .where(MC.PROMPT_HASH.ne(currentPromptHash))
+                .or(MC.CREATED_AT.lt(notBefore))
+                .execute();
+    }
+
+}
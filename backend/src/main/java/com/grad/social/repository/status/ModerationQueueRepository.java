@@ -0,0 +1,89 @@
+package com.grad.social.repository.status;
+
+import com.grad.social.model.status.helper.ModerationJob;
+import com.grad.social.model.tables.ModerationQueue;
+import lombok.RequiredArgsConstructor;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.jooq.Records.mapping;
+
+@Repository
+@RequiredArgsConstructor
+public class ModerationQueueRepository {
+    private final DSLContext dsl;
+
+    private final ModerationQueue MQ = ModerationQueue.MODERATION_QUEUE;
+
+    // Aliases
+    private final ModerationQueue mq = ModerationQueue.MODERATION_QUEUE.as("mq");
+
+    public void enqueue(Long statusId, String content, boolean detectLanguage) {
+        dsl.insertInto(MQ, MQ.STATUS_ID, MQ.CONTENT, MQ.DETECT_LANGUAGE)
+                .values(statusId, content, detectLanguage)
+                .execute();
+    }
+
+    // jobs locked by another instance are skipped, claimed jobs are leased so that the jobs of a crashed instance are retried
+    public List<ModerationJob> claimBatch(int limit, int maxAttempts, Duration lease) {
+        var due = DSL.select(mq.ID)
+                .from(mq)
+                .where(mq.AVAILABLE_AT.le(DSL.currentInstant()))
+                .and(mq.ATTEMPTS.lt(maxAttempts))
+                .orderBy(mq.ID)
+                .limit(limit)
+                .forUpdate()
+                .skipLocked();
+        return dsl.update(MQ)
+                .set(MQ.ATTEMPTS, MQ.ATTEMPTS.plus(1))
+                .set(MQ.AVAILABLE_AT, Instant.now().plus(lease))
+                .where(MQ.ID.in(due))
+                .returningResult(MQ.ID, MQ.STATUS_ID, MQ.CONTENT, MQ.DETECT_LANGUAGE, MQ.ENQUEUED_AT, MQ.ATTEMPTS)
+                .fetch(mapping(ModerationJob::new))
+                .stream()
+                .sorted(Comparator.comparing(ModerationJob::id))
+                .toList();
+    }
+
+    public void complete(Collection<Long> jobIds) {
+        dsl.deleteFrom(MQ)
+                .where(MQ.ID.in(jobIds))
+                .execute();
+    }
+
+    public void fail(Collection<Long> jobIds, String error, Instant retryAt) {
+        dsl.update(MQ)
+                .set(MQ.LAST_ERROR, error)
+                .set(MQ.AVAILABLE_AT, retryAt)
+                .where(MQ.ID.in(jobIds))
+                .execute();
+    }
+
+    // jobs given up after too many attempts are counted apart, once their last attempt failed (or its lease expired)
+    public QueueCounts countJobs(int maxAttempts) {
+        return dsl.select(DSL.count().filterWhere(MQ.ATTEMPTS.lt(maxAttempts)),
+                        DSL.count().filterWhere(MQ.ATTEMPTS.ge(maxAttempts).and(MQ.AVAILABLE_AT.le(DSL.currentInstant()))))
+                .from(MQ)
+                .fetchOne(mapping(QueueCounts::new));
+    }
+
+    // the ids of the statuses whose jobs were given up before failedBefore
+    public List<Long> deleteDead(int maxAttempts, Instant failedBefore) {
+        return dsl.deleteFrom(MQ)
+                .where(MQ.ATTEMPTS.ge(maxAttempts))
+                .and(MQ.AVAILABLE_AT.lt(failedBefore))
+                .returningResult(MQ.STATUS_ID)
+                .fetch(MQ.STATUS_ID);
+    }
+
+    public record QueueCounts(int pending, int dead) {
+    }
+
+}
@@ -0,0 +1,235 @@
+package com.grad.social.repository.status;
+
+import com.grad.social.common.database.utils.JooqUtils;
+import com.grad.social.model.enums.ParentAssociation;
+import com.grad.social.model.status.StatusConstants;
+import com.grad.social.model.status.helper.LikesDrift;
+import com.grad.social.model.tables.LikesFlushWatermarks;
+import com.grad.social.model.tables.StatusCounters;
+import com.grad.social.model.tables.StatusLikes;
+import com.grad.social.model.tables.Statuses;
+import lombok.RequiredArgsConstructor;
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.jooq.Records.mapping;
+
+@Repository
+@RequiredArgsConstructor
+public class StatusCountersRepository {
+    private final DSLContext dsl;
+
+    private final StatusCounters SC = StatusCounters.STATUS_COUNTERS;
+    private final LikesFlushWatermarks LFW = LikesFlushWatermarks.LIKES_FLUSH_WATERMARKS;
+
+    // Aliases
+    private final Statuses s = Statuses.STATUSES.as("s");
+    private final Statuses sc = Statuses.STATUSES.as("sc"); // child statuses (replies and shares)
+    private final StatusLikes sl = StatusLikes.STATUS_LIKES.as("sl");
+
+    // applies the buffered likes deltas (statusId -> delta) in two statements, deltas of deleted statuses are dropped
+    @SuppressWarnings("unchecked")
+    public void applyLikesDeltas(Map<Long, Long> deltas) {
+        Table<?> v = DSL.values(deltas.entrySet().stream()
+                        .map(delta -> DSL.row(delta.getKey(), delta.getValue().intValue()))
+                        .toArray(Row2[]::new))
+                .as("v", "status_id", "delta");
+        Field<Long> vStatusId = v.field("status_id", Long.class);
+        Field<Integer> vDelta = v.field("delta", Integer.class);
+
+        dsl.transaction(configuration -> {
+            DSLContext tx = configuration.dsl();
+            // statuses inserted outside the application have no counters row yet
+            tx.insertInto(SC, SC.STATUS_ID)
+                    .select(DSL.select(s.ID).from(s).where(s.ID.in(deltas.keySet())))
+                    .onConflictDoNothing()
+                    .execute();
+            // zero deltas (a like undone before its flush) bump the version too: the status changed while a drift was being checked
+            tx.update(SC)
+                    .set(SC.NUM_LIKES, DSL.greatest(SC.NUM_LIKES.plus(vDelta), DSL.val(0)))
+                    .set(SC.LIKES_VERSION, SC.LIKES_VERSION.plus(1))
+                    .from(v)
+                    .where(SC.STATUS_ID.eq(vStatusId))
+                    .execute();
+        });
+    }
+
+    // a reply increments the replies of its parent, a share increments its shares
+    public void incrementChildCounter(Long parentStatusId, ParentAssociation parentAssociation, int delta) {
+        this.increment(parentStatusId, childCounterOf(parentAssociation), delta);
+    }
+
+    // decrements the parent counter matching the association of the child status (no-op for non-child statuses), to be called before deleting it
+    public void decrementParentCounterOf(Long childStatusId) {
+        dsl.update(SC)
+                .set(SC.NUM_REPLIES, DSL.greatest(SC.NUM_REPLIES.minus(DSL.when(s.PARENT_ASSOCIATION.eq(ParentAssociation.REPLY), 1).otherwise(0)), DSL.val(0)))
+                .set(SC.NUM_SHARES, DSL.greatest(SC.NUM_SHARES.minus(DSL.when(s.PARENT_ASSOCIATION.eq(ParentAssociation.SHARE), 1).otherwise(0)), DSL.val(0)))
+                .from(s)
+                .where(s.ID.eq(childStatusId))
+                .and(SC.STATUS_ID.eq(s.PARENT_STATUS_ID))
+                .execute();
+    }
+
+    public List<Long> findStatusIdsAfter(Long lastSeenStatusId, int limit) {
+        return dsl.select(s.ID)
+                .from(s)
+                .where(s.ID.gt(lastSeenStatusId))
+                .orderBy(s.ID)
+                .limit(limit)
+                .fetch(s.ID);
+    }
+
+    /**
+     * Recomputes the replies and shares counters of the given statuses from the source tables, returns the number of counters repaired.
+     * The counters rows are locked before the recount: increments in flight (replies and shares are counted in the transaction
+     * creating them) are either committed before the counts are read, or wait for the recount to commit and apply on top of it.
+     * Likes are written behind by every instance, see {@link #findLikesDrifts} and {@link #repairLikes}.
+     */
+    public int reconcile(List<Long> statusIds) {
+        return dsl.transactionResult(configuration -> {
+            DSLContext tx = configuration.dsl();
+            // statuses inserted outside the application have no counters row yet
+            tx.insertInto(SC, SC.STATUS_ID)
+                    .select(DSL.select(s.ID).from(s).where(s.ID.in(statusIds)))
+                    .onConflictDoNothing()
+                    .execute();
+            // in status id order, so that concurrent reconciliations never deadlock
+            tx.select(SC.STATUS_ID)
+                    .from(SC)
+                    .where(SC.STATUS_ID.in(statusIds))
+                    .orderBy(SC.STATUS_ID)
+                    .forUpdate()
+                    .execute();
+
+            // a new statement, so its snapshot includes the transactions the locks waited for
+            Field<Integer> numReplies = DSL.field(DSL.selectCount().from(sc)
+                    .where(sc.PARENT_STATUS_ID.eq(s.ID).and(sc.PARENT_ASSOCIATION.eq(ParentAssociation.REPLY))));
+            Field<Integer> numShares = DSL.field(DSL.selectCount().from(sc)
+                    .where(sc.PARENT_STATUS_ID.eq(s.ID).and(sc.PARENT_ASSOCIATION.eq(ParentAssociation.SHARE))));
+            Table<?> counts = DSL.select(s.ID.as("status_id"), numReplies.as("num_replies"), numShares.as("num_shares"))
+                    .from(s)
+                    .where(s.ID.in(statusIds))
+                    .asTable("counts");
+            Field<Integer> trueReplies = counts.field("num_replies", Integer.class);
+            Field<Integer> trueShares = counts.field("num_shares", Integer.class);
+
+            return tx.update(SC)
+                    .set(SC.NUM_REPLIES, trueReplies)
+                    .set(SC.NUM_SHARES, trueShares)
+                    .from(counts)
+                    .where(SC.STATUS_ID.eq(counts.field("status_id", Long.class)))
+                    // only touch drifted rows
+                    .and(SC.NUM_REPLIES.ne(trueReplies).or(SC.NUM_SHARES.ne(trueShares)))
+                    .execute();
+        });
+    }
+
+    /**
+     * The likes counters of the given statuses that differ from their status_likes count, with the version of each counter.
+     * A difference is either a drift or deltas not flushed yet by some instance: it is only repaired by {@link #repairLikes}
+     * once every instance has flushed past the count, if the counter has not changed meanwhile.
+     */
+    public List<LikesDrift> findLikesDrifts(List<Long> statusIds) {
+        Field<Integer> numLikes = DSL.field(DSL.select(DSL.countDistinct(sl.USER_ID)).from(sl).where(sl.STATUS_ID.eq(SC.STATUS_ID)));
+        return dsl.select(SC.STATUS_ID, SC.NUM_LIKES.minus(numLikes), SC.LIKES_VERSION)
+                .from(SC)
+                .where(SC.STATUS_ID.in(statusIds))
+                .and(SC.NUM_LIKES.ne(numLikes))
+                .fetch(mapping(LikesDrift::new));
+    }
+
+    // removes the drifts from the counters that no flush has changed since they were found, returns the number of counters repaired
+    @SuppressWarnings("unchecked")
+    public int repairLikes(Collection<LikesDrift> drifts) {
+        if (drifts.isEmpty()) {
+            return 0;
+        }
+        Table<?> v = DSL.values(drifts.stream()
+                        .map(drift -> DSL.row(drift.statusId(), drift.drift(), drift.likesVersion()))
+                        .toArray(Row3[]::new))
+                .as("v", "status_id", "drift", "likes_version");
+        return dsl.update(SC)
+                .set(SC.NUM_LIKES, DSL.greatest(SC.NUM_LIKES.minus(v.field("drift", Integer.class)), DSL.val(0)))
+                .from(v)
+                .where(SC.STATUS_ID.eq(v.field("status_id", Long.class)))
+                .and(SC.LIKES_VERSION.eq(v.field("likes_version", Long.class)))
+                .execute();
+    }
+
+    // every delta recorded by instanceId before flushStartedAgo has been written (the db clock is the reference of every instance)
+    public void saveLikesFlushWatermark(String instanceId, Duration flushStartedAgo) {
+        dsl.insertInto(LFW, LFW.INSTANCE_ID, LFW.FLUSHED_UNTIL)
+                .values(DSL.val(instanceId), dbTimeAgo(flushStartedAgo))
+                .onConflict(LFW.INSTANCE_ID)
+                .doUpdate()
+                .set(LFW.FLUSHED_UNTIL, DSL.excluded(LFW.FLUSHED_UNTIL))
+                .execute();
+    }
+
+    public void deleteLikesFlushWatermark(String instanceId) {
+        JooqUtils.delete(dsl, LFW, LFW.INSTANCE_ID.eq(instanceId));
+    }
+
+    /**
+     * The oldest watermark of the live instances (the ones that flushed within instanceTimeout), the watermarks of the others are deleted:
+     * an instance gone without draining its buffer lost its deltas, they are drifts.
+     */
+    public Instant findLikesFlushWatermark(Duration instanceTimeout) {
+        Condition live = LFW.FLUSHED_UNTIL.gt(dbTimeAgo(instanceTimeout));
+        JooqUtils.delete(dsl, LFW, DSL.not(live));
+        return dsl.select(DSL.min(LFW.FLUSHED_UNTIL)).from(LFW).where(live).fetchOne(0, Instant.class);
+    }
+
+    public Instant currentInstant() {
+        return dsl.select(DSL.currentInstant()).fetchOne(0, Instant.class);
+    }
+
+    /**
+     * Runs action if no other instance is running a reconciliation, holding a session advisory lock meanwhile (released if the
+     * connection is lost), returns whether it ran.
+     */
+    public boolean runWithReconciliationLock(Runnable action) {
+        return dsl.connectionResult(connection -> {
+            DSLContext session = DSL.using(connection, SQLDialect.POSTGRES);
+            Boolean locked = session.select(DSL.field("pg_try_advisory_lock({0})", Boolean.class, DSL.val(StatusConstants.COUNTERS_RECONCILIATION_LOCK_KEY)))
+                    .fetchOne(0, Boolean.class);
+            if (!Boolean.TRUE.equals(locked)) {
+                return false;
+            }
+            try {
+                action.run();
+                return true;
+            } finally {
+                session.select(DSL.field("pg_advisory_unlock({0})", Boolean.class, DSL.val(StatusConstants.COUNTERS_RECONCILIATION_LOCK_KEY))).execute();
+            }
+        });
+    }
+
+
+    // Helpers
+    // upsert so that statuses inserted outside the application (without a counters row) are handled too, counters never go below zero
+    private void increment(Long statusId, Field<Integer> counter, int delta) {
+        dsl.insertInto(SC, SC.STATUS_ID, counter)
+                .values(statusId, Math.max(delta, 0))
+                .onConflict(SC.STATUS_ID)
+                .doUpdate()
+                .set(counter, DSL.greatest(counter.plus(delta), DSL.val(0)))
+                .execute();
+    }
+
+    private Field<Integer> childCounterOf(ParentAssociation parentAssociation) {
+        return parentAssociation == ParentAssociation.REPLY ? SC.NUM_REPLIES : SC.NUM_SHARES;
+    }
+
+    private static Field<Instant> dbTimeAgo(Duration ago) {
+        return DSL.field("now() - {0} * interval '1 millisecond'", Instant.class, DSL.val(ago.toMillis()));
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.grad.social.repository.status;
+
+import com.grad.social.model.shared.UserAvatar;
+import com.grad.social.model.status.helper.StatusSkeleton;
+import com.grad.social.model.status.helper.StatusViewerOverlay;
+import com.grad.social.model.status.response.MediaResponse;
+import com.grad.social.model.tables.*;
+import com.grad.social.service.status.utils.StatusUtils;
+import lombok.RequiredArgsConstructor;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.jooq.Records.mapping;
+
+@Repository
+@RequiredArgsConstructor
+public class StatusHydrationRepository {
+    private final DSLContext dsl;
+
+    // Aliases
+    private final Statuses s = Statuses.STATUSES.as("s");
+    private final Statuses sp = Statuses.STATUSES.as("sp");
+    private final StatusCounters stc = StatusCounters.STATUS_COUNTERS.as("stc");
+    private final StatusLikes sl = StatusLikes.STATUS_LIKES.as("sl");
+    private final StatusMedia sm = StatusMedia.STATUS_MEDIA.as("sm");
+    private final MediaAsset ma = MediaAsset.MEDIA_ASSET.as("ma");
+    private final Bookmarks b = Bookmarks.BOOKMARKS.as("b");
+    private final Users u = Users.USERS.as("u");
+    private final UserFollowers uf = UserFollowers.USER_FOLLOWERS.as("uf");
+    private final UserFollowers uf2 = UserFollowers.USER_FOLLOWERS.as("uf2");
+
+    // one query for all the statuses missed by the caches, deleted statuses are simply absent from the result
+    // mentioned users are the raw mentions of the content, they are resolved by the MentionResolver for the whole batch
+    public List<StatusSkeleton> fetchSkeletons(Collection<Long> statusIds) {
+        return dsl.select(s.ID, s.USER_ID, s.CONTENT, s.IS_PINNED, s.PRIVACY, s.REPLY_AUDIENCE, s.SHARE_AUDIENCE, s.CREATED_AT,
+                        loadStatusMedia(), s.PARENT_ASSOCIATION, s.PARENT_STATUS_ID)
+                .from(s)
+                .where(s.ID.in(statusIds))
+                .fetch(mapping((statusId, ownerId, content, isPinned, privacy, replyAudience, shareAudience, postedAt, medias, parentAssociation, parentStatusId) ->
+                        new StatusSkeleton(statusId, ownerId, content, isPinned, privacy, replyAudience, shareAudience,
+                                StatusUtils.extractMentions(content).stream().distinct().toList(), postedAt, medias, parentAssociation, parentStatusId)));
+    }
+
+    // the avatars of the owners of statuses, deleted users are absent from the result
+    public List<UserAvatar> fetchAvatars(Collection<Long> userIds) {
+        return dsl.select(u.ID, u.USERNAME, u.DISPLAY_NAME, u.PROFILE_PICTURE)
+                .from(u)
+                .where(u.ID.in(userIds))
+                .fetch(mapping(UserAvatar::new));
+    }
+
+    // likes are the flushed ones, pending likes are merged by the caller
+    public List<StatusViewerOverlay> fetchViewerOverlays(Long viewerId, Collection<Long> statusIds) {
+        return dsl.select(s.ID,
+                        DSL.coalesce(stc.NUM_LIKES, 0), DSL.coalesce(stc.NUM_REPLIES, 0), DSL.coalesce(stc.NUM_SHARES, 0),
+                        DSL.field(DSL.exists(DSL.selectOne().from(sl).where(sl.STATUS_ID.eq(s.ID).and(sl.USER_ID.eq(viewerId))))),
+                        DSL.field(DSL.exists(DSL.selectOne().from(b).where(b.STATUS_ID.eq(s.ID).and(b.USER_ID.eq(viewerId))))),
+                        DSL.field(DSL.exists(DSL.selectOne().from(uf).where(uf.FOLLOWED_USER_ID.eq(s.USER_ID).and(uf.FOLLOWER_ID.eq(viewerId))))),
+                        DSL.field(DSL.exists(DSL.selectOne().from(uf2).where(uf2.FOLLOWED_USER_ID.eq(sp.USER_ID).and(uf2.FOLLOWER_ID.eq(viewerId))))))
+                .from(s)
+                .leftJoin(sp).on(sp.ID.eq(s.PARENT_STATUS_ID))
+                .leftJoin(stc).on(stc.STATUS_ID.eq(s.ID))
+                .where(s.ID.in(statusIds))
+                .fetch(mapping(StatusViewerOverlay::new));
+    }
+
+    public List<String> findExistingUsernames(Collection<String> usernames) {
+        return dsl.select(u.USERNAME)
+                .from(u)
+                .where(u.USERNAME.in(usernames))
+                .fetch(u.USERNAME);
+    }
+
+
+    // Helpers
+    private Field<List<MediaResponse>> loadStatusMedia() {
+        return DSL.multiset(
+                DSL.select(ma.MEDIA_ID, ma.MIME_TYPE, ma.SIZE_BYTES, sm.POSITION)
+                        .from(sm)
+                        .join(ma).on(ma.MEDIA_ID.eq(sm.MEDIA_ID))
+                        .where(sm.STATUS_ID.eq(s.ID))
+                        .orderBy(sm.POSITION)
+        ).convertFrom(r -> r.map(mapping(MediaResponse::new)));
+    }
+
+}
@@ -2,9 +2,7 @@ package com.grad.social.repository.status;
 
 import com.grad.social.common.database.utils.JooqUtils;
 import com.grad.social.common.database.utils.TsidUtils;
-import com.grad.social.model.enums.AccountStatus;
 import com.grad.social.model.enums.ParentAssociation;
-import com.grad.social.model.status.StatusConstants;
 import com.grad.social.model.status.helper.StatusMetadata;
 import com.grad.social.model.status.request.CreateStatusRequest;
 import com.grad.social.model.status.request.UpdateStatusContent;
@@ -28,8 +26,6 @@ import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Repository;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 import static org.jooq.Records.mapping;
@@ -60,7 +56,15 @@ public class StatusRepository {
                 .getId();
     }
 
-    public void saveContentModeration(Long statusId, ModerationResult moderationResult) {
+    // the severity the status had before, null when it was not moderated yet. To be called in a transaction: the status row stays
+    // locked until it commits, so that concurrent moderations of a status are applied one after the other and each sees the previous one
+    public Integer saveContentModeration(Long statusId, ModerationResult moderationResult) {
+        Integer previousSeverity = dsl.select(cm.SEVERITY)
+                .from(s)
+                .leftJoin(cm).on(cm.STATUS_ID.eq(s.ID))
+                .where(s.ID.eq(statusId))
+                .forNoKeyUpdate().of(s)
+                .fetchOne(cm.SEVERITY);
         dsl.insertInto(cm, cm.STATUS_ID, cm.SEVERITY, cm.CATEGORY, cm.DESCRIPTION)
                 .values(statusId, moderationResult.severity(), moderationResult.category(), moderationResult.description())
                 .onDuplicateKeyUpdate()
@@ -68,25 +72,7 @@ public class StatusRepository {
                 .set(cm.CATEGORY, moderationResult.category())
                 .set(cm.DESCRIPTION, moderationResult.description())
                 .execute();
-    }
-
-    public boolean checkWhetherToRestrictUser(Long userId) {
-        var startDateTime = Instant.now().minus(StatusConstants.DAYS_TO_CHECK, ChronoUnit.DAYS);
-        var statusCount = dsl.selectCount()
-                .from(cm)
-                .join(s)
-                .on(s.ID.eq(cm.STATUS_ID))
-                .where(s.USER_ID.eq(userId))
-                .and(cm.SEVERITY.in(3, 4))
-                .and(s.CREATED_AT.ge(startDateTime))
-                .fetchOne(0, int.class);
-
-        // If the count meets or exceeds X, restrict the user's account
-        if (statusCount != null && statusCount >= StatusConstants.UNSAFE_STATUES_THRESHOLD) {
-            JooqUtils.update(dsl, u, Map.of(u.ACCOUNT_STATUS, AccountStatus.RESTRICTED), u.ID.eq(userId));
-            return true;
-        }
-        return false;
+        return previousSeverity;
     }
 
     public int deleteStatus(Long statusId) {
@@ -0,0 +1,90 @@
+package com.grad.social.repository.status;
+
+import com.grad.social.common.concurrency.Singleflight;
+import com.grad.social.model.status.StatusConstants;
+import com.grad.social.model.status.helper.ThreadEntry;
+import com.grad.social.model.tables.StatusCounters;
+import com.grad.social.model.tables.StatusReplyIndex;
+import com.grad.social.model.tables.Statuses;
+import lombok.RequiredArgsConstructor;
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StatusThreadRepository {
+    private final DSLContext dsl;
+
+    // Aliases
+    private final Statuses s = Statuses.STATUSES.as("s");
+    private final StatusReplyIndex ri = StatusReplyIndex.STATUS_REPLY_INDEX.as("ri");
+    private final StatusReplyIndex rp = StatusReplyIndex.STATUS_REPLY_INDEX.as("rp"); // the entry of the replied-to status
+    private final StatusReplyIndex t = StatusReplyIndex.STATUS_REPLY_INDEX.as("t"); // the entries of an expanded subtree
+    private final StatusCounters stc = StatusCounters.STATUS_COUNTERS.as("stc");
+
+    // a reply to a status that is not itself an indexed reply starts a new conversation rooted at that status
+    public void indexReply(Long replyId, Long parentStatusId) {
+        dsl.insertInto(ri, ri.STATUS_ID, ri.ROOT_ID, ri.PARENT_ID, ri.DEPTH, ri.PATH)
+                .select(DSL.select(DSL.val(replyId), DSL.coalesce(rp.ROOT_ID, s.ID), s.ID,
+                                DSL.coalesce(rp.DEPTH, DSL.val(0)).plus(1),
+                                DSL.coalesce(rp.PATH, DSL.val("")).concat(pathSegment(replyId)))
+                        .from(s)
+                        .leftJoin(rp).on(rp.STATUS_ID.eq(s.ID))
+                        .where(s.ID.eq(parentStatusId)))
+                .onConflictDoNothing()
+                .execute();
+    }
+
+    /**
+     * The replies of a status down to maxDepth levels below it, restricted to its maxBranches most engaging direct replies.
+     * One range scan of the (root_id, path) index per branch, entries come in thread order (branch rank, then path).
+     */
+    @Singleflight
+    public List<ThreadEntry> fetchThread(Long statusId, int maxDepth, int maxBranches) {
+        // a root status has no entry: its subtree is the whole conversation
+        var anchor = dsl.select(ri.ROOT_ID, ri.DEPTH, ri.PATH)
+                .from(ri)
+                .where(ri.STATUS_ID.eq(statusId))
+                .fetchOne();
+        Long rootId = anchor == null ? statusId : anchor.value1();
+        int anchorDepth = anchor == null ? 0 : anchor.value2();
+        String anchorPath = anchor == null ? "" : anchor.value3();
+
+        Field<Integer> engagement = DSL.coalesce(stc.NUM_LIKES, 0).plus(DSL.coalesce(stc.NUM_REPLIES, 0)).plus(DSL.coalesce(stc.NUM_SHARES, 0));
+        SortField<?>[] branchOrder = {engagement.desc(), ri.STATUS_ID.desc()};
+        Table<?> branches = DSL.select(ri.PATH.as("branch_path"), DSL.rowNumber().over(DSL.orderBy(branchOrder)).as("branch_rank"))
+                .from(ri)
+                .leftJoin(stc).on(stc.STATUS_ID.eq(ri.STATUS_ID))
+                .where(ri.ROOT_ID.eq(rootId))
+                .and(ri.DEPTH.eq(anchorDepth + 1))
+                .and(subtreeOf(ri.PATH, DSL.val(anchorPath)))
+                .orderBy(branchOrder)
+                .limit(maxBranches)
+                .asTable("br");
+        Field<String> branchPath = branches.field("branch_path", String.class);
+        Field<Integer> branchRank = branches.field("branch_rank", Integer.class);
+
+        return dsl.select(t.STATUS_ID, t.PARENT_ID, t.DEPTH.minus(anchorDepth))
+                .from(branches)
+                .join(t).on(t.ROOT_ID.eq(rootId).and(subtreeOf(t.PATH, branchPath)))
+                .where(t.DEPTH.le(anchorDepth + maxDepth))
+                .orderBy(branchRank, t.PATH)
+                .limit(StatusConstants.THREAD_MAX_REPLIES)
+                .fetch(Records.mapping(ThreadEntry::new));
+    }
+
+
+    // Helpers
+    private static Field<String> pathSegment(Long statusId) {
+        return DSL.lpad(DSL.field("to_hex({0})", String.class, DSL.val(statusId)), StatusConstants.THREAD_PATH_SEGMENT_LENGTH, '0');
+    }
+
+    // '~' sorts after every hex digit in the "C" collation of the path column
+    private static Condition subtreeOf(Field<String> path, Field<String> prefix) {
+        return path.ge(prefix).and(path.lt(prefix.concat("~")));
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.grad.social.repository.user;
 
+import com.grad.social.common.concurrency.Singleflight;
 import com.grad.social.common.database.utils.JooqUtils;
 import com.grad.social.model.enums.AccountStatus;
 import com.grad.social.model.enums.FollowingPriority;
@@ -7,9 +8,10 @@ import com.grad.social.model.enums.Gender;
 import com.grad.social.model.shared.UserAvatar;
 import com.grad.social.model.tables.*;
 import com.grad.social.model.tables.records.UsersRecord;
+import com.grad.social.model.user.helper.ProfileSkeleton;
+import com.grad.social.model.user.helper.ProfileViewerOverlay;
 import com.grad.social.model.user.helper.UserBasicData;
 import com.grad.social.model.user.request.CreateUser;
-import com.grad.social.model.user.response.ProfileResponse;
 import com.grad.social.model.user.response.UserAbout;
 import lombok.RequiredArgsConstructor;
 import org.jooq.DSLContext;
@@ -23,7 +25,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
-import static com.grad.social.model.enums.PrivacySettings.*;
 import static org.jooq.Records.mapping;
 
 @Repository
@@ -41,18 +42,16 @@ public class UserRepository {
     private final Messages m = Messages.MESSAGES;
     private final MessageStatus ms = MessageStatus.MESSAGE_STATUS;
 
-    public ProfileResponse fetchUserProfileByName(Long currentUserId, String nameToSearch) {
-        Long profileOwnerId = dsl.select(u.ID)
+    public Long findUserIdByName(String nameToSearch) {
+        return dsl.select(u.ID)
                 .from(u)
                 .where(u.USERNAME.eq(nameToSearch).or(u.DISPLAY_NAME.eq(nameToSearch)))
                 .fetchOneInto(Long.class);
-        if (profileOwnerId == null) {
-            return null;
-        }
-        return fetchUserProfileById(currentUserId, profileOwnerId);
     }
 
-    public ProfileResponse fetchUserProfileById(Long currentUserId, Long profileOwnerId) {
+    // keyed by profile only, so that the viewers loading a profile at once share one load (the viewer part is fetchProfileViewerOverlay)
+    @Singleflight
+    public ProfileSkeleton fetchProfileSkeleton(Long profileOwnerId) {
         // number of followers of the profile owner
         Field<Integer> followerNumberField = DSL.selectCount()
                 .from(uf)
@@ -65,34 +64,48 @@ public class UserRepository {
                 .where(uf.FOLLOWER_ID.eq(profileOwnerId))
                 .asField("followingNo");
 
+        return dsl.select(u.ID, u.DISPLAY_NAME, u.USERNAME, u.JOINED_AT, u.PROFILE_PICTURE, u.PROFILE_COVER_PHOTO, u.PROFILE_BIO, u.DOB, u.RESIDENCE, u.GENDER,
+                        u.TIMEZONE_ID, up.WHO_CAN_MESSAGE, followerNumberField, followingNumberField)
+                .from(u)
+                .join(up).on(u.ID.eq(up.USER_ID))
+                .where(u.ID.eq(profileOwnerId))
+                .fetchOne(mapping((userId, displayName, username, joinedAt, profilePicture, profileCover, bio, dob, residence, gender,
+                                   timezoneId, whoCanMessage, followerNumber, followingNumber) ->
+                        new ProfileSkeleton(new UserAvatar(userId, username, displayName, profilePicture), profileCover, bio, joinedAt,
+                                new UserAbout(gender, dob, residence, timezoneId), whoCanMessage, followerNumber, followingNumber)));
+    }
+
+    public ProfileViewerOverlay fetchProfileViewerOverlay(Long currentUserId, Long profileOwnerId) {
+        if (Objects.equals(currentUserId, profileOwnerId)) {
+            return ProfileViewerOverlay.SELF;
+        }
         // used for toggling follow button
-        Field<Boolean> isBeingFollowedField = Objects.equals(currentUserId, profileOwnerId) ? DSL.val(false).as("isBeingFollowed") : DSL.exists(
+        Field<Boolean> isBeingFollowedField = DSL.exists(
                 DSL.selectOne()
                         .from(uf)
                         .where(uf.FOLLOWER_ID.eq(currentUserId).and(uf.FOLLOWED_USER_ID.eq(profileOwnerId)))
         ).as("isBeingFollowed");
 
         // used for toggling follow button
-        Field<Boolean> isFollowingCurrentUserField = Objects.equals(currentUserId, profileOwnerId) ? DSL.val(false).as("isFollowingCurrentUserField") : DSL.exists(
+        Field<Boolean> isFollowingCurrentUserField = DSL.exists(
                 DSL.selectOne()
                         .from(uf)
                         .where(uf.FOLLOWER_ID.eq(profileOwnerId).and(uf.FOLLOWED_USER_ID.eq(currentUserId)))
         ).as("isFollowingCurrentUserField");
 
-        // Return the priority or NULL if not following or is self
-        Field<FollowingPriority> followingPriorityField = Objects.equals(currentUserId, profileOwnerId) ? DSL.val((FollowingPriority) null).as("followingPriority")
-                : DSL.select(uf.FOLLOWING_PRIORITY)
+        // Return the priority or NULL if not following
+        Field<FollowingPriority> followingPriorityField = DSL.select(uf.FOLLOWING_PRIORITY)
                 .from(uf)
                 .where(uf.FOLLOWER_ID.eq(currentUserId).and(uf.FOLLOWED_USER_ID.eq(profileOwnerId)))
                 .asField("followingPriority");
 
-        Field<Boolean> isBlockedField = Objects.equals(currentUserId, profileOwnerId) ? DSL.val(false).as("isBlocked") : DSL.exists(
+        Field<Boolean> isBlockedField = DSL.exists(
                 DSL.selectOne()
                         .from(ub)
                         .where(ub.USER_ID.eq(currentUserId).and(ub.BLOCKED_USER_ID.eq(profileOwnerId)))
         ).as("isBlocked");
 
-        Field<Boolean> isMutedField = Objects.equals(currentUserId, profileOwnerId) ? DSL.val(false).as("isMuted") : DSL.exists(
+        Field<Boolean> isMutedField = DSL.exists(
                 DSL.selectOne()
                         .from(um)
                         .where(um.USER_ID.eq(currentUserId).and(um.MUTED_USER_ID.eq(profileOwnerId)
@@ -100,34 +113,8 @@ public class UserRepository {
                                 )))
         ).as("isMuted");
 
-        return dsl.select(u.ID, u.DISPLAY_NAME, u.USERNAME, u.JOINED_AT, u.PROFILE_PICTURE, u.PROFILE_COVER_PHOTO, u.PROFILE_BIO, u.DOB, u.RESIDENCE, u.GENDER,
-                        u.TIMEZONE_ID, up.WHO_CAN_MESSAGE, followingNumberField, followerNumberField, isFollowingCurrentUserField, isBeingFollowedField, followingPriorityField,
-                        isBlockedField, isMutedField)
-                .from(u)
-                .join(up).on(u.ID.eq(up.USER_ID))
-                .where(u.ID.eq(profileOwnerId))
-                .fetchOne(mapping((userId, displayName, username, joinedAt, profilePicture, profileCover, bio, dob, residence, gender,
-                                   timezoneId, whoCanMessage, followingNumber, followerNumber, isFollowingCurrentUser, isBeingFollowed, followingPriority,
-                                   isBlocked, isMuted) -> {
-                    var profile = new ProfileResponse(new UserAvatar(userId, username, displayName, profilePicture), profileCover, bio, joinedAt,
-                            new UserAbout(gender, dob, residence, timezoneId));
-                    profile.setFollowerNo(followerNumber);
-                    profile.setFollowingNo(followingNumber);
-                    profile.setIsBeingFollowed(isBeingFollowed);
-                    profile.setFollowingPriority(followingPriority == null ? null : followingPriority.name());
-                    profile.setIsBlocked(isBlocked);
-                    profile.setIsMuted(isMuted);
-                    profile.setCanBeMessaged(
-                            switch (whoCanMessage) {
-                                case EVERYONE -> true;
-                                case FOLLOWERS -> isBeingFollowed;
-                                case FRIENDS -> isBeingFollowed && isFollowingCurrentUser;
-                                case NONE -> false;
-                                default -> throw new IllegalStateException("Unexpected value: " + whoCanMessage);
-                            }
-                    );
-                    return profile;
-                }));
+        return dsl.select(isBeingFollowedField, isFollowingCurrentUserField, followingPriorityField, isBlockedField, isMutedField)
+                .fetchOne(mapping(ProfileViewerOverlay::new));
     }
 
     public Long save(CreateUser user) {
@@ -160,6 +147,15 @@ public class UserRepository {
         );
     }
 
+    // false when the account was already restricted
+    public boolean restrictAccount(Long userId) {
+        return dsl.update(u)
+                .set(u.ACCOUNT_STATUS, AccountStatus.RESTRICTED)
+                .where(u.ID.eq(userId))
+                .and(u.ACCOUNT_STATUS.ne(AccountStatus.RESTRICTED))
+                .execute() > 0;
+    }
+
     public boolean isAccountOwner(Long currentUserId, String nameToSearch) {
         String currentUsername = dsl.select(u.USERNAME).from(u).where(u.ID.eq(currentUserId)).fetchOneInto(String.class);
         return currentUsername != null && currentUsername.equals(nameToSearch);
@@ -2,16 +2,20 @@ package com.grad.social.repository.user;
 
 import com.grad.social.common.AppConstants;
 import com.grad.social.common.database.utils.JooqUtils;
+import com.grad.social.common.utils.LongHashSet;
 import com.grad.social.model.enums.FollowingPriority;
 import com.grad.social.model.enums.PrivacySettings;
 import com.grad.social.model.shared.UserConnectionInfo;
 import com.grad.social.model.shared.ProfileStatus;
 import com.grad.social.model.shared.UserAvatar;
 import com.grad.social.model.tables.*;
+import com.grad.social.model.user.helper.ViewerGraphSnapshot;
 import com.grad.social.model.user.response.UserResponse;
 import lombok.RequiredArgsConstructor;
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Record2;
 import org.jooq.impl.DSL;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Repository;
@@ -19,6 +23,7 @@ import org.springframework.stereotype.Repository;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import static org.jooq.Records.mapping;
@@ -257,6 +262,15 @@ public class UserUserInteractionRepository {
                 .leftJoin(uf2).on(uf2.FOLLOWER_ID.eq(u.ID)
                         .and(uf2.FOLLOWED_USER_ID.eq(currentUserId)))
                 .where(usernameToFind.isBlank() ? DSL.trueCondition() : u.USERNAME.likeIgnoreCase(usernameToFind + "%"))
+                // users blocked in either direction are filtered before paging, so that pages stay full
+                .andNotExists(
+                        dsl.selectOne()
+                                .from(ub)
+                                .where(
+                                        (ub.USER_ID.eq(currentUserId).and(ub.BLOCKED_USER_ID.eq(u.ID))).or
+                                                (ub.USER_ID.eq(u.ID).and(ub.BLOCKED_USER_ID.eq(currentUserId)))
+                                )
+                )
                 .orderBy(case_()
                         .when(uf1.FOLLOWED_USER_ID.isNotNull(),                                                     // Priority 1: Friends
                                 case_().when(uf1.FOLLOWING_PRIORITY.eq(FollowingPriority.FAVOURITE), 0)      // Priority  1-1: Favourite friends
@@ -319,6 +333,32 @@ public class UserUserInteractionRepository {
         };
     }
 
+    // one round trip for the three relationship sets of the viewer, validUntil is the earliest expiry of the active mutes
+    public ViewerGraphSnapshot fetchViewerGraph(Long viewerId) {
+        Instant now = Instant.now();
+        var followeeIds = DSL.multiset(
+                DSL.select(uf1.FOLLOWED_USER_ID).from(uf1).where(uf1.FOLLOWER_ID.eq(viewerId))
+        ).convertFrom(r -> LongHashSet.of(r.map(Record1::value1)));
+
+        // blocks: both directions (users blocked by the viewer and users who blocked the viewer)
+        var blockedUserIds = DSL.multiset(
+                DSL.select(ub.BLOCKED_USER_ID).from(ub).where(ub.USER_ID.eq(viewerId))
+                        .unionAll(DSL.select(ub.USER_ID).from(ub).where(ub.BLOCKED_USER_ID.eq(viewerId)))
+        ).convertFrom(r -> LongHashSet.of(r.map(Record1::value1)));
+
+        // mute still active (muted_until is null => indefinite OR muted_until > now())
+        var activeMutes = DSL.multiset(
+                DSL.select(um.MUTED_USER_ID, um.MUTED_UNTIL).from(um)
+                        .where(um.USER_ID.eq(viewerId))
+                        .and(um.MUTED_UNTIL.isNull().or(um.MUTED_UNTIL.greaterThan(now)))
+        );
+
+        return dsl.select(followeeIds, blockedUserIds, activeMutes)
+                .fetchOne(mapping((followees, blocked, mutes) -> new ViewerGraphSnapshot(viewerId, followees, blocked,
+                        LongHashSet.of(mutes.map(Record2::value1)),
+                        mutes.stream().map(Record2::value2).filter(Objects::nonNull).min(Instant::compareTo).orElse(AppConstants.DEFAULT_MAX_TIMESTAMP))));
+    }
+
     public Map<Long, UserConnectionInfo> getConnectionWithOthersInfo(Set<Long> otherUserIds, Long currentUserId) {
         return dsl.select(
                         u.ID, up.WHO_CAN_MESSAGE, up.WHO_CAN_ADD_TO_GROUPS,
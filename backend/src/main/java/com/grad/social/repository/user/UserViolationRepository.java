@@ -0,0 +1,69 @@
+package com.grad.social.repository.user;
+
+import com.grad.social.model.tables.ContentModeration;
+import com.grad.social.model.tables.Statuses;
+import com.grad.social.model.tables.UserViolationBuckets;
+import lombok.RequiredArgsConstructor;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+@RequiredArgsConstructor
+public class UserViolationRepository {
+    private final DSLContext dsl;
+
+    // Aliases
+    private final UserViolationBuckets uvb = UserViolationBuckets.USER_VIOLATION_BUCKETS;
+    private final Statuses s = Statuses.STATUSES.as("s");
+    private final ContentModeration cm = ContentModeration.CONTENT_MODERATION;
+
+    // counts an unsafe status in its owner's bucket of the day, returns the owner (null if the status no longer exists)
+    // the day is kept with the moderation of the status, see forgetViolation
+    public Long recordViolation(Long statusId, LocalDate day) {
+        dsl.update(cm)
+                .set(cm.VIOLATION_DAY, day)
+                .where(cm.STATUS_ID.eq(statusId))
+                .execute();
+        return dsl.insertInto(uvb, uvb.USER_ID, uvb.BUCKET_DAY, uvb.VIOLATIONS)
+                .select(DSL.select(s.USER_ID, DSL.val(day), DSL.val(1))
+                        .from(s)
+                        .where(s.ID.eq(statusId)))
+                .onConflict(uvb.USER_ID, uvb.BUCKET_DAY)
+                .doUpdate()
+                .set(uvb.VIOLATIONS, uvb.VIOLATIONS.plus(1))
+                .returningResult(uvb.USER_ID)
+                .fetchOne(uvb.USER_ID);
+    }
+
+    // uncounts the violation of a status about to be deleted from the bucket it was counted in (no-op if it was never counted)
+    public int forgetViolation(Long statusId) {
+        return dsl.update(uvb)
+                .set(uvb.VIOLATIONS, uvb.VIOLATIONS.minus(1))
+                .from(s.join(cm).on(cm.STATUS_ID.eq(s.ID)))
+                .where(s.ID.eq(statusId))
+                .and(uvb.USER_ID.eq(s.USER_ID))
+                .and(uvb.BUCKET_DAY.eq(cm.VIOLATION_DAY))
+                .and(uvb.VIOLATIONS.gt(0))
+                .execute();
+    }
+
+    // at most DAYS_TO_CHECK + 1 rows of the primary key
+    public int countViolationsSince(Long userId, LocalDate fromDay) {
+        Integer violations = dsl.select(DSL.sum(uvb.VIOLATIONS))
+                .from(uvb)
+                .where(uvb.USER_ID.eq(userId))
+                .and(uvb.BUCKET_DAY.ge(fromDay))
+                .fetchOne(0, Integer.class);
+        return violations == null ? 0 : violations;
+    }
+
+    public int deleteBucketsBefore(LocalDate day) {
+        return dsl.deleteFrom(uvb)
+                .where(uvb.BUCKET_DAY.lt(day))
+                .execute();
+    }
+
+}
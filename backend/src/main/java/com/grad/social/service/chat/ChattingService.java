@@ -2,7 +2,9 @@ package com.grad.social.service.chat;
 
 import com.grad.social.common.model.MediaRepresentation;
 import com.grad.social.common.utils.media.FileSystemUtils;
+import com.grad.social.common.utils.media.FileSystemUtils.IngestedFile;
 import com.grad.social.common.utils.media.MediaUtils;
+import com.grad.social.common.utils.media.MediaUtils.ImageDimensions;
 import com.grad.social.model.chat.request.CreateMessageRequest;
 import com.grad.social.model.chat.response.ChatMessageResponse;
 import com.grad.social.model.chat.response.ChatResponse;
@@ -15,11 +17,10 @@ import com.grad.social.model.shared.UserAvatar;
 import com.grad.social.model.user.response.UserResponse;
 import com.grad.social.repository.chat.ChattingRepository;
 import com.grad.social.repository.media.MediaRepository;
-import com.grad.social.service.chat.event.MessageSavedEvent;
 import com.grad.social.service.chat.validator.ChattingValidator;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -32,7 +33,6 @@ public class ChattingService {
     private final ChattingRepository chattingRepository;
     private final MediaRepository mediaRepository;
     private final ChattingValidator chattingValidator;
-    private final ApplicationEventPublisher eventPublisher;
 
     // chats
     public Long createGroupChat(Long creatorId, String groupName, MultipartFile groupPicture, Set<Long> participantIds) throws IOException {
@@ -48,6 +48,7 @@ public class ChattingService {
     }
 
     public List<UserResponse> searchUsersToMessageOrAddToGroup(Long currentUserId, String nameToSearch, int offset) {
+        // users blocked in either direction are hidden from the results by the query
         return this.chattingRepository.getCandidateUsersToMessageOrAddToGroup(currentUserId, nameToSearch, offset);
     }
 
@@ -83,6 +84,7 @@ public class ChattingService {
     }
 
     // messages
+    @Transactional
     public Long saveMessage(Long chatId, Long senderId, Long parentMessageId, CreateMessageRequest createMessageRequest, MultipartFile attachment) throws Exception {
         // validate messsage
         this.chattingValidator.validateCreateMessage(createMessageRequest, attachment);
@@ -98,25 +100,36 @@ public class ChattingService {
         // Save message to message table
         Long savedMessageId = this.chattingRepository.saveMessage(chatId, senderId, parentMessageId, messageType, createMessageRequest, mediaAssetId);
 
-        this.eventPublisher.publishEvent(new MessageSavedEvent(chatId, savedMessageId, senderId));
+        // message_status rows are created with the message: read and delivery updates only touch existing rows
+        List<Long> onlineRecipients = this.chattingRepository.getMessageRecipientsExcludingSender(chatId).stream()
+                .filter(this.chattingRepository::isUserOnline)
+                .toList();
+        this.chattingRepository.initializeMessageStatusForParticipants(savedMessageId, chatId, senderId, onlineRecipients);
         return savedMessageId;
     }
 
     private Long uploadMedia(MultipartFile attachment) throws Exception {
-        String hashedContent = MediaUtils.hashFileContent(attachment.getInputStream());
+        // one read of the upload: hashed while written to a temp file
+        IngestedFile ingested = FileSystemUtils.ingest(attachment.getInputStream());
+        String hashedContent = ingested.contentHash();
         Long mediaAssetId = this.mediaRepository.findMediaAssetIdsByHashes(Set.of(hashedContent)).get(hashedContent);
 
         // null means a new media asset, we skip it if it exists
         if (mediaAssetId == null) {
-            // Generate hashed filename + keep extension
-            String hashedFileName = MediaUtils.hashFileName(attachment.getOriginalFilename());
+            ImageDimensions dimensions = MediaUtils.readImageDimensions(ingested.tempFile());
 
-            // Save to filesystem: uploads/posts/<hashedFileName>
-            FileSystemUtils.saveFile(hashedFileName, attachment.getInputStream());
+            // Save to filesystem under its content hash: uploads/<hashedContent>
+            FileSystemUtils.commit(ingested, hashedContent);
 
             // Insert into DB
-            var toSave = new MediaRepresentation(hashedFileName, hashedContent, attachment.getContentType(), attachment.getSize());
+            var toSave = new MediaRepresentation(hashedContent, hashedContent, attachment.getContentType(), ingested.sizeInBytes());
+            if (dimensions != null) {
+                toSave.setWidth(dimensions.width());
+                toSave.setHeight(dimensions.height());
+            }
             mediaAssetId = this.mediaRepository.insertMediaAsset(toSave);
+        } else {
+            FileSystemUtils.discard(ingested);
         }
         return mediaAssetId;
     }
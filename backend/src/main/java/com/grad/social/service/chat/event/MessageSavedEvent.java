@@ -1,4 +0,0 @@
-package com.grad.social.service.chat.event;
-
-public record MessageSavedEvent(Long chatId, Long messageId, Long senderId) {
-}
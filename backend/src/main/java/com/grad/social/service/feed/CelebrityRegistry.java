@@ -0,0 +1,66 @@
+package com.grad.social.service.feed;
+
+import com.grad.social.model.feed.FeedConstants;
+import com.grad.social.repository.feed.TimelineRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+
+/**
+ * Keeps the set of high-fanout authors (followers count >= feed.fanout.celebrity-threshold).
+ * Statuses of these authors are not pushed into their followers' timelines, they are pulled and merged at read time.
+ * When an author drops below the threshold, its recent statuses are pushed into its followers' timelines.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CelebrityRegistry {
+    private final TimelineRepository timelineRepository;
+
+    @Value("${feed.fanout.celebrity-threshold:10000}")
+    private int celebrityThreshold;
+
+    private volatile Set<Long> celebrityIds = Set.of();
+
+    public boolean isCelebrity(Long userId) {
+        return celebrityIds.contains(userId);
+    }
+
+    public Set<Long> getCelebrityIds() {
+        return celebrityIds;
+    }
+
+    /**
+     * Runs at startup and then every 10 minutes, an author crossing the threshold in between is still pushed on write until the next refresh.
+     */
+    // runs before the (async) timelines backfill so that it skips high-fanout authors
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 */10 * * * *")
+    public void refresh() {
+        Set<Long> refreshed = Set.copyOf(this.timelineRepository.findAuthorsWithFollowersAtLeast(celebrityThreshold));
+        Set<Long> previous = celebrityIds;
+        if (!refreshed.equals(previous)) {
+            log.info("High-fanout authors changed from {} to {} (threshold = {})", previous.size(), refreshed.size(), celebrityThreshold);
+        }
+        celebrityIds = refreshed;
+
+        // statuses of an author dropping below the threshold were never pushed, and are no longer pulled: push the recent ones now
+        // (after the swap, so that a status published meanwhile is either pushed on write or caught here)
+        for (Long authorId : previous) {
+            if (!refreshed.contains(authorId)) {
+                int pushed = this.timelineRepository.fanOutRecentStatusesOfAuthor(authorId, FeedConstants.TIMELINE_AUTHOR_BACKFILL_SIZE);
+                log.info("Author {} dropped below the high-fanout threshold, pushed {} timeline entries", authorId, pushed);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.grad.social.service.feed;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.grad.social.model.feed.FeedMode;
+import com.grad.social.model.shared.CursorPage;
+import com.grad.social.model.status.response.StatusResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Speculatively builds the next page of a viewer's feed right after the current one was served, the page is kept for a short time
+ * (feed.prefetch.ttl-seconds) under the cursor that requests it. A request arriving while its page is still being prefetched joins it.
+ * At most feed.prefetch.max-concurrent prefetches run at once, further ones are dropped so that speculative work never queues
+ * behind (or in front of) real requests. The keys of the prefetched pages are indexed by viewer so that discarding the pages of a viewer
+ * does not scan the whole cache.
+ * Metrics: feed.prefetch.lookups{result=hit|miss} (the hit rate), feed.prefetch.scheduled, feed.prefetch.rejected, feed.prefetch.failed.
+ */
+@Component
+@Slf4j
+public class FeedPrefetcher {
+    private final MeterRegistry meterRegistry;
+    private final Semaphore permits;
+    private final Cache<PrefetchKey, CompletableFuture<CursorPage<StatusResponse>>> pages;
+    // the sets are only accessed inside the atomic operations of the map (or once removed from it)
+    private final Map<Long, Set<PrefetchKey>> keysByViewer = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public FeedPrefetcher(MeterRegistry meterRegistry,
+                          @Value("${feed.prefetch.max-concurrent:32}") int maxConcurrent,
+                          @Value("${feed.prefetch.max-size:10000}") long maxSize,
+                          @Value("${feed.prefetch.ttl-seconds:30}") long ttlSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.permits = new Semaphore(maxConcurrent);
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                // synchronous, so that the removal of a page is never unindexed after the same page was prefetched again
+                .executor(Runnable::run)
+                .removalListener((PrefetchKey key, CompletableFuture<CursorPage<StatusResponse>> _, RemovalCause _) -> this.unindex(key))
+                .build();
+    }
+
+    // a prefetched page is served once, null when there is none (or its prefetch failed)
+    public CursorPage<StatusResponse> take(Long viewerId, FeedMode mode, String cursor) {
+        if (cursor == null) {
+            return null; // first pages are never prefetched
+        }
+        CompletableFuture<CursorPage<StatusResponse>> page = this.pages.asMap().remove(new PrefetchKey(viewerId, mode, cursor));
+        CursorPage<StatusResponse> prefetched = null;
+        if (page != null) {
+            try {
+                prefetched = page.join();
+            } catch (RuntimeException e) {
+                // already counted as failed
+            }
+        }
+        meterRegistry.counter("feed.prefetch.lookups", "result", prefetched != null ? "hit" : "miss").increment();
+        return prefetched;
+    }
+
+    public void prefetch(Long viewerId, FeedMode mode, String nextCursor, Supplier<CursorPage<StatusResponse>> loader) {
+        if (nextCursor == null) {
+            return; // last page
+        }
+        if (!this.permits.tryAcquire()) {
+            meterRegistry.counter("feed.prefetch.rejected").increment();
+            return;
+        }
+        PrefetchKey key = new PrefetchKey(viewerId, mode, nextCursor);
+        CompletableFuture<CursorPage<StatusResponse>> page = new CompletableFuture<>();
+        // indexed first, so that a concurrent discard of the viewer always finds the page
+        this.index(key);
+        if (this.pages.asMap().putIfAbsent(key, page) != null) {
+            this.permits.release(); // already prefetched (e.g. the same page was served twice)
+            return;
+        }
+        meterRegistry.counter("feed.prefetch.scheduled").increment();
+        this.executor.execute(() -> {
+            try {
+                page.complete(loader.get());
+            } catch (RuntimeException e) {
+                meterRegistry.counter("feed.prefetch.failed").increment();
+                log.debug("Failed to prefetch the feed page {} of user {}", nextCursor, viewerId, e);
+                this.pages.asMap().remove(key, page);
+                page.completeExceptionally(e);
+            } finally {
+                this.permits.release();
+            }
+        });
+    }
+
+    // pages prefetched before a graph mutation of their viewer may show statuses the viewer no longer wants to see
+    public void discard(Collection<Long> viewerIds) {
+        for (Long viewerId : viewerIds) {
+            Set<PrefetchKey> keys = this.keysByViewer.remove(viewerId);
+            if (keys != null) {
+                this.pages.invalidateAll(keys);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+
+    // Helpers
+    private void index(PrefetchKey key) {
+        this.keysByViewer.compute(key.viewerId(), (_, keys) -> {
+            Set<PrefetchKey> indexed = keys != null ? keys : new HashSet<>();
+            indexed.add(key);
+            return indexed;
+        });
+    }
+
+    private void unindex(PrefetchKey key) {
+        this.keysByViewer.computeIfPresent(key.viewerId(), (_, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private record PrefetchKey(Long viewerId, FeedMode mode, String cursor) {}
+
+}
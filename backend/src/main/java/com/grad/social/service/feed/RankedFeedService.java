@@ -0,0 +1,205 @@
+package com.grad.social.service.feed;
+
+import com.grad.social.common.AppConstants;
+import com.grad.social.common.messaging.redis.RedisConstants;
+import com.grad.social.model.enums.FollowingPriority;
+import com.grad.social.model.feed.FeedConstants;
+import com.grad.social.model.feed.RankingFeatures;
+import com.grad.social.model.feed.ScoredEntry;
+import com.grad.social.model.feed.TimelineEntry;
+import com.grad.social.model.shared.CursorPage;
+import com.grad.social.model.shared.PageCursor;
+import com.grad.social.repository.feed.FeedRankingRepository;
+import com.grad.social.repository.feed.FeedRankingRepository.Engagement;
+import com.grad.social.service.feed.ranking.FeedScorer;
+import com.grad.social.service.status.LikeCountersBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked mode of the home feed, a staged pipeline: candidate generation -> feature fetch -> score -> diversify -> paginate.
+ * Candidates are the newest {@link FeedConstants#RANKED_CANDIDATES_LIMIT} entries of the timeline at the time the first page was ranked,
+ * that instant is carried by the cursor (with the offset of the next page). The ranking of the first page is kept in redis under
+ * (viewer, instant) for feed.ranking.snapshot-ttl-seconds, the next pages are sliced from it: they neither pay the pipeline again
+ * nor see statuses move (and be repeated or skipped) as their counters change. Once the snapshot is gone (or redis is unavailable)
+ * the window is ranked again.
+ * The features of the candidates are fetched in parallel on virtual threads, every stage is timed (feed.ranked.stage),
+ * feed.ranked.snapshot{result=hit|miss} counts the pages served from a snapshot.
+ */
+@Service
+@Slf4j
+public class RankedFeedService {
+    private static final String SNAPSHOT_SEPARATOR = ",";
+
+    private final TimelineService timelineService;
+    private final FeedRankingRepository feedRankingRepository;
+    private final LikeCountersBuffer likeCountersBuffer;
+    private final FeedScorer feedScorer;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration snapshotTtl;
+
+    private final ExecutorService featureFetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public RankedFeedService(TimelineService timelineService, FeedRankingRepository feedRankingRepository, LikeCountersBuffer likeCountersBuffer,
+                             FeedScorer feedScorer, RedisTemplate<String, String> redisTemplate, MeterRegistry meterRegistry,
+                             @Value("${feed.ranking.snapshot-ttl-seconds:600}") long snapshotTtlSeconds) {
+        this.timelineService = timelineService;
+        this.feedRankingRepository = feedRankingRepository;
+        this.likeCountersBuffer = likeCountersBuffer;
+        this.feedScorer = feedScorer;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.snapshotTtl = Duration.ofSeconds(snapshotTtlSeconds);
+    }
+
+    public CursorPage<Long> readRankedPage(Long userId, PageCursor cursor) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Instant rankedAt = cursor == null ? Instant.now() : cursor.lastHappenedAt();
+        int offset = cursor == null ? 0 : cursor.position();
+        int pageSize = AppConstants.DEFAULT_PAGE_SIZE;
+
+        String snapshotKey = snapshotKey(userId, rankedAt);
+        List<Long> snapshot = cursor == null ? null : this.getSnapshot(snapshotKey);
+        if (cursor != null) {
+            meterRegistry.counter("feed.ranked.snapshot", "result", snapshot != null ? "hit" : "miss").increment();
+        }
+        if (snapshot == null) {
+            snapshot = this.rank(userId, rankedAt);
+            this.putSnapshot(snapshotKey, snapshot);
+        }
+        List<Long> ranked = snapshot;
+        CursorPage<Long> page = this.timed("paginate", () -> {
+            List<Long> statusIds = ranked.stream().skip(offset).limit(pageSize).toList();
+            String nextCursor = offset + pageSize >= ranked.size() ? null : new PageCursor(false, rankedAt, Long.MAX_VALUE, offset + pageSize).encode();
+            return new CursorPage<>(statusIds, nextCursor);
+        });
+
+        sample.stop(meterRegistry.timer("feed.ranked.read"));
+        return page;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        featureFetchExecutor.shutdown();
+    }
+
+
+    // Helpers
+    // the status ids of the window ending at rankedAt, best first
+    private List<Long> rank(Long userId, Instant rankedAt) {
+        // everything up to rankedAt (inclusive)
+        PageCursor window = PageCursor.of(rankedAt, Long.MAX_VALUE);
+        List<TimelineEntry> candidates = this.timed("candidates",
+                () -> this.timelineService.readNewestEntries(userId, window, FeedConstants.RANKED_CANDIDATES_LIMIT));
+        Map<Long, RankingFeatures> features = this.timed("features", () -> this.fetchFeatures(userId, candidates));
+        List<ScoredEntry> scored = this.timed("score", () -> this.score(candidates, features));
+        List<TimelineEntry> ranked = this.timed("diversify", () -> this.diversify(scored));
+        meterRegistry.summary("feed.ranked.candidates").record(candidates.size());
+        return ranked.stream().map(TimelineEntry::statusId).toList();
+    }
+
+    // redis is a shared optimization only, the window is ranked again when it is unavailable
+    private List<Long> getSnapshot(String key) {
+        try {
+            String value = this.redisTemplate.opsForValue().get(key);
+            if (value == null) {
+                return null;
+            }
+            return value.isEmpty() ? List.of() : Arrays.stream(value.split(SNAPSHOT_SEPARATOR)).map(Long::valueOf).toList();
+        } catch (RuntimeException e) {
+            log.warn("Failed to read the ranked feed snapshot {} from redis", key, e);
+            return null;
+        }
+    }
+
+    private void putSnapshot(String key, List<Long> statusIds) {
+        try {
+            String value = statusIds.stream().map(String::valueOf).collect(Collectors.joining(SNAPSHOT_SEPARATOR));
+            this.redisTemplate.opsForValue().set(key, value, snapshotTtl);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write the ranked feed snapshot {} to redis", key, e);
+        }
+    }
+
+    private static String snapshotKey(Long userId, Instant rankedAt) {
+        return RedisConstants.RANKED_FEED_PREFIX + userId + ":" + rankedAt.getEpochSecond() + "." + rankedAt.getNano();
+    }
+
+    private Map<Long, RankingFeatures> fetchFeatures(Long userId, List<TimelineEntry> candidates) {
+        if (candidates.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> statusIds = candidates.stream().map(TimelineEntry::statusId).toList();
+        Set<Long> authorIds = new HashSet<>();
+        candidates.forEach(candidate -> authorIds.add(candidate.authorId()));
+
+        var priorities = CompletableFuture.supplyAsync(() -> this.feedRankingRepository.fetchFollowingPriorities(userId, authorIds), featureFetchExecutor);
+        var engagement = CompletableFuture.supplyAsync(() -> this.feedRankingRepository.fetchEngagement(statusIds), featureFetchExecutor);
+        var severities = CompletableFuture.supplyAsync(() -> this.feedRankingRepository.fetchModerationSeverities(statusIds), featureFetchExecutor);
+        CompletableFuture.allOf(priorities, engagement, severities).join();
+
+        Map<Long, RankingFeatures> features = new HashMap<>(candidates.size());
+        for (TimelineEntry candidate : candidates) {
+            Long statusId = candidate.statusId();
+            FollowingPriority priority = priorities.join().get(candidate.authorId());
+            Engagement counters = engagement.join().getOrDefault(statusId, new Engagement(0, 0, 0));
+            features.put(statusId, new RankingFeatures(priority, likeCountersBuffer.mergePending(statusId, counters.numLikes()),
+                    counters.numReplies(), counters.numShares(), severities.join().getOrDefault(statusId, 0)));
+        }
+        return features;
+    }
+
+    private List<ScoredEntry> score(List<TimelineEntry> candidates, Map<Long, RankingFeatures> features) {
+        Instant now = Instant.now();
+        return candidates.stream()
+                .map(candidate -> new ScoredEntry(candidate, feedScorer.score(candidate, features.get(candidate.statusId()), now)))
+                .toList();
+    }
+
+    // greedy pick of the best head among authors, every further status of an author already picked has its score decayed
+    private List<TimelineEntry> diversify(List<ScoredEntry> scored) {
+        Map<Long, Deque<ScoredEntry>> byAuthor = new HashMap<>();
+        scored.stream()
+                .sorted(Comparator.comparingDouble(ScoredEntry::score).reversed().thenComparing(e -> e.entry().statusId(), Comparator.reverseOrder()))
+                .forEach(e -> byAuthor.computeIfAbsent(e.entry().authorId(), _ -> new ArrayDeque<>()).add(e));
+
+        // {effective score, author id} of every author's best remaining status
+        PriorityQueue<AuthorHead> heads = new PriorityQueue<>(Math.max(1, byAuthor.size()),
+                Comparator.comparingDouble(AuthorHead::effectiveScore).reversed().thenComparing(AuthorHead::authorId));
+        byAuthor.forEach((authorId, queue) -> heads.add(new AuthorHead(authorId, queue.peek().score(), 0)));
+
+        List<TimelineEntry> ranked = new ArrayList<>(scored.size());
+        while (!heads.isEmpty()) {
+            AuthorHead head = heads.poll();
+            Deque<ScoredEntry> queue = byAuthor.get(head.authorId());
+            ranked.add(queue.poll().entry());
+            if (!queue.isEmpty()) {
+                int picked = head.picked() + 1;
+                heads.add(new AuthorHead(head.authorId(), queue.peek().score() * Math.pow(FeedConstants.RANKED_AUTHOR_REPEAT_DECAY, picked), picked));
+            }
+        }
+        return ranked;
+    }
+
+    private <T> T timed(String stage, Supplier<T> supplier) {
+        return meterRegistry.timer("feed.ranked.stage", "stage", stage).record(supplier);
+    }
+
+    private record AuthorHead(Long authorId, double effectiveScore, int picked) {}
+
+}
@@ -0,0 +1,23 @@
+package com.grad.social.service.feed;
+
+import com.grad.social.service.outbox.OutboxHandler;
+import com.grad.social.service.status.event.StatusPublishedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class TimelineFanOutHandler implements OutboxHandler<StatusPublishedEvent> {
+    private final TimelineService timelineService;
+
+    @Override
+    public Class<StatusPublishedEvent> eventType() {
+        return StatusPublishedEvent.class;
+    }
+
+    @Override
+    public void handle(StatusPublishedEvent event) {
+        this.timelineService.fanOut(event.statusId());
+    }
+
+}
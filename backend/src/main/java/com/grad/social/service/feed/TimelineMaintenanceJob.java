@@ -0,0 +1,88 @@
+package com.grad.social.service.feed;
+
+import com.grad.social.model.feed.FeedConstants;
+import com.grad.social.repository.feed.TimelineRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TimelineMaintenanceJob {
+    private final TimelineRepository timelineRepository;
+    private final TimelineService timelineService;
+    private final CelebrityRegistry celebrityRegistry;
+
+    @Value("${feed.timeline.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Value("${feed.timeline.mute-expiry-lookback-hours:24}")
+    private int muteExpiryLookbackHours;
+
+    // upper bound of the window already scanned for expired mutes, null until the first scan
+    private volatile Instant lastMuteExpiryCheck;
+
+    /**
+     * Builds the timelines of existing users (statuses inserted before the timelines existed, or seeded by data.sql).
+     * A one-shot operation: enable feed.timeline.backfill-on-startup for a single start, the timelines are maintained on write afterwards.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            backfillAllTimelines();
+        }
+    }
+
+    public void backfillAllTimelines() {
+        long lastSeenUserId = -1L;
+        int usersProcessed = 0, entriesPushed = 0;
+        List<Long> userIds;
+        var celebrityIds = celebrityRegistry.getCelebrityIds();
+        while (!(userIds = this.timelineRepository.findUserIdsAfter(lastSeenUserId, FeedConstants.TIMELINE_BACKFILL_BATCH_SIZE)).isEmpty()) {
+            entriesPushed += this.timelineRepository.backfillTimelines(userIds, celebrityIds, FeedConstants.TIMELINE_MAX_SIZE);
+            usersProcessed += userIds.size();
+            lastSeenUserId = userIds.getLast();
+        }
+        log.info("Backfilled timelines of {} users with {} entries at {}", usersProcessed, entriesPushed, Instant.now());
+    }
+
+    /**
+     * Runs every hour to cap every timeline to its newest entries.
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void trimTimelines() {
+        int deleted = this.timelineRepository.trimTimelines(FeedConstants.TIMELINE_MAX_SIZE);
+        if (deleted > 0) {
+            log.info("Trimmed {} timeline entries at {}", deleted, Instant.now());
+        }
+    }
+
+    /**
+     * Runs every 5 minutes to restore the statuses of authors whose temporary mute has expired
+     * (they were skipped by the fan-out and trimmed when muted).
+     * The first scan after a start looks back mute-expiry-lookback-hours, so that mutes expired while the application was down are restored too
+     * (restoring a mute twice pushes nothing new).
+     */
+    @Scheduled(cron = "0 */5 * * * *")
+    public void restoreExpiredMutes() {
+        Instant now = Instant.now();
+        Instant from = lastMuteExpiryCheck != null ? lastMuteExpiryCheck : now.minus(Duration.ofHours(muteExpiryLookbackHours));
+        var expiredMutes = this.timelineRepository.findMutesExpiredBetween(from, now);
+        for (var expiredMute : expiredMutes) {
+            this.timelineService.onUnmute(expiredMute.userId(), expiredMute.mutedUserId());
+        }
+        lastMuteExpiryCheck = now;
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.grad.social.service.feed;
+
+import com.grad.social.common.AppConstants;
+import com.grad.social.model.feed.FeedConstants;
+import com.grad.social.model.feed.TimelineEntry;
+import com.grad.social.model.shared.CursorPage;
+import com.grad.social.model.shared.PageCursor;
+import com.grad.social.repository.feed.TimelineRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Maintains the precomputed home timelines (hybrid fan-out).
+ * Statuses of regular authors are pushed into their followers' timelines when published, statuses of high-fanout authors
+ * (see {@link CelebrityRegistry}) are pulled and merged with the precomputed timeline at read time.
+ * Timelines are trimmed whenever the follow/block/mute graph changes, deleted statuses are trimmed at db level (ON DELETE CASCADE).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TimelineService {
+    private final TimelineRepository timelineRepository;
+    private final CelebrityRegistry celebrityRegistry;
+    private final MeterRegistry meterRegistry;
+
+    // orders timeline entries from newest to oldest, ties broken by id (same order as the timeline index)
+    private static final Comparator<TimelineEntry> NEWEST_FIRST =
+            Comparator.comparing(TimelineEntry::createdAt).thenComparing(TimelineEntry::statusId).reversed();
+
+    // called by the outbox relay once the status is committed
+    public void fanOut(Long statusId) {
+        Long authorId = this.timelineRepository.findAuthorId(statusId);
+        if (authorId == null) {
+            return;
+        }
+        this.timelineRepository.pushToAuthorTimeline(statusId);
+        if (celebrityRegistry.isCelebrity(authorId)) {
+            meterRegistry.counter("feed.fanout.push.skipped").increment();
+            return;
+        }
+        int pushed = this.timelineRepository.fanOutStatus(statusId);
+        meterRegistry.counter("feed.fanout.push.writes").increment(pushed);
+        log.debug("Pushed status {} into {} timelines", statusId, pushed);
+    }
+
+    // every source is seeked past the cursor, so reading a deep page costs the same as reading the first one
+    public CursorPage<Long> readTimelinePage(Long userId, PageCursor cursor) {
+        int pageSize = AppConstants.DEFAULT_PAGE_SIZE;
+        List<TimelineEntry> page = this.readNewestEntries(userId, cursor, pageSize);
+        String nextCursor = page.size() < pageSize ? null : PageCursor.of(page.getLast().createdAt(), page.getLast().statusId()).encode();
+        return new CursorPage<>(page.stream().map(TimelineEntry::statusId).toList(), nextCursor);
+    }
+
+    // the newest `limit` entries older than the cursor, pushed entries merged with the ones pulled from followed high-fanout authors
+    public List<TimelineEntry> readNewestEntries(Long userId, PageCursor cursor, int limit) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        List<List<TimelineEntry>> sources = new ArrayList<>();
+        sources.add(this.timelineRepository.fetchTimelinePage(userId, cursor, limit));
+
+        Set<Long> celebrityIds = celebrityRegistry.getCelebrityIds();
+        if (!celebrityIds.isEmpty()) {
+            List<Long> followedCelebrities = this.timelineRepository.findFollowedAuthorsIn(userId, celebrityIds);
+            if (!followedCelebrities.isEmpty()) {
+                List<TimelineEntry> pulled = this.timelineRepository.fetchRecentStatusesOfAuthors(followedCelebrities, cursor, limit);
+                sources.addAll(groupByAuthor(pulled));
+                meterRegistry.counter("feed.fanout.pull.authors").increment(followedCelebrities.size());
+                meterRegistry.counter("feed.fanout.pull.candidates").increment(pulled.size());
+            }
+        }
+
+        List<TimelineEntry> entries = mergeNewestFirst(sources, limit);
+        sample.stop(meterRegistry.timer("feed.read", "sources", sources.size() > 1 ? "merged" : "pushed"));
+        return entries;
+    }
+
+    // graph mutations (userId is the timeline owner), statuses of high-fanout authors are never pushed so there is nothing to append
+    public void onFollow(Long userId, Long followedUserId) {
+        if (!celebrityRegistry.isCelebrity(followedUserId)) {
+            this.timelineRepository.appendRecentStatusesOfAuthor(userId, followedUserId, FeedConstants.TIMELINE_AUTHOR_BACKFILL_SIZE);
+        }
+    }
+
+    public void onUnfollow(Long userId, Long unfollowedUserId) {
+        this.timelineRepository.removeAuthorFromTimeline(userId, unfollowedUserId);
+    }
+
+    public void onMute(Long userId, Long mutedUserId) {
+        this.timelineRepository.removeAuthorFromTimeline(userId, mutedUserId);
+    }
+
+    public void onUnmute(Long userId, Long unmutedUserId) {
+        if (!celebrityRegistry.isCelebrity(unmutedUserId)) {
+            this.timelineRepository.appendRecentStatusesOfAuthor(userId, unmutedUserId, FeedConstants.TIMELINE_AUTHOR_BACKFILL_SIZE);
+        }
+    }
+
+    // a block hides statuses in both directions
+    public void onBlock(Long userId, Long blockedUserId) {
+        this.timelineRepository.removeAuthorFromTimeline(userId, blockedUserId);
+        this.timelineRepository.removeAuthorFromTimeline(blockedUserId, userId);
+    }
+
+
+    // Helpers
+    // entries are ordered by author first, so each author's run is already sorted newest first
+    private List<List<TimelineEntry>> groupByAuthor(List<TimelineEntry> entries) {
+        List<List<TimelineEntry>> runs = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= entries.size(); i++) {
+            if (i == entries.size() || !entries.get(i).authorId().equals(entries.get(start).authorId())) {
+                runs.add(entries.subList(start, i));
+                start = i;
+            }
+        }
+        return runs;
+    }
+
+    // k-way merge of sources already sorted newest first, duplicates (an author who crossed the threshold after being pushed) are skipped
+    private List<TimelineEntry> mergeNewestFirst(List<List<TimelineEntry>> sources, int limit) {
+        // heap of {sourceIndex, positionInSource}, ordered by the entry at that position
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> NEWEST_FIRST.compare(sources.get(a[0]).get(a[1]), sources.get(b[0]).get(b[1])));
+        for (int i = 0; i < sources.size(); i++) {
+            if (!sources.get(i).isEmpty()) {
+                heap.add(new int[]{i, 0});
+            }
+        }
+
+        Set<Long> seen = new HashSet<>();
+        List<TimelineEntry> page = new ArrayList<>(limit);
+        while (!heap.isEmpty() && page.size() < limit) {
+            int[] head = heap.poll();
+            List<TimelineEntry> source = sources.get(head[0]);
+            TimelineEntry entry = source.get(head[1]);
+            if (seen.add(entry.statusId())) {
+                page.add(entry);
+            }
+            if (head[1] + 1 < source.size()) {
+                heap.add(new int[]{head[0], head[1] + 1});
+            }
+        }
+        return page;
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.grad.social.service.feed.ranking;
+
+import com.grad.social.model.feed.RankingFeatures;
+import com.grad.social.model.feed.TimelineEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * score = following priority weight * (1 + log(1 + likes + 2 * replies + 3 * shares)) * recency decay * moderation penalty.
+ * The recency decay halves the score every feed.ranking.half-life-hours.
+ */
+@Component
+public class EngagementRecencyScorer implements FeedScorer {
+    private final double decayPerHour;
+
+    public EngagementRecencyScorer(@Value("${feed.ranking.half-life-hours:6}") double halfLifeHours) {
+        this.decayPerHour = Math.log(2) / halfLifeHours;
+    }
+
+    @Override
+    public double score(TimelineEntry candidate, RankingFeatures features, Instant now) {
+        double ageHours = Math.max(0, Duration.between(candidate.createdAt(), now).toSeconds() / 3600.0);
+        double engagement = 1 + Math.log1p(features.numLikes() + 2.0 * features.numReplies() + 3.0 * features.numShares());
+        return priorityWeight(features) * engagement * Math.exp(-decayPerHour * ageHours) * moderationPenalty(features.moderationSeverity());
+    }
+
+
+    // Helpers
+    private static double priorityWeight(RankingFeatures features) {
+        if (features.followingPriority() == null) {
+            return 1.0; // own statuses
+        }
+        return switch (features.followingPriority()) {
+            case FAVOURITE -> 1.5;
+            case DEFAULT -> 1.0;
+            case RESTRICTED -> 0.5;
+        };
+    }
+
+    // severity 0..2 is safe, 3 is shown behind a warning and 4 is harmful (see ModerationResult)
+    private static double moderationPenalty(int severity) {
+        return switch (severity) {
+            case 3 -> 0.5;
+            case 4 -> 0.1;
+            default -> 1.0;
+        };
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.grad.social.service.feed.ranking;
+
+import com.grad.social.model.feed.RankingFeatures;
+import com.grad.social.model.feed.TimelineEntry;
+
+import java.time.Instant;
+
+/**
+ * Scores a candidate of the ranked feed, the higher the better.
+ * Declare another (primary) bean to plug in a different ranking.
+ */
+public interface FeedScorer {
+
+    double score(TimelineEntry candidate, RankingFeatures features, Instant now);
+
+}
@@ -1,23 +1,56 @@
 package com.grad.social.service.media;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grad.social.common.exceptionhandling.ActionNotAllowedException;
 import com.grad.social.common.model.MediaRepresentation;
 import com.grad.social.common.utils.media.FileSystemUtils;
+import com.grad.social.exception.chat.ChattingErrorCode;
 import com.grad.social.repository.media.MediaRepository;
-import lombok.RequiredArgsConstructor;
+import com.grad.social.repository.media.MediaRepository.MediaReferences;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 @Service
-@RequiredArgsConstructor
 public class MediaService {
     private final MediaRepository mediaRepository;
+    // media assets never change (content-addressed), entries only go stale when an asset is deleted by another instance
+    private final Cache<Long, MediaRepresentation> mediaById;
 
+    public MediaService(MediaRepository mediaRepository, MeterRegistry meterRegistry,
+                        @Value("${media.metadata-cache.max-size:10000}") long maxSize,
+                        @Value("${media.metadata-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.mediaRepository = mediaRepository;
+        this.mediaById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, mediaById, "media.metadata");
+    }
+
+    // the returned representation is shared, callers must not modify it
     public MediaRepresentation getMediaById(Long mediaId) {
-        return this.mediaRepository.getMediaById(mediaId);
+        return this.mediaById.get(mediaId, this.mediaRepository::getMediaById);
+    }
+
+    // chat attachments are only served to the participants of a chat sharing them (ids are sequential), unless a status shares them too
+    // not cached: who shares a media changes as messages and statuses are posted and deleted
+    // true when shared caches may keep the media, that is when only PUBLIC statuses share it
+    public boolean authorize(Long mediaId, Long viewerId) {
+        MediaReferences references = this.mediaRepository.getMediaReferences(mediaId, viewerId);
+        if (references.inChats() && !references.inStatuses() && !references.inViewerChats()) {
+            throw new ActionNotAllowedException(ChattingErrorCode.NOT_ALLOWED_TO_VIEW_MEDIA);
+        }
+        return references.inStatuses() && !references.inNonPublicStatuses() && !references.inChats();
     }
 
     public Map<String, Long> findMediaIdsByHashes(Set<String> hashes) {
@@ -26,6 +59,7 @@ public class MediaService {
 
     public void deleteMediaAssets(List<Long> mediaId) {
         this.mediaRepository.deleteMediaAssets(mediaId);
+        this.mediaById.invalidateAll(mediaId);
     }
 
     public void insertMediaAssetsBatch(List<MediaRepresentation> newAssets) {
@@ -0,0 +1,442 @@
+package com.grad.social.service.media;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grad.social.common.model.MediaRepresentation;
+import com.grad.social.common.utils.media.FileSystemUtils;
+import com.grad.social.common.utils.media.FileSystemUtils.IngestedFile;
+import com.grad.social.repository.media.MediaVariantRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipException;
+
+/**
+ * Downscaled copies of image media at a few fixed widths, served by /media/{id}?w=... instead of originals of up to 25MB.
+ * Variants are keyed by the content hash of their original and generated by the first request asking for them:
+ * concurrent requests of the same variant share one generation (singleflight), generations run on a pool of media.variants.workers
+ * threads with a bounded queue, and a request waits for its variant at most media.variants.wait-timeout-ms. Until then (or when the pool is saturated)
+ * the original is served, but not as immutable.
+ * Variants are JPEG, or PNG for images with transparency (the JDK has no WebP encoder). GIFs (possibly animated) and WebP originals are always served as is,
+ * as are variants that would not be smaller than their original. Originals without a smaller variant at some width (already small, unreadable...)
+ * are recorded as such and never decoded again for that width; a generation failing otherwise is retried once its cache entry expires.
+ * Metrics: media.variants.generation (timer), media.variants.bytes.saved (original minus variant size, per variant served),
+ * media.variants.rejected (generations refused by a saturated pool).
+ */
+@Service
+@Slf4j
+public class MediaVariantService {
+    static final int[] WIDTHS = {160, 320, 640, 1280};
+    private static final Set<String> RESIZABLE_TYPES = Set.of("image/jpeg", "image/jpg", "image/png");
+    private static final float JPEG_QUALITY = 0.82f;
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+    // cached for the originals that have no smaller variant at some width (already small, unreadable, failed generation...)
+    private static final MediaRepresentation NO_VARIANT = new MediaRepresentation();
+
+    private final MediaVariantRepository mediaVariantRepository;
+    private final MeterRegistry meterRegistry;
+    private final Cache<VariantKey, MediaRepresentation> variants;
+    private final ConcurrentMap<VariantKey, CompletableFuture<MediaRepresentation>> inFlight = new ConcurrentHashMap<>();
+    // content hashes of the originals being deleted, until the deleting transaction completes
+    private final Set<String> deleting = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor workers;
+    private final long waitTimeoutMs;
+    private final Timer generationTimer;
+    private final Counter bytesSaved;
+
+    public MediaVariantService(MediaVariantRepository mediaVariantRepository, MeterRegistry meterRegistry,
+                               @Value("${media.variants.workers:2}") int workers,
+                               @Value("${media.variants.queue-capacity:64}") int queueCapacity,
+                               @Value("${media.variants.wait-timeout-ms:3000}") long waitTimeoutMs,
+                               @Value("${media.variants.cache.max-size:10000}") long cacheMaxSize,
+                               @Value("${media.variants.cache.ttl-seconds:600}") long cacheTtlSeconds) {
+        this.mediaVariantRepository = mediaVariantRepository;
+        this.meterRegistry = meterRegistry;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.variants = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, variants, "media.variants");
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-variant-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        meterRegistry.gaugeCollectionSize("media.variants.queue", List.of(), this.workers.getQueue());
+        this.generationTimer = meterRegistry.timer("media.variants.generation");
+        this.bytesSaved = meterRegistry.counter("media.variants.bytes.saved");
+    }
+
+    /**
+     * What to serve for a request of the media at requestedWidth: the variant of the smallest fixed width at least as wide,
+     * the original when there is none (final) or when it is not generated yet (provisional).
+     */
+    public Selection select(MediaRepresentation media, int requestedWidth) {
+        int width = variantWidth(media, requestedWidth);
+        if (width == 0) {
+            return new Selection(media, false);
+        }
+        VariantKey key = new VariantKey(media.getContentHashed(), width);
+        MediaRepresentation variant = this.variants.getIfPresent(key);
+        if (variant == null) {
+            variant = this.mediaVariantRepository.findVariant(key.contentHash(), key.width());
+            if (variant != null) {
+                if (variant.getFileNameHashed() == null) {
+                    variant = NO_VARIANT;
+                }
+                this.variants.put(key, variant);
+            } else {
+                variant = this.generate(media, key);
+            }
+        }
+        if (variant == null) {
+            return new Selection(media, true);
+        }
+        if (variant == NO_VARIANT) {
+            return new Selection(media, false);
+        }
+        this.bytesSaved.increment(media.getSizeInBytes() - variant.getSizeInBytes());
+        return new Selection(variant, false);
+    }
+
+    /**
+     * Rows go with their original (on delete cascade), the files are deleted here. A generation of these originals still running
+     * deletes its own file: either it saves its row before they are marked as deleting and its file is listed below,
+     * or it sees the mark after saving (or fails to save once the original is gone) and deletes the file itself.
+     */
+    public void deleteVariants(Collection<String> contentHashes) throws Exception {
+        if (contentHashes.isEmpty()) {
+            return;
+        }
+        Set<String> marked = Set.copyOf(contentHashes);
+        this.deleting.addAll(marked);
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        if (inTransaction) {
+            // until the originals are gone, later generations fail to save their row and delete their file
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    deleting.removeAll(marked);
+                }
+            });
+        }
+        try {
+            for (String fileName : this.mediaVariantRepository.findVariantFileNames(contentHashes)) {
+                FileSystemUtils.deleteFile(fileName);
+            }
+            this.variants.asMap().keySet().removeIf(key -> marked.contains(key.contentHash()));
+        } finally {
+            if (!inTransaction) {
+                this.deleting.removeAll(marked);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // interrupted generations are started again by the next request of their variant
+        workers.shutdownNow();
+    }
+
+    // provisional: the original stands in for a variant that is not generated yet, it must not be cached as the variant
+    public record Selection(MediaRepresentation media, boolean provisional) {
+    }
+
+
+    // Helpers
+    // the smallest fixed width at least as wide as the requested one, 0 when the original is to be served
+    static int variantWidth(MediaRepresentation media, int requestedWidth) {
+        if (requestedWidth <= 0 || !RESIZABLE_TYPES.contains(media.getMimeType())) {
+            return 0;
+        }
+        for (int width : WIDTHS) {
+            if (width >= requestedWidth) {
+                return media.getWidth() != null && width >= media.getWidth() ? 0 : width;
+            }
+        }
+        return 0;
+    }
+
+    // null when the variant is not ready within the wait timeout
+    private MediaRepresentation generate(MediaRepresentation media, VariantKey key) {
+        CompletableFuture<MediaRepresentation> generation = new CompletableFuture<>();
+        CompletableFuture<MediaRepresentation> leader = this.inFlight.putIfAbsent(key, generation);
+        if (leader == null) {
+            leader = generation;
+            try {
+                this.workers.execute(() -> {
+                    try {
+                        MediaRepresentation variant = this.createVariant(media, key);
+                        if (!this.deleting.contains(key.contentHash())) {
+                            this.variants.put(key, variant);
+                        }
+                        generation.complete(variant);
+                    } catch (Exception e) {
+                        log.warn("Failed to generate the {}px variant of {}", key.width(), key.contentHash(), e);
+                        if (!this.deleting.contains(key.contentHash())) {
+                            this.variants.put(key, NO_VARIANT);
+                        }
+                        generation.complete(NO_VARIANT);
+                    } finally {
+                        this.inFlight.remove(key, generation);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                meterRegistry.counter("media.variants.rejected").increment();
+                generation.complete(null);
+                this.inFlight.remove(key, generation);
+            }
+        }
+
+        try {
+            return leader.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private MediaRepresentation createVariant(MediaRepresentation media, VariantKey key) throws IOException {
+        long start = System.nanoTime();
+        Path original = FileSystemUtils.resolvePath(media.getFileNameHashed());
+        if (!Files.exists(original)) {
+            throw new NoSuchFileException(original.toString());
+        }
+        ResizedImage resized;
+        try {
+            resized = resize(original, key.width());
+        } catch (IIOException | RuntimeException e) {
+            // an I/O failure is retried once the cache entry expires, while the decoder never will read this image
+            if (!isPermanentDecodeFailure(e)) {
+                throw e;
+            }
+            log.info("Cannot decode {} for its {}px variant: {}", key.contentHash(), key.width(), e.toString());
+            resized = null;
+        }
+        if (resized == null || resized.bytes().length >= media.getSizeInBytes()) {
+            this.mediaVariantRepository.saveNoVariant(key.contentHash(), key.width());
+            return NO_VARIANT;
+        }
+
+        String fileName = key.contentHash() + "-w" + key.width();
+        IngestedFile ingested = FileSystemUtils.ingest(new ByteArrayInputStream(resized.bytes()));
+        FileSystemUtils.commit(ingested, fileName);
+        var variant = new MediaRepresentation(fileName, ingested.contentHash(), resized.mimeType(), ingested.sizeInBytes());
+        variant.setWidth(resized.width());
+        variant.setHeight(resized.height());
+        try {
+            this.mediaVariantRepository.saveVariant(key.contentHash(), variant);
+        } catch (RuntimeException e) {
+            // most likely the original is gone, its variants with it
+            deleteQuietly(fileName);
+            throw e;
+        }
+        if (this.deleting.contains(key.contentHash())) {
+            deleteQuietly(fileName);
+            return NO_VARIANT;
+        }
+        this.generationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return variant;
+    }
+
+    private static void deleteQuietly(String fileName) {
+        try {
+            FileSystemUtils.deleteFile(fileName);
+        } catch (Exception e) {
+            log.warn("Failed to delete the variant file {}", fileName, e);
+        }
+    }
+
+    /**
+     * The image downscaled to targetWidth (aspect ratio kept), null when it cannot be read or is not wider than targetWidth.
+     * Large images are subsampled while decoded (down to about twice the target width) so that a 25MB photo is never fully decoded,
+     * the remaining downscale is bilinear. The EXIF orientation of a JPEG is applied (widths are then those of the upright image),
+     * the variant is written without metadata.
+     */
+    static ResizedImage resize(Path original, int targetWidth) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            BufferedImage decoded;
+            int orientation, sourceWidth, sourceHeight;
+            try {
+                reader.setInput(in, true, false);
+                orientation = "jpeg".equalsIgnoreCase(reader.getFormatName()) ? readExifOrientation(reader.getImageMetadata(0)) : 1;
+                boolean transposed = orientation >= 5;
+                sourceWidth = transposed ? reader.getHeight(0) : reader.getWidth(0);
+                sourceHeight = transposed ? reader.getWidth(0) : reader.getHeight(0);
+                if (sourceWidth <= targetWidth) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, sourceWidth / (targetWidth * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                decoded = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+
+            int targetHeight = Math.max(1, (int) Math.round((double) sourceHeight * targetWidth / sourceWidth));
+            boolean transparent = decoded.getColorModel().hasAlpha();
+            BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                boolean transposed = orientation >= 5;
+                int uprightWidth = transposed ? decoded.getHeight() : decoded.getWidth();
+                int uprightHeight = transposed ? decoded.getWidth() : decoded.getHeight();
+                AffineTransform transform = AffineTransform.getScaleInstance((double) targetWidth / uprightWidth, (double) targetHeight / uprightHeight);
+                transform.concatenate(orient(orientation, decoded.getWidth(), decoded.getHeight()));
+                graphics.drawImage(decoded, transform, null);
+            } finally {
+                graphics.dispose();
+            }
+            return transparent
+                    ? new ResizedImage(write(scaled, "png", null), "image/png", targetWidth, targetHeight)
+                    : new ResizedImage(write(scaled, "jpeg", JPEG_QUALITY), "image/jpeg", targetWidth, targetHeight);
+        }
+    }
+
+    // the EXIF Orientation tag (1..8) of a JPEG, 1 when it has none
+    private static int readExifOrientation(IIOMetadata metadata) {
+        if (metadata == null || !Arrays.asList(metadata.getMetadataFormatNames()).contains(JPEG_METADATA_FORMAT)) {
+            return 1;
+        }
+        NodeList segments = ((IIOMetadataNode) metadata.getAsTree(JPEG_METADATA_FORMAT)).getElementsByTagName("unknown");
+        for (int i = 0; i < segments.getLength(); i++) {
+            IIOMetadataNode segment = (IIOMetadataNode) segments.item(i);
+            if ("225".equals(segment.getAttribute("MarkerTag")) && segment.getUserObject() instanceof byte[] app1) {
+                int orientation = readTiffOrientation(app1);
+                if (orientation != 0) {
+                    return orientation;
+                }
+            }
+        }
+        return 1;
+    }
+
+    // APP1 segment: "Exif\0\0" then a TIFF header and IFD0, whose entries are 12 bytes (tag, type, count, value); 0 when absent
+    private static int readTiffOrientation(byte[] app1) {
+        if (app1.length < 14 || !new String(app1, 0, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) {
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        long ifd = Integer.toUnsignedLong(tiff.getInt(4));
+        if (ifd + 2 > tiff.limit()) {
+            return 0;
+        }
+        int entries = Short.toUnsignedInt(tiff.getShort((int) ifd));
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                return 0;
+            }
+            if (Short.toUnsignedInt(tiff.getShort(entry)) == EXIF_ORIENTATION_TAG) {
+                int orientation = Short.toUnsignedInt(tiff.getShort(entry + 8));
+                return orientation >= 1 && orientation <= 8 ? orientation : 0;
+            }
+        }
+        return 0;
+    }
+
+    // maps the stored pixels (width x height) to the upright image, orientations 5 to 8 swap its width and height
+    private static AffineTransform orient(int orientation, int width, int height) {
+        return switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, width);
+            default -> new AffineTransform();
+        };
+    }
+
+    // the decoder rejected the data itself (CMYK JPEG, corrupt or truncated data...), unlike a failing read of the file
+    static boolean isPermanentDecodeFailure(Exception e) {
+        if (!(e instanceof IIOException)) {
+            return e instanceof RuntimeException;
+        }
+        Throwable cause = e.getCause();
+        return cause == null || !(cause instanceof IOException) || cause instanceof ZipException || cause instanceof EOFException;
+    }
+
+    private static byte[] write(BufferedImage image, String format, Float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (quality != null) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    record ResizedImage(byte[] bytes, String mimeType, int width, int height) {
+    }
+
+    private record VariantKey(String contentHash, int width) {
+    }
+
+}
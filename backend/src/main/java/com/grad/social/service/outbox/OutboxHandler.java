@@ -0,0 +1,21 @@
+package com.grad.social.service.outbox;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Consumes the outbox events of one type. An event is delivered at least once to every handler of its type, a handler runs in its own
+ * transaction together with the record of its consumption, so that its db writes are applied once even when the event is redelivered.
+ * Effects outside the db (e.g. model calls) may be repeated.
+ */
+public interface OutboxHandler<E> {
+
+    Class<E> eventType();
+
+    void handle(E event);
+
+    // identifies the consumptions of the handler, must not change once events were consumed
+    default String name() {
+        return ClassUtils.getUserClass(getClass()).getSimpleName();
+    }
+
+}
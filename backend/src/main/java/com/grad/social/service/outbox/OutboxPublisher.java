@@ -0,0 +1,39 @@
+package com.grad.social.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grad.social.repository.outbox.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Records events in the outbox, in the transaction of the change they describe: the relay only sees the events of committed changes,
+ * and an event is never lost once its change is committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxPublisher {
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    // idempotencyKey identifies the change, publishing the same change twice records one event
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(Object event, String idempotencyKey) {
+        try {
+            this.outboxRepository.save(event.getClass().getSimpleName(), objectMapper.writeValueAsString(event), idempotencyKey);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize outbox event " + event, e);
+        }
+    }
+
+    // for changes without a natural key (e.g. successive edits of a status)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(Object event) {
+        this.publish(event, event.getClass().getSimpleName() + ":" + UUID.randomUUID());
+    }
+
+}
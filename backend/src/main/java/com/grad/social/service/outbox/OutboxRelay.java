@@ -0,0 +1,133 @@
+package com.grad.social.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grad.social.model.outbox.OutboxEvent;
+import com.grad.social.repository.outbox.OutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Dispatches the outbox events to their {@link OutboxHandler}s, batch after batch until the outbox is drained.
+ * Every replica runs a relay, batches are claimed with FOR UPDATE SKIP LOCKED and leased (outbox.relay.lease-seconds) so that two relays
+ * never process the same event at once and the events of a crashed relay are redelivered once their lease expires.
+ * A failed event is retried with an exponential backoff, and given up after outbox.relay.max-attempts deliveries.
+ * Metrics: outbox.relay.claimed, outbox.events.lag (creation to delivery), outbox.handler{handler} (latency), outbox.handler.failures{handler},
+ * outbox.events.dead.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, List<OutboxHandler<?>>> handlersByType;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+
+    public OutboxRelay(OutboxRepository outboxRepository, ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry, List<OutboxHandler<?>> handlers,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.relay.lease-seconds:60}") long leaseSeconds) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.handlersByType = handlers.stream().collect(Collectors.groupingBy(handler -> handler.eventType().getSimpleName()));
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:250}")
+    public void relay() {
+        List<OutboxEvent> batch;
+        do {
+            batch = this.outboxRepository.claimBatch(batchSize, maxAttempts, lease);
+            if (batch.isEmpty()) {
+                return;
+            }
+            meterRegistry.counter("outbox.relay.claimed").increment(batch.size());
+            List<Long> processed = new ArrayList<>(batch.size());
+            for (OutboxEvent event : batch) {
+                if (this.dispatch(event)) {
+                    processed.add(event.id());
+                }
+            }
+            if (!processed.isEmpty()) {
+                this.outboxRepository.markProcessed(processed);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Runs every day at 4 AM to delete the events processed more than a week ago (with their consumptions).
+     */
+    @Scheduled(cron = "0 0 4 * * *")
+    public void deleteProcessedEvents() {
+        int deleted = this.outboxRepository.deleteProcessedBefore(Instant.now().minus(7, ChronoUnit.DAYS));
+        log.info("Deleted {} processed outbox events at {}", deleted, Instant.now());
+    }
+
+
+    // Helpers
+    // true once every handler consumed the event, handlers that already consumed it in a previous delivery are skipped
+    private boolean dispatch(OutboxEvent event) {
+        meterRegistry.timer("outbox.events.lag").record(Duration.between(event.createdAt(), Instant.now()));
+        for (OutboxHandler<?> handler : this.handlersByType.getOrDefault(event.eventType(), List.of())) {
+            try {
+                meterRegistry.timer("outbox.handler", "handler", handler.name()).record(() ->
+                        this.transactionTemplate.executeWithoutResult(_ -> {
+                            if (this.outboxRepository.tryConsume(handler.name(), event.id())) {
+                                this.handle(handler, event);
+                            }
+                        }));
+            } catch (RuntimeException e) {
+                meterRegistry.counter("outbox.handler.failures", "handler", handler.name()).increment();
+                this.outboxRepository.markFailed(event.id(), e.toString(), Instant.now().plus(backoff(event.attempts())));
+                if (event.attempts() >= maxAttempts) {
+                    meterRegistry.counter("outbox.events.dead").increment();
+                    log.error("Giving up outbox event {} ({}) after {} attempts", event.id(), event.eventType(), event.attempts(), e);
+                } else {
+                    log.warn("Outbox event {} ({}) failed in {}, attempt {}", event.id(), event.eventType(), handler.name(), event.attempts(), e);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private <E> void handle(OutboxHandler<E> handler, OutboxEvent event) {
+        E payload;
+        try {
+            payload = objectMapper.readValue(event.payload(), handler.eventType());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize outbox event " + event.id(), e);
+        }
+        handler.handle(payload);
+    }
+
+    private static Duration backoff(int attempts) {
+        Duration backoff = Duration.ofSeconds(1L << Math.min(attempts, 20));
+        return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.grad.social.service.status;
 
+import com.grad.social.model.shared.CursorPage;
+import com.grad.social.model.shared.PageCursor;
 import com.grad.social.model.status.response.StatusResponse;
 import com.grad.social.repository.status.BookmarkRepository;
 import com.grad.social.repository.user.UserStatusInteractionRepository;
@@ -7,13 +9,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-
 @Service
 @RequiredArgsConstructor
 public class BookmarkService {
     private final UserStatusInteractionRepository userStatusInteractionRepository;
     private final BookmarkRepository bookmarkRepository;
+    private final StatusHydrator statusHydrator;
 
     @Transactional
     public void saveBookmark(Long userId, Long statusId) {
@@ -26,7 +27,7 @@ public class BookmarkService {
     }
 
     @Transactional(readOnly = true)
-    public List<StatusResponse> getUserBookmarks(Long userId, int offset) {
-        return userStatusInteractionRepository.fetchBookmarks(userId, offset);
+    public CursorPage<StatusResponse> getUserBookmarks(Long userId, String cursor) {
+        return statusHydrator.hydrate(userId, userStatusInteractionRepository.fetchBookmarks(userId, PageCursor.decode(cursor)));
     }
 }
@@ -1,96 +1,260 @@
 package com.grad.social.service.status;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.grad.social.common.AppConstants;
 import com.grad.social.common.database.utils.LanguageDetector;
+import com.grad.social.common.utils.EditDistance;
 import com.grad.social.model.status.ModerationResult;
+import com.grad.social.model.status.StatusConstants;
 import com.grad.social.repository.status.StatusRepository;
-import com.grad.social.service.status.event.StatusPublishedEvent;
-import com.grad.social.service.status.event.StatusContentUpdatedEvent;
+import com.grad.social.model.status.helper.ModerationJob;
+import com.grad.social.model.status.helper.PreClassification;
+import com.grad.social.model.status.helper.PreClassification.Verdict;
+import com.grad.social.service.status.ModerationPreClassifier.Mode;
+import com.grad.social.service.user.AccountRestrictionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.ollama.api.OllamaOptions;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Moderates statuses with the chat model, jobs are fed by the {@link ModerationQueue}.
+ * Contents are first looked up in the {@link ModerationResultCache}, then go through the {@link ModerationPreClassifier}:
+ * in ENFORCE mode the contents it finds SAFE are not sent to the model. Its verdicts are counted by moderation.pre-classifier.verdicts{verdict},
+ * in SHADOW mode they are compared to the model's by moderation.pre-classifier.shadow{verdict, severity}.
+ * Several statuses are moderated with one prompt (moderation.model.batch-size), statuses missing from the model's answer
+ * are moderated one by one. Model calls are timed by moderation.model.latency{call}. Answers missing the severity or the category,
+ * or rating outside of 0..4, are counted by moderation.model.invalid{call}: such batch results are moderated one by one,
+ * such single results fail the job (it is retried by the queue), they are never cached nor saved.
+ * Statuses newly found unsafe count towards the restriction of their owner's account ({@link AccountRestrictionService}).
+ */
 @Service
+@Slf4j
 public class ContentModerationService {
+    private static final ModerationResult LOCALLY_SAFE = new ModerationResult(0, "Other", "Passed the local pre-classifier");
+
+    private static final String BATCH_INSTRUCTIONS = """
+
+            You will be given several contents at once, as a JSON array of objects having an id and a content.
+            Moderate every content independently and answer with a JSON object whose "results" field is an array
+            holding, for every content, an object with its id, severity, category and description.
+            """;
 
     private final ChatClient chatClient;
     private final Resource systemMessageResource;
     private final StatusRepository statusRepository;
     private final LanguageDetector languageDetector;
+    private final ModerationResultCache moderationResultCache;
+    private final ModerationPreClassifier moderationPreClassifier;
+    private final AccountRestrictionService accountRestrictionService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final String batchSystemMessage;
+    private final int modelBatchSize;
 
     public ContentModerationService(ChatClient.Builder chatClientBuilder, StatusRepository statusRepository,
-                                    @Value("classpath:/prompts/system-message.st") Resource systemMessageResource, LanguageDetector languageDetector) {
+                                    @Value("classpath:/prompts/system-message.st") Resource systemMessageResource, LanguageDetector languageDetector,
+                                    ModerationResultCache moderationResultCache, ModerationPreClassifier moderationPreClassifier,
+                                    AccountRestrictionService accountRestrictionService,
+                                    ObjectMapper objectMapper, MeterRegistry meterRegistry, PlatformTransactionManager transactionManager,
+                                    @Value("${moderation.model.batch-size:5}") int modelBatchSize) throws IOException {
         this.chatClient = chatClientBuilder.build();
         this.systemMessageResource = systemMessageResource;
         this.statusRepository = statusRepository;
         this.languageDetector = languageDetector;
+        this.moderationResultCache = moderationResultCache;
+        this.moderationPreClassifier = moderationPreClassifier;
+        this.accountRestrictionService = accountRestrictionService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSystemMessage = systemMessageResource.getContentAsString(StandardCharsets.UTF_8) + BATCH_INSTRUCTIONS;
+        this.modelBatchSize = modelBatchSize;
+    }
+
+    public int getModelBatchSize() {
+        return modelBatchSize;
+    }
+
+    // every job is saved in its own transaction, a failure fails the rest of the batch (the jobs saved before are not counted again when retried)
+    // contents already moderated (or repeated in the batch) are only sent to the model once
+    public void moderate(List<ModerationJob> jobs) {
+        Map<Long, String> keys = new HashMap<>(jobs.size());
+        jobs.forEach(job -> keys.put(job.id(), moderationResultCache.keyOf(job.content())));
+        Map<String, ModerationResult> resultsByKey = new HashMap<>(moderationResultCache.getAll(new HashSet<>(keys.values())));
+
+        Map<String, ModerationJob> toModerate = new LinkedHashMap<>();
+        jobs.stream().filter(job -> !resultsByKey.containsKey(keys.get(job.id()))).forEach(job -> toModerate.putIfAbsent(keys.get(job.id()), job));
+        Map<String, PreClassification> preClassifications = this.preClassify(toModerate);
+        if (moderationPreClassifier.getMode() == Mode.ENFORCE) {
+            // local results are not cached, they are cheaper to recompute than to look up
+            preClassifications.forEach((key, preClassification) -> {
+                if (preClassification.verdict() == Verdict.SAFE) {
+                    toModerate.remove(key);
+                    resultsByKey.put(key, LOCALLY_SAFE);
+                }
+            });
+        }
+        Map<Long, ModerationResult> batchResults = toModerate.size() > 1 ? this.constructModerationResults(List.copyOf(toModerate.values())) : new HashMap<>();
+        toModerate.forEach((key, job) -> {
+            ModerationResult moderationResult = batchResults.get(job.id());
+            if (moderationResult == null) {
+                moderationResult = this.timed("moderation", () -> this.constructModerationResult(job.content()));
+            }
+            if (moderationPreClassifier.getMode() == Mode.SHADOW) {
+                this.compare(preClassifications.get(key), moderationResult, job);
+            }
+            moderationResultCache.put(key, moderationResult);
+            resultsByKey.put(key, moderationResult);
+        });
+
+        for (ModerationJob job : jobs) {
+            ModerationResult moderationResult = resultsByKey.get(keys.get(job.id()));
+            this.transactionTemplate.executeWithoutResult(_ -> this.save(job, moderationResult));
+        }
     }
 
-    @Async
-    @EventListener(StatusPublishedEvent.class)
-    public void moderate(StatusPublishedEvent event) {
-        String content = event.content();
-        var moderationResult = constructModerationResult(content);
-        this.statusRepository.saveContentModeration(event.statusId(), moderationResult);
+    // a change of at least MODERATION_THRESHOLD of the old content's length, only computed up to that bound
+    public boolean isSignificantChange(String oldContent, String newContent) {
+        if (oldContent == null || newContent == null) return true;
+        if (oldContent.isEmpty()) return !newContent.isEmpty();
 
-        String lang = languageDetector.recognizeLanguage(content);
-        this.statusRepository.updateTsVector(event.statusId(), lang, content);
+        int maxInsignificantDistance = (int) Math.ceil(oldContent.length() * AppConstants.MODERATION_THRESHOLD) - 1;
+        return EditDistance.boundedDistance(oldContent, newContent, maxInsignificantDistance) > maxInsignificantDistance;
     }
 
-    @Async
-    @EventListener(StatusContentUpdatedEvent.class)
-    public void moderateUpdatedStatus(StatusContentUpdatedEvent event) {
-        if (!isSignificantChange(event.oldContent(), event.newContent())) return;
-        var moderationResult = constructModerationResult(event.newContent());
-        this.statusRepository.saveContentModeration(event.statusId(), moderationResult);
+    // the moderation result and the violation it may count commit together
+    private void save(ModerationJob job, ModerationResult moderationResult) {
+        Integer previousSeverity = this.statusRepository.saveContentModeration(job.statusId(), moderationResult);
+        if (isUnsafe(moderationResult.severity()) && (previousSeverity == null || !isUnsafe(previousSeverity))) {
+            this.accountRestrictionService.recordViolation(job.statusId());
+        }
+
+        if (job.detectLanguage()) {
+            String lang = this.timed("language", () -> languageDetector.recognizeLanguage(job.content()));
+            this.statusRepository.updateTsVector(job.statusId(), lang, job.content());
+        }
     }
 
     private ModerationResult constructModerationResult(String content) {
-        return this.chatClient.prompt()
+        ModelResult result = this.chatClient.prompt()
                 .system(systemMessageResource)
                 .user(content)
                 .options(OllamaOptions.builder().withFormat("json").build())
                 .call()
-                .entity(ModerationResult.class);
+                .entity(ModelResult.class);
+        ModerationResult moderationResult = result == null ? null : toModerationResult(result.severity(), result.category(), result.description());
+        if (moderationResult == null) {
+            meterRegistry.counter("moderation.model.invalid", "call", "moderation").increment();
+            throw new IllegalStateException("Invalid moderation result from the model: " + result);
+        }
+        return moderationResult;
     }
 
-    private boolean isSignificantChange(String oldContent, String newContent) {
-        if (oldContent == null || newContent == null) return true;
+    // jobId -> result, for the jobs the model answered for
+    private Map<Long, ModerationResult> constructModerationResults(List<ModerationJob> jobs) {
+        List<BatchItem> items = jobs.stream().map(job -> new BatchItem(String.valueOf(job.id()), job.content())).toList();
+        BatchResponse response;
+        try {
+            String userMessage = objectMapper.writeValueAsString(items);
+            response = this.timed("moderation-batch", () -> this.chatClient.prompt()
+                    .system(batchSystemMessage)
+                    .user(userMessage)
+                    .options(OllamaOptions.builder().withFormat("json").build())
+                    .call()
+                    .entity(BatchResponse.class));
+        } catch (JsonProcessingException | RuntimeException e) {
+            meterRegistry.counter("moderation.model.batch.fallbacks").increment();
+            return new HashMap<>();
+        }
 
-        int distance = levenshteinDistance(oldContent, newContent);
-        double relativeChange = (double) distance / oldContent.length();
+        Map<Long, ModerationResult> results = new HashMap<>();
+        if (response != null && response.results() != null) {
+            for (BatchResult result : response.results()) {
+                Long jobId = parseId(result.id());
+                ModerationResult moderationResult = toModerationResult(result.severity(), result.category(), result.description());
+                if (moderationResult == null) {
+                    meterRegistry.counter("moderation.model.invalid", "call", "moderation-batch").increment();
+                } else if (jobId != null) {
+                    results.put(jobId, moderationResult);
+                }
+            }
+        }
+        if (results.size() < jobs.size()) {
+            meterRegistry.counter("moderation.model.batch.fallbacks").increment();
+        }
+        return results;
+    }
 
-        return relativeChange >= AppConstants.MODERATION_THRESHOLD;
+    private Map<String, PreClassification> preClassify(Map<String, ModerationJob> toModerate) {
+        if (moderationPreClassifier.getMode() == Mode.OFF) {
+            return Map.of();
+        }
+        Map<String, PreClassification> preClassifications = new HashMap<>(toModerate.size());
+        toModerate.forEach((key, job) -> {
+            PreClassification preClassification = moderationPreClassifier.classify(job.content());
+            meterRegistry.counter("moderation.pre-classifier.verdicts", "verdict", preClassification.verdict().name()).increment();
+            preClassifications.put(key, preClassification);
+        });
+        return preClassifications;
     }
 
+    // the severities of contents found SAFE are what enforcing would have missed
+    private void compare(PreClassification preClassification, ModerationResult moderationResult, ModerationJob job) {
+        meterRegistry.counter("moderation.pre-classifier.shadow", "verdict", preClassification.verdict().name(),
+                "severity", String.valueOf(moderationResult.severity())).increment();
+        if (preClassification.verdict() == Verdict.SAFE && moderationResult.severity() >= 2) {
+            log.debug("Pre-classifier found status {} safe (score {}), the model rated it {} ({})",
+                    job.statusId(), preClassification.score(), moderationResult.severity(), moderationResult.category());
+        }
+    }
 
-    private int levenshteinDistance(String a, String b) {
-        int[][] dp = new int[a.length() + 1][b.length() + 1];
+    private <T> T timed(String call, Supplier<T> modelCall) {
+        return meterRegistry.timer("moderation.model.latency", "call", call).record(modelCall);
+    }
 
-        for (int i = 0; i <= a.length(); i++) dp[i][0] = i;
-        for (int j = 0; j <= b.length(); j++) dp[0][j] = j;
+    private static boolean isUnsafe(int severity) {
+        return severity >= StatusConstants.UNSAFE_SEVERITY;
+    }
 
-        for (int i = 1; i <= a.length(); i++) {
-            for (int j = 1; j <= b.length(); j++) {
-                if (a.charAt(i - 1) == b.charAt(j - 1)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = 1 + Math.min(
-                            dp[i - 1][j - 1], // substitution
-                            Math.min(
-                                    dp[i - 1][j], // deletion
-                                    dp[i][j - 1]  // insertion
-                            )
-                    );
-                }
-            }
+    // null when the model left out the severity or the category, or rated outside of 0..MAX_SEVERITY (it must not pass for SAFE)
+    private static ModerationResult toModerationResult(Integer severity, String category, String description) {
+        if (severity == null || severity < 0 || severity > StatusConstants.MAX_SEVERITY || category == null || category.isBlank()) {
+            return null;
         }
+        return new ModerationResult(severity, category, description);
+    }
+
+    private static Long parseId(String id) {
+        try {
+            return id == null ? null : Long.valueOf(id.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    record BatchItem(String id, String content) {
+    }
+
+    record ModelResult(Integer severity, String category, String description) {
+    }
+
+    record BatchResult(String id, Integer severity, String category, String description) {
+    }
 
-        return dp[a.length()][b.length()];
+    record BatchResponse(List<BatchResult> results) {
     }
 
 
@@ -0,0 +1,213 @@
+package com.grad.social.service.status;
+
+import com.grad.social.model.status.StatusConstants;
+import com.grad.social.repository.status.StatusCountersRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind buffer of likes counters deltas in front of status_counters.
+ * Deltas are accumulated per status in {@link LongAdder}s sharded by status id, and flushed to the db in one batch
+ * every flush-interval-ms or as soon as flush-max-events deltas are pending.
+ * Reads merge the pending (not yet flushed) deltas so that the liker sees their own like right away.
+ * Every instance buffers its own deltas: after a complete flush, it saves (at most every second) the watermark before which all of
+ * its deltas are flushed, see {@link StatusCountersReconciliationJob}.
+ */
+@Component
+@Slf4j
+public class LikeCountersBuffer {
+    private static final int SHARDS = 16; // power of two
+    private static final long WATERMARK_INTERVAL_NANOS = Duration.ofMillis(StatusConstants.LIKES_FLUSH_WATERMARK_INTERVAL_MS).toNanos();
+
+    private final StatusCountersRepository statusCountersRepository;
+    private final MeterRegistry meterRegistry;
+    private final int flushMaxEvents;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    // deltas recorded since the last flush started
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final String instanceId = UUID.randomUUID().toString();
+    private long lastWatermarkAt = System.nanoTime() - WATERMARK_INTERVAL_NANOS; // guarded by flushLock
+
+    public LikeCountersBuffer(StatusCountersRepository statusCountersRepository, MeterRegistry meterRegistry,
+                              @Value("${status.counters.flush-max-events:1000}") int flushMaxEvents) {
+        this.statusCountersRepository = statusCountersRepository;
+        this.meterRegistry = meterRegistry;
+        this.flushMaxEvents = flushMaxEvents;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+        meterRegistry.gauge("status.counters.likes.pending", pendingEvents);
+    }
+
+    // the delta is buffered once the surrounding transaction (if any) commits, so that a rolled back like is never counted
+    public void record(Long statusId, int delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(statusId, delta);
+                }
+            });
+        } else {
+            add(statusId, delta);
+        }
+    }
+
+    public int mergePending(Long statusId, int flushedLikes) {
+        return (int) Math.max(0, flushedLikes + shardOf(statusId).pendingDelta(statusId));
+    }
+
+    @Scheduled(fixedDelayString = "${status.counters.flush-interval-ms:500}")
+    public void flush() {
+        // a flush already in progress will pick the new deltas up on its next run
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            this.flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        flushLock.lock(); // waits for a scheduled flush in progress
+        try {
+            this.flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            // the deltas left (if any) are lost: the reconciliation no longer waits for this instance and repairs them as drifts
+            this.statusCountersRepository.deleteLikesFlushWatermark(instanceId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete the likes flush watermark of instance {}", instanceId, e);
+        }
+        log.info("Drained likes counters buffer at shutdown");
+    }
+
+
+    // Helpers
+    private void flushLocked() {
+        long startedAt = System.nanoTime();
+        boolean complete = true;
+        flushRequested.set(false);
+        pendingEvents.set(0);
+        for (Shard shard : shards) {
+            Map<Long, Long> deltas = shard.beginFlush();
+            if (deltas.isEmpty()) {
+                continue;
+            }
+            try {
+                meterRegistry.timer("status.counters.likes.flush").record(() -> this.statusCountersRepository.applyLikesDeltas(deltas));
+                meterRegistry.counter("status.counters.likes.flushed.statuses").increment(deltas.size());
+                shard.endFlush(true);
+            } catch (RuntimeException e) {
+                log.error("Failed to flush likes counters of {} statuses, they will be retried", deltas.size(), e);
+                shard.endFlush(false);
+                complete = false;
+            }
+        }
+        // every delta recorded before startedAt is in the db now, the reconciliation waits for the watermarks of all instances
+        if (complete && startedAt - lastWatermarkAt >= WATERMARK_INTERVAL_NANOS) {
+            try {
+                this.statusCountersRepository.saveLikesFlushWatermark(instanceId, Duration.ofNanos(System.nanoTime() - startedAt));
+                lastWatermarkAt = startedAt;
+            } catch (RuntimeException e) {
+                log.warn("Failed to save the likes flush watermark of instance {}", instanceId, e);
+            }
+        }
+    }
+
+    private void add(Long statusId, int delta) {
+        shardOf(statusId).add(statusId, delta);
+        if (pendingEvents.incrementAndGet() >= flushMaxEvents && flushRequested.compareAndSet(false, true)) {
+            Thread.ofVirtual().start(this::flush);
+        }
+    }
+
+    private Shard shardOf(Long statusId) {
+        return shards[Long.hashCode(statusId) & (SHARDS - 1)];
+    }
+
+    /**
+     * Writers add under the shared lock (concurrently, without contention thanks to the LongAdders),
+     * a flush swaps the deltas map under the exclusive lock so that no delta is lost while being drained.
+     */
+    private final class Shard {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private ConcurrentHashMap<Long, LongAdder> deltas = new ConcurrentHashMap<>();
+        // deltas being written to the db, still merged by reads until the write succeeds
+        private volatile Map<Long, Long> inFlight = Map.of();
+
+        void add(Long statusId, int delta) {
+            lock.readLock().lock();
+            try {
+                deltas.computeIfAbsent(statusId, _ -> new LongAdder()).add(delta);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long pendingDelta(Long statusId) {
+            lock.readLock().lock();
+            try {
+                LongAdder adder = deltas.get(statusId);
+                return inFlight.getOrDefault(statusId, 0L) + (adder == null ? 0 : adder.sum());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // the swapped map becomes in flight atomically, so reads never miss its deltas
+        Map<Long, Long> beginFlush() {
+            lock.writeLock().lock();
+            try {
+                // zero deltas are flushed too, they tell the reconciliation that the status was liked or unliked
+                Map<Long, Long> toFlush = new HashMap<>(deltas.size());
+                deltas.forEach((statusId, adder) -> toFlush.put(statusId, adder.sum()));
+                deltas = new ConcurrentHashMap<>();
+                inFlight = toFlush;
+                return toFlush;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void endFlush(boolean flushed) {
+            lock.writeLock().lock();
+            try {
+                if (!flushed) {
+                    // put the deltas back so that the next flush retries them
+                    inFlight.forEach((statusId, delta) -> deltas.computeIfAbsent(statusId, _ -> new LongAdder()).add(delta));
+                }
+                inFlight = Map.of();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+}
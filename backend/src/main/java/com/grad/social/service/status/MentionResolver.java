@@ -0,0 +1,60 @@
+package com.grad.social.service.status;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grad.social.repository.status.StatusHydrationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Resolves the @mentions of a batch of statuses with at most one query.
+ * Whether a username exists is cached (including unknown usernames) for a short time, so renamed and newly registered users
+ * are picked up once their entry expires.
+ */
+@Component
+public class MentionResolver {
+    private final StatusHydrationRepository statusHydrationRepository;
+    private final Cache<String, Boolean> usernameExists;
+
+    public MentionResolver(StatusHydrationRepository statusHydrationRepository, MeterRegistry meterRegistry,
+                           @Value("${status.mentions.usernames-cache.max-size:50000}") long maxSize,
+                           @Value("${status.mentions.usernames-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.statusHydrationRepository = statusHydrationRepository;
+        this.usernameExists = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usernameExists, "status.mentions.usernames");
+    }
+
+    // mentionsByStatus holds the raw mentions of each status, the result keeps only those of existing users (in the same order)
+    public <K> Map<K, List<String>> resolve(Map<K, List<String>> mentionsByStatus) {
+        Set<String> mentioned = new HashSet<>();
+        mentionsByStatus.values().forEach(mentioned::addAll);
+        if (mentioned.isEmpty()) {
+            return mentionsByStatus;
+        }
+
+        Map<String, Boolean> known = new HashMap<>(this.usernameExists.getAllPresent(mentioned));
+        List<String> unknown = mentioned.stream().filter(username -> !known.containsKey(username)).toList();
+        if (!unknown.isEmpty()) {
+            Set<String> existing = new HashSet<>(this.statusHydrationRepository.findExistingUsernames(unknown));
+            for (String username : unknown) {
+                boolean exists = existing.contains(username);
+                known.put(username, exists);
+                this.usernameExists.put(username, exists);
+            }
+        }
+
+        Map<K, List<String>> resolved = new HashMap<>(mentionsByStatus.size());
+        mentionsByStatus.forEach((key, mentions) -> resolved.put(key, mentions.stream().filter(known::get).toList()));
+        return resolved;
+    }
+
+}
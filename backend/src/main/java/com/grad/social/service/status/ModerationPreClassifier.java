@@ -0,0 +1,224 @@
+package com.grad.social.service.status;
+
+import com.grad.social.common.utils.AhoCorasickMatcher;
+import com.grad.social.model.status.helper.PreClassification;
+import com.grad.social.model.status.helper.PreClassification.Verdict;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * In-process first tier of the moderation: scores a content in microseconds from the terms of moderation/lexicon.tsv
+ * (all matched in one pass by an Aho-Corasick automaton, plus a few regular expressions) and from its shape (links, shouting, exclamations),
+ * the features are combined by a logistic model. Contents scoring below moderation.pre-classifier.safe-below are SAFE,
+ * from moderation.pre-classifier.flagged-above they are FLAGGED, AMBIGUOUS in between. The lexicon only knows English: contents that
+ * do not look English (too few words, too few English function words among them) are never SAFE, whatever their score.
+ * Only SAFE contents skip the model, and only in ENFORCE mode, SHADOW mode classifies every content but still sends it to the model
+ * so that both verdicts can be compared (see {@link ContentModerationService}).
+ */
+@Component
+public class ModerationPreClassifier {
+    // logistic model, tuned so that one strong term (weight 1.0) alone escalates a content
+    private static final double BIAS = -4.0;
+    private static final double TERM_WEIGHT = 2.5;
+    private static final double MAX_CATEGORY_SCORE = 3.0;
+    private static final double LINK_WEIGHT = 0.6;
+    private static final int MAX_LINKS = 3;
+    private static final double SHOUTING_WEIGHT = 1.5;
+    private static final int SHOUTING_MIN_LETTERS = 20;
+    private static final double EXCLAMATION_WEIGHT = 0.8;
+    private static final int MAX_EXCLAMATIONS = 5;
+
+    // the lexicon is English: a score only means something for English contents, the others are never SAFE (the model moderates them)
+    private static final Set<String> ENGLISH_FUNCTION_WORDS = Set.of("the", "a", "an", "and", "or", "but", "of", "to", "in", "on", "at", "for",
+            "with", "from", "by", "about", "as", "is", "are", "was", "were", "be", "been", "am", "it", "its", "this", "that", "these", "those",
+            "i", "you", "he", "she", "we", "they", "me", "my", "your", "his", "her", "our", "their", "not", "do", "does", "did", "have", "has",
+            "had", "will", "would", "can", "could", "just", "so", "if", "what", "who", "how", "there", "here", "all", "up", "out", "get");
+    private static final int MIN_COVERED_WORDS = 3;
+    private static final double MIN_FUNCTION_WORDS_SHARE = 0.2;
+
+    private static final String REGEX_PREFIX = "re:";
+
+    private final Mode mode;
+    private final double safeBelow;
+    private final double flaggedAbove;
+    private final List<String> categories = new ArrayList<>();
+    private final AhoCorasickMatcher matcher;
+    private final int[] termCategories;
+    private final double[] termWeights;
+    private final List<RegexRule> regexRules = new ArrayList<>();
+
+    public ModerationPreClassifier(@Value("classpath:/moderation/lexicon.tsv") Resource lexiconResource,
+                                   @Value("${moderation.pre-classifier.mode:SHADOW}") Mode mode,
+                                   @Value("${moderation.pre-classifier.safe-below:0.1}") double safeBelow,
+                                   @Value("${moderation.pre-classifier.flagged-above:0.8}") double flaggedAbove) throws IOException {
+        if (safeBelow > flaggedAbove) {
+            throw new IllegalArgumentException("moderation.pre-classifier.safe-below must not exceed moderation.pre-classifier.flagged-above");
+        }
+        this.mode = mode;
+        this.safeBelow = safeBelow;
+        this.flaggedAbove = flaggedAbove;
+
+        Map<String, Integer> categoryIds = new LinkedHashMap<>();
+        List<String> terms = new ArrayList<>();
+        List<Integer> termCategories = new ArrayList<>();
+        List<Double> termWeights = new ArrayList<>();
+        for (String line : lexiconResource.getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.strip().split("\t");
+            if (columns.length != 3) {
+                throw new IllegalArgumentException("Malformed moderation lexicon line: " + line);
+            }
+            int category = categoryIds.computeIfAbsent(columns[0], name -> {
+                categories.add(name);
+                return categories.size() - 1;
+            });
+            double weight = Double.parseDouble(columns[1]);
+            if (columns[2].startsWith(REGEX_PREFIX)) {
+                regexRules.add(new RegexRule(Pattern.compile(columns[2].substring(REGEX_PREFIX.length()), Pattern.CASE_INSENSITIVE), category, weight));
+            } else {
+                terms.add(new String(normalize(columns[2])).strip());
+                termCategories.add(category);
+                termWeights.add(weight);
+            }
+        }
+        this.matcher = new AhoCorasickMatcher(terms);
+        this.termCategories = termCategories.stream().mapToInt(Integer::intValue).toArray();
+        this.termWeights = termWeights.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public PreClassification classify(String content) {
+        char[] text = normalize(content);
+        double[] categoryScores = new double[categories.size()];
+        matcher.match(text, text.length, term -> categoryScores[termCategories[term]] += termWeights[term]);
+        for (RegexRule rule : regexRules) {
+            if (rule.pattern().matcher(content).find()) {
+                categoryScores[rule.category()] += rule.weight();
+            }
+        }
+
+        double z = BIAS;
+        int topCategory = -1;
+        for (int category = 0; category < categoryScores.length; category++) {
+            z += TERM_WEIGHT * Math.min(categoryScores[category], MAX_CATEGORY_SCORE);
+            if (categoryScores[category] > 0 && (topCategory == -1 || categoryScores[category] > categoryScores[topCategory])) {
+                topCategory = category;
+            }
+        }
+        z += LINK_WEIGHT * Math.min(countLinks(text), MAX_LINKS);
+        z += SHOUTING_WEIGHT * shoutingRatio(content);
+        z += EXCLAMATION_WEIGHT * Math.min(count(content, '!'), MAX_EXCLAMATIONS) / MAX_EXCLAMATIONS;
+
+        double score = 1 / (1 + Math.exp(-z));
+        Verdict verdict = score >= flaggedAbove ? Verdict.FLAGGED : score < safeBelow && isCovered(text) ? Verdict.SAFE : Verdict.AMBIGUOUS;
+        return new PreClassification(verdict, score, topCategory == -1 ? null : categories.get(topCategory));
+    }
+
+    public enum Mode {
+        OFF, // every content goes to the model
+        SHADOW, // every content goes to the model, verdicts are compared
+        ENFORCE // SAFE contents skip the model
+    }
+
+
+    // Helpers
+    // lower case, usual obfuscations undone ("h4te", "$ex"), invisible characters dropped and whitespace runs collapsed
+    private static char[] normalize(String content) {
+        char[] text = new char[content.length()];
+        int length = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (length > 0 && text[length - 1] != ' ') {
+                    text[length++] = ' ';
+                }
+            } else if (Character.getType(c) != Character.FORMAT) {
+                text[length++] = switch (c) {
+                    case '0' -> 'o';
+                    case '1' -> 'i';
+                    case '3' -> 'e';
+                    case '4', '@' -> 'a';
+                    case '5', '$' -> 's';
+                    default -> Character.toLowerCase(c);
+                };
+            }
+        }
+        return length == text.length ? text : Arrays.copyOf(text, length);
+    }
+
+    // whether the content is English enough for the lexicon to have scored it: enough words, enough of them English function words
+    private static boolean isCovered(char[] text) {
+        int words = 0, functionWords = 0;
+        for (int start = 0; start < text.length; ) {
+            if (!Character.isLetter(text[start])) {
+                start++;
+                continue;
+            }
+            int end = start;
+            while (end < text.length && Character.isLetter(text[end])) {
+                end++;
+            }
+            words++;
+            if (ENGLISH_FUNCTION_WORDS.contains(new String(text, start, end - start))) {
+                functionWords++;
+            }
+            start = end;
+        }
+        return words >= MIN_COVERED_WORDS && functionWords >= MIN_FUNCTION_WORDS_SHARE * words;
+    }
+
+    private static int countLinks(char[] text) {
+        int links = 0;
+        for (int i = 0; i + 4 <= text.length; i++) {
+            if ((text[i] == 'h' && text[i + 1] == 't' && text[i + 2] == 't' && text[i + 3] == 'p')
+                    || (text[i] == 'w' && text[i + 1] == 'w' && text[i + 2] == 'w' && text[i + 3] == '.')) {
+                links++;
+                i += 3;
+            }
+        }
+        return links;
+    }
+
+    // share of upper case letters, 0 for contents too short to be shouting
+    private static double shoutingRatio(String content) {
+        int letters = 0, upperCase = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (Character.isLetter(c)) {
+                letters++;
+                if (Character.isUpperCase(c)) {
+                    upperCase++;
+                }
+            }
+        }
+        return letters < SHOUTING_MIN_LETTERS ? 0 : (double) upperCase / letters;
+    }
+
+    private static int count(String content, char c) {
+        int count = 0;
+        for (int i = content.indexOf(c); i >= 0; i = content.indexOf(c, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private record RegexRule(Pattern pattern, int category, double weight) {
+    }
+
+}
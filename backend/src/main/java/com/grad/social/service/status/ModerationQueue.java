@@ -0,0 +1,149 @@
+package com.grad.social.service.status;
+
+import com.grad.social.model.status.helper.ModerationJob;
+import com.grad.social.repository.status.ModerationQueueRepository;
+import com.grad.social.repository.status.ModerationQueueRepository.QueueCounts;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable moderation work queue (moderation_queue table), so that pending moderations survive restarts and are shared by the replicas.
+ * At most moderation.queue.concurrency batches of moderation.model.batch-size statuses are sent to the model at once per instance,
+ * jobs are only claimed when a worker is free. Enqueueing fails once moderation.queue.max-depth jobs are pending, which makes the
+ * outbox redeliver the event later (backpressure instead of an ever-growing backlog).
+ * Jobs are given up after moderation.queue.max-attempts, they stay in the queue (counted by moderation.queue.dead) for
+ * moderation.queue.dead-retention-days to be looked into, then they are purged.
+ * Metrics: moderation.queue.depth, moderation.queue.dead, moderation.queue.wait (enqueued to started), moderation.queue.batch.size,
+ * moderation.queue.jobs{result=done|failed|dead}, and moderation.model.latency{call} (see {@link ContentModerationService}).
+ */
+@Component
+@Slf4j
+public class ModerationQueue {
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(30);
+
+    private final ModerationQueueRepository moderationQueueRepository;
+    private final ContentModerationService contentModerationService;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore workers;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong dead = new AtomicLong();
+    private final int maxDepth;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration deadRetention;
+
+    public ModerationQueue(ModerationQueueRepository moderationQueueRepository, ContentModerationService contentModerationService, MeterRegistry meterRegistry,
+                           @Value("${moderation.queue.concurrency:4}") int concurrency,
+                           @Value("${moderation.queue.max-depth:10000}") int maxDepth,
+                           @Value("${moderation.queue.max-attempts:5}") int maxAttempts,
+                           @Value("${moderation.queue.lease-seconds:300}") long leaseSeconds,
+                           @Value("${moderation.queue.dead-retention-days:7}") long deadRetentionDays) {
+        this.moderationQueueRepository = moderationQueueRepository;
+        this.contentModerationService = contentModerationService;
+        this.meterRegistry = meterRegistry;
+        this.workers = new Semaphore(concurrency);
+        this.maxDepth = maxDepth;
+        this.maxAttempts = maxAttempts;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.deadRetention = Duration.ofDays(deadRetentionDays);
+        meterRegistry.gauge("moderation.queue.depth", depth);
+        meterRegistry.gauge("moderation.queue.dead", dead);
+    }
+
+    // joins the surrounding transaction (the one of the outbox handler)
+    public void enqueue(Long statusId, String content, boolean detectLanguage) {
+        if (depth.get() >= maxDepth) {
+            meterRegistry.counter("moderation.queue.rejected").increment();
+            throw new IllegalStateException("Moderation queue is full (" + depth.get() + " pending jobs)");
+        }
+        this.moderationQueueRepository.enqueue(statusId, content, detectLanguage);
+        depth.incrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${moderation.queue.poll-interval-ms:1000}")
+    public void poll() {
+        QueueCounts counts = this.moderationQueueRepository.countJobs(maxAttempts);
+        depth.set(counts.pending());
+        dead.set(counts.dead());
+        int freeWorkers = workers.availablePermits();
+        if (freeWorkers == 0) {
+            return;
+        }
+        int batchSize = Math.max(1, contentModerationService.getModelBatchSize());
+        List<ModerationJob> jobs = this.moderationQueueRepository.claimBatch(freeWorkers * batchSize, maxAttempts, lease);
+        for (int from = 0; from < jobs.size(); from += batchSize) {
+            List<ModerationJob> batch = jobs.subList(from, Math.min(from + batchSize, jobs.size()));
+            workers.acquireUninterruptibly(); // free, only this (single threaded) poll acquires
+            executor.execute(() -> {
+                try {
+                    this.process(batch);
+                } finally {
+                    workers.release();
+                }
+            });
+        }
+    }
+
+    // the statuses of the purged jobs stay unmoderated, their ids are logged to moderate them again by hand
+    @Scheduled(cron = "0 30 5 * * *")
+    public void purgeDeadJobs() {
+        List<Long> statusIds = this.moderationQueueRepository.deleteDead(maxAttempts, Instant.now().minus(deadRetention));
+        if (!statusIds.isEmpty()) {
+            log.warn("Purged the moderation jobs given up of statuses {}", statusIds);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // claimed jobs that are not done are retried once their lease expires
+        executor.shutdownNow();
+    }
+
+
+    // Helpers
+    private void process(List<ModerationJob> batch) {
+        Instant now = Instant.now();
+        batch.forEach(job -> meterRegistry.timer("moderation.queue.wait").record(Duration.between(job.enqueuedAt(), now)));
+        meterRegistry.summary("moderation.queue.batch.size").record(batch.size());
+        List<Long> jobIds = batch.stream().map(ModerationJob::id).toList();
+        try {
+            this.contentModerationService.moderate(batch);
+            this.moderationQueueRepository.complete(jobIds);
+            meterRegistry.counter("moderation.queue.jobs", "result", "done").increment(batch.size());
+        } catch (RuntimeException e) {
+            int attempts = batch.stream().mapToInt(ModerationJob::attempts).max().orElse(1);
+            Duration backoff = Duration.ofSeconds(5L << Math.min(attempts, 20));
+            this.fail(batch.stream().filter(job -> job.attempts() < maxAttempts).toList(), e, now.plus(backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff));
+            // given up jobs are not retried, they are dead as soon as they failed
+            List<ModerationJob> givenUp = batch.stream().filter(job -> job.attempts() >= maxAttempts).toList();
+            this.fail(givenUp, e, now);
+            meterRegistry.counter("moderation.queue.jobs", "result", "failed").increment(batch.size() - givenUp.size());
+            if (givenUp.isEmpty()) {
+                log.warn("Failed to moderate statuses {} (attempt {})", batch.stream().map(ModerationJob::statusId).toList(), attempts, e);
+            } else {
+                meterRegistry.counter("moderation.queue.jobs", "result", "dead").increment(givenUp.size());
+                log.error("Giving up the moderation of statuses {} after {} attempts", givenUp.stream().map(ModerationJob::statusId).toList(), maxAttempts, e);
+            }
+        }
+    }
+
+    private void fail(List<ModerationJob> jobs, RuntimeException e, Instant retryAt) {
+        if (!jobs.isEmpty()) {
+            this.moderationQueueRepository.fail(jobs.stream().map(ModerationJob::id).toList(), e.toString(), retryAt);
+        }
+    }
+
+}
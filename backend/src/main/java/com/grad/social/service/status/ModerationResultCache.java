@@ -0,0 +1,191 @@
+package com.grad.social.service.status;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grad.social.common.messaging.redis.RedisConstants;
+import com.grad.social.model.status.ModerationResult;
+import com.grad.social.repository.status.ModerationCacheRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reuses the moderation results of identical contents (spam, copypasta, reshared quotes), looked up in redis then in the db.
+ * Contents are keyed by the hash of their normalized form (case, unicode forms, invisible characters, whitespace and URLs canonicalized,
+ * URLs keep their path and query but lose their tracking parameters),
+ * results are scoped by the hash of the model name, the system prompt (prompts/system-message.st) and moderation.cache.prompt-version:
+ * changing any of them starts from an empty cache, stale rows are purged daily.
+ * Metrics: moderation.cache.lookups{tier=redis|db, result=hit|miss}.
+ */
+@Component
+@Slf4j
+public class ModerationResultCache {
+    private static final Pattern URL_PATTERN = Pattern.compile("(?i)\\b(?:https?://|www\\.)\\S+");
+    private static final Pattern SCHEME_PATTERN = Pattern.compile("^(?i)(?:https?://)?(?:www\\.)?");
+    // besides utm_*, click ids and share tracking appended by ad networks and social apps
+    private static final Set<String> TRACKING_PARAMETERS = Set.of("fbclid", "gclid", "dclid", "gbraid", "wbraid", "msclkid", "yclid", "twclid",
+            "igshid", "mc_cid", "mc_eid", "_ga", "ref_src");
+    private static final Pattern INVISIBLE_PATTERN = Pattern.compile("\\p{Cf}+");
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    private final ModerationCacheRepository moderationCacheRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final String promptHash;
+
+    public ModerationResultCache(ModerationCacheRepository moderationCacheRepository, RedisTemplate<String, String> redisTemplate,
+                                 ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 @Value("classpath:/prompts/system-message.st") Resource systemMessageResource,
+                                 @Value("${spring.ai.ollama.chat.model}") String model,
+                                 @Value("${moderation.cache.prompt-version:1}") String promptVersion,
+                                 @Value("${moderation.cache.ttl-hours:168}") long ttlHours) throws IOException {
+        this.moderationCacheRepository = moderationCacheRepository;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.promptHash = sha256(model + "\n" + promptVersion + "\n" + systemMessageResource.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    // equal for contents that only differ by their formatting
+    public String keyOf(String content) {
+        return sha256(normalize(content));
+    }
+
+    // key -> result, for the keys having a (not expired) result of the current prompt
+    public Map<String, ModerationResult> getAll(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, ModerationResult> results = new HashMap<>(this.getFromRedis(keys));
+        this.countLookups("redis", results.size(), keys.size() - results.size());
+        if (results.size() == keys.size()) {
+            return results;
+        }
+
+        List<String> missed = keys.stream().filter(key -> !results.containsKey(key)).toList();
+        Map<String, ModerationResult> fromDb = this.moderationCacheRepository.findResults(promptHash, missed, Instant.now().minus(ttl));
+        this.countLookups("db", fromDb.size(), missed.size() - fromDb.size());
+        fromDb.forEach(this::putInRedis);
+        results.putAll(fromDb);
+        return results;
+    }
+
+    public void put(String key, ModerationResult result) {
+        this.moderationCacheRepository.saveResult(promptHash, key, result);
+        this.putInRedis(key, result);
+    }
+
+    /**
+     * Runs every day at 5 AM to delete the expired results and those of previous prompts.
+     */
+    @Scheduled(cron = "0 0 5 * * *")
+    public void deleteStaleResults() {
+        int deleted = this.moderationCacheRepository.deleteStale(promptHash, Instant.now().minus(ttl));
+        log.info("Deleted {} stale moderation results at {}", deleted, Instant.now());
+    }
+
+
+    // Helpers
+    static String normalize(String content) {
+        String normalized = Normalizer.normalize(content, Normalizer.Form.NFKC);
+        normalized = INVISIBLE_PATTERN.matcher(normalized).replaceAll("");
+        // links are canonicalized apart from the text: their paths and queries are case-sensitive (e.g. video ids)
+        StringBuilder lowered = new StringBuilder(normalized.length());
+        Matcher urls = URL_PATTERN.matcher(normalized);
+        int textStart = 0;
+        while (urls.find()) {
+            lowered.append(normalized.substring(textStart, urls.start()).toLowerCase(Locale.ROOT)).append(canonicalizeUrl(urls.group()));
+            textStart = urls.end();
+        }
+        lowered.append(normalized.substring(textStart).toLowerCase(Locale.ROOT));
+        return WHITESPACE_PATTERN.matcher(lowered).replaceAll(" ").strip();
+    }
+
+    // scheme, "www.", the case of the host, tracking parameters, fragment and trailing slashes do not change what a link says about a content,
+    // the other query parameters do (youtube.com/watch?v=... links are all different videos)
+    static String canonicalizeUrl(String url) {
+        String canonical = SCHEME_PATTERN.matcher(url).replaceFirst("");
+        int fragment = canonical.indexOf('#');
+        if (fragment >= 0) {
+            canonical = canonical.substring(0, fragment);
+        }
+        int queryStart = canonical.indexOf('?');
+        String query = queryStart < 0 ? "" : canonical.substring(queryStart + 1);
+        String location = queryStart < 0 ? canonical : canonical.substring(0, queryStart);
+
+        int pathStart = location.indexOf('/');
+        location = pathStart < 0 ? location.toLowerCase(Locale.ROOT) : location.substring(0, pathStart).toLowerCase(Locale.ROOT) + location.substring(pathStart);
+        while (location.endsWith("/")) {
+            location = location.substring(0, location.length() - 1);
+        }
+
+        StringJoiner parameters = new StringJoiner("&", "?", "").setEmptyValue("");
+        for (String parameter : query.split("&")) {
+            String name = parameter.split("=", 2)[0].toLowerCase(Locale.ROOT);
+            if (!name.isEmpty() && !name.startsWith("utm_") && !TRACKING_PARAMETERS.contains(name)) {
+                parameters.add(parameter);
+            }
+        }
+        return location + parameters;
+    }
+
+    private Map<String, ModerationResult> getFromRedis(Collection<String> keys) {
+        List<String> orderedKeys = List.copyOf(keys);
+        Map<String, ModerationResult> results = new HashMap<>();
+        try {
+            List<String> values = this.redisTemplate.opsForValue().multiGet(orderedKeys.stream().map(this::redisKey).toList());
+            for (int i = 0; values != null && i < orderedKeys.size(); i++) {
+                if (values.get(i) != null) {
+                    results.put(orderedKeys.get(i), objectMapper.readValue(values.get(i), ModerationResult.class));
+                }
+            }
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("Failed to read moderation results from redis, falling back to the db", e);
+        }
+        return results;
+    }
+
+    private void putInRedis(String key, ModerationResult result) {
+        try {
+            this.redisTemplate.opsForValue().set(this.redisKey(key), objectMapper.writeValueAsString(result), ttl);
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("Failed to cache the moderation result {} in redis", key, e);
+        }
+    }
+
+    private String redisKey(String key) {
+        return RedisConstants.MODERATION_RESULT_PREFIX + promptHash.substring(0, 16) + ":" + key;
+    }
+
+    private void countLookups(String tier, int hits, int misses) {
+        meterRegistry.counter("moderation.cache.lookups", "tier", tier, "result", "hit").increment(hits);
+        meterRegistry.counter("moderation.cache.lookups", "tier", tier, "result", "miss").increment(misses);
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.grad.social.service.status;
+
+import com.grad.social.service.outbox.OutboxHandler;
+import com.grad.social.service.status.event.StatusContentUpdatedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class StatusContentModerationHandler implements OutboxHandler<StatusContentUpdatedEvent> {
+    private final ContentModerationService contentModerationService;
+    private final ModerationQueue moderationQueue;
+
+    @Override
+    public Class<StatusContentUpdatedEvent> eventType() {
+        return StatusContentUpdatedEvent.class;
+    }
+
+    @Override
+    public void handle(StatusContentUpdatedEvent event) {
+        if (this.contentModerationService.isSignificantChange(event.oldContent(), event.newContent())) {
+            this.moderationQueue.enqueue(event.statusId(), event.newContent(), false);
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.grad.social.service.status;
+
+import com.grad.social.model.status.StatusConstants;
+import com.grad.social.model.status.helper.LikesDrift;
+import com.grad.social.repository.status.StatusCountersRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatusCountersReconciliationJob {
+    private static final Duration WATERMARK_POLL_INTERVAL = Duration.ofMillis(500);
+
+    private final StatusCountersRepository statusCountersRepository;
+
+    /**
+     * Runs every hour to repair counters drift (e.g. likes or replies removed by cascading deletes of users, statuses inserted outside
+     * the application), on a single instance at a time (the other ones skip it).
+     */
+    @Scheduled(cron = "0 30 * * * *")
+    public void reconcileCounters() {
+        if (!this.statusCountersRepository.runWithReconciliationLock(this::reconcileLocked)) {
+            log.info("Skipped the status counters reconciliation, another instance is running it");
+        }
+    }
+
+
+    // Helpers
+    /**
+     * Replies and shares are recounted right away. A likes counter differing from its count may only lag behind the deltas still
+     * buffered by some instance: once every live instance has flushed past the counts, the counters no flush has changed since are
+     * the drifted ones.
+     */
+    private void reconcileLocked() {
+        long lastSeenStatusId = -1L;
+        int repaired = 0;
+        List<LikesDrift> likesDrifts = new ArrayList<>();
+        List<Long> statusIds;
+        while (!(statusIds = this.statusCountersRepository.findStatusIdsAfter(lastSeenStatusId, StatusConstants.COUNTERS_RECONCILIATION_BATCH_SIZE)).isEmpty()) {
+            repaired += this.statusCountersRepository.reconcile(statusIds);
+            likesDrifts.addAll(this.statusCountersRepository.findLikesDrifts(statusIds));
+            lastSeenStatusId = statusIds.getLast();
+        }
+        if (!likesDrifts.isEmpty()) {
+            Instant countedBefore = this.statusCountersRepository.currentInstant();
+            if (awaitLikesFlushedPast(countedBefore.plusSeconds(StatusConstants.LIKES_FLUSH_GRACE_SECONDS))) {
+                repaired += this.statusCountersRepository.repairLikes(likesDrifts);
+            } else {
+                log.warn("Skipped the repair of {} likes counters, not every instance flushed its likes within {}s",
+                        likesDrifts.size(), StatusConstants.LIKES_FLUSH_AWAIT_SECONDS);
+            }
+        }
+        if (repaired > 0) {
+            log.info("Repaired {} status counters at {}", repaired, Instant.now());
+        }
+    }
+
+    private boolean awaitLikesFlushedPast(Instant target) {
+        Duration instanceTimeout = Duration.ofSeconds(StatusConstants.LIKES_FLUSH_INSTANCE_TIMEOUT_SECONDS);
+        long deadline = System.nanoTime() + Duration.ofSeconds(StatusConstants.LIKES_FLUSH_AWAIT_SECONDS).toNanos();
+        while (true) {
+            // no watermark: no live instance buffers likes
+            Instant watermark = this.statusCountersRepository.findLikesFlushWatermark(instanceTimeout);
+            if (watermark == null || !watermark.isBefore(target)) {
+                return true;
+            }
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(WATERMARK_POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+}
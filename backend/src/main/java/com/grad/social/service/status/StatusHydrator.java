@@ -0,0 +1,314 @@
+package com.grad.social.service.status;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grad.social.common.messaging.redis.RedisConstants;
+import com.grad.social.model.enums.StatusAudience;
+import com.grad.social.model.enums.StatusPrivacy;
+import com.grad.social.model.shared.CursorPage;
+import com.grad.social.model.shared.UserAvatar;
+import com.grad.social.model.status.helper.StatusSkeleton;
+import com.grad.social.model.status.helper.StatusViewerOverlay;
+import com.grad.social.model.status.response.ParentStatusSnippet;
+import com.grad.social.model.status.response.StatusResponse;
+import com.grad.social.repository.status.StatusHydrationRepository;
+import com.grad.social.service.status.event.StatusContentUpdatedEvent;
+import com.grad.social.service.status.event.StatusDeletedEvent;
+import com.grad.social.service.status.event.StatusSettingsUpdatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Builds {@link StatusResponse}s from status ids.
+ * The viewer-independent part of a status (content, owner id, settings, medias, parent link and mentions) is read from a local cache,
+ * then from redis, then from the db in one batched query for the remaining misses. Owner avatars (with their profile picture) are not part of it:
+ * they are read from a local per-user cache, then from the db in one batched query, and expire after status.hydration.avatars.ttl-seconds
+ * so that profile changes show up. The per-viewer part (liked, bookmarked, followed) and the counters are overlaid in one batched query per call.
+ * Skeletons are evicted when a status is edited, has its settings changed or is deleted; other instances drop their local copy
+ * when it expires (status.hydration.local.ttl-seconds).
+ */
+@Component
+@Slf4j
+public class StatusHydrator {
+    private static final ParentStatusSnippet NON_EXISTENT_PARENT = new ParentStatusSnippet(null, null, null, null, null, null);
+
+    private final StatusHydrationRepository statusHydrationRepository;
+    private final LikeCountersBuffer likeCountersBuffer;
+    private final MentionResolver mentionResolver;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration redisTtl;
+    private final Cache<Long, StatusSkeleton> localCache;
+    private final Cache<Long, UserAvatar> avatarCache;
+
+    public StatusHydrator(StatusHydrationRepository statusHydrationRepository, LikeCountersBuffer likeCountersBuffer, MentionResolver mentionResolver,
+                          RedisTemplate<String, String> redisTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                          @Value("${status.hydration.local.max-size:20000}") long localMaxSize,
+                          @Value("${status.hydration.local.ttl-seconds:60}") long localTtlSeconds,
+                          @Value("${status.hydration.redis.ttl-seconds:600}") long redisTtlSeconds,
+                          @Value("${status.hydration.avatars.max-size:10000}") long avatarsMaxSize,
+                          @Value("${status.hydration.avatars.ttl-seconds:60}") long avatarsTtlSeconds) {
+        this.statusHydrationRepository = statusHydrationRepository;
+        this.likeCountersBuffer = likeCountersBuffer;
+        this.mentionResolver = mentionResolver;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.redisTtl = Duration.ofSeconds(redisTtlSeconds);
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "status.skeletons");
+        this.avatarCache = Caffeine.newBuilder()
+                .maximumSize(avatarsMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(avatarsTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, avatarCache, "status.avatars");
+    }
+
+    // statuses are returned in the order of statusIds, deleted ones are skipped
+    public List<StatusResponse> hydrate(Long viewerId, List<Long> statusIds) {
+        return this.hydrate(viewerId, statusIds, _ -> true);
+    }
+
+    // statuses rejected by the filter are dropped before the per-viewer overlay is fetched
+    public List<StatusResponse> hydrate(Long viewerId, List<Long> candidateIds, Predicate<StatusSkeleton> filter) {
+        return this.hydrate(viewerId, candidateIds, filter, Integer.MAX_VALUE);
+    }
+
+    // only the first limit statuses accepted by the filter get an overlay
+    public List<StatusResponse> hydrate(Long viewerId, List<Long> candidateIds, Predicate<StatusSkeleton> filter, int limit) {
+        if (candidateIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, StatusSkeleton> skeletons = this.getSkeletons(candidateIds);
+        List<Long> statusIds = candidateIds.stream()
+                .filter(statusId -> skeletons.containsKey(statusId) && filter.test(skeletons.get(statusId)))
+                .limit(limit)
+                .toList();
+        if (statusIds.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> parentIds = skeletons.values().stream()
+                .map(StatusSkeleton::parentStatusId)
+                .filter(parentId -> parentId != null && !skeletons.containsKey(parentId))
+                .collect(Collectors.toSet());
+        if (!parentIds.isEmpty()) {
+            skeletons.putAll(this.getSkeletons(parentIds));
+        }
+
+        Map<Long, StatusViewerOverlay> overlays = this.statusHydrationRepository.fetchViewerOverlays(viewerId, statusIds).stream()
+                .collect(Collectors.toMap(StatusViewerOverlay::statusId, Function.identity()));
+        Set<Long> ownerIds = new HashSet<>();
+        for (Long statusId : statusIds) {
+            StatusSkeleton skeleton = skeletons.get(statusId);
+            ownerIds.add(skeleton.ownerId());
+            StatusSkeleton parent = skeleton.parentStatusId() == null ? null : skeletons.get(skeleton.parentStatusId());
+            if (parent != null) {
+                ownerIds.add(parent.ownerId());
+            }
+        }
+        Map<Long, UserAvatar> avatars = this.getAvatars(ownerIds);
+
+        List<StatusResponse> statuses = new ArrayList<>(statusIds.size());
+        for (Long statusId : statusIds) {
+            StatusSkeleton skeleton = skeletons.get(statusId);
+            StatusViewerOverlay overlay = overlays.get(statusId);
+            if (skeleton != null && overlay != null) {
+                statuses.add(this.toStatusResponse(viewerId, skeleton, overlay, skeletons, avatars));
+            }
+        }
+        return statuses;
+    }
+
+    // the cursor of a page of ids is the cursor of the page of statuses built from them
+    public CursorPage<StatusResponse> hydrate(Long viewerId, CursorPage<Long> statusIdsPage) {
+        return new CursorPage<>(this.hydrate(viewerId, statusIdsPage.content()), statusIdsPage.nextCursor());
+    }
+
+    public StatusResponse hydrate(Long viewerId, Long statusId) {
+        List<StatusResponse> statuses = this.hydrate(viewerId, List.of(statusId));
+        return statuses.isEmpty() ? null : statuses.getFirst();
+    }
+
+    // brings the skeletons in the local cache ahead of the hydrations that need them
+    public void preload(Collection<Long> statusIds) {
+        if (!statusIds.isEmpty()) {
+            this.getSkeletons(statusIds);
+        }
+    }
+
+    public void evict(Collection<Long> statusIds) {
+        this.localCache.invalidateAll(statusIds);
+        try {
+            this.redisTemplate.delete(statusIds.stream().map(StatusHydrator::redisKey).toList());
+        } catch (RuntimeException e) {
+            log.warn("Failed to evict status skeletons {} from redis, they expire in {}", statusIds, redisTtl, e);
+        }
+    }
+
+    // evicted after commit, otherwise a concurrent read could cache the old row again before the update is visible
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusContentUpdated(StatusContentUpdatedEvent event) {
+        this.evict(List.of(event.statusId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusSettingsUpdated(StatusSettingsUpdatedEvent event) {
+        this.evict(List.of(event.statusId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusDeleted(StatusDeletedEvent event) {
+        this.evict(List.of(event.statusId()));
+    }
+
+
+    // Helpers
+    private Map<Long, StatusSkeleton> getSkeletons(Collection<Long> statusIds) {
+        Map<Long, StatusSkeleton> skeletons = new HashMap<>(this.localCache.getAllPresent(statusIds));
+        this.countLookups("local", skeletons.size(), statusIds.size() - skeletons.size());
+        if (skeletons.size() == statusIds.size()) {
+            return skeletons;
+        }
+
+        List<Long> missed = statusIds.stream().filter(statusId -> !skeletons.containsKey(statusId)).toList();
+        Map<Long, StatusSkeleton> fromRedis = this.getFromRedis(missed);
+        this.countLookups("redis", fromRedis.size(), missed.size() - fromRedis.size());
+        this.localCache.putAll(fromRedis);
+        skeletons.putAll(fromRedis);
+
+        List<Long> toLoad = missed.stream().filter(statusId -> !fromRedis.containsKey(statusId)).toList();
+        if (!toLoad.isEmpty()) {
+            List<StatusSkeleton> loaded = this.resolveMentions(this.statusHydrationRepository.fetchSkeletons(toLoad));
+            meterRegistry.counter("status.hydration.db.loads").increment(loaded.size());
+            loaded.forEach(skeleton -> skeletons.put(skeleton.statusId(), skeleton));
+            this.putInRedis(loaded);
+            loaded.forEach(skeleton -> this.localCache.put(skeleton.statusId(), skeleton));
+        }
+        return skeletons;
+    }
+
+    private Map<Long, UserAvatar> getAvatars(Collection<Long> userIds) {
+        Map<Long, UserAvatar> avatars = new HashMap<>(this.avatarCache.getAllPresent(userIds));
+        if (avatars.size() < userIds.size()) {
+            List<Long> missed = userIds.stream().filter(userId -> !avatars.containsKey(userId)).toList();
+            for (UserAvatar avatar : this.statusHydrationRepository.fetchAvatars(missed)) {
+                avatars.put(avatar.userId(), avatar);
+                this.avatarCache.put(avatar.userId(), avatar);
+            }
+        }
+        return avatars;
+    }
+
+    // mentions of the whole batch are resolved at once (they are cached along the skeleton afterwards)
+    private List<StatusSkeleton> resolveMentions(List<StatusSkeleton> skeletons) {
+        Map<Long, List<String>> mentions = this.mentionResolver.resolve(skeletons.stream()
+                .collect(Collectors.toMap(StatusSkeleton::statusId, StatusSkeleton::mentionedUsers)));
+        return skeletons.stream()
+                .map(sk -> new StatusSkeleton(sk.statusId(), sk.ownerId(), sk.content(), sk.isPinned(), sk.privacy(), sk.replyAudience(),
+                        sk.shareAudience(), mentions.get(sk.statusId()), sk.postedAt(), sk.medias(), sk.parentAssociation(), sk.parentStatusId()))
+                .toList();
+    }
+
+    // redis is a shared optimization only, statuses are loaded from the db when it is unavailable
+    private Map<Long, StatusSkeleton> getFromRedis(List<Long> statusIds) {
+        Map<Long, StatusSkeleton> skeletons = new HashMap<>();
+        try {
+            List<String> values = this.redisTemplate.opsForValue().multiGet(statusIds.stream().map(StatusHydrator::redisKey).toList());
+            if (values == null) {
+                return skeletons;
+            }
+            for (String value : values) {
+                if (value != null) {
+                    StatusSkeleton skeleton = this.objectMapper.readValue(value, StatusSkeleton.class);
+                    skeletons.put(skeleton.statusId(), skeleton);
+                }
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to read {} status skeletons from redis", statusIds.size(), e);
+        }
+        return skeletons;
+    }
+
+    // one round trip for the whole batch (SET ... EX per skeleton in a pipeline)
+    private void putInRedis(List<StatusSkeleton> skeletons) {
+        try {
+            Map<String, String> values = new HashMap<>(skeletons.size());
+            for (StatusSkeleton skeleton : skeletons) {
+                values.put(redisKey(skeleton.statusId()), this.objectMapper.writeValueAsString(skeleton));
+            }
+            this.redisTemplate.executePipelined(new SessionCallback<>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    ValueOperations<String, String> valueOperations = ((RedisOperations<String, String>) operations).opsForValue();
+                    values.forEach((key, value) -> valueOperations.set(key, value, redisTtl));
+                    return null; // the replies are returned by executePipelined
+                }
+            });
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to write {} status skeletons to redis", skeletons.size(), e);
+        }
+    }
+
+    private void countLookups(String tier, int hits, int misses) {
+        meterRegistry.counter("status.hydration.lookups", "tier", tier, "result", "hit").increment(hits);
+        meterRegistry.counter("status.hydration.lookups", "tier", tier, "result", "miss").increment(misses);
+    }
+
+    private StatusResponse toStatusResponse(Long viewerId, StatusSkeleton skeleton, StatusViewerOverlay overlay, Map<Long, StatusSkeleton> skeletons,
+                                            Map<Long, UserAvatar> avatars) {
+        boolean isOwner = skeleton.ownerId().equals(viewerId);
+        boolean isAllowedToReply = isOwner || isInAudience(skeleton.replyAudience(), overlay.isOwnerFollowedByViewer());
+        boolean isAllowedToShare = isOwner || isInAudience(skeleton.shareAudience(), overlay.isOwnerFollowedByViewer());
+
+        ParentStatusSnippet parentSnippet;
+        StatusSkeleton parent = skeleton.parentStatusId() == null ? null : skeletons.get(skeleton.parentStatusId());
+        if (parent == null) {
+            parentSnippet = NON_EXISTENT_PARENT;
+        } else {
+            boolean isAllowedToViewParent = parent.privacy() == StatusPrivacy.PUBLIC
+                    || (overlay.isParentOwnerFollowedByViewer() && parent.privacy() == StatusPrivacy.FOLLOWERS);
+            parentSnippet = isAllowedToViewParent ? new ParentStatusSnippet(avatars.get(parent.ownerId()), parent.statusId(), parent.content(), parent.privacy(),
+                    parent.postedAt(), parent.medias()) : null;
+        }
+
+        // merge the likes not flushed yet (read-your-writes for the liker)
+        int numLikes = likeCountersBuffer.mergePending(skeleton.statusId(), overlay.numLikes());
+        return new StatusResponse(avatars.get(skeleton.ownerId()), skeleton.statusId(), skeleton.content(), skeleton.isPinned(), skeleton.privacy(),
+                skeleton.replyAudience(), isAllowedToReply, skeleton.shareAudience(), isAllowedToShare, overlay.isSavedToBookmarks(),
+                skeleton.mentionedUsers(), skeleton.postedAt(), overlay.isLikedByViewer(), numLikes, overlay.numReplies(), overlay.numShares(),
+                skeleton.medias(), skeleton.parentAssociation(), parentSnippet);
+    }
+
+    private static boolean isInAudience(StatusAudience audience, boolean isOwnerFollowedByViewer) {
+        return audience == StatusAudience.EVERYONE || (isOwnerFollowedByViewer && audience == StatusAudience.FOLLOWERS);
+    }
+
+    private static String redisKey(Long statusId) {
+        return RedisConstants.STATUS_SKELETON_PREFIX.concat(statusId.toString());
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.grad.social.service.status;
+
+import com.grad.social.service.outbox.OutboxHandler;
+import com.grad.social.service.status.event.StatusPublishedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class StatusModerationHandler implements OutboxHandler<StatusPublishedEvent> {
+    private final ModerationQueue moderationQueue;
+
+    @Override
+    public Class<StatusPublishedEvent> eventType() {
+        return StatusPublishedEvent.class;
+    }
+
+    @Override
+    public void handle(StatusPublishedEvent event) {
+        // new statuses also get their full-text search vector
+        this.moderationQueue.enqueue(event.statusId(), event.content(), true);
+    }
+
+}
@@ -1,45 +1,65 @@
 package com.grad.social.service.status;
 
-import com.grad.social.common.AppConstants;
 import com.grad.social.common.exceptionhandling.AlreadyRegisteredException;
 import com.grad.social.common.exceptionhandling.Model;
 import com.grad.social.common.exceptionhandling.ModelNotFoundException;
 import com.grad.social.common.model.MediaRepresentation;
 import com.grad.social.common.utils.media.FileSystemUtils;
+import com.grad.social.common.utils.media.FileSystemUtils.IngestedFile;
 import com.grad.social.common.utils.media.MediaUtils;
+import com.grad.social.common.utils.media.MediaUtils.ImageDimensions;
 import com.grad.social.exception.status.StatusErrorCode;
 import com.grad.social.model.enums.NotificationType;
 import com.grad.social.model.enums.ParentAssociation;
 import com.grad.social.model.status.request.CreateStatusRequest;
 import com.grad.social.model.status.request.UpdateStatusContent;
 import com.grad.social.model.status.request.UpdateStatusSettings;
+import com.grad.social.repository.status.StatusCountersRepository;
 import com.grad.social.repository.status.StatusRepository;
+import com.grad.social.repository.status.StatusThreadRepository;
 import com.grad.social.service.media.MediaService;
+import com.grad.social.service.media.MediaVariantService;
 import com.grad.social.service.notification.NotificationService;
+import com.grad.social.service.outbox.OutboxPublisher;
 import com.grad.social.service.status.event.StatusContentUpdatedEvent;
+import com.grad.social.service.status.event.StatusDeletedEvent;
 import com.grad.social.service.status.event.StatusPublishedEvent;
+import com.grad.social.service.status.event.StatusRepliedEvent;
+import com.grad.social.service.status.event.StatusSettingsUpdatedEvent;
 import com.grad.social.service.status.utils.StatusUtils;
+import com.grad.social.service.user.AccountRestrictionService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class StatusService {
     private final StatusRepository statusRepository;
+    private final StatusCountersRepository statusCountersRepository;
+    private final StatusThreadRepository statusThreadRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final OutboxPublisher outboxPublisher;
     private final MediaService mediaService;
+    private final MediaVariantService mediaVariantService;
     private final NotificationService notificationService;
+    private final AccountRestrictionService accountRestrictionService;
 
     // currentUserId == statusOwnerId
     @Transactional
@@ -57,14 +77,16 @@ public class StatusService {
             if (parentStatusId != null && !this.statusRepository.statusExistsById(parentStatusId)) {
                 throw new ModelNotFoundException(Model.STATUS, parentStatusId);
             }
-            this.checkWhetherToRestrictUser(currentUserId);
             long savedStatusId = this.statusRepository.createStatus(currentUserId, parentStatusId, parentAssociation, toCreate);
             if (mediaFiles != null && !mediaFiles.isEmpty()) {
                 this.uploadStatusMediaBatch(savedStatusId, mediaFiles, 1);
             }
             if (parentAssociation != null) {
+                this.statusCountersRepository.incrementChildCounter(parentStatusId, parentAssociation, 1);
                 Long parentStatusOwnerId = toCreate.parentStatus().statusOwnerId();
                 if (parentAssociation == ParentAssociation.REPLY) {
+                    this.statusThreadRepository.indexReply(savedStatusId, parentStatusId);
+                    this.eventPublisher.publishEvent(new StatusRepliedEvent(parentStatusId, savedStatusId));
                     this.notificationService.saveNotification(currentUserId, new Long[]{parentStatusOwnerId}, savedStatusId, NotificationType.REPLY);
                 } else if (parentAssociation == ParentAssociation.SHARE) {
                     this.notificationService.saveNotification(currentUserId, new Long[]{parentStatusOwnerId}, savedStatusId, NotificationType.SHARE);
@@ -75,27 +97,22 @@ public class StatusService {
                 List<Long> mentionedUsersIds = this.statusRepository.validUsersInUsernames(mentions);
                 this.notificationService.saveNotification(currentUserId, mentionedUsersIds.toArray(Long[]::new), savedStatusId, NotificationType.MENTION);
             }
-            this.eventPublisher.publishEvent(new StatusPublishedEvent(savedStatusId, toCreate.content()));
+            this.outboxPublisher.publish(new StatusPublishedEvent(savedStatusId, toCreate.content()), "StatusPublishedEvent:" + savedStatusId);
             return savedStatusId;
         } catch (DuplicateKeyException e) {
             throw new AlreadyRegisteredException(StatusErrorCode.STATUS_ALREADY_EXISTS);
         }
     }
 
-    private void checkWhetherToRestrictUser(Long currentUserId) {
-        boolean shouldRestrict = this.statusRepository.checkWhetherToRestrictUser(currentUserId);
-        if (shouldRestrict) {
-            System.out.printf("Sending a notification to user %d to restrict their account%n", currentUserId);
-            this.notificationService.saveNotification(AppConstants.SYSTEM_USER, new Long[]{currentUserId}, null, NotificationType.RESTRICT);
-        }
-    }
-
     @Transactional
     public void deleteStatus(Long statusId) throws Exception {
         // Corresponding notifications for that statusId are deleted automatically at db level
         this.deleteStatusMedia(statusId);
+        this.statusCountersRepository.decrementParentCounterOf(statusId);
+        this.accountRestrictionService.forgetViolation(statusId);
         int recordsDeleted = this.statusRepository.deleteStatus(statusId);
         if (recordsDeleted == 0) throw new ModelNotFoundException(Model.STATUS, statusId);
+        this.eventPublisher.publishEvent(new StatusDeletedEvent(statusId));
     }
 
     @Transactional
@@ -108,7 +125,10 @@ public class StatusService {
         int recordsUpdated = this.statusRepository.updateStatusContent(statusId, toUpdate);
 
         if (recordsUpdated != 0) {
-            this.eventPublisher.publishEvent(new StatusContentUpdatedEvent(statusId, oldContent, toUpdate.newContent()));
+            // the local caches are evicted in-process, the moderation goes through the outbox
+            var contentUpdated = new StatusContentUpdatedEvent(statusId, oldContent, toUpdate.newContent());
+            this.eventPublisher.publishEvent(contentUpdated);
+            this.outboxPublisher.publish(contentUpdated);
         } else {
             throw new ModelNotFoundException(Model.STATUS, statusId);
         }
@@ -123,6 +143,7 @@ public class StatusService {
     @Transactional
     public void updateStatusSettings(Long statusId, UpdateStatusSettings toUpdate) {
         this.statusRepository.updateStatusSettings(List.of(statusId), toUpdate);
+        this.eventPublisher.publishEvent(new StatusSettingsUpdatedEvent(statusId, toUpdate.statusPrivacy()));
         this.asyncUpdateRepliesSettings(statusId, toUpdate);
     }
 
@@ -132,41 +153,91 @@ public class StatusService {
         List<Long> replies = this.statusRepository.getRepliesIds(parentStatusId);
         if (!replies.isEmpty()) {
             this.statusRepository.updateStatusSettings(replies, toUpdate);
+            replies.forEach(replyId -> this.eventPublisher.publishEvent(new StatusSettingsUpdatedEvent(replyId, toUpdate.statusPrivacy())));
         }
     }
 
 
     // Upload for statuses
+    // the media are linked in the order of the files, a content repeated in the upload is linked once
     private void uploadStatusMediaBatch(Long statusId, List<MultipartFile> mediaFiles, int startPosition) throws Exception {
-        // Collect new media to insert
-        List<Long> newMediaIds = new ArrayList<>();
-        List<MediaRepresentation> newAssets = new ArrayList<>();
-
-        for (MultipartFile file : mediaFiles) {
-            String hashedContent = MediaUtils.hashFileContent(file.getInputStream());
-            Long mediaId = this.mediaService.findMediaIdsByHashes(Set.of(hashedContent)).get(hashedContent);
+        List<IngestedFile> ingestedFiles = new ArrayList<>(mediaFiles.size());
+        try {
+            // one read of every upload: hashed while written to a temp file
+            for (MultipartFile file : mediaFiles) {
+                try (InputStream fileStream = file.getInputStream()) {
+                    ingestedFiles.add(FileSystemUtils.ingest(fileStream));
+                }
+            }
+            List<String> hashedContents = ingestedFiles.stream().map(IngestedFile::contentHash).distinct().toList();
+            Map<String, Long> mediaIdsByHashes = new HashMap<>(this.mediaService.findMediaIdsByHashes(new HashSet<>(hashedContents)));
 
-            // null means a new media asset, we skip it if it exists
-            if (mediaId == null) {
-                String hashedFileName = MediaUtils.hashFileName(file.getOriginalFilename());
+            // a hash without id means a new media asset, an existing one is linked as is
+            List<MediaRepresentation> newAssets = new ArrayList<>();
+            List<String> committedHashes = new ArrayList<>();
+            this.deleteOnRollback(committedHashes);
+            for (int i = 0; i < ingestedFiles.size(); i++) {
+                IngestedFile ingested = ingestedFiles.get(i);
+                String hashedContent = ingested.contentHash();
+                if (mediaIdsByHashes.containsKey(hashedContent) || committedHashes.contains(hashedContent)) {
+                    continue;
+                }
+                ImageDimensions dimensions = MediaUtils.readImageDimensions(ingested.tempFile());
 
-                // Save to filesystem: uploads/<hashedFileName>.<ext>
-                FileSystemUtils.saveFile(hashedFileName, file.getInputStream());
+                // Save to filesystem under its content hash: uploads/<hashedContent>
+                FileSystemUtils.commit(ingested, hashedContent);
+                committedHashes.add(hashedContent);
 
                 // Prepare DB insert
-                newAssets.add(new MediaRepresentation(hashedFileName, hashedContent, file.getContentType(), file.getSize()));
+                var newAsset = new MediaRepresentation(hashedContent, hashedContent, mediaFiles.get(i).getContentType(), ingested.sizeInBytes());
+                if (dimensions != null) {
+                    newAsset.setWidth(dimensions.width());
+                    newAsset.setHeight(dimensions.height());
+                }
+                newAssets.add(newAsset);
+            }
+
+            // Bulk insert new media assets
+            if (!newAssets.isEmpty()) {
+                this.mediaService.insertMediaAssetsBatch(newAssets);
+                mediaIdsByHashes.putAll(this.mediaService.findMediaIdsByHashes(new HashSet<>(committedHashes)));
             }
-        }
 
-        // Bulk insert new media assets
-        if (!newAssets.isEmpty()) {
-            this.mediaService.insertMediaAssetsBatch(newAssets);
-            Map<String, Long> mediaIdsByHashes = this.mediaService.findMediaIdsByHashes(newAssets.stream().map(MediaRepresentation::getContentHashed).collect(Collectors.toSet()));
-            mediaIdsByHashes.forEach((_, v) -> newMediaIds.add(v));
+            // Bulk link status <-> media
+            this.mediaService.addMediaToStatusBatch(statusId, hashedContents.stream().map(mediaIdsByHashes::get).toList(), startPosition);
+        } finally {
+            // the temp files of known or repeated contents (committed ones were moved already)
+            for (IngestedFile ingested : ingestedFiles) {
+                FileSystemUtils.discard(ingested);
+            }
         }
+    }
 
-        // Bulk link status <-> media
-        this.mediaService.addMediaToStatusBatch(statusId, newMediaIds, startPosition);
+    // the files of new assets are saved before their rows commit: they are deleted again if the transaction rolls back,
+    // unless a concurrent upload of the same content committed its row in the meantime
+    private void deleteOnRollback(List<String> committedHashes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK || committedHashes.isEmpty()) {
+                    return;
+                }
+                Set<String> referenced = mediaService.findMediaIdsByHashes(Set.copyOf(committedHashes)).keySet();
+                for (String hashedContent : committedHashes) {
+                    if (referenced.contains(hashedContent)) {
+                        continue;
+                    }
+                    try {
+                        FileSystemUtils.deleteFile(hashedContent);
+                    } catch (Exception e) {
+                        log.warn("Failed to delete the file of the rolled back media {}", hashedContent, e);
+                    }
+                }
+            }
+        });
     }
 
     private void deleteStatusMedia(Long statusId) throws Exception {
@@ -182,13 +253,16 @@ public class StatusService {
     }
 
     private void deleteMediaAssetsIfNotReferenced(List<MediaRepresentation> statusMediasByStatusId, List<Long> mediaIdsToDelete) throws Exception {
+        List<String> contentHashesToDelete = new ArrayList<>();
         for (var mediaRepresentation : statusMediasByStatusId) {
             String hashedFileName = mediaRepresentation.getFileNameHashed();
             if (mediaRepresentation.getRefCount() == 1) {
                 FileSystemUtils.deleteFile(hashedFileName);
                 mediaIdsToDelete.add(mediaRepresentation.getMediaId());
+                contentHashesToDelete.add(mediaRepresentation.getContentHashed());
             }
         }
+        this.mediaVariantService.deleteVariants(contentHashesToDelete);
         this.mediaService.deleteMediaAssets(mediaIdsToDelete);
     }
 
@@ -0,0 +1,78 @@
+package com.grad.social.service.status;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grad.social.model.status.StatusConstants;
+import com.grad.social.repository.user.UserStatusInteractionRepository;
+import com.grad.social.service.status.event.StatusDeletedEvent;
+import com.grad.social.service.status.event.StatusRepliedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Viewer-independent part of the first page of a status: the ids of its newest replies
+ * ({@link StatusConstants#THREAD_CACHED_REPLIES} of them, so that the page can still be filled when some are hidden from the viewer).
+ * Concurrent misses for the same status are coalesced: one caller loads the ids and warms the skeletons of the status and its replies,
+ * the others wait for it. The size bound (frequency based admission) keeps the hot statuses.
+ * An entry is evicted when the status gets a new reply or is deleted, edits and settings changes are handled by the skeleton cache,
+ * likes and counters are part of the per-viewer overlay. Other instances pick up new replies when their entry expires (status.thread.ttl-seconds).
+ */
+@Component
+public class StatusThreadCache {
+    private final UserStatusInteractionRepository userStatusInteractionRepository;
+    private final StatusHydrator statusHydrator;
+    private final Cache<Long, List<Long>> newestReplies;
+
+    public StatusThreadCache(UserStatusInteractionRepository userStatusInteractionRepository, StatusHydrator statusHydrator, MeterRegistry meterRegistry,
+                             @Value("${status.thread.max-size:10000}") long maxSize,
+                             @Value("${status.thread.ttl-seconds:30}") long ttlSeconds) {
+        this.userStatusInteractionRepository = userStatusInteractionRepository;
+        this.statusHydrator = statusHydrator;
+        this.newestReplies = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, newestReplies, "status.threads");
+    }
+
+    // newest first, may contain replies deleted since they were cached (the hydrator skips them)
+    public List<Long> getNewestReplyIds(Long statusId) {
+        return this.newestReplies.get(statusId, this::load);
+    }
+
+    // a full list may hide more replies behind the ones filtered out for a viewer
+    public boolean isComplete(List<Long> newestReplyIds) {
+        return newestReplyIds.size() < StatusConstants.THREAD_CACHED_REPLIES;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusReplied(StatusRepliedEvent event) {
+        this.newestReplies.invalidate(event.statusId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStatusDeleted(StatusDeletedEvent event) {
+        this.newestReplies.invalidate(event.statusId());
+    }
+
+
+    // Helpers
+    private List<Long> load(Long statusId) {
+        List<Long> replyIds = this.userStatusInteractionRepository.fetchNewestReplyIds(statusId, StatusConstants.THREAD_CACHED_REPLIES);
+        List<Long> toWarm = new ArrayList<>(replyIds.size() + 1);
+        toWarm.add(statusId);
+        toWarm.addAll(replyIds);
+        this.statusHydrator.preload(toWarm);
+        return List.copyOf(replyIds);
+    }
+
+}
@@ -0,0 +1,4 @@
+package com.grad.social.service.status.event;
+
+public record StatusDeletedEvent(Long statusId) {
+}
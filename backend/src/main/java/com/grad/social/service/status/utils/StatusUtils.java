@@ -10,9 +10,9 @@ import java.util.regex.Pattern;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class StatusUtils {
+    private static final Pattern MENTION_PATTERN = Pattern.compile("@([A-Za-z0-9_]{1,15})");
 
     public static List<String> extractMentions(String content) {
-        final Pattern MENTION_PATTERN = Pattern.compile("@([A-Za-z0-9_]{1,15})");
         Matcher matcher = MENTION_PATTERN.matcher(content);
         List<String> usernames = new ArrayList<>();
         while (matcher.find()) {
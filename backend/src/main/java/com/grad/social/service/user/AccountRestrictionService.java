@@ -0,0 +1,62 @@
+package com.grad.social.service.user;
+
+import com.grad.social.common.AppConstants;
+import com.grad.social.model.enums.NotificationType;
+import com.grad.social.model.status.StatusConstants;
+import com.grad.social.repository.user.UserRepository;
+import com.grad.social.repository.user.UserViolationRepository;
+import com.grad.social.service.notification.NotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Restricts the accounts posting UNSAFE_STATUES_THRESHOLD unsafe statuses within DAYS_TO_CHECK days, from the moderation pipeline.
+ * Unsafe statuses are counted in daily buckets per user (user_violation_buckets), so that checking the window reads a handful of rows
+ * and posting a status no longer counts its owner's moderated statuses (restricted users are refused by SecurityService).
+ * Deleting an unsafe status uncounts it, an account already restricted stays so.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AccountRestrictionService {
+    private final UserViolationRepository userViolationRepository;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+
+    // called once per status found unsafe (not again when it is re-moderated as unsafe)
+    @Transactional
+    public void recordViolation(Long statusId) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Long userId = this.userViolationRepository.recordViolation(statusId, today);
+        if (userId == null) {
+            return; // deleted meanwhile
+        }
+        int violations = this.userViolationRepository.countViolationsSince(userId, today.minusDays(StatusConstants.DAYS_TO_CHECK));
+        if (violations >= StatusConstants.UNSAFE_STATUES_THRESHOLD && this.userRepository.restrictAccount(userId)) {
+            log.info("Restricted the account of user {} after {} unsafe statuses", userId, violations);
+            this.notificationService.saveNotification(AppConstants.SYSTEM_USER, new Long[]{userId}, null, NotificationType.RESTRICT);
+        }
+    }
+
+    // called before the status is deleted (its owner and the day it was counted are read from it)
+    public void forgetViolation(Long statusId) {
+        this.userViolationRepository.forgetViolation(statusId);
+    }
+
+    /**
+     * Runs every day at 4:30 AM to delete the buckets that left the window.
+     */
+    @Scheduled(cron = "0 30 4 * * *")
+    public void deleteExpiredBuckets() {
+        LocalDate windowStart = LocalDate.now(ZoneOffset.UTC).minusDays(StatusConstants.DAYS_TO_CHECK);
+        int deleted = this.userViolationRepository.deleteBucketsBefore(windowStart);
+        log.info("Deleted {} expired violation buckets", deleted);
+    }
+
+}
@@ -7,6 +7,8 @@ import com.grad.social.common.security.AuthService;
 import com.grad.social.common.security.UserKey;
 import com.grad.social.common.validation.ErrorCode;
 import com.grad.social.exception.user.UserErrorCode;
+import com.grad.social.model.user.helper.ProfileSkeleton;
+import com.grad.social.model.user.helper.ProfileViewerOverlay;
 import com.grad.social.model.user.helper.UserBasicData;
 import com.grad.social.model.tables.records.UsersRecord;
 import com.grad.social.model.user.request.CreateUser;
@@ -40,7 +42,15 @@ public class UserService {
 //        boolean isAccountProtected = this.userRepository.isAccountProtected(nameToSearch);
 //        boolean currentUserAccount = this.userRepository.isAccountOwner(currentUserId, nameToSearch);
 //        if (isAccountProtected && !currentUserAccount)
-        return this.userRepository.fetchUserProfileByName(currentUserId, nameToSearch);
+        Long profileOwnerId = this.userRepository.findUserIdByName(nameToSearch);
+        if (profileOwnerId == null) {
+            return null;
+        }
+        ProfileSkeleton skeleton = this.userRepository.fetchProfileSkeleton(profileOwnerId);
+        if (skeleton == null) {
+            return null;
+        }
+        return toProfileResponse(skeleton, this.userRepository.fetchProfileViewerOverlay(currentUserId, profileOwnerId));
     }
 
     public void createUser(CreateUser user) {
@@ -108,4 +118,26 @@ public class UserService {
         }
         this.authService.updateUserAccount(existingUser.getUsername(), fieldsToUpdateInAuthProvider);
     }
+
+
+    // Helpers
+    private static ProfileResponse toProfileResponse(ProfileSkeleton skeleton, ProfileViewerOverlay overlay) {
+        var profile = new ProfileResponse(skeleton.userAvatar(), skeleton.profileCoverPhoto(), skeleton.profileBio(), skeleton.joinedAt(), skeleton.aboutUser());
+        profile.setFollowerNo(skeleton.followerNo());
+        profile.setFollowingNo(skeleton.followingNo());
+        profile.setIsBeingFollowed(overlay.isBeingFollowed());
+        profile.setFollowingPriority(overlay.followingPriority() == null ? null : overlay.followingPriority().name());
+        profile.setIsBlocked(overlay.isBlocked());
+        profile.setIsMuted(overlay.isMuted());
+        profile.setCanBeMessaged(
+                switch (skeleton.whoCanMessage()) {
+                    case EVERYONE -> true;
+                    case FOLLOWERS -> overlay.isBeingFollowed();
+                    case FRIENDS -> overlay.isBeingFollowed() && overlay.isFollowingViewer();
+                    case NONE -> false;
+                    default -> throw new IllegalStateException("Unexpected value: " + skeleton.whoCanMessage());
+                }
+        );
+        return profile;
+    }
 }
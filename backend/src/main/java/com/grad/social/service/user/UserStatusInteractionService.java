@@ -5,84 +5,183 @@ import com.grad.social.common.exceptionhandling.ActionNotAllowedException;
 import com.grad.social.common.exceptionhandling.AlreadyRegisteredException;
 import com.grad.social.exception.status.StatusErrorCode;
 import com.grad.social.model.enums.NotificationType;
+import com.grad.social.model.feed.FeedMode;
+import com.grad.social.model.shared.CursorPage;
+import com.grad.social.model.shared.PageCursor;
 import com.grad.social.model.shared.TimestampSeekRequest;
+import com.grad.social.model.status.StatusConstants;
+import com.grad.social.model.status.helper.ThreadEntry;
 import com.grad.social.model.status.request.ReactToStatusRequest;
 import com.grad.social.model.status.response.*;
+import com.grad.social.model.user.helper.ViewerGraphSnapshot;
+import com.grad.social.repository.status.StatusThreadRepository;
 import com.grad.social.repository.user.UserStatusInteractionRepository;
+import com.grad.social.service.feed.FeedPrefetcher;
+import com.grad.social.service.feed.RankedFeedService;
+import com.grad.social.service.feed.TimelineService;
 import com.grad.social.service.notification.NotificationService;
+import com.grad.social.service.status.LikeCountersBuffer;
+import com.grad.social.service.status.StatusHydrator;
+import com.grad.social.service.status.StatusThreadCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 public class UserStatusInteractionService {
     private final UserStatusInteractionRepository userStatusInteractionRepository;
+    private final StatusThreadRepository statusThreadRepository;
     private final NotificationService notificationService;
+    private final TimelineService timelineService;
+    private final RankedFeedService rankedFeedService;
+    private final FeedPrefetcher feedPrefetcher;
+    private final LikeCountersBuffer likeCountersBuffer;
+    private final StatusHydrator statusHydrator;
+    private final StatusThreadCache statusThreadCache;
+    private final ViewerGraphService viewerGraphService;
 
+    // the status and its newest replies come from the shared caches, only the viewer's overlay is read per request
+    // the replies are looked up once the status is known to be viewable, so that hidden statuses never load (nor cache) their threads
     public StatusWithRepliesResponse getStatusById(Long currentUserId, Long statusId) {
-        var status = this.userStatusInteractionRepository.getStatusById(currentUserId, statusId);
-        if (status == null) {
-            throw new ActionNotAllowedException(StatusErrorCode.NOT_ALLOWED_TO_VIEW_STATUS);
+        ViewerGraphSnapshot viewerGraph = this.viewerGraphService.getSnapshot(currentUserId);
+        StatusResponse status = this.getViewableStatus(viewerGraph, statusId);
+        List<Long> newestReplyIds = this.statusThreadCache.getNewestReplyIds(statusId);
+
+        int pageSize = AppConstants.DEFAULT_PAGE_SIZE;
+        List<ReplySnippet> replies = this.statusHydrator.hydrate(currentUserId, newestReplyIds,
+                        skeleton -> viewerGraph.canView(skeleton.ownerId(), skeleton.privacy()), pageSize)
+                .stream()
+                .map(UserStatusInteractionService::toReplySnippet)
+                .toList();
+        if (replies.size() < pageSize && !this.statusThreadCache.isComplete(newestReplyIds)) {
+            // most of the cached replies are hidden from this viewer
+            replies = this.withPendingLikes(this.userStatusInteractionRepository.fetchMoreReplies(viewerGraph, statusId, null, null));
         }
-        return status;
+        return new StatusWithRepliesResponse(status, replies);
+    }
+
+    // expands the conversation below a status in one range scan per branch, replies hidden from the viewer are pruned with their subtrees
+    public StatusThreadResponse fetchThread(Long currentUserId, Long statusId, int depth, int branches) {
+        ViewerGraphSnapshot viewerGraph = this.viewerGraphService.getSnapshot(currentUserId);
+        StatusResponse status = this.getViewableStatus(viewerGraph, statusId);
+        List<ThreadEntry> entries = this.statusThreadRepository.fetchThread(statusId,
+                Math.clamp(depth, 1, StatusConstants.THREAD_MAX_DEPTH), Math.clamp(branches, 1, StatusConstants.THREAD_MAX_BRANCHES));
+        List<StatusResponse> replies = this.statusHydrator.hydrate(currentUserId, entries.stream().map(ThreadEntry::statusId).toList(),
+                skeleton -> viewerGraph.canView(skeleton.ownerId(), skeleton.privacy()));
+        return new StatusThreadResponse(status, this.toThreadReplies(entries, replies));
     }
 
     public List<ReplySnippet> fetchMoreReplies(Long currentUserId, Long statusId, TimestampSeekRequest seekRequest) {
-        return this.userStatusInteractionRepository.fetchMoreReplies(currentUserId, statusId,
-                seekRequest == null ? null : (seekRequest.lastHappenedAt()), seekRequest == null ? null : seekRequest.lastEntityId());
+        return this.withPendingLikes(this.userStatusInteractionRepository.fetchMoreReplies(this.viewerGraphService.getSnapshot(currentUserId), statusId,
+                seekRequest == null ? null : (seekRequest.lastHappenedAt()), seekRequest == null ? null : seekRequest.lastEntityId()));
     }
 
-    public FeedResponse fetchUserFeed(Long currentUserId, int offset) {
-        List<StatusResponse> statuses = this.userStatusInteractionRepository.fetchFeed(currentUserId, offset);
+    public FeedResponse fetchUserFeed(Long currentUserId, String cursor, FeedMode mode) {
+        CursorPage<StatusResponse> page = this.feedPrefetcher.take(currentUserId, mode, cursor);
+        if (page == null) {
+            page = this.loadFeedPage(currentUserId, cursor, mode);
+        }
+        // users almost always scroll to the next page right away
+        String nextCursor = page.nextCursor();
+        this.feedPrefetcher.prefetch(currentUserId, mode, nextCursor, () -> this.loadFeedPage(currentUserId, nextCursor, mode));
+
         var unreadCounts = this.userStatusInteractionRepository.getUnreadCounts(currentUserId);
-        return new FeedResponse(statuses, unreadCounts.unreadMessages(), unreadCounts.unreadNotifications());
+        return new FeedResponse(page.content(), unreadCounts.unreadMessages(), unreadCounts.unreadNotifications(), page.nextCursor());
     }
 
-    public List<StatusResponse> fetchUserPosts(Long currentUserId, Long profileOwnerId, int offset) {
-        return this.userStatusInteractionRepository.fetchPosts(currentUserId, profileOwnerId, offset);
+    public CursorPage<StatusResponse> fetchUserPosts(Long currentUserId, Long profileOwnerId, String cursor) {
+        return this.statusHydrator.hydrate(currentUserId, this.userStatusInteractionRepository.fetchPosts(currentUserId, profileOwnerId, PageCursor.decode(cursor)));
     }
 
-    public List<StatusResponse> fetchUserReplies(Long currentUserId, Long profileOwnerId, int offset) {
-        return this.userStatusInteractionRepository.fetchReplies(currentUserId, profileOwnerId, offset);
+    public CursorPage<StatusResponse> fetchUserReplies(Long currentUserId, Long profileOwnerId, String cursor) {
+        return this.statusHydrator.hydrate(currentUserId, this.userStatusInteractionRepository.fetchReplies(currentUserId, profileOwnerId, PageCursor.decode(cursor)));
     }
 
-    public List<StatusMediaResponse> fetchUserMedia(Long currentUserId, Long profileOwnerId, int offset) {
-        var medias = this.userStatusInteractionRepository.fetchMedia(currentUserId, profileOwnerId, offset);
-
-        // Step 1: remember the original order of statusIds
-        Map<Long, Integer> statusOrder = new LinkedHashMap<>();
-        for (StatusMediaResponse m : medias) {
-            statusOrder.putIfAbsent(m.statusId(), statusOrder.size());
-        }
-
-        // Step 2: sort by (statusId original order, position ascending)
-        return medias.stream()
-                .sorted(Comparator.comparing((StatusMediaResponse m) -> statusOrder.get(m.statusId()))
-                        .thenComparing(StatusMediaResponse::position))
-                .toList();
+    // medias are ordered by (status, position) at db level
+    public CursorPage<StatusMediaResponse> fetchUserMedia(Long currentUserId, Long profileOwnerId, String cursor) {
+        return this.userStatusInteractionRepository.fetchMedia(currentUserId, profileOwnerId, PageCursor.decode(cursor));
     }
 
-    public List<StatusResponse> fetchStatusesLiked(Long currentUserId, int offset) {
-        return this.userStatusInteractionRepository.fetchStatusesLiked(currentUserId, offset);
+    public CursorPage<StatusResponse> fetchStatusesLiked(Long currentUserId, String cursor) {
+        return this.statusHydrator.hydrate(currentUserId, this.userStatusInteractionRepository.fetchStatusesLiked(currentUserId, PageCursor.decode(cursor)));
     }
 
+    @Transactional
     public void likeStatus(Long currentUserId, ReactToStatusRequest reactToStatusRequest) {
         Long statusId = reactToStatusRequest.statusId();
         int recordsInserted = this.userStatusInteractionRepository.likeStatus(currentUserId, statusId);
         if (recordsInserted == 0) throw new AlreadyRegisteredException(StatusErrorCode.ALREADY_LIKED_STATUS);
+        this.likeCountersBuffer.record(statusId, 1);
         this.notificationService.saveNotification(currentUserId, new Long[]{reactToStatusRequest.statusOwnerId()}, reactToStatusRequest.statusId(), NotificationType.LIKE);
     }
 
+    @Transactional
     public void unlikeStatus(Long currentUserId, ReactToStatusRequest reactToStatusRequest) {
         Long statusId = reactToStatusRequest.statusId();
         int recordsDeleted = this.userStatusInteractionRepository.unlikeStatus(currentUserId, statusId);
         if (recordsDeleted == 0) throw new AlreadyRegisteredException(StatusErrorCode.ALREADY_UNLIKED_STATUS);
+        this.likeCountersBuffer.record(statusId, -1);
         this.notificationService.removeNotification(currentUserId, reactToStatusRequest.statusOwnerId(), reactToStatusRequest.statusId(), NotificationType.LIKE);
     }
 
+
+    // Helpers
+    private StatusResponse getViewableStatus(ViewerGraphSnapshot viewerGraph, Long statusId) {
+        List<StatusResponse> statuses = this.statusHydrator.hydrate(viewerGraph.viewerId(), List.of(statusId),
+                skeleton -> viewerGraph.canView(skeleton.ownerId(), skeleton.privacy()));
+        if (statuses.isEmpty()) {
+            throw new ActionNotAllowedException(StatusErrorCode.NOT_ALLOWED_TO_VIEW_STATUS);
+        }
+        return statuses.getFirst();
+    }
+
+    private static ReplySnippet toReplySnippet(StatusResponse reply) {
+        return new ReplySnippet(reply.statusId(), reply.content(), reply.postedAt(), reply.userAvatar(), reply.numLikes(), reply.numReplies(),
+                reply.numShares(), reply.isStatusLikedByCurrentUser(), reply.isSavedToBookmarks(), reply.medias());
+    }
+
+    // replies read from the db carry the flushed likes only, the buffered ones are merged here
+    private List<ReplySnippet> withPendingLikes(List<ReplySnippet> replies) {
+        return replies.stream()
+                .map(reply -> new ReplySnippet(reply.replyId(), reply.content(), reply.postedAt(), reply.user(),
+                        this.likeCountersBuffer.mergePending(reply.replyId(), reply.numLikes()), reply.numReplies(), reply.numShares(),
+                        reply.isLikedByCurrentUser(), reply.isSavedToBookmarks(), reply.medias()))
+                .toList();
+    }
+
+    // entries are in thread order so parents are always visited before their replies, replies of a hidden status are hidden too
+    // (replies of a deleted status have no parent entry and stay in place)
+    private List<ThreadReply> toThreadReplies(List<ThreadEntry> entries, List<StatusResponse> replies) {
+        Map<Long, StatusResponse> repliesById = new HashMap<>(replies.size());
+        replies.forEach(reply -> repliesById.put(reply.statusId(), reply));
+        Set<Long> entryIds = new HashSet<>(entries.size());
+        entries.forEach(entry -> entryIds.add(entry.statusId()));
+
+        Set<Long> shown = new HashSet<>(replies.size());
+        List<ThreadReply> thread = new ArrayList<>(replies.size());
+        for (ThreadEntry entry : entries) {
+            StatusResponse reply = repliesById.get(entry.statusId());
+            boolean parentShown = entry.depth() == 1 || !entryIds.contains(entry.parentStatusId()) || shown.contains(entry.parentStatusId());
+            if (reply != null && parentShown) {
+                shown.add(entry.statusId());
+                thread.add(new ThreadReply(reply, entry.parentStatusId(), entry.depth()));
+            }
+        }
+        return thread;
+    }
+
+    private CursorPage<StatusResponse> loadFeedPage(Long currentUserId, String cursor, FeedMode mode) {
+        CursorPage<Long> timelinePage = mode == FeedMode.RANKED
+                ? this.rankedFeedService.readRankedPage(currentUserId, PageCursor.decode(cursor))
+                : this.timelineService.readTimelinePage(currentUserId, PageCursor.decode(cursor));
+        // timelines are already filtered on write, the viewer's graph is a cheap safety net for entries pushed before a privacy change or a graph mutation
+        ViewerGraphSnapshot viewerGraph = this.viewerGraphService.getSnapshot(currentUserId);
+        List<StatusResponse> statuses = this.statusHydrator.hydrate(currentUserId, timelinePage.content(),
+                skeleton -> viewerGraph.canViewInFeed(skeleton.ownerId(), skeleton.privacy()));
+        return new CursorPage<>(statuses, timelinePage.nextCursor());
+    }
+
 }
\ No newline at end of file
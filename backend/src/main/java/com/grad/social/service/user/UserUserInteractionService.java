@@ -10,6 +10,7 @@ import com.grad.social.model.enums.NotificationType;
 import com.grad.social.model.user.request.MuteDuration;
 import com.grad.social.model.user.response.UserResponse;
 import com.grad.social.repository.user.UserUserInteractionRepository;
+import com.grad.social.service.feed.TimelineService;
 import com.grad.social.service.notification.NotificationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DuplicateKeyException;
@@ -27,6 +28,8 @@ import static com.grad.social.exception.user.UserErrorCode.*;
 public class UserUserInteractionService {
     private final UserUserInteractionRepository userRepository;
     private final NotificationService notificationService;
+    private final TimelineService timelineService;
+    private final ViewerGraphService viewerGraphService;
 
     public List<UserResponse> retrieveFollowerList(Long userId, Long currentUserId, int page) {
         return this.userRepository.findFollowersWithPagination(userId, currentUserId, page);
@@ -46,6 +49,8 @@ public class UserUserInteractionService {
         }
         try {
             this.userRepository.followUser(userId, toFollow);
+            this.viewerGraphService.invalidate(userId);
+            this.timelineService.onFollow(userId, toFollow);
             this.notificationService.saveNotification(userId, new Long[]{toFollow}, null, NotificationType.FOLLOW);
         } catch (DuplicateKeyException ex) {
             throw new AlreadyRegisteredException(TARGET_ALREADY_FOLLOWED);
@@ -60,6 +65,8 @@ public class UserUserInteractionService {
         if (recordsDeleted == 0) {
             throw new AssociationNotFoundException(TARGET_NOT_FOLLOWED);
         }
+        this.viewerGraphService.invalidate(userId);
+        this.timelineService.onUnfollow(userId, toUnfollow);
         this.notificationService.removeNotification(userId, toUnfollow, null, NotificationType.FOLLOW);
     }
 
@@ -96,6 +103,8 @@ public class UserUserInteractionService {
         }
         try {
             this.userRepository.muteUser(userId, toMute, mutedUntil);
+            this.viewerGraphService.invalidate(userId);
+            this.timelineService.onMute(userId, toMute);
         } catch (DuplicateKeyException ex) {
             throw new AlreadyRegisteredException(TARGET_ALREADY_MUTED);
         }
@@ -109,6 +118,8 @@ public class UserUserInteractionService {
         if (recordsDeleted == 0) {
             throw new AssociationNotFoundException(TARGET_NOT_BLOCKED);
         }
+        this.viewerGraphService.invalidate(userId);
+        this.timelineService.onUnmute(userId, toUnmute);
     }
 
     public List<UserResponse> findMutedUsersWithPagination(Long userId, int page) {
@@ -121,6 +132,9 @@ public class UserUserInteractionService {
         }
         try {
             this.userRepository.blockUser(userId, toBlock);
+            // a block is visible from both sides (and removes the blocked user's follow of the blocking user)
+            this.viewerGraphService.invalidate(userId, toBlock);
+            this.timelineService.onBlock(userId, toBlock);
         } catch (DuplicateKeyException ex) {
             throw new AlreadyRegisteredException(TARGET_ALREADY_BLOCKED);
         }
@@ -134,6 +148,7 @@ public class UserUserInteractionService {
         if (recordsDeleted == 0) {
             throw new AssociationNotFoundException(TARGET_NOT_BLOCKED);
         }
+        this.viewerGraphService.invalidate(userId, toUnblock);
     }
 
     public List<UserResponse> findBlockedUsersWithPagination(Long userId, int page) {
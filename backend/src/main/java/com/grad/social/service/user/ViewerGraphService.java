@@ -0,0 +1,75 @@
+package com.grad.social.service.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.grad.social.model.user.helper.ViewerGraphSnapshot;
+import com.grad.social.repository.user.UserUserInteractionRepository;
+import com.grad.social.service.feed.FeedPrefetcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Caches a {@link ViewerGraphSnapshot} per viewer so that feed, replies and search candidates are filtered in memory.
+ * Snapshots are invalidated by follow/block/mute mutations made through this instance once they commit, they expire after
+ * viewer.graph.ttl-seconds (or earlier when one of the viewer's mutes expires) to pick up mutations made through other instances.
+ */
+@Service
+public class ViewerGraphService {
+    private final UserUserInteractionRepository userUserInteractionRepository;
+    private final FeedPrefetcher feedPrefetcher;
+    private final Cache<Long, ViewerGraphSnapshot> snapshots;
+
+    public ViewerGraphService(UserUserInteractionRepository userUserInteractionRepository, FeedPrefetcher feedPrefetcher, MeterRegistry meterRegistry,
+                              @Value("${viewer.graph.max-size:10000}") long maxSize,
+                              @Value("${viewer.graph.ttl-seconds:30}") long ttlSeconds) {
+        this.userUserInteractionRepository = userUserInteractionRepository;
+        this.feedPrefetcher = feedPrefetcher;
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((Long _, ViewerGraphSnapshot snapshot) -> {
+                    Duration untilMuteExpiry = Duration.between(Instant.now(), snapshot.validUntil());
+                    return untilMuteExpiry.isNegative() ? Duration.ZERO : (untilMuteExpiry.compareTo(ttl) < 0 ? untilMuteExpiry : ttl);
+                }))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "viewer.graph.snapshots");
+    }
+
+    // concurrent misses of the same viewer share a single load
+    public ViewerGraphSnapshot getSnapshot(Long viewerId) {
+        return this.snapshots.get(viewerId, this.userUserInteractionRepository::fetchViewerGraph);
+    }
+
+    // invalidated after the surrounding transaction (if any) commits, otherwise a concurrent read could load the old graph again
+    public void invalidate(Long... userIds) {
+        List<Long> toInvalidate = List.of(userIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    discard(toInvalidate);
+                }
+            });
+        } else {
+            this.discard(toInvalidate);
+        }
+    }
+
+
+    // Helpers
+    private void discard(List<Long> userIds) {
+        this.snapshots.invalidateAll(userIds);
+        this.feedPrefetcher.discard(userIds);
+    }
+
+}
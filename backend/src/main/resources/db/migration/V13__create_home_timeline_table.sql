@@ -0,0 +1,17 @@
+-- Precomputed home timelines (fan-out on write): a status id is pushed to its author and every follower allowed to see it
+CREATE TABLE IF NOT EXISTS public.home_timeline
+(
+    user_id    BIGINT      NOT NULL, -- The timeline owner (the viewer)
+    status_id  BIGINT      NOT NULL, -- The pushed status
+    author_id  BIGINT      NOT NULL, -- Denormalized status owner, used to trim on unfollow/block/mute
+    created_at TIMESTAMPTZ NOT NULL, -- Denormalized status creation time, used for ordering
+    CONSTRAINT pk_home_timeline PRIMARY KEY (user_id, status_id),
+    CONSTRAINT fk_home_timeline_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_home_timeline_author FOREIGN KEY (author_id) REFERENCES users (id) ON DELETE CASCADE,
+    -- deleting a status trims it from every timeline
+    CONSTRAINT fk_home_timeline_status FOREIGN KEY (status_id) REFERENCES statuses (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_home_timeline_user_created ON home_timeline (user_id, created_at DESC, status_id DESC);
+CREATE INDEX idx_home_timeline_user_author ON home_timeline (user_id, author_id);
+CREATE INDEX idx_home_timeline_status ON home_timeline (status_id);
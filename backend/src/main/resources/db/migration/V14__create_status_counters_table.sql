@@ -0,0 +1,23 @@
+-- Denormalized likes/replies/shares counts, maintained incrementally by the application and repaired by a periodic reconciliation
+CREATE TABLE IF NOT EXISTS public.status_counters
+(
+    status_id   BIGINT NOT NULL,
+    num_likes   INT    NOT NULL DEFAULT 0,
+    num_replies INT    NOT NULL DEFAULT 0,
+    num_shares  INT    NOT NULL DEFAULT 0,
+    CONSTRAINT pk_status_counters PRIMARY KEY (status_id),
+    CONSTRAINT fk_status_counters_status FOREIGN KEY (status_id) REFERENCES statuses (id) ON DELETE CASCADE
+);
+
+-- Backfill existing statuses
+INSERT INTO status_counters (status_id, num_likes, num_replies, num_shares)
+SELECT s.id,
+       (SELECT COUNT(DISTINCT sl.user_id) FROM status_likes sl WHERE sl.status_id = s.id),
+       (SELECT COUNT(*) FROM statuses c WHERE c.parent_status_id = s.id AND c.parent_association = 'REPLY'),
+       (SELECT COUNT(*) FROM statuses c WHERE c.parent_status_id = s.id AND c.parent_association = 'SHARE')
+FROM statuses s
+ON CONFLICT (status_id) DO NOTHING;
+
+-- Used by the counts subqueries (reconciliation) and by the replies lookups
+CREATE INDEX IF NOT EXISTS idx_statuses_parent_status ON statuses (parent_status_id, parent_association);
+CREATE INDEX IF NOT EXISTS idx_status_likes_status ON status_likes (status_id);
@@ -0,0 +1,39 @@
+-- Materialized reply trees: every reply knows the root status of its conversation, its depth and a path key made of the
+-- fixed-width hex ids of its ancestors (root excluded) and itself. Ids are time ordered, so ordering by path walks a thread
+-- depth first with siblings in posting order, and the subtree of a reply is the range [path, path || '~') of its root.
+CREATE TABLE IF NOT EXISTS public.status_reply_index
+(
+    status_id BIGINT             NOT NULL, -- The reply
+    root_id   BIGINT             NOT NULL, -- The status that started the conversation, kept when it is deleted so that its conversation stays indexed
+    parent_id BIGINT             NOT NULL, -- The replied-to status at reply time, kept when it is deleted so that the branch stays in place
+    depth     INT                NOT NULL, -- 1 for direct replies of the root
+    path      TEXT COLLATE "C"   NOT NULL, -- Byte-wise collation, range scans must not depend on the locale
+    CONSTRAINT pk_status_reply_index PRIMARY KEY (status_id),
+    CONSTRAINT fk_status_reply_index_status FOREIGN KEY (status_id) REFERENCES statuses (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_status_reply_index_root_path ON status_reply_index (root_id, path);
+
+-- Backfill existing replies, roots are the statuses that are not (or no longer) replies
+WITH RECURSIVE thread AS (SELECT c.id                                          AS status_id,
+                                 p.id                                          AS root_id,
+                                 p.id                                          AS parent_id,
+                                 1                                             AS depth,
+                                 LPAD(TO_HEX(c.id), 16, '0')::TEXT COLLATE "C" AS path
+                          FROM statuses c
+                                   JOIN statuses p ON p.id = c.parent_status_id
+                          WHERE c.parent_association = 'REPLY'
+                            AND (p.parent_association IS DISTINCT FROM 'REPLY' OR p.parent_status_id IS NULL)
+                          UNION ALL
+                          SELECT c.id,
+                                 t.root_id,
+                                 t.status_id,
+                                 t.depth + 1,
+                                 t.path || LPAD(TO_HEX(c.id), 16, '0')
+                          FROM thread t
+                                   JOIN statuses c ON c.parent_status_id = t.status_id AND c.parent_association = 'REPLY')
+INSERT
+INTO status_reply_index (status_id, root_id, parent_id, depth, path)
+SELECT status_id, root_id, parent_id, depth, path
+FROM thread
+ON CONFLICT (status_id) DO NOTHING;
@@ -0,0 +1,30 @@
+-- Transactional outbox: events are written in the transaction of the change they describe and dispatched by a relay
+-- that claims them in batches (FOR UPDATE SKIP LOCKED, so that every replica can run it), at least once
+CREATE TABLE IF NOT EXISTS public.outbox_events
+(
+    id              BIGSERIAL,
+    event_type      VARCHAR(100) NOT NULL,             -- Simple name of the event record, selects the handlers
+    payload         JSONB        NOT NULL,
+    idempotency_key VARCHAR(200) NOT NULL,             -- The same change is never recorded twice
+    created_at      TIMESTAMPTZ  NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    available_at    TIMESTAMPTZ  NOT NULL DEFAULT CURRENT_TIMESTAMP, -- Pushed forward while claimed (lease) and after a failure (backoff)
+    attempts        INT          NOT NULL DEFAULT 0,
+    last_error      TEXT,
+    processed_at    TIMESTAMPTZ,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id),
+    CONSTRAINT uq_outbox_events_idempotency_key UNIQUE (idempotency_key)
+);
+
+CREATE INDEX idx_outbox_events_pending ON outbox_events (available_at, id) WHERE processed_at IS NULL;
+CREATE INDEX idx_outbox_events_processed ON outbox_events (processed_at) WHERE processed_at IS NOT NULL;
+
+-- Handlers that already consumed an event, written in the transaction of the handler so that a redelivered event
+-- (lease expired, other handler failed) is not applied twice
+CREATE TABLE IF NOT EXISTS public.outbox_consumptions
+(
+    handler     VARCHAR(100) NOT NULL,
+    event_id    BIGINT       NOT NULL,
+    consumed_at TIMESTAMPTZ  NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_outbox_consumptions PRIMARY KEY (handler, event_id),
+    CONSTRAINT fk_outbox_consumptions_event FOREIGN KEY (event_id) REFERENCES outbox_events (id) ON DELETE CASCADE
+);
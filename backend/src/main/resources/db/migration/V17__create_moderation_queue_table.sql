@@ -0,0 +1,16 @@
+-- Durable moderation work queue, drained by a bounded pool of workers (see ModerationQueue)
+CREATE TABLE IF NOT EXISTS public.moderation_queue
+(
+    id              BIGSERIAL,
+    status_id       BIGINT        NOT NULL,
+    content         VARCHAR(1000) NOT NULL,                           -- The content to moderate (the status may be edited meanwhile)
+    detect_language BOOLEAN       NOT NULL DEFAULT FALSE,             -- New statuses also get their full-text search vector
+    enqueued_at     TIMESTAMPTZ   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    available_at    TIMESTAMPTZ   NOT NULL DEFAULT CURRENT_TIMESTAMP, -- Pushed forward while claimed (lease) and after a failure (backoff)
+    attempts        INT           NOT NULL DEFAULT 0,
+    last_error      TEXT,
+    CONSTRAINT pk_moderation_queue PRIMARY KEY (id),
+    CONSTRAINT fk_moderation_queue_status FOREIGN KEY (status_id) REFERENCES statuses (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_moderation_queue_available ON moderation_queue (available_at, id);
@@ -0,0 +1,14 @@
+-- Moderation results reused for identical (normalized) contents, keyed by the hash of the prompt and model that produced them
+-- so that changing either of them starts from an empty cache
+CREATE TABLE IF NOT EXISTS public.moderation_cache
+(
+    prompt_hash  VARCHAR(64)  NOT NULL, -- SHA-256 (hex) of the model name and the system prompts
+    content_hash VARCHAR(64)  NOT NULL, -- SHA-256 (hex) of the normalized content
+    severity     INT          NOT NULL,
+    category     VARCHAR(100) NULL,
+    description  TEXT         NULL,
+    created_at   TIMESTAMPTZ  NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_moderation_cache PRIMARY KEY (prompt_hash, content_hash)
+);
+
+CREATE INDEX idx_moderation_cache_created ON moderation_cache (created_at);
@@ -0,0 +1,20 @@
+-- Unsafe statuses (severity 3 or 4) per user and day, the sliding window of account restrictions is the sum of the last days' buckets
+CREATE TABLE IF NOT EXISTS public.user_violation_buckets
+(
+    user_id    BIGINT NOT NULL,
+    bucket_day DATE   NOT NULL, -- UTC day the statuses were found unsafe
+    violations INT    NOT NULL DEFAULT 0,
+    CONSTRAINT pk_user_violation_buckets PRIMARY KEY (user_id, bucket_day),
+    CONSTRAINT fk_user_violation_buckets_users FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_user_violation_buckets_day ON user_violation_buckets (bucket_day);
+
+-- backfill the unsafe statuses of the last week
+INSERT INTO user_violation_buckets (user_id, bucket_day, violations)
+SELECT s.user_id, (s.created_at AT TIME ZONE 'UTC')::date, COUNT(*)
+FROM content_moderation cm
+         JOIN statuses s ON s.id = cm.status_id
+WHERE cm.severity IN (3, 4)
+  AND s.created_at >= CURRENT_TIMESTAMP - INTERVAL '8 days'
+GROUP BY s.user_id, (s.created_at AT TIME ZONE 'UTC')::date;
@@ -0,0 +1,5 @@
+-- Pixel dimensions of image assets, read from the image header at upload (null for videos, for formats the JDK cannot read
+-- and for assets uploaded before), so that clients can lay media out before downloading them
+ALTER TABLE media_asset
+    ADD COLUMN IF NOT EXISTS width  INT,
+    ADD COLUMN IF NOT EXISTS height INT;
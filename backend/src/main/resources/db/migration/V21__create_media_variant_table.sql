@@ -0,0 +1,15 @@
+-- Downscaled copies of image assets at a few fixed widths, generated on their first request and stored next to the originals.
+-- An original without a smaller variant at some width (already small, unreadable...) is recorded as a row without a file
+-- (the file columns are null), so that it is not decoded again whenever the variants cache expires
+CREATE TABLE IF NOT EXISTS media_variant
+(
+    content_hash VARCHAR(64)  NOT NULL REFERENCES media_asset (content_hash) ON DELETE CASCADE, -- of the original
+    width        INT          NOT NULL,
+    height       INT,
+    mime_type    VARCHAR(20),
+    variant_hash VARCHAR(64), -- SHA-256 hex of the variant file, its ETag
+    filename     VARCHAR(80),
+    size_bytes   BIGINT,
+    created_at   TIMESTAMPTZ  NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_media_variant PRIMARY KEY (content_hash, width)
+);
@@ -0,0 +1,2 @@
+-- Newest statuses of an author, read per followed high-fanout author (LATERAL ... LIMIT n) on every feed page
+CREATE INDEX IF NOT EXISTS idx_statuses_user_created ON statuses (user_id, created_at DESC, id DESC);
@@ -0,0 +1,12 @@
+-- Version of the likes counter, bumped by every flush of buffered likes deltas: the reconciliation only repairs a likes counter
+-- that no flush has changed since its drift was found
+ALTER TABLE status_counters
+    ADD COLUMN IF NOT EXISTS likes_version BIGINT NOT NULL DEFAULT 0;
+
+-- Per application instance, the db time before which every like it buffered has been flushed (deleted on shutdown, after the last flush)
+CREATE TABLE IF NOT EXISTS public.likes_flush_watermarks
+(
+    instance_id   VARCHAR(36) NOT NULL,
+    flushed_until TIMESTAMPTZ NOT NULL,
+    CONSTRAINT pk_likes_flush_watermarks PRIMARY KEY (instance_id)
+);
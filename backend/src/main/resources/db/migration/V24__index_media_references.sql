@@ -0,0 +1,3 @@
+-- Statuses and chat messages sharing a media, looked up on every /media/{id} request to decide who may fetch it
+CREATE INDEX IF NOT EXISTS idx_status_media_media ON status_media (media_id);
+CREATE INDEX IF NOT EXISTS idx_messages_media ON messages (media_id) WHERE media_id IS NOT NULL;
@@ -0,0 +1,10 @@
+-- UTC day the unsafe verdict of a status was counted in its owner's violation bucket (null when it was not), to uncount it when the status is deleted
+ALTER TABLE content_moderation ADD COLUMN IF NOT EXISTS violation_day DATE;
+
+-- the buckets backfilled by V19 count unsafe statuses on the day they were created
+UPDATE content_moderation cm
+SET violation_day = (s.created_at AT TIME ZONE 'UTC')::date
+FROM statuses s
+WHERE s.id = cm.status_id
+  AND cm.severity IN (3, 4)
+  AND s.created_at >= CURRENT_TIMESTAMP - INTERVAL '8 days';
@@ -0,0 +1,87 @@
+package com.grad.social.benchmark;
+
+import com.grad.social.common.AppConstants;
+import com.grad.social.common.utils.EditDistance;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The significant change check of an edited status: the former full matrix Levenshtein distance against the bounded one,
+ * for a small edit (a typo fixed) and a rewrite. Run with -prof gc to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class EditDistanceBenchmark {
+
+    @Param({"280", "1000"})
+    public int statusLength;
+
+    @Param({"typo", "rewrite"})
+    public String edit;
+
+    private String oldContent;
+    private String newContent;
+    private int maxInsignificantDistance;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        oldContent = randomText(random, statusLength);
+        newContent = edit.equals("typo")
+                ? oldContent.substring(0, statusLength / 2) + "x" + oldContent.substring(statusLength / 2 + 1)
+                : randomText(random, statusLength);
+        maxInsignificantDistance = (int) Math.ceil(statusLength * AppConstants.MODERATION_THRESHOLD) - 1;
+    }
+
+    @Benchmark
+    public boolean matrix() {
+        return (double) matrixDistance(oldContent, newContent) / oldContent.length() >= AppConstants.MODERATION_THRESHOLD;
+    }
+
+    @Benchmark
+    public boolean bounded() {
+        return EditDistance.boundedDistance(oldContent, newContent, maxInsignificantDistance) > maxInsignificantDistance;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EditDistanceBenchmark.class.getSimpleName()).build()).run();
+    }
+
+
+    // Helpers
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    // the implementation ContentModerationService used before EditDistance
+    private static int matrixDistance(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) dp[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) dp[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                if (a.charAt(i - 1) == b.charAt(j - 1)) {
+                    dp[i][j] = dp[i - 1][j - 1];
+                } else {
+                    dp[i][j] = 1 + Math.min(dp[i - 1][j - 1], Math.min(dp[i - 1][j], dp[i][j - 1]));
+                }
+            }
+        }
+        return dp[a.length()][b.length()];
+    }
+
+}
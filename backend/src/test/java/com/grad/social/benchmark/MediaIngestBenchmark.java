@@ -0,0 +1,88 @@
+package com.grad.social.benchmark;
+
+import com.grad.social.common.utils.media.FileSystemUtils;
+import com.grad.social.common.utils.media.FileSystemUtils.IngestedFile;
+import com.grad.social.common.utils.media.MediaUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Storing an upload: the former two reads (hash, then copy) against the single-pass ingest (copy while hashing).
+ * Uploads are read from a file, as multipart uploads above the in-memory threshold are. Throughput in uploads per second,
+ * multiply by the upload size for bytes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(1)
+@Fork(1)
+public class MediaIngestBenchmark {
+
+    @Param({"1048576", "26214400"}) // 1MB, 25MB
+    public int uploadSize;
+
+    private Path directory;
+    private Path upload;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("media-ingest-benchmark");
+        upload = directory.resolve("upload.bin");
+        byte[] content = new byte[uploadSize];
+        new Random(42).nextBytes(content);
+        Files.write(upload, content);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public String twoPasses() throws Exception {
+        String contentHash;
+        try (InputStream in = Files.newInputStream(upload)) {
+            contentHash = MediaUtils.hashFileContent(in);
+        }
+        Path target = directory.resolve(contentHash);
+        try (InputStream in = Files.newInputStream(upload)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.delete(target);
+        return contentHash;
+    }
+
+    @Benchmark
+    public String singlePass() throws IOException {
+        IngestedFile ingested;
+        try (InputStream in = Files.newInputStream(upload)) {
+            ingested = FileSystemUtils.ingest(in, directory);
+        }
+        Files.move(ingested.tempFile(), directory.resolve(ingested.contentHash()), StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(directory.resolve(ingested.contentHash()));
+        return ingested.contentHash();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MediaIngestBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
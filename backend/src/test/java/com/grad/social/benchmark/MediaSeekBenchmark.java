@@ -0,0 +1,140 @@
+package com.grad.social.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent video seeks: each thread streams random ranges of a 64MB file to its own loopback socket, drained by another thread.
+ * The former path (BufferedInputStream, skip, then copying the range through an 8KB heap buffer, as the InputStreamResource
+ * of the controller was written) against FileChannel.transferTo to the socket (sendfile, what Tomcat does for MediaStreamer).
+ * Throughput in seeks per second for the whole group of threads, run with -prof gc to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(8)
+@Fork(1)
+public class MediaSeekBenchmark {
+    private static final int FILE_SIZE = 64 * 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    @Param({"262144", "2097152"}) // 256KB, 2MB
+    public int rangeSize;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("media-seek-benchmark", ".mp4");
+        byte[] chunk = new byte[1024 * 1024];
+        Random random = new Random(42);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int written = 0; written < FILE_SIZE; written += chunk.length) {
+                random.nextBytes(chunk);
+                out.write(chunk);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @State(Scope.Thread)
+    public static class Connection {
+        private ServerSocketChannel server;
+        private SocketChannel client;
+        private SocketChannel peer;
+        private OutputStream clientStream;
+
+        @Setup
+        public void connect() throws IOException {
+            server = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            client = SocketChannel.open(server.getLocalAddress());
+            peer = server.accept();
+            clientStream = Channels.newOutputStream(client);
+            Thread.ofPlatform().daemon().start(() -> {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+                try {
+                    while (peer.read(buffer) >= 0) {
+                        buffer.clear();
+                    }
+                } catch (IOException ignored) {
+                    // closed by the tear down
+                }
+            });
+        }
+
+        @TearDown
+        public void close() throws IOException {
+            client.close();
+            peer.close();
+            server.close();
+        }
+    }
+
+    @Benchmark
+    public long skipAndCopy(Connection connection) throws IOException {
+        long start = randomStart();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file.toFile()))) {
+            in.skip(start);
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long remaining = rangeSize;
+            int n;
+            while (remaining > 0 && (n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) > 0) {
+                connection.clientStream.write(buffer, 0, n);
+                remaining -= n;
+            }
+            return remaining;
+        }
+    }
+
+    @Benchmark
+    public long transferTo(Connection connection) throws IOException {
+        long position = randomStart();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long remaining = rangeSize;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, connection.client);
+                position += transferred;
+                remaining -= transferred;
+            }
+            return remaining;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MediaSeekBenchmark.class.getSimpleName()).build()).run();
+    }
+
+
+    // Helpers
+    private long randomStart() {
+        return ThreadLocalRandom.current().nextLong(FILE_SIZE - rangeSize);
+    }
+
+}
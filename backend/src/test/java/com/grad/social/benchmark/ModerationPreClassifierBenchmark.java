@@ -0,0 +1,69 @@
+package com.grad.social.benchmark;
+
+import com.grad.social.model.status.helper.PreClassification;
+import com.grad.social.service.status.ModerationPreClassifier;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the local moderation pre-classifier on one core, in statuses per second (one operation = one status).
+ * Run the main method, or: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main ModerationPreClassifierBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class ModerationPreClassifierBenchmark {
+    private static final String[] WORDS = {"the", "match", "was", "great", "today", "love", "this", "new", "photo", "with", "friends",
+            "coffee", "weekend", "project", "release", "thanks", "everyone", "who", "came", "and", "support", "read", "more", "at"};
+    private static final String[] FLAGGED = {"click here for free money", "you are such an idiot", "crypto giveaway send btc now",
+            "WHATSAPP +1 555 123 4567 guaranteed profit!!!", "nsfw", "https://bit.ly/abc123"};
+    private static final int CORPUS_SIZE = 1024;
+
+    @Param({"140", "500"})
+    public int statusLength;
+
+    private ModerationPreClassifier preClassifier;
+    private String[] statuses;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        preClassifier = new ModerationPreClassifier(new ClassPathResource("moderation/lexicon.tsv"),
+                ModerationPreClassifier.Mode.ENFORCE, 0.1, 0.8);
+        // mostly benign statuses, one in ten carries a flagged phrase
+        Random random = new Random(42);
+        statuses = new String[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            StringBuilder status = new StringBuilder();
+            if (i % 10 == 0) {
+                status.append(FLAGGED[random.nextInt(FLAGGED.length)]).append(' ');
+            }
+            while (status.length() < statusLength) {
+                status.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            statuses[i] = status.toString();
+        }
+    }
+
+    @Benchmark
+    public PreClassification classify() {
+        next = (next + 1) & (CORPUS_SIZE - 1);
+        return preClassifier.classify(statuses[next]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ModerationPreClassifierBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.grad.social.common.concurrency;
+
+import com.grad.social.base.BaseTest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleflightAspectTest extends BaseTest {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private SimpleMeterRegistry meterRegistry;
+    private Loader target;
+    private Loader loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = new Loader();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new SingleflightAspect(meterRegistry));
+        loader = proxyFactory.getProxy();
+    }
+
+    @AfterAll
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldShareOneExecutionBetweenConcurrentIdenticalCalls() throws Exception {
+        // given a call in flight
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> loader.load(1L), executor);
+        assertThat(target.entered.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // when
+        List<CompletableFuture<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followers.add(CompletableFuture.supplyAsync(() -> loader.load(1L), executor));
+        }
+        awaitFollowers(5);
+        target.release.countDown();
+
+        // then
+        assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("value-1");
+        for (CompletableFuture<String> follower : followers) {
+            assertThat(follower.get(10, TimeUnit.SECONDS)).isEqualTo("value-1");
+        }
+        assertThat(target.executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRunCallsWithDifferentArgumentsSeparately() {
+        // given
+        target.release.countDown();
+
+        // when
+        String first = loader.load(1L);
+        String second = loader.load(2L);
+
+        // then
+        assertThat(first).isEqualTo("value-1");
+        assertThat(second).isEqualTo("value-2");
+        assertThat(target.executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotKeepAResultOnceTheExecutionCompletes() {
+        // given
+        target.release.countDown();
+        loader.load(1L);
+
+        // when
+        loader.load(1L);
+
+        // then
+        assertThat(target.executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRethrowTheExceptionOfTheSharedExecutionToEveryCaller() throws Exception {
+        // given a failing call in flight
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> loader.load(-1L), executor);
+        assertThat(target.entered.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> loader.load(-1L), executor);
+        awaitFollowers(1);
+
+        // when
+        target.release.countDown();
+
+        // then
+        assertThatThrownBy(() -> leader.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> follower.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(target.executions.get()).isEqualTo(1);
+    }
+
+
+    // Helpers
+    private void awaitFollowers(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            Counter counter = meterRegistry.find("singleflight.calls").tag("role", "follower").counter();
+            if (counter != null && counter.count() >= followers) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Expected " + followers + " followers");
+    }
+
+    static class Loader {
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Singleflight
+        public String load(Long id) {
+            executions.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (id < 0) {
+                throw new IllegalArgumentException("negative id " + id);
+            }
+            return "value-" + id;
+        }
+    }
+
+}
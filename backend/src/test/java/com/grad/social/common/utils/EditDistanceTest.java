@@ -0,0 +1,93 @@
+package com.grad.social.common.utils;
+
+import com.grad.social.base.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class EditDistanceTest extends BaseTest {
+
+    @Test
+    void shouldComputeTheLevenshteinDistance() {
+        assertThat(EditDistance.distance("kitten", "sitting")).isEqualTo(3);
+        assertThat(EditDistance.distance("flaw", "lawn")).isEqualTo(2);
+        assertThat(EditDistance.distance("", "abc")).isEqualTo(3);
+        assertThat(EditDistance.distance("same text", "same text")).isZero();
+    }
+
+    @Test
+    void shouldStopAtTheBound() {
+        // given
+        String oldContent = "a".repeat(500) + "b".repeat(500);
+        String newContent = "c".repeat(1000);
+
+        // when
+        int distance = EditDistance.boundedDistance(oldContent, newContent, 10);
+
+        // then
+        assertThat(distance).isEqualTo(11);
+    }
+
+    @Test
+    void shouldMatchTheFullMatrixOnRandomEdits() {
+        // given
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5_000; i++) {
+            String a = randomText(random, random.nextInt(40));
+            String b = random.nextBoolean() ? randomText(random, random.nextInt(40)) : edit(random, a);
+            int maxDistance = random.nextInt(45);
+
+            // when
+            int bounded = EditDistance.boundedDistance(a, b, maxDistance);
+
+            // then
+            int expected = matrixDistance(a, b);
+            assertThat(EditDistance.distance(a, b)).as("distance(%s, %s)", a, b).isEqualTo(expected);
+            assertThat(bounded).as("boundedDistance(%s, %s, %d)", a, b, maxDistance).isEqualTo(Math.min(expected, maxDistance + 1));
+        }
+    }
+
+
+    // Helpers
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(3)));
+        }
+        return text.toString();
+    }
+
+    private static String edit(Random random, String text) {
+        StringBuilder edited = new StringBuilder(text);
+        for (int edits = random.nextInt(6); edits > 0; edits--) {
+            int position = edited.isEmpty() ? 0 : random.nextInt(edited.length());
+            switch (random.nextInt(3)) {
+                case 0 -> edited.insert(position, (char) ('a' + random.nextInt(3)));
+                case 1 -> {
+                    if (!edited.isEmpty()) edited.deleteCharAt(position);
+                }
+                default -> {
+                    if (!edited.isEmpty()) edited.setCharAt(position, (char) ('a' + random.nextInt(3)));
+                }
+            }
+        }
+        return edited.toString();
+    }
+
+    private static int matrixDistance(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) dp[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) dp[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = dp[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                dp[i][j] = Math.min(substitution, Math.min(dp[i - 1][j], dp[i][j - 1]) + 1);
+            }
+        }
+        return dp[a.length()][b.length()];
+    }
+
+}
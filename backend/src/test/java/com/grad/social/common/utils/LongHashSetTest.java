@@ -0,0 +1,97 @@
+package com.grad.social.common.utils;
+
+import com.grad.social.base.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongHashSetTest extends BaseTest {
+
+    @Test
+    void shouldContainWhatWasAdded() {
+        // given
+        LongHashSet set = LongHashSet.of(List.of(1L, 2L, 42L, Long.MAX_VALUE, Long.MIN_VALUE, -7L));
+
+        // then
+        assertThat(set.size()).isEqualTo(6);
+        assertThat(set.contains(42L)).isTrue();
+        assertThat(set.contains(Long.MIN_VALUE)).isTrue();
+        assertThat(set.contains(-7L)).isTrue();
+        assertThat(set.contains(3L)).isFalse();
+    }
+
+    @Test
+    void shouldStoreZeroAside() {
+        // given
+        LongHashSet set = new LongHashSet(4);
+
+        // when
+        boolean added = set.add(0L);
+        boolean addedAgain = set.add(0L);
+
+        // then
+        assertThat(added).isTrue();
+        assertThat(addedAgain).isFalse();
+        assertThat(set.contains(0L)).isTrue();
+        assertThat(set.size()).isEqualTo(1);
+        assertThat(new LongHashSet(4).contains(0L)).isFalse();
+    }
+
+    @Test
+    void shouldIgnoreDuplicates() {
+        // given
+        LongHashSet set = new LongHashSet(2);
+
+        // when
+        set.add(5L);
+        boolean addedAgain = set.add(5L);
+
+        // then
+        assertThat(addedAgain).isFalse();
+        assertThat(set.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldGrowPastItsExpectedSize() {
+        // given
+        LongHashSet set = new LongHashSet(1);
+
+        // when
+        for (long id = 0; id < 10_000; id++) {
+            set.add(id);
+        }
+
+        // then
+        assertThat(set.size()).isEqualTo(10_000);
+        for (long id = 0; id < 10_000; id++) {
+            assertThat(set.contains(id)).as("contains(%d)", id).isTrue();
+        }
+        assertThat(set.contains(10_000L)).isFalse();
+    }
+
+    @Test
+    void shouldMatchAHashSetOnRandomIds() {
+        // given
+        Random random = new Random(42);
+        Set<Long> expected = new HashSet<>();
+        LongHashSet set = new LongHashSet(16);
+
+        // when
+        for (int i = 0; i < 50_000; i++) {
+            long id = random.nextInt(100_000) - 50_000L;
+            assertThat(set.add(id)).isEqualTo(expected.add(id));
+        }
+
+        // then
+        assertThat(set.size()).isEqualTo(expected.size());
+        for (long id = -50_000; id < 50_000; id++) {
+            assertThat(set.contains(id)).as("contains(%d)", id).isEqualTo(expected.contains(id));
+        }
+    }
+
+}
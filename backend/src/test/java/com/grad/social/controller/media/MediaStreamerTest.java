@@ -0,0 +1,193 @@
+package com.grad.social.controller.media;
+
+import com.grad.social.base.BaseTest;
+import com.grad.social.common.model.MediaRepresentation;
+import com.grad.social.controller.media.MediaStreamer.ByteRange;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MediaStreamerTest extends BaseTest {
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    private final MediaStreamer mediaStreamer = new MediaStreamer(31536000);
+    private final MediaRepresentation media = new MediaRepresentation("file", "content-hash", "video/mp4", CONTENT.length());
+    private Path file;
+
+    @BeforeAll
+    void setUp() throws IOException {
+        file = Files.createTempFile("media-streamer", ".mp4");
+        Files.writeString(file, CONTENT);
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldParseTheRangeForms() {
+        assertThat(MediaStreamer.parseRanges("bytes=0-9", 100)).containsExactly(new ByteRange(0, 9));
+        assertThat(MediaStreamer.parseRanges("bytes=90-", 100)).containsExactly(new ByteRange(90, 99));
+        assertThat(MediaStreamer.parseRanges("bytes=-30", 100)).containsExactly(new ByteRange(70, 99));
+        assertThat(MediaStreamer.parseRanges("bytes=-500", 100)).containsExactly(new ByteRange(0, 99));
+        assertThat(MediaStreamer.parseRanges("bytes=50-500", 100)).containsExactly(new ByteRange(50, 99));
+        assertThat(MediaStreamer.parseRanges("bytes=0-0, 10-19", 100)).containsExactly(new ByteRange(0, 0), new ByteRange(10, 19));
+    }
+
+    @Test
+    void shouldIgnoreMalformedHeadersAndRejectUnsatisfiableOnes() {
+        assertThat(MediaStreamer.parseRanges("items=0-9", 100)).isNull();
+        assertThat(MediaStreamer.parseRanges("bytes=9-0", 100)).isNull();
+        assertThat(MediaStreamer.parseRanges("bytes=a-9", 100)).isNull();
+        assertThat(MediaStreamer.parseRanges("bytes=-", 100)).isNull();
+
+        assertThat(MediaStreamer.parseRanges("bytes=100-", 100)).isEmpty();
+        assertThat(MediaStreamer.parseRanges("bytes=-0", 100)).isEmpty();
+        assertThat(MediaStreamer.parseRanges("bytes=0-", 0)).isEmpty();
+        assertThat(MediaStreamer.parseRanges("bytes=0-99,0-99", 100)).isEmpty();
+        assertThat(MediaStreamer.parseRanges("bytes=" + "1-1,".repeat(20) + "1-1", 100)).isEmpty();
+        // unsatisfiable ranges among satisfiable ones are dropped
+        assertThat(MediaStreamer.parseRanges("bytes=200-300,0-9", 100)).containsExactly(new ByteRange(0, 9));
+    }
+
+    @Test
+    void shouldSendASingleRange() throws IOException {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=-6");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        mediaStreamer.stream(media, file, true, true, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 30-35/36");
+        assertThat(response.getContentLengthLong()).isEqualTo(6);
+        assertThat(response.getContentAsString()).isEqualTo("uvwxyz");
+    }
+
+    @Test
+    void shouldSendMultipleRangesAsMultipart() throws IOException {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,10-12");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        mediaStreamer.stream(media, file, true, true, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String body = response.getContentAsString(StandardCharsets.US_ASCII);
+        assertThat(response.getContentLengthLong()).isEqualTo(body.length());
+        assertThat(body).contains("Content-Range: bytes 0-1/36\r\n\r\n01\r\n", "Content-Range: bytes 10-12/36\r\n\r\nabc\r\n").endsWith("--\r\n");
+    }
+
+    @Test
+    void shouldAnswer416WhenNoRangeIsSatisfiable() throws IOException {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=36-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        mediaStreamer.stream(media, file, true, true, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */36");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void shouldSendTheWholeFileWhenIfRangeDoesNotMatch() throws IOException {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"another-hash\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        mediaStreamer.stream(media, file, true, true, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void shouldSendTheRangeWhenIfRangeMatches() throws IOException {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"content-hash\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        mediaStreamer.stream(media, file, true, true, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("01");
+    }
+
+    @Test
+    void shouldSendTheValidatorsAndAnImmutableCacheControl() throws IOException {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        mediaStreamer.stream(media, file, true, true, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"content-hash\"");
+        assertThat(response.getHeader(HttpHeaders.LAST_MODIFIED)).isNotNull();
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=31536000, public, immutable");
+    }
+
+    @Test
+    void shouldKeepMediaThatAreNotPublicOutOfSharedCaches() throws IOException {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        mediaStreamer.stream(media, file, true, false, request, response);
+
+        // then
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=31536000, private, immutable");
+    }
+
+    @Test
+    void shouldAnswer304WhenTheETagMatches() throws IOException {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other-hash\", \"content-hash\"");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        mediaStreamer.stream(media, file, true, true, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"content-hash\"");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+}
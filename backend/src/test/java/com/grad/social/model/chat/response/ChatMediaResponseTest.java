@@ -0,0 +1,40 @@
+package com.grad.social.model.chat.response;
+
+import com.grad.social.base.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatMediaResponseTest extends BaseTest {
+
+    @Test
+    void shouldDescribeAnImageWithItsThumbnailUrl() {
+        // when
+        ChatMediaResponse media = ChatMediaResponse.of(501L, "image/png", 2048L, 1280, 720);
+
+        // then
+        assertThat(media).isEqualTo(new ChatMediaResponse(501L, "image/png", 2048L, 1280, 720, "/media/501?w=" + ChatMediaResponse.THUMBNAIL_WIDTH));
+    }
+
+    @Test
+    void shouldDescribeAVideoWithoutThumbnailNorDimensions() {
+        // when
+        ChatMediaResponse media = ChatMediaResponse.of(503L, "video/mp4", 4096L, null, null);
+
+        // then
+        assertThat(media.thumbnailUrl()).isNull();
+        assertThat(media.width()).isNull();
+        assertThat(media.height()).isNull();
+        assertThat(media.sizeInBytes()).isEqualTo(4096L);
+    }
+
+    @Test
+    void shouldDescribeNothingForAMessageWithoutAttachment() {
+        // when
+        ChatMediaResponse media = ChatMediaResponse.of(null, null, null, null, null);
+
+        // then
+        assertThat(media).isNull();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.grad.social.model.shared;
+
+import com.grad.social.base.BaseTest;
+import com.grad.social.common.exceptionhandling.BusinessRuleViolationException;
+import com.grad.social.exception.status.StatusErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest extends BaseTest {
+
+    @Test
+    void shouldDecodeWhatItEncodes() {
+        // given
+        PageCursor cursor = new PageCursor(true, Instant.parse("2025-01-01T10:00:00.123456789Z"), 42L, 7);
+
+        // when
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        // then
+        assertThat(decoded).isEqualTo(cursor);
+    }
+
+    @Test
+    void shouldKeepTheNanosOfTheLastTimestamp() {
+        // given
+        Instant lastHappenedAt = Instant.parse("2025-01-01T10:00:00.000000001Z");
+
+        // when
+        PageCursor decoded = PageCursor.decode(PageCursor.of(lastHappenedAt, 1L).encode());
+
+        // then
+        assertThat(decoded.lastHappenedAt()).isEqualTo(lastHappenedAt);
+        assertThat(decoded.pinned()).isFalse();
+        assertThat(decoded.position()).isZero();
+    }
+
+    @Test
+    void shouldEncodeAnUrlSafeToken() {
+        // when
+        String token = PageCursor.of(Instant.parse("2025-01-01T10:00:00Z"), Long.MAX_VALUE).encode();
+
+        // then
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void shouldReadAMissingTokenAsTheFirstPage() {
+        assertThat(PageCursor.decode(null)).isNull();
+        assertThat(PageCursor.decode("")).isNull();
+        assertThat(PageCursor.decode("  ")).isNull();
+    }
+
+    @Test
+    void shouldRejectMalformedTokens() {
+        assertInvalid("not a cursor!");
+        assertInvalid(token("0:1735725600:0:42"));
+        assertInvalid(token("0:1735725600:0:forty-two:0"));
+        assertInvalid(token("0:99999999999999999:0:42:0"));
+    }
+
+
+    // Helpers
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void assertInvalid(String token) {
+        assertThatThrownBy(() -> PageCursor.decode(token))
+                .isInstanceOf(BusinessRuleViolationException.class)
+                .extracting(e -> ((BusinessRuleViolationException) e).getErrorCode())
+                .isEqualTo(StatusErrorCode.INVALID_PAGE_CURSOR);
+    }
+
+}
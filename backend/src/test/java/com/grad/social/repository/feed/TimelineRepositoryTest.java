@@ -0,0 +1,156 @@
+package com.grad.social.repository.feed;
+
+import com.grad.social.base.BaseRepositoryTest;
+import com.grad.social.model.feed.TimelineEntry;
+import com.grad.social.model.shared.PageCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({TimelineRepository.class})
+@Sql("classpath:/repository/timeline-test-data.sql")
+class TimelineRepositoryTest extends BaseRepositoryTest {
+    private static final long AUTHOR = 1L, FOLLOWER = 2L, BLOCKER = 3L, MUTER = 4L, EXPIRED_MUTER = 5L;
+
+    @Autowired
+    TimelineRepository timelineRepository;
+
+    @Test
+    void shouldFanOutToFollowersAllowedToSeeTheStatus() {
+        // when
+        int pushed = timelineRepository.fanOutStatus(101L);
+
+        // then
+        assertThat(pushed).isEqualTo(2);
+        assertThat(timeline(FOLLOWER)).containsExactly(101L);
+        assertThat(timeline(EXPIRED_MUTER)).containsExactly(101L);
+        assertThat(timeline(BLOCKER)).isEmpty();
+        assertThat(timeline(MUTER)).isEmpty();
+        assertThat(timeline(AUTHOR)).isEmpty();
+    }
+
+    @Test
+    void shouldNotFanOutPrivateStatusesNorReplies() {
+        // when
+        int privatePushed = timelineRepository.fanOutStatus(103L);
+        int replyPushed = timelineRepository.fanOutStatus(104L);
+        int sharePushed = timelineRepository.fanOutStatus(105L);
+
+        // then
+        assertThat(privatePushed).isZero();
+        assertThat(replyPushed).isZero();
+        assertThat(sharePushed).isEqualTo(2);
+        assertThat(timeline(FOLLOWER)).containsExactly(105L);
+    }
+
+    @Test
+    void shouldFanOutOnlyOnce() {
+        // given
+        timelineRepository.fanOutStatus(101L);
+
+        // when
+        int pushedAgain = timelineRepository.fanOutStatus(101L);
+
+        // then
+        assertThat(pushedAgain).isZero();
+        assertThat(timeline(FOLLOWER)).containsExactly(101L);
+    }
+
+    @Test
+    void shouldPageTheTimelineWithCursors() {
+        // given
+        List.of(101L, 102L, 105L, 106L).forEach(timelineRepository::fanOutStatus);
+
+        // when
+        List<TimelineEntry> firstPage = timelineRepository.fetchTimelinePage(FOLLOWER, null, 2);
+        List<TimelineEntry> secondPage = timelineRepository.fetchTimelinePage(FOLLOWER, cursorAfter(firstPage), 2);
+        List<TimelineEntry> thirdPage = timelineRepository.fetchTimelinePage(FOLLOWER, cursorAfter(secondPage), 2);
+
+        // then
+        assertThat(firstPage).extracting(TimelineEntry::statusId).containsExactly(101L, 102L);
+        // 105 and 106 were created at the same time, the greater id comes first
+        assertThat(secondPage).extracting(TimelineEntry::statusId).containsExactly(106L, 105L);
+        assertThat(thirdPage).isEmpty();
+    }
+
+    @Test
+    void shouldPageTheTimelineThroughAnEncodedCursor() {
+        // given
+        List.of(101L, 102L, 106L).forEach(timelineRepository::fanOutStatus);
+        List<TimelineEntry> firstPage = timelineRepository.fetchTimelinePage(FOLLOWER, null, 1);
+
+        // when
+        String token = cursorAfter(firstPage).encode();
+        List<TimelineEntry> secondPage = timelineRepository.fetchTimelinePage(FOLLOWER, PageCursor.decode(token), 1);
+
+        // then
+        assertThat(secondPage).extracting(TimelineEntry::statusId).containsExactly(102L);
+    }
+
+    @Test
+    void shouldTrimTimelinesToTheNewestEntries() {
+        // given
+        List.of(101L, 102L, 105L, 106L).forEach(timelineRepository::fanOutStatus);
+
+        // when
+        int deleted = timelineRepository.trimTimelines(2);
+
+        // then
+        assertThat(deleted).isEqualTo(4);
+        assertThat(timeline(FOLLOWER)).containsExactly(101L, 102L);
+        assertThat(timeline(EXPIRED_MUTER)).containsExactly(101L, 102L);
+    }
+
+    @Test
+    void shouldRemoveAnAuthorFromATimeline() {
+        // given
+        List.of(101L, 102L).forEach(timelineRepository::fanOutStatus);
+
+        // when
+        timelineRepository.removeAuthorFromTimeline(FOLLOWER, AUTHOR);
+
+        // then
+        assertThat(timeline(FOLLOWER)).isEmpty();
+        assertThat(timeline(EXPIRED_MUTER)).containsExactly(101L, 102L);
+    }
+
+    @Test
+    void shouldPullTheRecentStatusesOfAuthorsPastTheCursor() {
+        // when
+        List<TimelineEntry> firstPull = timelineRepository.fetchRecentStatusesOfAuthors(List.of(AUTHOR, FOLLOWER), null, 2);
+        List<TimelineEntry> secondPull = timelineRepository.fetchRecentStatusesOfAuthors(List.of(AUTHOR), cursorAfter(firstPull), 2);
+
+        // then
+        assertThat(firstPull).extracting(TimelineEntry::statusId).containsExactly(101L, 102L);
+        assertThat(secondPull).extracting(TimelineEntry::statusId).containsExactly(106L, 105L);
+    }
+
+    @Test
+    void shouldPushTheRecentStatusesOfAnAuthorToItsFollowers() {
+        // when
+        int pushed = timelineRepository.fanOutRecentStatusesOfAuthor(AUTHOR, 2);
+
+        // then
+        assertThat(pushed).isEqualTo(4);
+        assertThat(timeline(FOLLOWER)).containsExactly(101L, 102L);
+        assertThat(timeline(EXPIRED_MUTER)).containsExactly(101L, 102L);
+        assertThat(timeline(BLOCKER)).isEmpty();
+        assertThat(timeline(MUTER)).isEmpty();
+    }
+
+
+    // Helpers
+    private List<Long> timeline(Long userId) {
+        return timelineRepository.fetchTimelinePage(userId, null, 100).stream().map(TimelineEntry::statusId).toList();
+    }
+
+    private static PageCursor cursorAfter(List<TimelineEntry> page) {
+        return PageCursor.of(page.getLast().createdAt(), page.getLast().statusId());
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.grad.social.repository.media;
+
+import com.grad.social.base.BaseRepositoryTest;
+import com.grad.social.repository.media.MediaRepository.MediaReferences;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({MediaRepository.class})
+@Sql("classpath:/repository/media-test-data.sql")
+class MediaRepositoryTest extends BaseRepositoryTest {
+    private static final long SENDER = 1L, RECIPIENT = 2L, STRANGER = 3L;
+
+    @Autowired
+    MediaRepository mediaRepository;
+
+    @Test
+    void shouldFindTheChatsOfTheViewerSharingAnAttachment() {
+        // when
+        MediaReferences sender = mediaRepository.getMediaReferences(501L, SENDER);
+        MediaReferences recipient = mediaRepository.getMediaReferences(501L, RECIPIENT);
+        MediaReferences stranger = mediaRepository.getMediaReferences(501L, STRANGER);
+        MediaReferences anonymous = mediaRepository.getMediaReferences(501L, null);
+
+        // then
+        assertThat(sender).isEqualTo(new MediaReferences(false, false, true, true));
+        assertThat(recipient).isEqualTo(new MediaReferences(false, false, true, true));
+        assertThat(stranger).isEqualTo(new MediaReferences(false, false, true, false));
+        assertThat(anonymous).isEqualTo(new MediaReferences(false, false, true, false));
+    }
+
+    @Test
+    void shouldFindTheStatusesSharingAMedia() {
+        // when
+        MediaReferences inChatAndStatus = mediaRepository.getMediaReferences(502L, STRANGER);
+        MediaReferences inStatus = mediaRepository.getMediaReferences(503L, null);
+        MediaReferences unshared = mediaRepository.getMediaReferences(504L, null);
+        MediaReferences inFollowersStatus = mediaRepository.getMediaReferences(505L, null);
+
+        // then
+        assertThat(inChatAndStatus).isEqualTo(new MediaReferences(true, false, true, false));
+        assertThat(inStatus).isEqualTo(new MediaReferences(true, false, false, false));
+        assertThat(unshared).isEqualTo(new MediaReferences(false, false, false, false));
+        assertThat(inFollowersStatus).isEqualTo(new MediaReferences(true, true, false, false));
+    }
+
+}
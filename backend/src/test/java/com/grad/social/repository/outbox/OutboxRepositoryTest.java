@@ -0,0 +1,195 @@
+package com.grad.social.repository.outbox;
+
+import com.grad.social.base.BaseRepositoryTest;
+import com.grad.social.model.outbox.OutboxEvent;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.grad.social.model.tables.OutboxEvents.OUTBOX_EVENTS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({OutboxRepository.class})
+@Sql("classpath:/repository/outbox-test-data.sql")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // relays claim in their own transactions
+class OutboxRepositoryTest extends BaseRepositoryTest {
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    @Autowired
+    OutboxRepository outboxRepository;
+
+    @Autowired
+    DSLContext dsl;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void shouldRecordTheSameChangeOnce() {
+        // when
+        outboxRepository.save("StatusCreatedEvent", "{\"statusId\":1}", "StatusCreatedEvent:1");
+        outboxRepository.save("StatusCreatedEvent", "{\"statusId\":1}", "StatusCreatedEvent:1");
+
+        // then
+        assertThat(outboxRepository.countPending()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldClaimDueEventsInOrderAndLeaseThem() {
+        // given
+        Long first = save("first");
+        Long second = save("second");
+
+        // when
+        List<OutboxEvent> claimed = outboxRepository.claimBatch(10, 10, LEASE);
+        List<OutboxEvent> claimedAgain = outboxRepository.claimBatch(10, 10, LEASE);
+
+        // then
+        assertThat(claimed).extracting(OutboxEvent::id).containsExactly(first, second);
+        assertThat(claimed).extracting(OutboxEvent::attempts).containsOnly(1);
+        assertThat(claimed.getFirst().payload()).isEqualTo("{\"key\": \"first\"}");
+        assertThat(claimedAgain).isEmpty();
+    }
+
+    @Test
+    void shouldRedeliverEventsOnceTheirLeaseExpires() {
+        // given
+        Long event = save("crashed");
+        outboxRepository.claimBatch(10, 10, LEASE);
+        expireLeases();
+
+        // when
+        List<OutboxEvent> redelivered = outboxRepository.claimBatch(10, 10, LEASE);
+
+        // then
+        assertThat(redelivered).extracting(OutboxEvent::id).containsExactly(event);
+        assertThat(redelivered.getFirst().attempts()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldClaimAtMostBatchSizeEvents() {
+        // given
+        Long first = save("first");
+        Long second = save("second");
+        Long third = save("third");
+
+        // when
+        List<OutboxEvent> firstBatch = outboxRepository.claimBatch(2, 10, LEASE);
+        List<OutboxEvent> secondBatch = outboxRepository.claimBatch(2, 10, LEASE);
+
+        // then
+        assertThat(firstBatch).extracting(OutboxEvent::id).containsExactly(first, second);
+        assertThat(secondBatch).extracting(OutboxEvent::id).containsExactly(third);
+    }
+
+    @Test
+    void shouldSkipEventsLockedByAnotherRelay() throws Exception {
+        // given another relay holding the first event
+        Long first = save("first");
+        Long second = save("second");
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> otherRelay = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager).executeWithoutResult(_ -> {
+            dsl.selectFrom(OUTBOX_EVENTS).where(OUTBOX_EVENTS.ID.eq(first)).forUpdate().fetch();
+            locked.countDown();
+            await(release);
+        }));
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // when
+        List<OutboxEvent> claimed;
+        try {
+            claimed = outboxRepository.claimBatch(10, 10, LEASE);
+        } finally {
+            release.countDown();
+            otherRelay.get(10, TimeUnit.SECONDS);
+        }
+
+        // then
+        assertThat(claimed).extracting(OutboxEvent::id).containsExactly(second);
+    }
+
+    @Test
+    void shouldGiveUpEventsAfterMaxAttempts() {
+        // given
+        save("poison");
+        outboxRepository.claimBatch(10, 2, LEASE);
+        expireLeases();
+        outboxRepository.claimBatch(10, 2, LEASE);
+        expireLeases();
+
+        // when
+        List<OutboxEvent> claimed = outboxRepository.claimBatch(10, 2, LEASE);
+
+        // then
+        assertThat(claimed).isEmpty();
+        assertThat(outboxRepository.countPending()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotClaimProcessedEvents() {
+        // given
+        Long processed = save("processed");
+        Long pending = save("pending");
+        outboxRepository.markProcessed(List.of(processed));
+
+        // when
+        List<OutboxEvent> claimed = outboxRepository.claimBatch(10, 10, LEASE);
+
+        // then
+        assertThat(claimed).extracting(OutboxEvent::id).containsExactly(pending);
+    }
+
+    @Test
+    void shouldRecordAConsumptionOncePerHandler() {
+        // given
+        Long event = save("consumed");
+
+        // when
+        boolean first = outboxRepository.tryConsume("TimelineFanOutHandler", event);
+        boolean again = outboxRepository.tryConsume("TimelineFanOutHandler", event);
+        boolean otherHandler = outboxRepository.tryConsume("StatusModerationHandler", event);
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(again).isFalse();
+        assertThat(otherHandler).isTrue();
+    }
+
+
+    // Helpers
+    private Long save(String key) {
+        outboxRepository.save("TestEvent", "{\"key\": \"" + key + "\"}", "TestEvent:" + key);
+        return dsl.select(OUTBOX_EVENTS.ID).from(OUTBOX_EVENTS).where(OUTBOX_EVENTS.IDEMPOTENCY_KEY.eq("TestEvent:" + key)).fetchOne(OUTBOX_EVENTS.ID);
+    }
+
+    // in db time, the clock claimBatch compares leases against
+    private void expireLeases() {
+        dsl.update(OUTBOX_EVENTS).set(OUTBOX_EVENTS.AVAILABLE_AT, DSL.currentInstant()).execute();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out waiting for the test to release the lock");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
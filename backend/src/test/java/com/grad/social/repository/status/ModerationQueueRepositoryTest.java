@@ -0,0 +1,128 @@
+package com.grad.social.repository.status;
+
+import com.grad.social.base.BaseRepositoryTest;
+import com.grad.social.model.status.helper.ModerationJob;
+import com.grad.social.repository.status.ModerationQueueRepository.QueueCounts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({ModerationQueueRepository.class})
+@Sql("classpath:/repository/moderation-queue-test-data.sql")
+class ModerationQueueRepositoryTest extends BaseRepositoryTest {
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Autowired
+    ModerationQueueRepository moderationQueueRepository;
+
+    @Test
+    void shouldClaimJobsInEnqueueOrderAndLeaseThem() {
+        // given
+        moderationQueueRepository.enqueue(401L, "First status", true);
+        moderationQueueRepository.enqueue(402L, "Second status", false);
+        moderationQueueRepository.enqueue(403L, "Third status", false);
+
+        // when
+        List<ModerationJob> firstBatch = moderationQueueRepository.claimBatch(2, 5, LEASE);
+        List<ModerationJob> secondBatch = moderationQueueRepository.claimBatch(2, 5, LEASE);
+        List<ModerationJob> thirdBatch = moderationQueueRepository.claimBatch(2, 5, LEASE);
+
+        // then
+        assertThat(firstBatch).extracting(ModerationJob::statusId).containsExactly(401L, 402L);
+        assertThat(firstBatch.getFirst().content()).isEqualTo("First status");
+        assertThat(firstBatch.getFirst().detectLanguage()).isTrue();
+        assertThat(firstBatch).extracting(ModerationJob::attempts).containsOnly(1);
+        assertThat(secondBatch).extracting(ModerationJob::statusId).containsExactly(403L);
+        assertThat(thirdBatch).isEmpty();
+    }
+
+    @Test
+    void shouldRetryAFailedJobOnceItsBackoffElapses() {
+        // given
+        moderationQueueRepository.enqueue(401L, "First status", false);
+        List<Long> claimed = moderationQueueRepository.claimBatch(10, 5, LEASE).stream().map(ModerationJob::id).toList();
+
+        // when
+        moderationQueueRepository.fail(claimed, "model unavailable", Instant.now().plusSeconds(60));
+        List<ModerationJob> duringBackoff = moderationQueueRepository.claimBatch(10, 5, LEASE);
+        moderationQueueRepository.fail(claimed, "model unavailable", Instant.now().minus(Duration.ofHours(1)));
+        List<ModerationJob> afterBackoff = moderationQueueRepository.claimBatch(10, 5, LEASE);
+
+        // then
+        assertThat(duringBackoff).isEmpty();
+        assertThat(afterBackoff).extracting(ModerationJob::id).containsExactlyElementsOf(claimed);
+        assertThat(afterBackoff.getFirst().attempts()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRemoveCompletedJobs() {
+        // given
+        moderationQueueRepository.enqueue(401L, "First status", false);
+        moderationQueueRepository.enqueue(402L, "Second status", false);
+        List<ModerationJob> claimed = moderationQueueRepository.claimBatch(1, 5, LEASE);
+
+        // when
+        moderationQueueRepository.complete(claimed.stream().map(ModerationJob::id).toList());
+
+        // then
+        assertThat(moderationQueueRepository.countJobs(5)).isEqualTo(new QueueCounts(1, 0));
+    }
+
+    @Test
+    void shouldNotCountNorClaimJobsGivenUp() {
+        // given
+        moderationQueueRepository.enqueue(401L, "First status", false);
+        moderationQueueRepository.enqueue(402L, "Second status", false);
+        List<Long> givenUp = moderationQueueRepository.claimBatch(1, 1, LEASE).stream().map(ModerationJob::id).toList();
+        moderationQueueRepository.fail(givenUp, "model unavailable", Instant.now().minus(Duration.ofMinutes(1)));
+
+        // when
+        List<ModerationJob> claimed = moderationQueueRepository.claimBatch(10, 1, LEASE);
+
+        // then
+        assertThat(claimed).extracting(ModerationJob::statusId).containsExactly(402L);
+        assertThat(moderationQueueRepository.countJobs(1).pending()).isZero();
+        assertThat(moderationQueueRepository.countJobs(2).pending()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCountJobsGivenUpOnceTheirLastAttemptIsOver() {
+        // given
+        moderationQueueRepository.enqueue(401L, "First status", false);
+        moderationQueueRepository.enqueue(402L, "Second status", false);
+        List<Long> givenUp = moderationQueueRepository.claimBatch(1, 1, LEASE).stream().map(ModerationJob::id).toList();
+        moderationQueueRepository.fail(givenUp, "model unavailable", Instant.now().minus(Duration.ofMinutes(1)));
+
+        // when
+        moderationQueueRepository.claimBatch(1, 1, LEASE);
+
+        // then the job on its last attempt is still leased
+        assertThat(moderationQueueRepository.countJobs(1)).isEqualTo(new QueueCounts(0, 1));
+    }
+
+    @Test
+    void shouldPurgeOnlyTheJobsGivenUpBeforeTheRetention() {
+        // given
+        moderationQueueRepository.enqueue(401L, "First status", false);
+        moderationQueueRepository.enqueue(402L, "Second status", false);
+        moderationQueueRepository.enqueue(403L, "Third status", false);
+        List<Long> claimed = moderationQueueRepository.claimBatch(2, 1, LEASE).stream().map(ModerationJob::id).toList();
+        moderationQueueRepository.fail(claimed.subList(0, 1), "model unavailable", Instant.now().minus(Duration.ofDays(8)));
+        moderationQueueRepository.fail(claimed.subList(1, 2), "model unavailable", Instant.now().minus(Duration.ofMinutes(1)));
+
+        // when
+        List<Long> purged = moderationQueueRepository.deleteDead(1, Instant.now().minus(Duration.ofDays(7)));
+
+        // then
+        assertThat(purged).containsExactly(401L);
+        assertThat(moderationQueueRepository.countJobs(1)).isEqualTo(new QueueCounts(1, 1));
+    }
+
+}
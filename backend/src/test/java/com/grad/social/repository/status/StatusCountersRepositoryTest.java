@@ -0,0 +1,196 @@
+package com.grad.social.repository.status;
+
+import com.grad.social.base.BaseRepositoryTest;
+import com.grad.social.model.enums.ParentAssociation;
+import com.grad.social.model.status.helper.LikesDrift;
+import com.grad.social.model.tables.records.StatusCountersRecord;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static com.grad.social.model.tables.LikesFlushWatermarks.LIKES_FLUSH_WATERMARKS;
+import static com.grad.social.model.tables.StatusCounters.STATUS_COUNTERS;
+import static com.grad.social.model.tables.StatusLikes.STATUS_LIKES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({StatusCountersRepository.class})
+@Sql("classpath:/repository/status-counters-test-data.sql")
+class StatusCountersRepositoryTest extends BaseRepositoryTest {
+
+    @Autowired
+    StatusCountersRepository statusCountersRepository;
+
+    @Autowired
+    DSLContext dsl;
+
+    @Test
+    void shouldIncrementTheCounterMatchingTheChildAssociation() {
+        // when
+        statusCountersRepository.incrementChildCounter(201L, ParentAssociation.REPLY, 1);
+        statusCountersRepository.incrementChildCounter(201L, ParentAssociation.SHARE, 2);
+
+        // then
+        assertCounters(201L, 2, 2, 3);
+    }
+
+    @Test
+    void shouldCreateTheMissingCountersRowOnIncrement() {
+        // when
+        statusCountersRepository.incrementChildCounter(203L, ParentAssociation.REPLY, 1);
+
+        // then
+        assertCounters(203L, 0, 1, 0);
+    }
+
+    @Test
+    void shouldDecrementTheParentCounterOfAChild() {
+        // when
+        statusCountersRepository.decrementParentCounterOf(204L);
+        statusCountersRepository.decrementParentCounterOf(205L);
+
+        // then
+        assertCounters(201L, 2, 0, 0);
+    }
+
+    @Test
+    void shouldNeverDecrementBelowZero() {
+        // given
+        dsl.update(STATUS_COUNTERS).set(STATUS_COUNTERS.NUM_REPLIES, 0).where(STATUS_COUNTERS.STATUS_ID.eq(201L)).execute();
+
+        // when
+        statusCountersRepository.decrementParentCounterOf(204L);
+        statusCountersRepository.incrementChildCounter(202L, ParentAssociation.SHARE, -1);
+
+        // then
+        assertCounters(201L, 2, 0, 1);
+        assertCounters(202L, 0, 0, 0);
+    }
+
+    @Test
+    void shouldRepairDriftedRepliesAndSharesCounters() {
+        // given
+        dsl.update(STATUS_COUNTERS)
+                .set(STATUS_COUNTERS.NUM_LIKES, 5)
+                .set(STATUS_COUNTERS.NUM_REPLIES, 0)
+                .where(STATUS_COUNTERS.STATUS_ID.eq(201L))
+                .execute();
+
+        // when
+        int repaired = statusCountersRepository.reconcile(List.of(201L, 202L, 203L));
+
+        // then likes are left to the likes repair
+        assertThat(repaired).isEqualTo(1);
+        assertCounters(201L, 5, 1, 1);
+        assertCounters(202L, 0, 0, 0);
+        assertCounters(203L, 0, 0, 0);
+    }
+
+    @Test
+    void shouldRepairTheDriftOfALikesCounter() {
+        // given
+        dsl.update(STATUS_COUNTERS).set(STATUS_COUNTERS.NUM_LIKES, 5).where(STATUS_COUNTERS.STATUS_ID.eq(201L)).execute();
+
+        // when
+        List<LikesDrift> drifts = statusCountersRepository.findLikesDrifts(List.of(201L, 202L));
+        int repaired = statusCountersRepository.repairLikes(drifts);
+
+        // then
+        assertThat(drifts).containsExactly(new LikesDrift(201L, 3, 0));
+        assertThat(repaired).isEqualTo(1);
+        assertCounters(201L, 2, 1, 1);
+    }
+
+    @Test
+    void shouldNotRepairALikesCounterFlushedSinceItsDriftWasFound() {
+        // given a like committed but still buffered (its delta not flushed yet)
+        dsl.insertInto(STATUS_LIKES, STATUS_LIKES.STATUS_ID, STATUS_LIKES.USER_ID).values(202L, 2L).execute();
+        List<LikesDrift> drifts = statusCountersRepository.findLikesDrifts(List.of(201L, 202L));
+
+        // when
+        statusCountersRepository.applyLikesDeltas(Map.of(202L, 1L));
+        int repaired = statusCountersRepository.repairLikes(drifts);
+
+        // then
+        assertThat(drifts).containsExactly(new LikesDrift(202L, -1, 0));
+        assertThat(repaired).isZero();
+        assertCounters(202L, 1, 0, 0);
+    }
+
+    @Test
+    void shouldLeaveCountersInSyncUntouched() {
+        // when
+        int repaired = statusCountersRepository.reconcile(List.of(201L, 202L));
+        List<LikesDrift> drifts = statusCountersRepository.findLikesDrifts(List.of(201L, 202L));
+
+        // then
+        assertThat(repaired).isZero();
+        assertThat(drifts).isEmpty();
+        assertCounters(201L, 2, 1, 1);
+    }
+
+    @Test
+    void shouldApplyBufferedLikesDeltas() {
+        // when
+        statusCountersRepository.applyLikesDeltas(Map.of(201L, 3L, 202L, -1L, 203L, 1L, 999L, 1L));
+
+        // then
+        assertCounters(201L, 5, 1, 1);
+        assertCounters(202L, 0, 0, 0);
+        assertCounters(203L, 1, 0, 0);
+        assertThat(dsl.fetchExists(STATUS_COUNTERS, STATUS_COUNTERS.STATUS_ID.eq(999L))).isFalse();
+    }
+
+    @Test
+    void shouldBumpTheLikesVersionOnEveryFlushOfAStatus() {
+        // when a like undone before its flush
+        statusCountersRepository.applyLikesDeltas(Map.of(201L, 0L));
+
+        // then
+        assertThat(dsl.fetchValue(STATUS_COUNTERS.LIKES_VERSION, STATUS_COUNTERS.STATUS_ID.eq(201L))).isEqualTo(1L);
+        assertCounters(201L, 2, 1, 1);
+    }
+
+    @Test
+    void shouldTellTheOldestFlushWatermarkOfTheLiveInstances() {
+        // given
+        statusCountersRepository.saveLikesFlushWatermark("live", Duration.ofSeconds(1));
+        statusCountersRepository.saveLikesFlushWatermark("late", Duration.ofSeconds(10));
+        statusCountersRepository.saveLikesFlushWatermark("gone", Duration.ofHours(1));
+
+        // when
+        Instant watermark = statusCountersRepository.findLikesFlushWatermark(Duration.ofMinutes(5));
+
+        // then (now() is the start of the test transaction)
+        assertThat(watermark).isEqualTo(statusCountersRepository.currentInstant().minusSeconds(10));
+        assertThat(dsl.fetch(LIKES_FLUSH_WATERMARKS).getValues(LIKES_FLUSH_WATERMARKS.INSTANCE_ID)).containsExactlyInAnyOrder("live", "late");
+    }
+
+    @Test
+    void shouldRunAnActionHoldingTheReconciliationLock() {
+        // when
+        boolean ran = statusCountersRepository.runWithReconciliationLock(() ->
+                assertThat(dsl.fetchCount(DSL.table("pg_locks"), DSL.field("locktype").eq("advisory"))).isEqualTo(1));
+
+        // then
+        assertThat(ran).isTrue();
+        assertThat(dsl.fetchCount(DSL.table("pg_locks"), DSL.field("locktype").eq("advisory"))).isZero();
+    }
+
+    // Helpers
+    private void assertCounters(Long statusId, int likes, int replies, int shares) {
+        StatusCountersRecord counters = dsl.fetchOne(STATUS_COUNTERS, STATUS_COUNTERS.STATUS_ID.eq(statusId));
+        assertThat(counters).as("counters of %d", statusId).isNotNull();
+        assertThat(counters.getNumLikes()).as("likes of %d", statusId).isEqualTo(likes);
+        assertThat(counters.getNumReplies()).as("replies of %d", statusId).isEqualTo(replies);
+        assertThat(counters.getNumShares()).as("shares of %d", statusId).isEqualTo(shares);
+    }
+
+}
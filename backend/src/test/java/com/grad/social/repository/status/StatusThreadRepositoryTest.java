@@ -0,0 +1,54 @@
+package com.grad.social.repository.status;
+
+import com.grad.social.base.BaseRepositoryTest;
+import com.grad.social.model.status.helper.ThreadEntry;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+
+import static com.grad.social.model.tables.Statuses.STATUSES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({StatusThreadRepository.class})
+@Sql("classpath:/repository/status-thread-test-data.sql")
+class StatusThreadRepositoryTest extends BaseRepositoryTest {
+
+    @Autowired
+    StatusThreadRepository statusThreadRepository;
+
+    @Autowired
+    DSLContext dsl;
+
+    @BeforeEach
+    void indexReplies() {
+        statusThreadRepository.indexReply(302L, 301L);
+        statusThreadRepository.indexReply(303L, 302L);
+        statusThreadRepository.indexReply(304L, 301L);
+    }
+
+    @Test
+    void shouldWalkTheConversationDepthFirst() {
+        // when
+        List<ThreadEntry> thread = statusThreadRepository.fetchThread(301L, 5, 10);
+
+        // then
+        assertThat(thread).extracting(ThreadEntry::statusId).containsExactlyInAnyOrder(302L, 303L, 304L);
+        assertThat(thread).containsSubsequence(new ThreadEntry(302L, 301L, 1), new ThreadEntry(303L, 302L, 2));
+    }
+
+    @Test
+    void shouldKeepTheConversationOfADeletedRoot() {
+        // when
+        dsl.deleteFrom(STATUSES).where(STATUSES.ID.eq(301L)).execute();
+
+        // then
+        assertThat(statusThreadRepository.fetchThread(301L, 5, 10)).extracting(ThreadEntry::statusId).containsExactlyInAnyOrder(302L, 303L, 304L);
+        assertThat(statusThreadRepository.fetchThread(302L, 5, 10)).containsExactly(new ThreadEntry(303L, 302L, 1));
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.grad.social.repository.user;
+
+import com.grad.social.base.BaseRepositoryTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({UserViolationRepository.class})
+@Sql("classpath:/repository/user-violations-test-data.sql")
+class UserViolationRepositoryTest extends BaseRepositoryTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 10);
+
+    @Autowired
+    UserViolationRepository userViolationRepository;
+
+    @Test
+    void shouldCountViolationsInTheBucketOfTheirOwnerAndDay() {
+        // when
+        Long owner = userViolationRepository.recordViolation(301L, DAY);
+        userViolationRepository.recordViolation(302L, DAY);
+        userViolationRepository.recordViolation(303L, DAY);
+
+        // then
+        assertThat(owner).isEqualTo(1L);
+        assertThat(userViolationRepository.countViolationsSince(1L, DAY)).isEqualTo(2);
+        assertThat(userViolationRepository.countViolationsSince(2L, DAY)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSumTheBucketsOfTheWindowOnly() {
+        // given
+        userViolationRepository.recordViolation(301L, DAY.minusDays(8));
+        userViolationRepository.recordViolation(301L, DAY.minusDays(7));
+        userViolationRepository.recordViolation(302L, DAY);
+
+        // when
+        int violations = userViolationRepository.countViolationsSince(1L, DAY.minusDays(7));
+
+        // then
+        assertThat(violations).isEqualTo(2);
+    }
+
+    @Test
+    void shouldIgnoreViolationsOfDeletedStatuses() {
+        // when
+        Long owner = userViolationRepository.recordViolation(999L, DAY);
+
+        // then
+        assertThat(owner).isNull();
+        assertThat(userViolationRepository.countViolationsSince(1L, DAY)).isZero();
+    }
+
+    @Test
+    void shouldUncountADeletedStatusFromTheBucketItWasCountedIn() {
+        // given
+        userViolationRepository.recordViolation(301L, DAY.minusDays(1));
+        userViolationRepository.recordViolation(302L, DAY);
+
+        // when
+        int uncounted = userViolationRepository.forgetViolation(301L);
+
+        // then
+        assertThat(uncounted).isEqualTo(1);
+        assertThat(userViolationRepository.countViolationsSince(1L, DAY.minusDays(1))).isEqualTo(1);
+        assertThat(userViolationRepository.countViolationsSince(1L, DAY)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotUncountAStatusThatWasNeverCounted() {
+        // given
+        userViolationRepository.recordViolation(302L, DAY);
+
+        // when
+        int uncounted = userViolationRepository.forgetViolation(301L);
+
+        // then
+        assertThat(uncounted).isZero();
+        assertThat(userViolationRepository.countViolationsSince(1L, DAY)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDeleteTheBucketsOlderThanTheWindow() {
+        // given
+        userViolationRepository.recordViolation(301L, DAY.minusDays(8));
+        userViolationRepository.recordViolation(302L, DAY);
+
+        // when
+        int deleted = userViolationRepository.deleteBucketsBefore(DAY.minusDays(7));
+
+        // then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(userViolationRepository.countViolationsSince(1L, DAY.minusDays(30))).isEqualTo(1);
+    }
+
+}
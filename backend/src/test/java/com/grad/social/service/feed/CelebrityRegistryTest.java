@@ -0,0 +1,54 @@
+package com.grad.social.service.feed;
+
+import com.grad.social.base.BaseMockedUnitTest;
+import com.grad.social.model.feed.FeedConstants;
+import com.grad.social.repository.feed.TimelineRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class CelebrityRegistryTest extends BaseMockedUnitTest {
+    @Mock
+    private TimelineRepository timelineRepository;
+
+    @InjectMocks
+    private CelebrityRegistry celebrityRegistry;
+
+    @Test
+    void shouldPushTheRecentStatusesOfAuthorsDroppingBelowTheThreshold() {
+        // given
+        when(timelineRepository.findAuthorsWithFollowersAtLeast(anyInt())).thenReturn(List.of(1L, 2L), List.of(2L, 3L));
+        celebrityRegistry.refresh();
+
+        // when
+        celebrityRegistry.refresh();
+
+        // then
+        assertThat(celebrityRegistry.getCelebrityIds()).containsExactlyInAnyOrder(2L, 3L);
+        verify(timelineRepository).fanOutRecentStatusesOfAuthor(1L, FeedConstants.TIMELINE_AUTHOR_BACKFILL_SIZE);
+        verify(timelineRepository, never()).fanOutRecentStatusesOfAuthor(eq(2L), anyInt());
+        verify(timelineRepository, never()).fanOutRecentStatusesOfAuthor(eq(3L), anyInt());
+    }
+
+    @Test
+    void shouldPushNothingWhenNoAuthorDropsBelowTheThreshold() {
+        // given
+        when(timelineRepository.findAuthorsWithFollowersAtLeast(anyInt())).thenReturn(List.of(1L), List.of(1L, 2L));
+
+        // when
+        celebrityRegistry.refresh();
+        celebrityRegistry.refresh();
+
+        // then
+        assertThat(celebrityRegistry.isCelebrity(2L)).isTrue();
+        verify(timelineRepository, never()).fanOutRecentStatusesOfAuthor(anyLong(), anyInt());
+    }
+
+}
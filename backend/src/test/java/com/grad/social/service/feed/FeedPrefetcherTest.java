@@ -0,0 +1,138 @@
+package com.grad.social.service.feed;
+
+import com.grad.social.base.BaseTest;
+import com.grad.social.model.feed.FeedMode;
+import com.grad.social.model.shared.CursorPage;
+import com.grad.social.model.status.response.StatusResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeedPrefetcherTest extends BaseTest {
+    private static final Long VIEWER_ID = 1L, OTHER_VIEWER_ID = 2L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FeedPrefetcher feedPrefetcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        feedPrefetcher = new FeedPrefetcher(meterRegistry, 8, 100, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        feedPrefetcher.shutdown();
+    }
+
+    @Test
+    void shouldServeAPrefetchedPageOnce() {
+        // given
+        CursorPage<StatusResponse> next = page("next");
+        feedPrefetcher.prefetch(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1", () -> next);
+
+        // when
+        CursorPage<StatusResponse> first = feedPrefetcher.take(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1");
+        CursorPage<StatusResponse> second = feedPrefetcher.take(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1");
+
+        // then
+        assertThat(first).isSameAs(next);
+        assertThat(second).isNull();
+        assertThat(meterRegistry.counter("feed.prefetch.lookups", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("feed.prefetch.lookups", "result", "miss").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotServeThePageOfAnotherViewerOrMode() {
+        // given
+        feedPrefetcher.prefetch(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1", () -> page("next"));
+
+        // when
+        CursorPage<StatusResponse> otherViewer = feedPrefetcher.take(OTHER_VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1");
+        CursorPage<StatusResponse> otherMode = feedPrefetcher.take(VIEWER_ID, FeedMode.RANKED, "c1");
+
+        // then
+        assertThat(otherViewer).isNull();
+        assertThat(otherMode).isNull();
+    }
+
+    @Test
+    void shouldDiscardOnlyThePagesOfTheGivenViewers() {
+        // given
+        feedPrefetcher.prefetch(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1", () -> page("viewer"));
+        feedPrefetcher.prefetch(OTHER_VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1", () -> page("other"));
+
+        // when
+        feedPrefetcher.discard(List.of(VIEWER_ID));
+
+        // then
+        assertThat(feedPrefetcher.take(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1")).isNull();
+        assertThat(feedPrefetcher.take(OTHER_VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1")).isNotNull();
+    }
+
+    @Test
+    void shouldPrefetchAgainAfterADiscard() {
+        // given
+        feedPrefetcher.prefetch(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1", () -> page("stale"));
+        feedPrefetcher.discard(List.of(VIEWER_ID));
+        CursorPage<StatusResponse> fresh = page("fresh");
+
+        // when
+        feedPrefetcher.prefetch(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1", () -> fresh);
+
+        // then
+        assertThat(feedPrefetcher.take(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1")).isSameAs(fresh);
+    }
+
+    @Test
+    void shouldMissWhenThePrefetchFailed() {
+        // given
+        feedPrefetcher.prefetch(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1", () -> {
+            throw new IllegalStateException("db is down");
+        });
+
+        // when
+        CursorPage<StatusResponse> prefetched = feedPrefetcher.take(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1");
+
+        // then
+        assertThat(prefetched).isNull();
+    }
+
+    @Test
+    void shouldDropPrefetchesBeyondTheConcurrencyLimit() {
+        // given a single permit
+        feedPrefetcher.shutdown();
+        feedPrefetcher = new FeedPrefetcher(meterRegistry, 1, 100, 30);
+        CountDownLatch release = new CountDownLatch(1);
+        feedPrefetcher.prefetch(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return page("slow");
+        });
+
+        // when
+        feedPrefetcher.prefetch(OTHER_VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1", () -> page("dropped"));
+        release.countDown();
+
+        // then
+        assertThat(meterRegistry.counter("feed.prefetch.rejected").count()).isEqualTo(1);
+        assertThat(feedPrefetcher.take(VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1")).isNotNull();
+        assertThat(feedPrefetcher.take(OTHER_VIEWER_ID, FeedMode.CHRONOLOGICAL, "c1")).isNull();
+    }
+
+
+    // Helpers
+    private static CursorPage<StatusResponse> page(String nextCursor) {
+        return new CursorPage<>(List.of(), nextCursor);
+    }
+
+}
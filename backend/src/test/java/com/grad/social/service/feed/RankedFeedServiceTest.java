@@ -0,0 +1,160 @@
+package com.grad.social.service.feed;
+
+import com.grad.social.base.BaseMockedUnitTest;
+import com.grad.social.model.enums.FollowingPriority;
+import com.grad.social.model.feed.FeedConstants;
+import com.grad.social.model.feed.TimelineEntry;
+import com.grad.social.model.shared.CursorPage;
+import com.grad.social.model.shared.PageCursor;
+import com.grad.social.repository.feed.FeedRankingRepository;
+import com.grad.social.repository.feed.FeedRankingRepository.Engagement;
+import com.grad.social.service.status.LikeCountersBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RankedFeedServiceTest extends BaseMockedUnitTest {
+    private static final Long VIEWER_ID = 9L;
+    private static final Instant RANKED_AT = Instant.parse("2025-01-01T10:00:00.123Z");
+    private static final String SNAPSHOT_KEY = "feed:ranked:9:" + RANKED_AT.getEpochSecond() + "." + RANKED_AT.getNano();
+
+    @Mock
+    private TimelineService timelineService;
+    @Mock
+    private FeedRankingRepository feedRankingRepository;
+    @Mock
+    private LikeCountersBuffer likeCountersBuffer;
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private RankedFeedService rankedFeedService;
+
+    @BeforeEach
+    void setUp() {
+        // the score of a candidate is its number of likes
+        rankedFeedService = new RankedFeedService(timelineService, feedRankingRepository, likeCountersBuffer,
+                (candidate, features, now) -> features.numLikes(), redisTemplate, new SimpleMeterRegistry(), 600);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void shouldScoreEveryCandidateWithItsFlushedAndPendingLikes() {
+        // given
+        givenCandidates(List.of(entry(11L, 1L), entry(12L, 2L), entry(13L, 3L)), Map.of(11L, 1, 12L, 5));
+        when(likeCountersBuffer.mergePending(13L, 0)).thenReturn(3);
+
+        // when
+        CursorPage<Long> page = rankedFeedService.readRankedPage(VIEWER_ID, null);
+
+        // then
+        assertThat(page.content()).containsExactly(12L, 13L, 11L);
+        assertThat(page.nextCursor()).isNull();
+        verify(feedRankingRepository).fetchFollowingPriorities(VIEWER_ID, Set.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void shouldDecayTheFurtherStatusesOfAnAuthorAlreadyPicked() {
+        // given 0.7 * 9 = 6.3 and 0.49 * 8 = 3.92
+        givenCandidates(List.of(entry(11L, 1L), entry(12L, 1L), entry(13L, 1L), entry(14L, 2L)),
+                Map.of(11L, 10, 12L, 9, 13L, 8, 14L, 7));
+
+        // when
+        CursorPage<Long> page = rankedFeedService.readRankedPage(VIEWER_ID, null);
+
+        // then
+        assertThat(page.content()).containsExactly(11L, 14L, 12L, 13L);
+    }
+
+    @Test
+    void shouldKeepTheRankingOfTheFirstPageForTheNextOnes() {
+        // given
+        List<TimelineEntry> candidates = LongStream.rangeClosed(1, 15).mapToObj(id -> entry(id, id)).toList();
+        givenCandidates(candidates, candidates.stream().collect(Collectors.toMap(TimelineEntry::statusId, e -> e.statusId().intValue())));
+
+        // when
+        CursorPage<Long> page = rankedFeedService.readRankedPage(VIEWER_ID, null);
+
+        // then
+        assertThat(page.content()).containsExactly(15L, 14L, 13L, 12L, 11L, 10L, 9L, 8L, 7L, 6L);
+        PageCursor next = PageCursor.decode(page.nextCursor());
+        assertThat(next.position()).isEqualTo(10);
+        String snapshotKey = "feed:ranked:9:" + next.lastHappenedAt().getEpochSecond() + "." + next.lastHappenedAt().getNano();
+        verify(valueOperations).set(snapshotKey, "15,14,13,12,11,10,9,8,7,6,5,4,3,2,1", Duration.ofSeconds(600));
+    }
+
+    @Test
+    void shouldSliceTheNextPagesFromTheSnapshot() {
+        // given
+        when(valueOperations.get(SNAPSHOT_KEY)).thenReturn("15,14,13,12,11,10,9,8,7,6,5,4,3,2,1");
+
+        // when
+        CursorPage<Long> page = rankedFeedService.readRankedPage(VIEWER_ID, new PageCursor(false, RANKED_AT, Long.MAX_VALUE, 10));
+
+        // then
+        assertThat(page.content()).containsExactly(5L, 4L, 3L, 2L, 1L);
+        assertThat(page.nextCursor()).isNull();
+        verifyNoInteractions(timelineService, feedRankingRepository);
+    }
+
+    @Test
+    void shouldRankTheWindowAgainOnceTheSnapshotIsGone() {
+        // given
+        List<TimelineEntry> candidates = LongStream.rangeClosed(1, 12).mapToObj(id -> entry(id, id)).toList();
+        givenCandidates(candidates, candidates.stream().collect(Collectors.toMap(TimelineEntry::statusId, e -> e.statusId().intValue())));
+
+        // when
+        CursorPage<Long> page = rankedFeedService.readRankedPage(VIEWER_ID, new PageCursor(false, RANKED_AT, Long.MAX_VALUE, 10));
+
+        // then the window still ends where the first page was ranked
+        assertThat(page.content()).containsExactly(2L, 1L);
+        verify(timelineService).readNewestEntries(VIEWER_ID, PageCursor.of(RANKED_AT, Long.MAX_VALUE), FeedConstants.RANKED_CANDIDATES_LIMIT);
+        verify(valueOperations).set(SNAPSHOT_KEY, "12,11,10,9,8,7,6,5,4,3,2,1", Duration.ofSeconds(600));
+    }
+
+    @Test
+    void shouldRankTheWindowAgainWhenRedisIsUnavailable() {
+        // given
+        givenCandidates(List.of(entry(11L, 1L), entry(12L, 2L)), Map.of(11L, 1, 12L, 2));
+        when(valueOperations.get(SNAPSHOT_KEY)).thenThrow(new IllegalStateException("redis is down"));
+
+        // when
+        CursorPage<Long> page = rankedFeedService.readRankedPage(VIEWER_ID, new PageCursor(false, RANKED_AT, Long.MAX_VALUE, 0));
+
+        // then
+        assertThat(page.content()).containsExactly(12L, 11L);
+    }
+
+
+    // Helpers
+    private void givenCandidates(List<TimelineEntry> candidates, Map<Long, Integer> likes) {
+        when(timelineService.readNewestEntries(eq(VIEWER_ID), any(PageCursor.class), eq(FeedConstants.RANKED_CANDIDATES_LIMIT))).thenReturn(candidates);
+        when(feedRankingRepository.fetchFollowingPriorities(eq(VIEWER_ID), anyCollection()))
+                .thenAnswer(_ -> candidates.stream().collect(Collectors.toMap(TimelineEntry::authorId, _ -> FollowingPriority.DEFAULT, (a, _) -> a)));
+        when(feedRankingRepository.fetchEngagement(anyCollection()))
+                .thenReturn(likes.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> new Engagement(e.getValue(), 0, 0))));
+        when(feedRankingRepository.fetchModerationSeverities(anyCollection())).thenReturn(Map.of());
+        lenient().when(likeCountersBuffer.mergePending(anyLong(), anyInt())).thenAnswer(invocation -> invocation.getArgument(1));
+    }
+
+    private static TimelineEntry entry(Long statusId, Long authorId) {
+        return new TimelineEntry(statusId, authorId, RANKED_AT.minus(Duration.ofMinutes(statusId)));
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.grad.social.service.feed.ranking;
+
+import com.grad.social.base.BaseTest;
+import com.grad.social.model.enums.FollowingPriority;
+import com.grad.social.model.feed.RankingFeatures;
+import com.grad.social.model.feed.TimelineEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class EngagementRecencyScorerTest extends BaseTest {
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    private final EngagementRecencyScorer scorer = new EngagementRecencyScorer(6);
+
+    @Test
+    void shouldScoreAFreshStatusWithoutEngagementOne() {
+        // when
+        double score = scorer.score(entry(Duration.ZERO), features(FollowingPriority.DEFAULT, 0, 0, 0, 0), NOW);
+
+        // then
+        assertThat(score).isCloseTo(1.0, within(1e-9));
+    }
+
+    @Test
+    void shouldWeighRepliesAndSharesMoreThanLikes() {
+        // when
+        double score = scorer.score(entry(Duration.ZERO), features(FollowingPriority.DEFAULT, 1, 1, 1, 0), NOW);
+
+        // then likes + 2 * replies + 3 * shares = 6
+        assertThat(score).isCloseTo(1 + Math.log(7), within(1e-9));
+    }
+
+    @Test
+    void shouldHalveTheScoreEveryHalfLife() {
+        // when
+        double fresh = scorer.score(entry(Duration.ZERO), features(FollowingPriority.DEFAULT, 4, 0, 0, 0), NOW);
+        double halfLifeOld = scorer.score(entry(Duration.ofHours(6)), features(FollowingPriority.DEFAULT, 4, 0, 0, 0), NOW);
+        double twoHalfLivesOld = scorer.score(entry(Duration.ofHours(12)), features(FollowingPriority.DEFAULT, 4, 0, 0, 0), NOW);
+
+        // then
+        assertThat(halfLifeOld).isCloseTo(fresh / 2, within(1e-9));
+        assertThat(twoHalfLivesOld).isCloseTo(fresh / 4, within(1e-9));
+    }
+
+    @Test
+    void shouldNotBoostStatusesCreatedAfterNow() {
+        // when
+        double score = scorer.score(entry(Duration.ofHours(-1)), features(FollowingPriority.DEFAULT, 0, 0, 0, 0), NOW);
+
+        // then
+        assertThat(score).isCloseTo(1.0, within(1e-9));
+    }
+
+    @Test
+    void shouldWeighTheFollowingPriorityOfTheAuthor() {
+        // when
+        double favourite = scorer.score(entry(Duration.ZERO), features(FollowingPriority.FAVOURITE, 0, 0, 0, 0), NOW);
+        double restricted = scorer.score(entry(Duration.ZERO), features(FollowingPriority.RESTRICTED, 0, 0, 0, 0), NOW);
+        double own = scorer.score(entry(Duration.ZERO), features(null, 0, 0, 0, 0), NOW);
+
+        // then
+        assertThat(favourite).isCloseTo(1.5, within(1e-9));
+        assertThat(restricted).isCloseTo(0.5, within(1e-9));
+        assertThat(own).isCloseTo(1.0, within(1e-9));
+    }
+
+    @Test
+    void shouldPenalizeStatusesShownBehindAWarningOrHarmful() {
+        // when
+        double safe = scorer.score(entry(Duration.ZERO), features(FollowingPriority.DEFAULT, 0, 0, 0, 2), NOW);
+        double warned = scorer.score(entry(Duration.ZERO), features(FollowingPriority.DEFAULT, 0, 0, 0, 3), NOW);
+        double harmful = scorer.score(entry(Duration.ZERO), features(FollowingPriority.DEFAULT, 0, 0, 0, 4), NOW);
+
+        // then
+        assertThat(safe).isCloseTo(1.0, within(1e-9));
+        assertThat(warned).isCloseTo(0.5, within(1e-9));
+        assertThat(harmful).isCloseTo(0.1, within(1e-9));
+    }
+
+
+    // Helpers
+    private static TimelineEntry entry(Duration age) {
+        return new TimelineEntry(1L, 2L, NOW.minus(age));
+    }
+
+    private static RankingFeatures features(FollowingPriority priority, int likes, int replies, int shares, int severity) {
+        return new RankingFeatures(priority, likes, replies, shares, severity);
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.grad.social.service.media;
+
+import com.grad.social.base.BaseMockedUnitTest;
+import com.grad.social.common.exceptionhandling.ActionNotAllowedException;
+import com.grad.social.repository.media.MediaRepository;
+import com.grad.social.repository.media.MediaRepository.MediaReferences;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+class MediaServiceTest extends BaseMockedUnitTest {
+    @Mock
+    private MediaRepository mediaRepository;
+
+    private MediaService mediaService;
+
+    @BeforeEach
+    void setUp() {
+        mediaService = new MediaService(mediaRepository, new SimpleMeterRegistry(), 100, 600);
+    }
+
+    @Test
+    void shouldServeAChatAttachmentToTheParticipantsOfTheChatOnly() {
+        // given
+        when(mediaRepository.getMediaReferences(501L, 1L)).thenReturn(new MediaReferences(false, false, true, true));
+
+        // when
+        boolean shared = mediaService.authorize(501L, 1L);
+
+        // then
+        assertThat(shared).isFalse();
+    }
+
+    @Test
+    void shouldNotServeAChatAttachmentToOtherUsers() {
+        // given
+        when(mediaRepository.getMediaReferences(501L, 3L)).thenReturn(new MediaReferences(false, false, true, false));
+        when(mediaRepository.getMediaReferences(501L, null)).thenReturn(new MediaReferences(false, false, true, false));
+
+        // when, then
+        assertThatThrownBy(() -> mediaService.authorize(501L, 3L)).isInstanceOf(ActionNotAllowedException.class);
+        assertThatThrownBy(() -> mediaService.authorize(501L, null)).isInstanceOf(ActionNotAllowedException.class);
+    }
+
+    @Test
+    void shouldServeTheMediaOfStatusesToAnyone() {
+        // given
+        when(mediaRepository.getMediaReferences(502L, null)).thenReturn(new MediaReferences(true, false, true, false));
+        when(mediaRepository.getMediaReferences(505L, null)).thenReturn(new MediaReferences(true, true, false, false));
+
+        // when
+        boolean inChatAndStatusShared = mediaService.authorize(502L, null);
+        boolean inFollowersStatusShared = mediaService.authorize(505L, null);
+
+        // then only private caches may keep them
+        assertThat(inChatAndStatusShared).isFalse();
+        assertThat(inFollowersStatusShared).isFalse();
+    }
+
+    @Test
+    void shouldLetSharedCachesKeepTheMediaOfPublicStatusesOnly() {
+        // given
+        when(mediaRepository.getMediaReferences(503L, null)).thenReturn(new MediaReferences(true, false, false, false));
+        when(mediaRepository.getMediaReferences(504L, null)).thenReturn(new MediaReferences(false, false, false, false));
+
+        // when
+        boolean inPublicStatusShared = mediaService.authorize(503L, null);
+        boolean unreferencedShared = mediaService.authorize(504L, null);
+
+        // then
+        assertThat(inPublicStatusShared).isTrue();
+        assertThat(unreferencedShared).isFalse();
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.grad.social.service.media;
+
+import com.grad.social.base.BaseMockedUnitTest;
+import com.grad.social.common.AppConstants;
+import com.grad.social.common.model.MediaRepresentation;
+import com.grad.social.common.utils.media.FileSystemUtils;
+import com.grad.social.repository.media.MediaVariantRepository;
+import com.grad.social.service.media.MediaVariantService.Selection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MediaVariantSelectionTest extends BaseMockedUnitTest {
+    // a JPEG header without image data, the JDK decoder gives up on it
+    private static final byte[] UNDECODABLE_JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16, 'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0, 1, 0, 0, (byte) 0xFF, (byte) 0xD9};
+
+    @Mock
+    private MediaVariantRepository mediaVariantRepository;
+
+    private MediaVariantService mediaVariantService;
+    private Path original;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mediaVariantService = new MediaVariantService(mediaVariantRepository, new SimpleMeterRegistry(), 1, 4, 10_000, 100, 600);
+        original = Files.createTempFile(Files.createDirectories(Path.of(AppConstants.UPLOAD_DIR)), "media-variant", ".jpg");
+        Files.write(original, UNDECODABLE_JPEG);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mediaVariantService.shutdown();
+        Files.deleteIfExists(original);
+        Files.deleteIfExists(FileSystemUtils.resolvePath("content-hash-w320"));
+    }
+
+    @Test
+    void shouldRecordAnOriginalThatCannotBeDecodedAndServeItAsIs() {
+        // given
+        MediaRepresentation media = media();
+
+        // when
+        Selection first = mediaVariantService.select(media, 320);
+        Selection second = mediaVariantService.select(media, 320);
+
+        // then
+        assertThat(first.media()).isSameAs(media);
+        assertThat(first.provisional()).isFalse();
+        assertThat(second.media()).isSameAs(media);
+        verify(mediaVariantRepository).saveNoVariant("content-hash", 320);
+        verify(mediaVariantRepository).findVariant("content-hash", 320);
+        verify(mediaVariantRepository, never()).saveVariant(anyString(), any());
+    }
+
+    @Test
+    void shouldDeleteTheVariantFileWhenItsRowCannotBeSaved() throws IOException {
+        // given the original deleted meanwhile
+        writeOpaqueImage();
+        doThrow(new IllegalStateException("violates foreign key constraint")).when(mediaVariantRepository).saveVariant(eq("content-hash"), any());
+
+        // when
+        Selection selection = mediaVariantService.select(media(), 320);
+
+        // then
+        assertThat(selection.provisional()).isFalse();
+        assertThat(Files.exists(FileSystemUtils.resolvePath("content-hash-w320"))).isFalse();
+    }
+
+    @Test
+    void shouldDeleteTheVariantFileOfAnOriginalDeletedDuringItsGeneration() throws Exception {
+        // given a generation saving its variant
+        writeOpaqueImage();
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch deleted = new CountDownLatch(1);
+        doAnswer(_ -> {
+            saving.countDown();
+            assertThat(deleted.await(10, TimeUnit.SECONDS)).isTrue();
+            return null;
+        }).when(mediaVariantRepository).saveVariant(eq("content-hash"), any());
+        CompletableFuture<Selection> selection = CompletableFuture.supplyAsync(() -> mediaVariantService.select(media(), 320));
+        assertThat(saving.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // when its original is deleted by a transaction listing no variant file yet
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            mediaVariantService.deleteVariants(List.of("content-hash"));
+            deleted.countDown();
+            selection.get(10, TimeUnit.SECONDS);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // then
+        assertThat(Files.exists(FileSystemUtils.resolvePath("content-hash-w320"))).isFalse();
+    }
+
+    @Test
+    void shouldNotGenerateAVariantRecordedAsMissing() {
+        // given
+        when(mediaVariantRepository.findVariant("content-hash", 320)).thenReturn(new MediaRepresentation());
+
+        // when
+        Selection selection = mediaVariantService.select(media(), 320);
+
+        // then
+        assertThat(selection.provisional()).isFalse();
+        assertThat(selection.media().getFileNameHashed()).isEqualTo(original.getFileName().toString());
+        verify(mediaVariantRepository, never()).saveNoVariant(anyString(), anyInt());
+    }
+
+    @Test
+    void shouldNotRetryAFailedGenerationBeforeItsCacheEntryExpires() {
+        // given
+        doThrow(new IllegalStateException("database unavailable")).when(mediaVariantRepository).saveNoVariant(anyString(), anyInt());
+        MediaRepresentation media = media();
+
+        // when
+        Selection first = mediaVariantService.select(media, 320);
+        Selection second = mediaVariantService.select(media, 320);
+
+        // then
+        assertThat(first.media()).isSameAs(media);
+        assertThat(second.media()).isSameAs(media);
+        verify(mediaVariantRepository).findVariant("content-hash", 320);
+        verify(mediaVariantRepository).saveNoVariant("content-hash", 320);
+    }
+
+
+    // Helpers
+    private void writeOpaqueImage() throws IOException {
+        ImageIO.write(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB), "png", original.toFile());
+    }
+
+    private MediaRepresentation media() {
+        var media = new MediaRepresentation(original.getFileName().toString(), "content-hash", "image/jpeg", 1_000_000);
+        media.setWidth(4000);
+        return media;
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.grad.social.service.media;
+
+import com.grad.social.base.BaseTest;
+import com.grad.social.common.model.MediaRepresentation;
+import com.grad.social.service.media.MediaVariantService.ResizedImage;
+import org.junit.jupiter.api.Test;
+
+import org.w3c.dom.Node;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MediaVariantServiceTest extends BaseTest {
+
+    @Test
+    void shouldPickTheSmallestFixedWidthAtLeastAsWideAsTheRequestedOne() {
+        MediaRepresentation photo = image("image/jpeg", 4000);
+
+        assertThat(MediaVariantService.variantWidth(photo, 1)).isEqualTo(160);
+        assertThat(MediaVariantService.variantWidth(photo, 300)).isEqualTo(320);
+        assertThat(MediaVariantService.variantWidth(photo, 320)).isEqualTo(320);
+        assertThat(MediaVariantService.variantWidth(photo, 1000)).isEqualTo(1280);
+    }
+
+    @Test
+    void shouldServeTheOriginalWhenNoVariantApplies() {
+        assertThat(MediaVariantService.variantWidth(image("image/jpeg", 4000), 2000)).isZero();
+        assertThat(MediaVariantService.variantWidth(image("image/jpeg", 4000), 0)).isZero();
+        assertThat(MediaVariantService.variantWidth(image("image/jpeg", 300), 320)).isZero();
+        assertThat(MediaVariantService.variantWidth(image("image/gif", 4000), 320)).isZero();
+        assertThat(MediaVariantService.variantWidth(image("image/webp", 4000), 320)).isZero();
+        assertThat(MediaVariantService.variantWidth(image("video/mp4", 4000), 320)).isZero();
+    }
+
+    @Test
+    void shouldDownscaleAnOpaqueImageToJpeg() throws IOException {
+        // given
+        Path original = writeImage(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB), "png");
+
+        try {
+            // when
+            ResizedImage resized = MediaVariantService.resize(original, 320);
+
+            // then
+            assertThat(resized.mimeType()).isEqualTo("image/jpeg");
+            assertThat(resized.width()).isEqualTo(320);
+            assertThat(resized.height()).isEqualTo(160);
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(resized.bytes()));
+            assertThat(decoded.getWidth()).isEqualTo(320);
+            assertThat(decoded.getHeight()).isEqualTo(160);
+        } finally {
+            Files.deleteIfExists(original);
+        }
+    }
+
+    @Test
+    void shouldKeepTheTransparencyOfAnImageAsPng() throws IOException {
+        // given
+        Path original = writeImage(new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB), "png");
+
+        try {
+            // when
+            ResizedImage resized = MediaVariantService.resize(original, 160);
+
+            // then
+            assertThat(resized.mimeType()).isEqualTo("image/png");
+            assertThat(resized.height()).isEqualTo(120);
+            assertThat(ImageIO.read(new ByteArrayInputStream(resized.bytes())).getColorModel().hasAlpha()).isTrue();
+        } finally {
+            Files.deleteIfExists(original);
+        }
+    }
+
+    @Test
+    void shouldNotResizeImagesThatAreNotWiderThanTheTarget() throws IOException {
+        // given
+        Path original = writeImage(new BufferedImage(320, 200, BufferedImage.TYPE_INT_RGB), "jpeg");
+        Path notAnImage = Files.createTempFile("media-variant", ".bin");
+        Files.writeString(notAnImage, "not an image");
+
+        try {
+            // when, then
+            assertThat(MediaVariantService.resize(original, 320)).isNull();
+            assertThat(MediaVariantService.resize(notAnImage, 320)).isNull();
+        } finally {
+            Files.deleteIfExists(original);
+            Files.deleteIfExists(notAnImage);
+        }
+    }
+
+    @Test
+    void shouldApplyTheExifOrientationBeforeScaling() throws IOException {
+        // given a landscape photo to be rotated 90 degrees clockwise, red on its top half
+        BufferedImage stored = new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = stored.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 1000, 250);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, 250, 1000, 250);
+        graphics.dispose();
+        Path original = writeJpegWithOrientation(stored, 6);
+
+        try {
+            // when
+            ResizedImage resized = MediaVariantService.resize(original, 320);
+
+            // then the variant is upright: a portrait, red on its right half
+            assertThat(resized.width()).isEqualTo(320);
+            assertThat(resized.height()).isEqualTo(640);
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(resized.bytes()));
+            assertThat(decoded.getHeight()).isEqualTo(640);
+            assertThat(new Color(decoded.getRGB(300, 320)).getRed()).isGreaterThan(200);
+            assertThat(new Color(decoded.getRGB(20, 320)).getBlue()).isGreaterThan(200);
+        } finally {
+            Files.deleteIfExists(original);
+        }
+    }
+
+    @Test
+    void shouldOnlyConsiderFailuresOfTheDecoderPermanent() {
+        assertThat(MediaVariantService.isPermanentDecodeFailure(new IIOException("Unsupported Image Type"))).isTrue();
+        assertThat(MediaVariantService.isPermanentDecodeFailure(new IIOException("Error reading PNG image data", new ZipException("invalid block type")))).isTrue();
+        assertThat(MediaVariantService.isPermanentDecodeFailure(new IllegalArgumentException("Invalid scanline stride"))).isTrue();
+        assertThat(MediaVariantService.isPermanentDecodeFailure(new IIOException("Error reading PNG image data", new IOException("Input/output error")))).isFalse();
+    }
+
+
+    // Helpers
+    private static MediaRepresentation image(String mimeType, int width) {
+        var media = new MediaRepresentation("file", "content-hash", mimeType, 1_000_000);
+        media.setWidth(width);
+        return media;
+    }
+
+    private static Path writeJpegWithOrientation(BufferedImage image, int orientation) throws IOException {
+        // APP1: "Exif\0\0", big endian TIFF header, IFD0 with the Orientation tag (SHORT) only
+        ByteBuffer exif = ByteBuffer.allocate(6 + 8 + 2 + 12 + 4);
+        exif.put("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1)).put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8)
+                .putShort((short) 1).putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0)
+                .putInt(0);
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        Path file = Files.createTempFile("media-variant", ".jpeg");
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param);
+            String format = "javax_imageio_jpeg_image_1.0";
+            IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+            IIOMetadataNode variety = (IIOMetadataNode) root.getElementsByTagName("JPEGvariety").item(0);
+            while (variety.hasChildNodes()) {
+                variety.removeChild(variety.getFirstChild());
+            }
+            IIOMetadataNode app1 = new IIOMetadataNode("unknown");
+            app1.setAttribute("MarkerTag", "225");
+            app1.setUserObject(exif.array());
+            Node markerSequence = root.getElementsByTagName("markerSequence").item(0);
+            markerSequence.insertBefore(app1, markerSequence.getFirstChild());
+            metadata.setFromTree(format, root);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, metadata), param);
+        } finally {
+            writer.dispose();
+        }
+        return file;
+    }
+
+    private static Path writeImage(BufferedImage image, String format) throws IOException {
+        Path file = Files.createTempFile("media-variant", "." + format);
+        ImageIO.write(image, format, file.toFile());
+        return file;
+    }
+
+}
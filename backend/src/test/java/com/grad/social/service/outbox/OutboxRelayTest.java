@@ -0,0 +1,180 @@
+package com.grad.social.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grad.social.base.BaseRepositoryTest;
+import com.grad.social.model.tables.records.OutboxEventsRecord;
+import com.grad.social.repository.outbox.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.grad.social.model.tables.OutboxConsumptions.OUTBOX_CONSUMPTIONS;
+import static com.grad.social.model.tables.OutboxEvents.OUTBOX_EVENTS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({OutboxRepository.class})
+@Sql("classpath:/repository/outbox-test-data.sql")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // handlers run in their own transactions
+class OutboxRelayTest extends BaseRepositoryTest {
+
+    @Autowired
+    OutboxRepository outboxRepository;
+
+    @Autowired
+    DSLContext dsl;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void shouldDeliverEventsToTheHandlersOfTheirType() {
+        // given
+        RecordingHandler recording = new RecordingHandler();
+        OutboxRelay relay = relay(3, recording);
+        publish("ping:1", "hello");
+        publish("ping:2", "world");
+        outboxRepository.save("OtherEvent", "{}", "other:1");
+
+        // when
+        relay.relay();
+
+        // then
+        assertThat(recording.received).containsExactly("hello", "world");
+        assertThat(outboxRepository.countPending()).isZero();
+    }
+
+    @Test
+    void shouldRetryAFailedEventWithoutRedeliveringItToTheHandlersThatConsumedIt() {
+        // given
+        RecordingHandler recording = new RecordingHandler();
+        FlakyHandler flaky = new FlakyHandler(1);
+        OutboxRelay relay = relay(3, recording, flaky);
+        publish("ping:1", "hello");
+        relay.relay();
+        OutboxEventsRecord failed = event("ping:1");
+
+        // when
+        makeDue("ping:1");
+        relay.relay();
+
+        // then
+        assertThat(failed.getProcessedAt()).isNull();
+        assertThat(failed.getLastError()).contains("flaky");
+        assertThat(failed.getAvailableAt()).isAfter(Instant.now());
+        assertThat(recording.received).containsExactly("hello");
+        assertThat(flaky.received).containsExactly("hello");
+        OutboxEventsRecord processed = event("ping:1");
+        assertThat(processed.getProcessedAt()).isNotNull();
+        assertThat(processed.getLastError()).isNull();
+        assertThat(dsl.fetchCount(OUTBOX_CONSUMPTIONS, OUTBOX_CONSUMPTIONS.EVENT_ID.eq(processed.getId()))).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRollBackTheConsumptionOfAFailedHandler() {
+        // given
+        FlakyHandler flaky = new FlakyHandler(1);
+        OutboxRelay relay = relay(3, flaky);
+        publish("ping:1", "hello");
+
+        // when
+        relay.relay();
+
+        // then
+        assertThat(dsl.fetchCount(OUTBOX_CONSUMPTIONS)).isZero();
+    }
+
+    @Test
+    void shouldGiveUpAnEventAfterMaxAttempts() {
+        // given
+        FlakyHandler alwaysFailing = new FlakyHandler(Integer.MAX_VALUE);
+        OutboxRelay relay = relay(2, alwaysFailing);
+        publish("ping:1", "poison");
+        relay.relay();
+        makeDue("ping:1");
+        relay.relay();
+
+        // when
+        makeDue("ping:1");
+        relay.relay();
+
+        // then
+        assertThat(alwaysFailing.failures).isEqualTo(2);
+        assertThat(event("ping:1").getAttempts()).isEqualTo(2);
+        assertThat(event("ping:1").getProcessedAt()).isNull();
+    }
+
+
+    // Helpers
+    private OutboxRelay relay(int maxAttempts, OutboxHandler<?>... handlers) {
+        return new OutboxRelay(outboxRepository, new ObjectMapper(), transactionManager, new SimpleMeterRegistry(), List.of(handlers), 100, maxAttempts, 60);
+    }
+
+    private void publish(String idempotencyKey, String text) {
+        outboxRepository.save(PingEvent.class.getSimpleName(), "{\"text\": \"" + text + "\"}", idempotencyKey);
+    }
+
+    private OutboxEventsRecord event(String idempotencyKey) {
+        return dsl.fetchOne(OUTBOX_EVENTS, OUTBOX_EVENTS.IDEMPOTENCY_KEY.eq(idempotencyKey));
+    }
+
+    // skips the backoff
+    private void makeDue(String idempotencyKey) {
+        dsl.update(OUTBOX_EVENTS)
+                .set(OUTBOX_EVENTS.AVAILABLE_AT, DSL.currentInstant())
+                .where(OUTBOX_EVENTS.IDEMPOTENCY_KEY.eq(idempotencyKey))
+                .execute();
+    }
+
+    record PingEvent(String text) {}
+
+    static class RecordingHandler implements OutboxHandler<PingEvent> {
+        final List<String> received = new ArrayList<>();
+
+        @Override
+        public Class<PingEvent> eventType() {
+            return PingEvent.class;
+        }
+
+        @Override
+        public void handle(PingEvent event) {
+            received.add(event.text());
+        }
+    }
+
+    // fails the first `failing` deliveries
+    static class FlakyHandler implements OutboxHandler<PingEvent> {
+        final List<String> received = new ArrayList<>();
+        private final int failing;
+        int failures;
+
+        FlakyHandler(int failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public Class<PingEvent> eventType() {
+            return PingEvent.class;
+        }
+
+        @Override
+        public void handle(PingEvent event) {
+            if (failures < failing) {
+                failures++;
+                throw new IllegalStateException("flaky");
+            }
+            received.add(event.text());
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.grad.social.service.status;
+
+import com.grad.social.base.BaseMockedUnitTest;
+import com.grad.social.repository.status.StatusCountersRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LikeCountersBufferTest extends BaseMockedUnitTest {
+    @Mock
+    private StatusCountersRepository statusCountersRepository;
+
+    private LikeCountersBuffer likeCountersBuffer;
+
+    @BeforeEach
+    void setUp() {
+        likeCountersBuffer = new LikeCountersBuffer(statusCountersRepository, new SimpleMeterRegistry(), 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldMergePendingDeltasIntoReads() {
+        // given
+        likeCountersBuffer.record(1L, 1);
+        likeCountersBuffer.record(1L, 1);
+        likeCountersBuffer.record(2L, -1);
+
+        // when
+        int likesOfFirst = likeCountersBuffer.mergePending(1L, 3);
+        int likesOfSecond = likeCountersBuffer.mergePending(2L, 0);
+
+        // then
+        assertThat(likesOfFirst).isEqualTo(5);
+        assertThat(likesOfSecond).isZero();
+    }
+
+    @Test
+    void shouldFlushTheSumOfTheDeltasOfEveryStatus() {
+        // given
+        likeCountersBuffer.record(1L, 1);
+        likeCountersBuffer.record(1L, 1);
+        likeCountersBuffer.record(2L, -1);
+        likeCountersBuffer.record(3L, 1);
+        likeCountersBuffer.record(3L, -1);
+
+        // when
+        likeCountersBuffer.flush();
+
+        // then the like undone is flushed too, as a zero delta
+        verify(statusCountersRepository).applyLikesDeltas(Map.of(1L, 2L));
+        verify(statusCountersRepository).applyLikesDeltas(Map.of(2L, -1L));
+        verify(statusCountersRepository).applyLikesDeltas(Map.of(3L, 0L));
+        verify(statusCountersRepository).saveLikesFlushWatermark(anyString(), any(Duration.class));
+        verifyNoMoreInteractions(statusCountersRepository);
+        assertThat(likeCountersBuffer.mergePending(1L, 2)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepTheDeltasOfAFailedFlushForTheNextOne() {
+        // given
+        likeCountersBuffer.record(1L, 1);
+        doThrow(new IllegalStateException("db down")).doNothing().when(statusCountersRepository).applyLikesDeltas(anyMap());
+        likeCountersBuffer.flush();
+        likeCountersBuffer.record(1L, 1);
+
+        // when
+        int likesAfterFailure = likeCountersBuffer.mergePending(1L, 0);
+        likeCountersBuffer.flush();
+
+        // then
+        assertThat(likesAfterFailure).isEqualTo(2);
+        verify(statusCountersRepository).applyLikesDeltas(Map.of(1L, 1L));
+        verify(statusCountersRepository).applyLikesDeltas(Map.of(1L, 2L));
+        assertThat(likeCountersBuffer.mergePending(1L, 2)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldBufferALikeOnlyOnceItsTransactionCommits() {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+        likeCountersBuffer.record(1L, 1);
+        likeCountersBuffer.record(2L, 1);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // when
+        int likesBeforeCommit = likeCountersBuffer.mergePending(1L, 0);
+        synchronizations.getFirst().afterCommit();
+        synchronizations.getLast().afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // then
+        assertThat(likesBeforeCommit).isZero();
+        assertThat(likeCountersBuffer.mergePending(1L, 0)).isEqualTo(1);
+        assertThat(likeCountersBuffer.mergePending(2L, 0)).isZero();
+    }
+
+    @Test
+    void shouldSaveAFlushWatermarkOnlyOnceEveryDeltaIsFlushed() {
+        // given
+        likeCountersBuffer.record(1L, 1);
+        doThrow(new IllegalStateException("db down")).doNothing().when(statusCountersRepository).applyLikesDeltas(anyMap());
+
+        // when
+        likeCountersBuffer.flush();
+
+        // then
+        verify(statusCountersRepository, never()).saveLikesFlushWatermark(anyString(), any(Duration.class));
+
+        // when
+        likeCountersBuffer.flush();
+
+        // then
+        verify(statusCountersRepository).saveLikesFlushWatermark(anyString(), any(Duration.class));
+    }
+
+    @Test
+    void shouldFlushAsSoonAsEnoughDeltasArePending() {
+        // given
+        likeCountersBuffer = new LikeCountersBuffer(statusCountersRepository, new SimpleMeterRegistry(), 3);
+
+        // when
+        likeCountersBuffer.record(1L, 1);
+        likeCountersBuffer.record(2L, 1);
+        likeCountersBuffer.record(3L, 1);
+
+        // then
+        verify(statusCountersRepository, timeout(5_000).atLeastOnce()).applyLikesDeltas(anyMap());
+    }
+
+    @Test
+    void shouldDrainThePendingDeltas() {
+        // given
+        likeCountersBuffer.record(1L, -1);
+
+        // when
+        likeCountersBuffer.drain();
+
+        // then
+        verify(statusCountersRepository).applyLikesDeltas(Map.of(1L, -1L));
+        verify(statusCountersRepository).deleteLikesFlushWatermark(anyString());
+        assertThat(likeCountersBuffer.mergePending(1L, 1)).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.grad.social.service.status;
+
+import com.grad.social.base.BaseMockedUnitTest;
+import com.grad.social.repository.status.StatusHydrationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class MentionResolverTest extends BaseMockedUnitTest {
+    @Mock
+    private StatusHydrationRepository statusHydrationRepository;
+
+    private MentionResolver mentionResolver;
+
+    @BeforeEach
+    void setUp() {
+        mentionResolver = new MentionResolver(statusHydrationRepository, new SimpleMeterRegistry(), 100, 300);
+    }
+
+    @Test
+    void shouldKeepTheMentionsOfExistingUsersInTheirOrder() {
+        // given
+        when(statusHydrationRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("alice", "bob"));
+
+        // when
+        Map<Long, List<String>> resolved = mentionResolver.resolve(Map.of(
+                1L, List.of("bob", "ghost", "alice"),
+                2L, List.of("ghost")));
+
+        // then
+        assertThat(resolved).containsOnly(Map.entry(1L, List.of("bob", "alice")), Map.entry(2L, List.of()));
+        verify(statusHydrationRepository).findExistingUsernames(anyCollection());
+    }
+
+    @Test
+    void shouldLookUpOnlyTheUsernamesNotCachedYet() {
+        // given unknown usernames are cached too
+        when(statusHydrationRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("alice"), List.of("bob"));
+        mentionResolver.resolve(Map.of(1L, List.of("alice", "ghost")));
+
+        // when
+        Map<Long, List<String>> resolved = mentionResolver.resolve(Map.of(2L, List.of("ghost", "bob", "alice")));
+
+        // then
+        assertThat(resolved).containsExactly(Map.entry(2L, List.of("bob", "alice")));
+        verify(statusHydrationRepository).findExistingUsernames(List.of("bob"));
+    }
+
+    @Test
+    void shouldNotQueryStatusesWithoutMentions() {
+        // given
+        Map<Long, List<String>> mentions = Map.of(1L, List.of(), 2L, List.of());
+
+        // when
+        Map<Long, List<String>> resolved = mentionResolver.resolve(mentions);
+
+        // then
+        assertThat(resolved).isEqualTo(mentions);
+        verifyNoInteractions(statusHydrationRepository);
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.grad.social.service.status;
+
+import com.grad.social.base.BaseTest;
+import com.grad.social.model.status.helper.PreClassification;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModerationPreClassifierTest extends BaseTest {
+
+    private ModerationPreClassifier preClassifier;
+
+    @BeforeAll
+    void setUp() throws IOException {
+        preClassifier = new ModerationPreClassifier(new ClassPathResource("moderation/lexicon.tsv"), ModerationPreClassifier.Mode.ENFORCE, 0.1, 0.8);
+    }
+
+    @Test
+    void shouldClearHarmlessEnglishContents() {
+        // when
+        PreClassification preClassification = preClassifier.classify("Thanks to all of you who came to the release party this weekend");
+
+        // then
+        assertThat(preClassification.verdict()).isEqualTo(PreClassification.Verdict.SAFE);
+    }
+
+    @Test
+    void shouldNotClearContentsInLanguagesTheLexiconDoesNotCover() {
+        // when
+        PreClassification arabic = preClassifier.classify("شكرا لكل من حضر حفل الإطلاق في عطلة نهاية الأسبوع");
+        PreClassification spanish = preClassifier.classify("Gracias a todos los que vinieron a la fiesta del lanzamiento este fin de semana");
+
+        // then
+        assertThat(arabic.verdict()).isEqualTo(PreClassification.Verdict.AMBIGUOUS);
+        assertThat(spanish.verdict()).isEqualTo(PreClassification.Verdict.AMBIGUOUS);
+    }
+
+    @Test
+    void shouldNotClearContentsTooShortToTell() {
+        // when
+        PreClassification preClassification = preClassifier.classify("lol");
+
+        // then
+        assertThat(preClassification.verdict()).isEqualTo(PreClassification.Verdict.AMBIGUOUS);
+    }
+}
@@ -0,0 +1,43 @@
+package com.grad.social.service.status;
+
+import com.grad.social.base.BaseTest;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModerationResultCacheTest extends BaseTest {
+
+    @Test
+    void shouldNormalizeFormattingAway() {
+        assertThat(ModerationResultCache.normalize("  Buy   NOW\n\tcheap\u200B pills ")).isEqualTo("buy now cheap pills");
+        assertThat(ModerationResultCache.normalize("ｆｕｌｌ width")).isEqualTo("full width");
+        assertThat(ModerationResultCache.normalize("Same Text")).isEqualTo(ModerationResultCache.normalize("same text"));
+    }
+
+    @Test
+    void shouldKeepTheCaseOfLinkPathsAndQueries() {
+        assertThat(ModerationResultCache.normalize("Watch https://www.YouTube.com/watch?v=dQw4w9WgXcQ NOW"))
+                .isEqualTo("watch youtube.com/watch?v=dQw4w9WgXcQ now");
+    }
+
+    @Test
+    void shouldTellLinksWithDifferentQueriesApart() {
+        assertThat(ModerationResultCache.canonicalizeUrl("https://youtube.com/watch?v=first"))
+                .isNotEqualTo(ModerationResultCache.canonicalizeUrl("https://youtube.com/watch?v=second"));
+    }
+
+    @Test
+    void shouldDropTheSchemeWwwTrackingParametersFragmentAndTrailingSlashes() {
+        assertThat(ModerationResultCache.canonicalizeUrl("HTTPS://WWW.Example.COM/Shop/?utm_source=x&id=42&fbclid=abc&UTM_MEDIUM=y#reviews"))
+                .isEqualTo("example.com/Shop?id=42");
+        assertThat(ModerationResultCache.canonicalizeUrl("http://example.com/?gclid=abc")).isEqualTo("example.com");
+        assertThat(ModerationResultCache.canonicalizeUrl("www.example.com")).isEqualTo("example.com");
+    }
+
+    @Test
+    void shouldKeepTheOrderAndValuesOfTheRemainingParameters() {
+        assertThat(ModerationResultCache.canonicalizeUrl("https://example.com/search?q=Free+Money&page=2&ref_src=twsrc"))
+                .isEqualTo("example.com/search?q=Free+Money&page=2");
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.grad.social.service.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grad.social.base.BaseMockedUnitTest;
+import com.grad.social.model.enums.StatusAudience;
+import com.grad.social.model.enums.StatusPrivacy;
+import com.grad.social.model.shared.UserAvatar;
+import com.grad.social.model.status.helper.StatusSkeleton;
+import com.grad.social.model.status.helper.StatusViewerOverlay;
+import com.grad.social.model.status.response.StatusResponse;
+import com.grad.social.repository.status.StatusHydrationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StatusHydratorTest extends BaseMockedUnitTest {
+    private static final Long VIEWER_ID = 9L;
+    private static final UserAvatar OWNER = new UserAvatar(1L, "owner", "Owner", new byte[]{1, 2, 3});
+
+    @Mock
+    private StatusHydrationRepository statusHydrationRepository;
+    @Mock
+    private LikeCountersBuffer likeCountersBuffer;
+    @Mock
+    private MentionResolver mentionResolver;
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private StatusHydrator statusHydrator;
+
+    @BeforeEach
+    void setUp() {
+        statusHydrator = new StatusHydrator(statusHydrationRepository, likeCountersBuffer, mentionResolver, redisTemplate,
+                new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry(), 100, 60, 600, 100, 60);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(anyList())).thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), null));
+        when(mentionResolver.resolve(anyMap())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(statusHydrationRepository.fetchAvatars(anyCollection())).thenReturn(List.of(OWNER));
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<?>>getArgument(0).execute(redisTemplate);
+            return List.of();
+        });
+    }
+
+    @Test
+    void shouldCacheTheOwnerIdOfAStatusButNotItsAvatar() {
+        // given
+        when(statusHydrationRepository.fetchSkeletons(anyCollection())).thenReturn(List.of(skeleton(11L)));
+        when(statusHydrationRepository.fetchViewerOverlays(eq(VIEWER_ID), anyCollection())).thenReturn(List.of(overlay(11L)));
+
+        // when
+        StatusResponse status = statusHydrator.hydrate(VIEWER_ID, 11L);
+
+        // then
+        assertThat(status.userAvatar()).isEqualTo(OWNER);
+        ArgumentCaptor<String> cached = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).set(eq("status:skeleton:v2:11"), cached.capture(), any(Duration.class));
+        assertThat(cached.getValue()).contains("\"ownerId\":1").doesNotContain("profilePicture");
+    }
+
+    @Test
+    void shouldLoadTheAvatarOfAnOwnerOnceWhileItIsCached() {
+        // given
+        when(statusHydrationRepository.fetchSkeletons(anyCollection())).thenReturn(List.of(skeleton(11L), skeleton(12L)));
+        when(statusHydrationRepository.fetchViewerOverlays(eq(VIEWER_ID), anyCollection())).thenReturn(List.of(overlay(11L), overlay(12L)));
+
+        // when
+        List<StatusResponse> first = statusHydrator.hydrate(VIEWER_ID, List.of(11L, 12L));
+        List<StatusResponse> second = statusHydrator.hydrate(VIEWER_ID, List.of(11L, 12L));
+
+        // then
+        assertThat(first).extracting(StatusResponse::userAvatar).containsExactly(OWNER, OWNER);
+        assertThat(second).extracting(StatusResponse::userAvatar).containsExactly(OWNER, OWNER);
+        verify(statusHydrationRepository).fetchAvatars(List.of(1L));
+    }
+
+    @Test
+    void shouldWriteTheSkeletonsOfABatchToRedisInOnePipeline() {
+        // given
+        when(statusHydrationRepository.fetchSkeletons(anyCollection())).thenReturn(List.of(skeleton(11L), skeleton(12L)));
+        when(statusHydrationRepository.fetchViewerOverlays(eq(VIEWER_ID), anyCollection())).thenReturn(List.of(overlay(11L), overlay(12L)));
+
+        // when
+        statusHydrator.hydrate(VIEWER_ID, List.of(11L, 12L));
+
+        // then
+        verify(redisTemplate).executePipelined(any(SessionCallback.class));
+        verify(valueOperations).set(eq("status:skeleton:v2:11"), anyString(), eq(Duration.ofSeconds(600)));
+        verify(valueOperations).set(eq("status:skeleton:v2:12"), anyString(), eq(Duration.ofSeconds(600)));
+    }
+
+
+    // Helpers
+    private static StatusSkeleton skeleton(Long statusId) {
+        return new StatusSkeleton(statusId, OWNER.userId(), "Status " + statusId, false, StatusPrivacy.PUBLIC, StatusAudience.EVERYONE,
+                StatusAudience.EVERYONE, List.of(), Instant.parse("2025-01-01T10:00:00Z"), List.of(), null, null);
+    }
+
+    private static StatusViewerOverlay overlay(Long statusId) {
+        return new StatusViewerOverlay(statusId, 0, 0, 0, false, false, false, false);
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.grad.social.service.status;
+
+import com.grad.social.base.BaseMockedUnitTest;
+import com.grad.social.model.status.request.UpdateStatusContent;
+import com.grad.social.repository.status.StatusCountersRepository;
+import com.grad.social.repository.status.StatusRepository;
+import com.grad.social.repository.status.StatusThreadRepository;
+import com.grad.social.service.media.MediaService;
+import com.grad.social.service.media.MediaVariantService;
+import com.grad.social.service.notification.NotificationService;
+import com.grad.social.service.outbox.OutboxPublisher;
+import com.grad.social.service.user.AccountRestrictionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class StatusServiceTest extends BaseMockedUnitTest {
+    private static final Long STATUS_ID = 1L;
+    private static final UpdateStatusContent TO_UPDATE = new UpdateStatusContent("New content", List.of(), List.of());
+
+    @Mock
+    private StatusRepository statusRepository;
+    @Mock
+    private StatusCountersRepository statusCountersRepository;
+    @Mock
+    private StatusThreadRepository statusThreadRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private OutboxPublisher outboxPublisher;
+    @Mock
+    private MediaService mediaService;
+    @Mock
+    private MediaVariantService mediaVariantService;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private AccountRestrictionService accountRestrictionService;
+
+    private StatusService statusService;
+
+    @BeforeEach
+    void setUp() {
+        statusService = new StatusService(statusRepository, statusCountersRepository, statusThreadRepository, eventPublisher,
+                outboxPublisher, mediaService, mediaVariantService, notificationService, accountRestrictionService);
+        when(statusRepository.updateStatusContent(STATUS_ID, TO_UPDATE)).thenReturn(1);
+    }
+
+    @Test
+    void shouldLinkKnownMediaInTheOrderOfTheFilesWithOneLookup() throws Exception {
+        // given ids that do not follow the order of the files
+        when(mediaService.findMediaIdsByHashes(Set.of(sha256("a"), sha256("b"), sha256("c"))))
+                .thenReturn(Map.of(sha256("a"), 30L, sha256("b"), 10L, sha256("c"), 20L));
+
+        // when
+        statusService.updateStatusContent(STATUS_ID, TO_UPDATE, List.of(file("c"), file("a"), file("b")));
+
+        // then
+        verify(mediaService).addMediaToStatusBatch(STATUS_ID, List.of(20L, 30L, 10L), 1);
+        verify(mediaService, times(1)).findMediaIdsByHashes(any());
+        verify(mediaService, never()).insertMediaAssetsBatch(any());
+    }
+
+    @Test
+    void shouldLinkARepeatedFileOnce() throws Exception {
+        // given
+        when(mediaService.findMediaIdsByHashes(Set.of(sha256("a"), sha256("b")))).thenReturn(Map.of(sha256("a"), 30L, sha256("b"), 10L));
+
+        // when
+        statusService.updateStatusContent(STATUS_ID, TO_UPDATE, List.of(file("b"), file("a"), file("b")));
+
+        // then
+        verify(mediaService).addMediaToStatusBatch(STATUS_ID, List.of(10L, 30L), 1);
+    }
+
+
+    // Helpers
+    private static MultipartFile file(String content) {
+        return new MockMultipartFile("mediaFiles", content + ".png", "image/png", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.grad.social.service.status;
+
+import com.grad.social.base.BaseMockedUnitTest;
+import com.grad.social.model.status.StatusConstants;
+import com.grad.social.repository.user.UserStatusInteractionRepository;
+import com.grad.social.service.status.event.StatusDeletedEvent;
+import com.grad.social.service.status.event.StatusRepliedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class StatusThreadCacheTest extends BaseMockedUnitTest {
+    @Mock
+    private UserStatusInteractionRepository userStatusInteractionRepository;
+    @Mock
+    private StatusHydrator statusHydrator;
+
+    private StatusThreadCache statusThreadCache;
+
+    @BeforeEach
+    void setUp() {
+        statusThreadCache = new StatusThreadCache(userStatusInteractionRepository, statusHydrator, new SimpleMeterRegistry(), 100, 30);
+    }
+
+    @Test
+    void shouldLoadTheNewestRepliesOnceAndWarmTheirSkeletons() {
+        // given
+        when(userStatusInteractionRepository.fetchNewestReplyIds(1L, StatusConstants.THREAD_CACHED_REPLIES)).thenReturn(List.of(13L, 12L));
+
+        // when
+        List<Long> first = statusThreadCache.getNewestReplyIds(1L);
+        List<Long> second = statusThreadCache.getNewestReplyIds(1L);
+
+        // then
+        assertThat(first).containsExactly(13L, 12L);
+        assertThat(second).isEqualTo(first);
+        verify(userStatusInteractionRepository, times(1)).fetchNewestReplyIds(1L, StatusConstants.THREAD_CACHED_REPLIES);
+        verify(statusHydrator).preload(List.of(1L, 13L, 12L));
+    }
+
+    @Test
+    void shouldLoadTheRepliesAgainOnceTheStatusGotANewReply() {
+        // given
+        when(userStatusInteractionRepository.fetchNewestReplyIds(1L, StatusConstants.THREAD_CACHED_REPLIES)).thenReturn(List.of(12L), List.of(13L, 12L));
+        statusThreadCache.getNewestReplyIds(1L);
+
+        // when
+        statusThreadCache.onStatusReplied(new StatusRepliedEvent(1L, 13L));
+        List<Long> replyIds = statusThreadCache.getNewestReplyIds(1L);
+
+        // then
+        assertThat(replyIds).containsExactly(13L, 12L);
+    }
+
+    @Test
+    void shouldEvictTheRepliesOfADeletedStatus() {
+        // given
+        when(userStatusInteractionRepository.fetchNewestReplyIds(1L, StatusConstants.THREAD_CACHED_REPLIES)).thenReturn(List.of(12L));
+        statusThreadCache.getNewestReplyIds(1L);
+
+        // when
+        statusThreadCache.onStatusDeleted(new StatusDeletedEvent(1L));
+        statusThreadCache.getNewestReplyIds(1L);
+
+        // then
+        verify(userStatusInteractionRepository, times(2)).fetchNewestReplyIds(1L, StatusConstants.THREAD_CACHED_REPLIES);
+    }
+
+    @Test
+    void shouldConsiderOnlyAFullListIncomplete() {
+        // when
+        boolean partial = statusThreadCache.isComplete(List.of(12L));
+        boolean full = statusThreadCache.isComplete(Collections.nCopies(StatusConstants.THREAD_CACHED_REPLIES, 12L));
+
+        // then
+        assertThat(partial).isTrue();
+        assertThat(full).isFalse();
+    }
+
+}
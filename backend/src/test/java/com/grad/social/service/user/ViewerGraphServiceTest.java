@@ -0,0 +1,87 @@
+package com.grad.social.service.user;
+
+import com.grad.social.base.BaseMockedUnitTest;
+import com.grad.social.common.utils.LongHashSet;
+import com.grad.social.model.user.helper.ViewerGraphSnapshot;
+import com.grad.social.repository.user.UserUserInteractionRepository;
+import com.grad.social.service.feed.FeedPrefetcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ViewerGraphServiceTest extends BaseMockedUnitTest {
+    @Mock
+    private UserUserInteractionRepository userUserInteractionRepository;
+    @Mock
+    private FeedPrefetcher feedPrefetcher;
+
+    private ViewerGraphService viewerGraphService;
+
+    @BeforeEach
+    void setUp() {
+        viewerGraphService = new ViewerGraphService(userUserInteractionRepository, feedPrefetcher, new SimpleMeterRegistry(), 100, 30);
+        when(userUserInteractionRepository.fetchViewerGraph(1L)).thenAnswer(_ -> snapshot());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldInvalidateTheSnapshotOnceTheMutationCommits() {
+        // given
+        viewerGraphService.getSnapshot(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        viewerGraphService.invalidate(1L);
+        viewerGraphService.getSnapshot(1L);
+
+        // then the snapshot read before the commit is the cached one
+        verify(userUserInteractionRepository, times(1)).fetchViewerGraph(1L);
+        verify(feedPrefetcher, never()).discard(anyList());
+
+        // when
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        viewerGraphService.getSnapshot(1L);
+
+        // then
+        verify(userUserInteractionRepository, times(2)).fetchViewerGraph(1L);
+        verify(feedPrefetcher).discard(List.of(1L));
+    }
+
+    @Test
+    void shouldInvalidateTheSnapshotRightAwayOutsideOfATransaction() {
+        // given
+        viewerGraphService.getSnapshot(1L);
+
+        // when
+        viewerGraphService.invalidate(1L);
+        viewerGraphService.getSnapshot(1L);
+
+        // then
+        verify(userUserInteractionRepository, times(2)).fetchViewerGraph(1L);
+        verify(feedPrefetcher).discard(List.of(1L));
+    }
+
+
+    // Helpers
+    private static ViewerGraphSnapshot snapshot() {
+        return new ViewerGraphSnapshot(1L, new LongHashSet(1), new LongHashSet(1), new LongHashSet(1), Instant.now().plus(Duration.ofDays(1)));
+    }
+
+}
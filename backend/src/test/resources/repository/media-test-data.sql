@@ -0,0 +1,38 @@
+TRUNCATE TABLE users CASCADE;
+TRUNCATE TABLE chats CASCADE;
+TRUNCATE TABLE media_asset CASCADE;
+
+INSERT INTO users (id, email, username, display_name, dob, gender, timezone_id)
+VALUES (1, 'sender@example.org', 'sender', 'Sender', '1990-01-01', 'MALE', 'UTC'),
+       (2, 'recipient@example.org', 'recipient', 'Recipient', '1990-01-01', 'FEMALE', 'UTC'),
+       (3, 'stranger@example.org', 'stranger', 'Stranger', '1990-01-01', 'MALE', 'UTC');
+
+-- 501 is only attached to a chat message, 502 to a chat message and a status, 503 to a public status only, 504 to nothing,
+-- 505 to a public and a followers only status
+INSERT INTO media_asset (media_id, content_hash, filename_hash, mime_type, size_bytes)
+VALUES (501, 'hash-501', 'hash-501.png', 'image/png', 100),
+       (502, 'hash-502', 'hash-502.png', 'image/png', 100),
+       (503, 'hash-503', 'hash-503.mp4', 'video/mp4', 100),
+       (504, 'hash-504', 'hash-504.png', 'image/png', 100),
+       (505, 'hash-505', 'hash-505.png', 'image/png', 100);
+
+INSERT INTO chats (chat_id, is_group_chat)
+VALUES (10, FALSE);
+
+INSERT INTO chat_participants (chat_id, user_id)
+VALUES (10, 1),
+       (10, 2);
+
+INSERT INTO messages (message_id, chat_id, sender_id, message_type, media_id)
+VALUES (1001, 10, 1, 'IMAGE', 501),
+       (1002, 10, 2, 'IMAGE', 502);
+
+INSERT INTO statuses (id, content, user_id, privacy)
+VALUES (601, 'Status with media', 1, 'PUBLIC'),
+       (602, 'Status for followers', 1, 'FOLLOWERS');
+
+INSERT INTO status_media (status_id, media_id, position)
+VALUES (601, 502, 1),
+       (601, 503, 2),
+       (601, 505, 3),
+       (602, 505, 1);
@@ -0,0 +1,9 @@
+TRUNCATE TABLE users CASCADE;
+
+INSERT INTO users (id, email, username, display_name, dob, gender, timezone_id)
+VALUES (1, 'author@example.org', 'author', 'Author', '1990-01-01', 'MALE', 'UTC');
+
+INSERT INTO statuses (id, content, user_id, privacy, created_at)
+VALUES (401, 'First status', 1, 'PUBLIC', '2025-01-01 10:00:00+00'),
+       (402, 'Second status', 1, 'PUBLIC', '2025-01-01 11:00:00+00'),
+       (403, 'Third status', 1, 'PUBLIC', '2025-01-01 12:00:00+00');
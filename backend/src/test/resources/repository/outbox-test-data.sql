@@ -0,0 +1,2 @@
+-- the outbox tests commit (they check row locks across transactions), so they start from an empty outbox
+TRUNCATE TABLE outbox_events CASCADE;
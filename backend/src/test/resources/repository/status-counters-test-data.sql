@@ -0,0 +1,25 @@
+TRUNCATE TABLE users CASCADE;
+
+INSERT INTO users (id, email, username, display_name, dob, gender, timezone_id)
+VALUES (1, 'author@example.org', 'author', 'Author', '1990-01-01', 'MALE', 'UTC'),
+       (2, 'fan@example.org', 'fan', 'Fan', '1990-01-01', 'FEMALE', 'UTC'),
+       (3, 'other.fan@example.org', 'other_fan', 'Other Fan', '1990-01-01', 'MALE', 'UTC');
+
+-- 201 has two likes, a reply and a share, 202 has nothing, 203 has no counters row (inserted outside the application)
+INSERT INTO statuses (id, content, user_id, privacy, created_at, parent_status_id, parent_association)
+VALUES (201, 'Root status', 1, 'PUBLIC', '2025-01-01 10:00:00+00', NULL, NULL),
+       (202, 'Quiet status', 1, 'PUBLIC', '2025-01-01 09:00:00+00', NULL, NULL),
+       (203, 'Imported status', 1, 'PUBLIC', '2025-01-01 08:00:00+00', NULL, NULL),
+       (204, 'A reply', 2, 'PUBLIC', '2025-01-01 11:00:00+00', 201, 'REPLY'),
+       (205, 'A share', 3, 'PUBLIC', '2025-01-01 12:00:00+00', 201, 'SHARE');
+
+INSERT INTO status_likes (status_id, user_id)
+VALUES (201, 2),
+       (201, 3);
+
+-- counters in sync with the rows above (203 excepted)
+INSERT INTO status_counters (status_id, num_likes, num_replies, num_shares)
+VALUES (201, 2, 1, 1),
+       (202, 0, 0, 0),
+       (204, 0, 0, 0),
+       (205, 0, 0, 0);
@@ -0,0 +1,12 @@
+TRUNCATE TABLE users CASCADE;
+
+INSERT INTO users (id, email, username, display_name, dob, gender, timezone_id)
+VALUES (1, 'author@example.org', 'author', 'Author', '1990-01-01', 'MALE', 'UTC'),
+       (2, 'replier@example.org', 'replier', 'Replier', '1990-01-01', 'FEMALE', 'UTC');
+
+-- 301 starts the conversation, 302 and 304 reply to it, 303 replies to 302 (indexed by the tests)
+INSERT INTO statuses (id, content, user_id, privacy, created_at, parent_status_id, parent_association)
+VALUES (301, 'Root status', 1, 'PUBLIC', '2025-01-01 10:00:00+00', NULL, NULL),
+       (302, 'First reply', 2, 'PUBLIC', '2025-01-01 11:00:00+00', 301, 'REPLY'),
+       (303, 'Reply to the first reply', 1, 'PUBLIC', '2025-01-01 12:00:00+00', 302, 'REPLY'),
+       (304, 'Second reply', 2, 'PUBLIC', '2025-01-01 13:00:00+00', 301, 'REPLY');
@@ -0,0 +1,35 @@
+TRUNCATE TABLE users CASCADE;
+
+-- users (1 is the author, 2..5 follow it, 6 follows nobody)
+INSERT INTO users (id, email, username, display_name, dob, gender, timezone_id)
+VALUES (1, 'author@example.org', 'author', 'Author', '1990-01-01', 'MALE', 'UTC'),
+       (2, 'follower@example.org', 'follower', 'Follower', '1990-01-01', 'FEMALE', 'UTC'),
+       (3, 'blocker@example.org', 'blocker', 'Blocker', '1990-01-01', 'MALE', 'UTC'),
+       (4, 'muter@example.org', 'muter', 'Muter', '1990-01-01', 'FEMALE', 'UTC'),
+       (5, 'expired.muter@example.org', 'expired_muter', 'Expired Muter', '1990-01-01', 'MALE', 'UTC'),
+       (6, 'stranger@example.org', 'stranger', 'Stranger', '1990-01-01', 'FEMALE', 'UTC');
+
+-- followers
+INSERT INTO user_followers (followed_user_id, follower_id)
+VALUES (1, 2),
+       (1, 3),
+       (1, 4),
+       (1, 5);
+
+-- blocks and mutes
+INSERT INTO user_blocks (user_id, blocked_user_id)
+VALUES (3, 1);
+
+INSERT INTO user_mutes (user_id, muted_user_id, muted_until)
+VALUES (4, 1, NULL),
+       (5, 1, '2000-01-01 00:00:00+00');
+
+-- statuses of the author, newest first
+INSERT INTO statuses (id, content, user_id, privacy, created_at, parent_status_id, parent_association, reply_audience, share_audience)
+VALUES (101, 'Public status', 1, 'PUBLIC', '2025-01-01 10:00:00+00', NULL, NULL, 'EVERYONE', 'EVERYONE'),
+       (102, 'Followers status', 1, 'FOLLOWERS', '2025-01-01 09:00:00+00', NULL, NULL, 'FOLLOWERS', 'FOLLOWERS'),
+       (103, 'Private status', 1, 'PRIVATE', '2025-01-01 08:00:00+00', NULL, NULL, 'ONLY_ME', 'ONLY_ME'),
+       (104, 'Reply to itself', 1, 'PUBLIC', '2025-01-01 07:00:00+00', 101, 'REPLY', 'EVERYONE', 'EVERYONE'),
+       (105, 'Share of itself', 1, 'PUBLIC', '2025-01-01 06:00:00+00', 101, 'SHARE', 'EVERYONE', 'EVERYONE'),
+       -- same creation time as 105, ties are broken by id
+       (106, 'Older public status', 1, 'PUBLIC', '2025-01-01 06:00:00+00', NULL, NULL, 'EVERYONE', 'EVERYONE');
@@ -0,0 +1,14 @@
+TRUNCATE TABLE users CASCADE;
+
+INSERT INTO users (id, email, username, display_name, dob, gender, timezone_id)
+VALUES (1, 'spammer@example.org', 'spammer', 'Spammer', '1990-01-01', 'MALE', 'UTC'),
+       (2, 'other@example.org', 'other', 'Other', '1990-01-01', 'FEMALE', 'UTC');
+
+INSERT INTO statuses (id, content, user_id, privacy, created_at)
+VALUES (301, 'First unsafe status', 1, 'PUBLIC', '2025-01-01 10:00:00+00'),
+       (302, 'Second unsafe status', 1, 'PUBLIC', '2025-01-02 10:00:00+00'),
+       (303, 'Unsafe status of another user', 2, 'PUBLIC', '2025-01-02 11:00:00+00');
+
+INSERT INTO content_moderation (status_id, severity, category, description)
+VALUES (301, 4, 'Hate', 'First unsafe status'),
+       (302, 3, 'Harassment', 'Second unsafe status');
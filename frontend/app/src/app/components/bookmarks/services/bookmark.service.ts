@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { BaseService } from '../../../core/services/base.service';
+import { BaseService, CursorPage } from '../../../core/services/base.service';
 import { StatusResponse } from '../../feed/models/StatusWithRepliesResponseDto';
 
 @Injectable({ providedIn: 'root' })
@@ -9,9 +9,11 @@ export class BookmarkService extends BaseService {
 
     constructor(private http: HttpClient) { super(); }
 
-    /** GET /api/bookmarks?page=0 */
+    /** GET /api/bookmarks?cursor=... (page numbers are mapped to cursors) */
     list(page = 0): Observable<StatusResponse[]> {
-        const params = new HttpParams().set('page', page.toString());
-        return this.http.get<StatusResponse[]>(`${this.baseUrl}${this.ENDPOINTS.BOOKMARKS}`, { params });
+        return this.fetchCursorPage('bookmarks', page, cursor => {
+            const params = cursor ? new HttpParams().set('cursor', cursor) : new HttpParams();
+            return this.http.get<CursorPage<StatusResponse>>(`${this.baseUrl}${this.ENDPOINTS.BOOKMARKS}`, { params });
+        });
     }
 }
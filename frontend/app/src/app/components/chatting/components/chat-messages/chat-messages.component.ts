@@ -2,7 +2,7 @@ import { Component, ElementRef, HostListener, QueryList, signal, ViewChildren, V
 import { ChatService } from '../../services/chat.service';
 import { MessageService } from '../../services/message.service';
 import { ChatResponse } from '../../models/chat-response';
-import { MessageResponse, MessageStatus, ParentMessageWithNeighbours } from '../../models/message-response';
+import { ChatMedia, MessageResponse, MessageStatus, ParentMessageWithNeighbours } from '../../models/message-response';
 import { MatMenuTrigger, MatMenu, MatMenuPanel } from '@angular/material/menu';
 import { MatSnackBar } from '@angular/material/snack-bar';
 import { CommonModule, DatePipe, formatDate } from '@angular/common';
@@ -17,6 +17,7 @@ import { finalize, Subscription } from 'rxjs';
 import { UserAvatar } from '../../../profile/models/ProfileResponseDto';
 import { MembersDialogComponent } from './members-dialog/members-dialog.component';
 import { TimestampSeekRequest } from '../../../models/TimestampSeekRequestDto';
+import { MediaService } from '../../../services/media.service';
 
 export type ScrollDirectionCustameType = 'UP' | 'DOWN' | 'NOTCHANGE';
 
@@ -86,11 +87,17 @@ export class ChatMessagesComponent implements AfterViewInit, OnDestroy {
 
   members: UserAvatar[] = [];
 
+  // object urls of the chat media by api url, revoked when the component is destroyed
+  private mediaObjectUrls = new Map<string, string>();
+  private loadingMedia = new Set<string>();
+  private mediaSubscriptions = new Subscription();
+
   constructor(
     private messageService: MessageService,
     private snackBar: MatSnackBar,
     private dialog: MatDialog,
-    private datePipe: DatePipe // NEW
+    private datePipe: DatePipe, // NEW
+    private mediaService: MediaService
   ) { }
   // fields
   currentDateIso = signal<string>('');  // ⬅️ NEW
@@ -179,9 +186,29 @@ export class ChatMessagesComponent implements AfterViewInit, OnDestroy {
     return `data:image/png;base64,${image}`;
   }
 
-  processVideo(media: string): string {
-    if (!media) return '';
-    return `data:video/mp4;base64,${media}`;
+  // undefined until the media is loaded
+  mediaUrl(media: ChatMedia): string | undefined {
+    return this.objectUrl(this.mediaService.getMediaById(media.mediaId));
+  }
+
+  // downscaled image when the api offers one, the original otherwise
+  thumbnailUrl(media: ChatMedia): string | undefined {
+    return media.thumbnailUrl ? this.objectUrl(this.mediaService.getMediaUrl(media.thumbnailUrl)) : this.mediaUrl(media);
+  }
+
+  // object url of a gated media, fetched once per component
+  private objectUrl(url: string): string | undefined {
+    const objectUrl = this.mediaObjectUrls.get(url);
+    if (objectUrl === undefined && !this.loadingMedia.has(url)) {
+      this.loadingMedia.add(url);
+      this.mediaSubscriptions.add(this.mediaService.fetchObjectUrl(url)
+        .pipe(finalize(() => this.loadingMedia.delete(url)))
+        .subscribe({
+          next: loaded => this.mediaObjectUrls.set(url, loaded),
+          error: err => console.error('Failed to load media', url, err)
+        }));
+    }
+    return objectUrl;
   }
 
   isChatSelected(): boolean {
@@ -521,6 +548,8 @@ export class ChatMessagesComponent implements AfterViewInit, OnDestroy {
     if (this.observer) this.observer.disconnect();
     this.scrollSubscriptions.forEach(sub => sub.unsubscribe());
     if (this.hideDateBubbleTimeout) clearTimeout(this.hideDateBubbleTimeout);
+    this.mediaSubscriptions.unsubscribe();
+    this.mediaObjectUrls.forEach(url => URL.revokeObjectURL(url));
   }
 
   private setupGapObservers() {
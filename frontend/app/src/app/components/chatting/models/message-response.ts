@@ -11,7 +11,7 @@ export interface MessageResponse {
   messageStatus: MessageStatus,
   parentMessageSnippet: ParentMessageSnippet;
   senderAvatar: UserAvatar;
-  media: string;
+  media?: ChatMedia;
   messageType: MediaType;
   isgab: boolean
 }
@@ -25,7 +25,17 @@ export interface ParentMessageSnippet {
   senderDisplayName: string;
   parentSenderId: number
   messageType: MediaType;
-  media?: string;
+  media?: ChatMedia;
+}
+
+// served by /media/{mediaId}, thumbnailUrl (relative to the api) is only set for images
+export interface ChatMedia {
+  mediaId: string;
+  mimeType: string;
+  sizeInBytes: number;
+  width?: number;
+  height?: number;
+  thumbnailUrl?: string;
 }
 
 export enum MessageStatus {
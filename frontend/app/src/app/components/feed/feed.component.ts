@@ -497,9 +497,12 @@ export class FeedComponent implements OnInit, AfterViewInit, OnDestroy {
             if (container) this.safeSetScrollTop(prevScrollTop);
           }
 
-          if (res.statuses.length > 0) this.page++;
+          // a page can hydrate to nothing (deleted or hidden statuses) and still have a next one
+          if (res.nextCursor != null) this.page++;
           this.notificationService.updateUnreadCounts(res.unreadMessagesCount, res.unreadNotificationsCount);
-          this.hasMoreFeed = res.statuses.length > 0;
+          this.hasMoreFeed = res.nextCursor != null;
+          // nothing was added to scroll through, fetch the next page right away
+          if (res.statuses.length === 0 && this.hasMoreFeed) this.loadFeed();
         })();
       },
       error: (err) => { console.error('Failed to load feed', err); },
@@ -4,4 +4,5 @@ export interface FeedResponse {
     statuses: StatusResponse[];
     unreadMessagesCount: number;
     unreadNotificationsCount: number;
+    nextCursor: string | null;
 }
@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { HttpClient, HttpParams } from '@angular/common/http';
+import { EMPTY, Observable, tap } from 'rxjs';
 import { AuthService } from '../../../core/services/auth.service';
 import { BaseService } from '../../../core/services/base.service';
 import { CreateStatusRequest, StatusWithRepliesResponse, UpdateStatusContent, UpdateStatusSettings } from '../models/StatusWithRepliesResponseDto';
@@ -19,7 +19,12 @@ export class StatusServices extends BaseService {
     }
 
     fetchUserFeed(page: number = 0): Observable<FeedResponse> {
-        return this.httpClient.get<FeedResponse>(`${this.baseUrl}/api/users/feed?page=${page}`, {});
+        const cursor = this.cursorOf('feed', page);
+        if (page > 0 && !cursor) return EMPTY; // the previous page was the last one
+        const params = cursor ? new HttpParams().set('cursor', cursor) : new HttpParams();
+        return this.httpClient.get<FeedResponse>(`${this.baseUrl}/api/users/feed`, { params }).pipe(
+            tap(res => this.rememberNextCursor('feed', page, res.nextCursor))
+        );
     }
 
     createStatus(request: CreateStatusRequest, mediaFiles?: File[]): Observable<string> {
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { BaseService } from '../../../core/services/base.service';
+import { BaseService, CursorPage } from '../../../core/services/base.service';
 import { StatusResponse } from '../../feed/models/StatusWithRepliesResponseDto';
 import { StatusMediaResponse } from '../models/StatusMediaResponse';
 
@@ -14,30 +14,42 @@ export class UserStatusService extends BaseService {
     }
 
     fetchUserPosts(profileOwnerId: number, page: number = 0): Observable<StatusResponse[]> {
-        return this.http.get<StatusResponse[]>(
-            `${this.baseUrl}${this.ENDPOINTS.USERS}${profileOwnerId}/posts?page=${page}`,
-            {}
+        return this.fetchCursorPage(`posts:${profileOwnerId}`, page, cursor =>
+            this.http.get<CursorPage<StatusResponse>>(
+                `${this.baseUrl}${this.ENDPOINTS.USERS}${profileOwnerId}/posts`,
+                { params: this.cursorParams(cursor) }
+            )
         );
     }
 
     fetchUserReplies(profileOwnerId: number, page: number = 0): Observable<StatusResponse[]> {
-        return this.http.get<StatusResponse[]>(
-            `${this.baseUrl}${this.ENDPOINTS.USERS}${profileOwnerId}/replies?page=${page}`,
-            {}
+        return this.fetchCursorPage(`replies:${profileOwnerId}`, page, cursor =>
+            this.http.get<CursorPage<StatusResponse>>(
+                `${this.baseUrl}${this.ENDPOINTS.USERS}${profileOwnerId}/replies`,
+                { params: this.cursorParams(cursor) }
+            )
         );
     }
 
     fetchUserMedia(profileOwnerId: number, page: number = 0): Observable<StatusMediaResponse[]> {
-        return this.http.get<StatusMediaResponse[]>(
-            `${this.baseUrl}${this.ENDPOINTS.USERS}${profileOwnerId}/media?page=${page}`,
-            {}
+        return this.fetchCursorPage(`media:${profileOwnerId}`, page, cursor =>
+            this.http.get<CursorPage<StatusMediaResponse>>(
+                `${this.baseUrl}${this.ENDPOINTS.USERS}${profileOwnerId}/media`,
+                { params: this.cursorParams(cursor) }
+            )
         );
     }
 
     fetchStatusesLiked(page: number = 0): Observable<StatusResponse[]> {
-        return this.http.get<StatusResponse[]>(
-            `${this.baseUrl}${this.ENDPOINTS.USERS}likes?page=${page}`,
-            {}
+        return this.fetchCursorPage('likes', page, cursor =>
+            this.http.get<CursorPage<StatusResponse>>(
+                `${this.baseUrl}${this.ENDPOINTS.USERS}likes`,
+                { params: this.cursorParams(cursor) }
+            )
         );
     }
+
+    private cursorParams(cursor?: string): HttpParams {
+        return cursor ? new HttpParams().set('cursor', cursor) : new HttpParams();
+    }
 }
@@ -1,12 +1,29 @@
+import { HttpClient } from '@angular/common/http';
 import { Injectable } from '@angular/core';
+import { Observable, map } from 'rxjs';
 import { BaseService } from '../../core/services/base.service';
 
 @Injectable({ providedIn: 'root' })
 export class MediaService extends BaseService {
 
+    constructor(private httpClient: HttpClient) {
+        super()
+    }
+
     getMediaById(mediaId: string): string {
         return `${this.baseUrl}${this.ENDPOINTS.Media}${mediaId}`
 
     }
+
+    // urls returned by the api (e.g. thumbnails), relative to it
+    getMediaUrl(path: string): string {
+        return `${this.baseUrl}${path}`
+    }
+
+    // chat attachments are only served to the participants of the chat, <img src> cannot send the token so the bytes are fetched
+    // (through the auth interceptor) and shown from an object url, to be revoked by the caller
+    fetchObjectUrl(url: string): Observable<string> {
+        return this.httpClient.get(url, { responseType: 'blob' }).pipe(map(blob => URL.createObjectURL(blob)))
+    }
 }
 
@@ -1,5 +1,12 @@
 import { Injectable } from "@angular/core";
+import { Observable, map, of, tap } from "rxjs";
 import { environment } from "../../../environments/environment";
+
+/** Page of a cursor-paginated endpoint, nextCursor is null on the last page */
+export interface CursorPage<T> {
+  content: T[];
+  nextCursor: string | null;
+}
 @Injectable({ providedIn: 'root' })
 
 export class BaseService {
@@ -28,4 +35,30 @@ export class BaseService {
   };
 
   protected readonly baseUrl = environment.apiBaseUrl;
+
+  // cursors of the pages already reached, keyed by `${listKey}|${page}`
+  private readonly pageCursors = new Map<string, string>();
+
+  protected cursorOf(listKey: string, page: number): string | undefined {
+    if (page === 0) {
+      Array.from(this.pageCursors.keys())
+        .filter(key => key.startsWith(`${listKey}|`))
+        .forEach(key => this.pageCursors.delete(key));
+    }
+    return this.pageCursors.get(`${listKey}|${page}`);
+  }
+
+  protected rememberNextCursor(listKey: string, page: number, nextCursor: string | null): void {
+    if (nextCursor) this.pageCursors.set(`${listKey}|${page + 1}`, nextCursor);
+  }
+
+  /** Maps the page numbers used by components to the opaque cursors returned by the backend */
+  protected fetchCursorPage<T>(listKey: string, page: number, fetch: (cursor?: string) => Observable<CursorPage<T>>): Observable<T[]> {
+    const cursor = this.cursorOf(listKey, page);
+    if (page > 0 && !cursor) return of([]); // the previous page was the last one
+    return fetch(cursor).pipe(
+      tap(res => this.rememberNextCursor(listKey, page, res.nextCursor)),
+      map(res => res.content)
+    );
+  }
 }